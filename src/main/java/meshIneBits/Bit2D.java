@@ -33,6 +33,9 @@ package meshIneBits;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.util.AreaTool;
 import meshIneBits.util.CutPathCalc;
+import meshIneBits.util.PackedArea;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
 import meshIneBits.util.Segment2D;
 import meshIneBits.util.Vector2;
 import org.jetbrains.annotations.NotNull;
@@ -57,6 +60,8 @@ import java.util.Vector;
  */
 public class Bit2D implements Cloneable, Serializable {
 
+  private static final long serialVersionUID = -4214663507054523691L;
+
   /**
    * In the {@link Mesh} coordinate system
    */
@@ -245,6 +250,11 @@ public class Bit2D implements Cloneable, Serializable {
    * coordinate system
    */
   public Area getAreaCS() {
+    if (areas.size() == 1) {
+      // Nothing to unite
+      return areas.get(0)
+          .createTransformedArea(transfoMatrixCS);
+    }
     Area transformedArea = new Area();
     for (Area a : areas) {
       transformedArea.add(a);
@@ -253,6 +263,23 @@ public class Bit2D implements Cloneable, Serializable {
     return transformedArea;
   }
 
+  /**
+   * Same surface as {@link #getAreaCS()}, without building an {@link Area}
+   *
+   * @return <tt>null</tt> if a surface of this bit has curves, which would be flattened
+   */
+  public PackedArea getPackedAreaCS() {
+    PackedArea transformedArea = PackedArea.empty();
+    for (Area a : areas) {
+      if (!a.isPolygonal()) {
+        return null;
+      }
+      PackedArea surface = PackedArea.of(transfoMatrixCS.createTransformedShape(a));
+      transformedArea = transformedArea.isEmpty() ? surface : transformedArea.union(surface);
+    }
+    return transformedArea;
+  }
+
 
 
 
@@ -505,6 +532,58 @@ public  void callMinusSetTransfoMatrix(){
     this.cutPaths = CutPathCalc.instance.calcCutPathFrom(this);
   }
 
+  /**
+   * Empty bit, to be filled from a project file
+   */
+  Bit2D() {
+  }
+
+  /**
+   * Write <tt>bit</tt> by reference in a project file
+   */
+  static void writeProject(ProjectOutput out, Bit2D bit) throws IOException {
+    if (out.writeReference(bit)) {
+      out.writeBoolean(bit instanceof NewBit2D);
+      bit.writeProjectContent(out);
+    }
+  }
+
+  static Bit2D readProject(ProjectInput in) throws IOException {
+    return in.readReference(i -> i.readBoolean() ? new NewBit2D() : new Bit2D(),
+        (i, bit) -> bit.readProjectContent(i));
+  }
+
+  void writeProjectContent(ProjectOutput out) throws IOException {
+    out.writeVector2(origin);
+    out.writeVector2(orientation);
+    out.writeDouble(length);
+    out.writeDouble(width);
+    out.writePaths(cutPaths);
+    out.writeTransform(transfoMatrixCS);
+    out.writeTransform(inverseTransfoMatrixCB);
+    out.writeShapes(areas);
+    out.writeBoolean(usedForNN);
+    out.writeBoolean(inverseInCut);
+    out.writeBoolean(checkFullLength);
+  }
+
+  void readProjectContent(ProjectInput in) throws IOException {
+    origin = in.readVector2();
+    orientation = in.readVector2();
+    length = in.readDouble();
+    width = in.readDouble();
+    cutPaths = in.readPaths();
+    transfoMatrixCS = in.readTransform();
+    inverseTransfoMatrixCB = in.readTransform();
+    areas = new Vector<>();
+    for (Shape shape : in.readShapes()) {
+      areas.add(new Area(shape));
+    }
+    usedForNN = in.readBoolean();
+    inverseInCut = in.readBoolean();
+    checkFullLength = in.readBoolean();
+  }
+
   /**
    * In charge of serializing the object, especially {@link #areas}
    *
@@ -33,11 +33,14 @@ import meshIneBits.util.exceptions.ValueException;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.util.AreaTool;
 import meshIneBits.util.CutPathCalc;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
 import meshIneBits.util.TwoDistantPointsCalc;
 import meshIneBits.util.Vector2;
 import org.jetbrains.annotations.NotNull;
 
 import java.awt.geom.*;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -50,6 +53,8 @@ import static meshIneBits.config.CraftConfig.precision;
  */
 public class Bit3D implements Serializable, Cloneable {
 
+  private static final long serialVersionUID = -6255995402950477360L;
+
   private static final String TAG = "Bit3D";
   /**
    * In {@link #bit2dToExtrude} coordinate system
@@ -96,6 +101,12 @@ public class Bit3D implements Serializable, Cloneable {
 
   private boolean reverseInCut;
 
+  /**
+   * <code>true</code> once the lift points have been turned by {@link #prepareBitToExport()}.
+   * Saved with the lift points, so that a reopened project does not turn them again
+   */
+  private boolean liftPointsInverted;
+
   /**
    * <code>true</code> if the bit has been placed in a bid to feed the neural network.
    */
@@ -135,6 +146,104 @@ public class Bit3D implements Serializable, Cloneable {
     reverseInCut = bit3D.isReverseInCut();
   }
 
+  /**
+   * Empty bit, to be filled from a project file
+   */
+  Bit3D() {
+  }
+
+  /**
+   * Write <tt>bit</tt> by reference in a project file
+   */
+  public static void writeProject(ProjectOutput out, Bit3D bit) throws IOException {
+    if (!out.writeReference(bit)) {
+      return;
+    }
+    out.writeBoolean(bit instanceof NewBit3D);
+    out.writePaths(bit.rawCutPaths);
+    out.writeInt(bit.rawCutPathsSeparate == null ? -1 : bit.rawCutPathsSeparate.size());
+    if (bit.rawCutPathsSeparate != null) {
+      for (Vector<Path2D> paths : bit.rawCutPathsSeparate) {
+        out.writePaths(paths);
+      }
+    }
+    out.writeVector2(bit.origin);
+    out.writeVector2(bit.orientation);
+    Bit2D.writeProject(out, bit.bit2dToExtrude);
+    out.writeVector2s(bit.liftPointsCB);
+    out.writeVector2s(bit.liftPointsCS);
+    writePointLists(out, bit.listTwoDistantPoints);
+    writePointLists(out, bit.listTwoExtremePoints);
+    out.writeInt(bit.listAngles == null ? -1 : bit.listAngles.size());
+    if (bit.listAngles != null) {
+      for (Double angle : bit.listAngles) {
+        out.writeBoolean(angle != null);
+        if (angle != null) {
+          out.writeDouble(angle);
+        }
+      }
+    }
+    out.writeBoolean(bit.irregular);
+    out.writeDouble(bit.lowerAltitude);
+    out.writeDouble(bit.higherAltitude);
+    out.writeBoolean(bit.reverseInCut);
+    out.writeBoolean(bit.usedForNN);
+    out.writeBoolean(bit.liftPointsInverted);
+  }
+
+  public static Bit3D readProject(ProjectInput in) throws IOException {
+    return in.readReference(i -> i.readBoolean() ? new NewBit3D() : new Bit3D(), (i, bit) -> {
+      bit.rawCutPaths = i.readPaths();
+      int nbSeparate = i.readInt();
+      if (nbSeparate >= 0) {
+        bit.rawCutPathsSeparate = new LinkedList<>();
+        for (int k = 0; k < nbSeparate; k++) {
+          bit.rawCutPathsSeparate.add(i.readPaths());
+        }
+      }
+      bit.origin = i.readVector2();
+      bit.orientation = i.readVector2();
+      bit.bit2dToExtrude = Bit2D.readProject(i);
+      bit.liftPointsCB = i.readVector2s(new Vector<>());
+      bit.liftPointsCS = i.readVector2s(new Vector<>());
+      bit.listTwoDistantPoints = readPointLists(i);
+      bit.listTwoExtremePoints = readPointLists(i);
+      int nbAngles = i.readInt();
+      bit.listAngles = nbAngles < 0 ? null : new Vector<>(nbAngles);
+      for (int k = 0; k < nbAngles; k++) {
+        bit.listAngles.add(i.readBoolean() ? i.readDouble() : null);
+      }
+      bit.irregular = i.readBoolean();
+      bit.lowerAltitude = i.readDouble();
+      bit.higherAltitude = i.readDouble();
+      bit.reverseInCut = i.readBoolean();
+      bit.usedForNN = i.readBoolean();
+      bit.liftPointsInverted = i.readBoolean();
+    });
+  }
+
+  private static void writePointLists(ProjectOutput out, Vector<Vector<Vector2>> lists)
+      throws IOException {
+    out.writeInt(lists == null ? -1 : lists.size());
+    if (lists != null) {
+      for (Vector<Vector2> points : lists) {
+        out.writeVector2s(points);
+      }
+    }
+  }
+
+  private static Vector<Vector<Vector2>> readPointLists(ProjectInput in) throws IOException {
+    int size = in.readInt();
+    if (size < 0) {
+      return null;
+    }
+    Vector<Vector<Vector2>> lists = new Vector<>(size);
+    for (int k = 0; k < size; k++) {
+      lists.add(in.readVector2s(new Vector<>()));
+    }
+    return lists;
+  }
+
   private Vector2 computeLiftPoint(Area subBit) {
 //        System.out.println(TAG+"computeLiftPoint");
     return AreaTool.getLiftPoint(subBit, CraftConfig.suckerDiameter / 2);
@@ -219,7 +328,13 @@ public class Bit3D implements Serializable, Cloneable {
 
 
 
+  /**
+   * Compute the two distant points and the two extreme points of each area of the bit, replacing
+   * those computed before.
+   */
   public void computeTwoPointNearTwoPointMostDistantOnBit() {
+    listTwoDistantPoints = new Vector<>();
+    listTwoExtremePoints = new Vector<>();
     for (Area area : bit2dToExtrude.getAreasCB()) {
       //Vector<Vector2> listPoint = AreaTool.defineTwoPointNearTwoMostDistantPointsInAreaWithRadius(
         //  area, CraftConfig.suckerDiameter / 4);
@@ -286,6 +401,7 @@ public class Bit3D implements Serializable, Cloneable {
   }
 
   private void calcAngles() {
+    listAngles = new Vector<>();
     if (listTwoDistantPoints.size() > 0) {
       listTwoDistantPoints.forEach(twoDistantPoints -> {
             if (twoDistantPoints.size() > 0) {
@@ -304,6 +420,10 @@ public class Bit3D implements Serializable, Cloneable {
     return listTwoDistantPoints;
   }
 
+  /**
+   * Compute the points and angles written in the export and turn the bit if it is cut reversed.
+   * Preparing again gives the same result, provided the cut paths have been rebuilt since.
+   */
   public void prepareBitToExport() {
 //        Bit3D bit3D = this;
        this.computeTwoPointNearTwoPointMostDistantOnBit();
@@ -321,7 +441,11 @@ public class Bit3D implements Serializable, Cloneable {
     for(Path2D cutpath:paths){
     rawCutPaths.add(inverseAxeXInCutPaths(cutpath));
    }*/
-    inverseLiftPoint();
+    // Lift points are not recomputed between two preparations
+    if (!liftPointsInverted) {
+      inverseLiftPoint();
+      liftPointsInverted = true;
+    }
     inverseDistantPoints();
   }
 
@@ -37,6 +37,8 @@ import meshIneBits.patterntemplates.PatternTemplate;
 import meshIneBits.slicer.Slice;
 import meshIneBits.util.AreaTool;
 import meshIneBits.util.Logger;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
 import meshIneBits.util.Vector2;
 
 import java.awt.geom.*;
@@ -58,6 +60,8 @@ import java.util.stream.Collectors;
  */
 public class Layer extends Observable implements Serializable {
 
+  private static final long serialVersionUID = -8639064110820611056L;
+
   private int layerNumber;
   private Slice horizontalSection;
   private transient Area horizontalArea;
@@ -145,6 +149,82 @@ public class Layer extends Observable implements Serializable {
     this.removedPositions= (HashSet<Point2D.Double>) ois.readObject();
   }
 
+  /**
+   * Empty layer, to be filled from a project file
+   */
+  private Layer() {
+  }
+
+  /**
+   * Write <tt>layer</tt> by reference in a project file, with all its bits
+   */
+  public static void writeProject(ProjectOutput out, Layer layer) throws IOException {
+    if (!out.writeReference(layer)) {
+      return;
+    }
+    out.writeInt(layer.layerNumber);
+    if (out.writeReference(layer.horizontalSection)) {
+      layer.horizontalSection.writeProject(out);
+    }
+    out.writeShape(layer.horizontalArea);
+    out.writeBoolean(layer.flatPavement != null);
+    if (layer.flatPavement != null) {
+      layer.flatPavement.writeProject(out);
+    }
+    out.writeSerialized(layer.patternTemplate);
+    out.writeInt(layer.mapBits3D == null ? -1 : layer.mapBits3D.size());
+    if (layer.mapBits3D != null) {
+      for (Map.Entry<Vector2, Bit3D> entry : layer.mapBits3D.entrySet()) {
+        out.writeVector2(entry.getKey());
+        Bit3D.writeProject(out, entry.getValue());
+      }
+    }
+    out.writeVector2s(layer.irregularBits);
+    out.writeBoolean(layer.paved);
+    out.writeDouble(layer.lowerAltitude);
+    out.writeDouble(layer.higherAltitude);
+    out.writeInt(layer.removedSubBits.size());
+    for (SubBit2D subBit : layer.removedSubBits) {
+      SubBit2D.writeProject(out, subBit);
+    }
+    out.writeInt(layer.removedPositions.size());
+    for (Point2D.Double position : layer.removedPositions) {
+      out.writeDouble(position.x);
+      out.writeDouble(position.y);
+    }
+  }
+
+  public static Layer readProject(ProjectInput in) throws IOException {
+    return in.readReference(i -> new Layer(), (i, layer) -> {
+      layer.layerNumber = i.readInt();
+      layer.horizontalSection = i.readReference(s -> new Slice(),
+          (s, slice) -> slice.readProject(s));
+      layer.horizontalAreaConvert = i.readShape();
+      layer.horizontalArea = SerializeArea.toArea(layer.horizontalAreaConvert);
+      layer.flatPavement = i.readBoolean() ? Pavement.readProject(i) : null;
+      layer.patternTemplate = i.readSerialized();
+      int nbBits = i.readInt();
+      if (nbBits >= 0) {
+        layer.mapBits3D = new ConcurrentHashMap<>(nbBits);
+        for (int k = 0; k < nbBits; k++) {
+          layer.mapBits3D.put(i.readVector2(), Bit3D.readProject(i));
+        }
+      }
+      layer.irregularBits = i.readVector2s(new ConcurrentLinkedQueue<>());
+      layer.paved = i.readBoolean();
+      layer.lowerAltitude = i.readDouble();
+      layer.higherAltitude = i.readDouble();
+      int nbRemovedSubBits = i.readInt();
+      for (int k = 0; k < nbRemovedSubBits; k++) {
+        layer.removedSubBits.add(SubBit2D.readProject(i));
+      }
+      int nbRemovedPositions = i.readInt();
+      for (int k = 0; k < nbRemovedPositions; k++) {
+        layer.removedPositions.add(new Point2D.Double(i.readDouble(), i.readDouble()));
+      }
+    });
+  }
+
   public static class SerializeArea {
 
     static Path2D.Double toPath2D(final Area a) {
@@ -227,7 +307,7 @@ public class Layer extends Observable implements Serializable {
    */
   private void extrudeBitsTo3D() {
 
-    mapBits3D = flatPavement.getBitsKeys()
+    mapBits3D = flatPavement.getBitsKeysView()
         .parallelStream()
         .collect(Collectors.toConcurrentMap(key -> key,
             key -> new NewBit3D((NewBit2D) flatPavement.getBit(key), this),
@@ -257,14 +337,7 @@ public class Layer extends Observable implements Serializable {
     return new Vector<>(mapBits3D.keySet());
   }
   public Vector2 getKey(Bit2D bit){
-    for (Vector2 key : flatPavement.getBitsKeys()) {
-      if (flatPavement.getBit(key)==bit){
-
-        return key;
-      }
-
-  }
-  return null;
+    return flatPavement.getKey(bit);
   }
 
 
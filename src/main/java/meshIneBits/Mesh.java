@@ -37,6 +37,8 @@ import meshIneBits.slicer.Slice;
 import meshIneBits.slicer.SliceTool;
 import meshIneBits.util.Logger;
 import meshIneBits.util.MultiThreadServiceExecutor;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
 import meshIneBits.util.Segment2D;
 import meshIneBits.util.exceptions.SimultaneousOperationsException;
 import meshIneBits.util.supportExportFile.MeshXMLTool;
@@ -44,7 +46,10 @@ import meshIneBits.util.supportExportFile.MeshXMLTool;
 import java.awt.geom.Area;
 import java.io.*;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
 
 /**
  * This object is the equivalent of the piece which will be printed
@@ -57,6 +62,11 @@ public class Mesh extends Observable implements Observer, Serializable {
   private Vector<Slice> slices = new Vector<>();
   private double skirtRadius;
   private transient SliceTool slicer;
+  /**
+   * Tasks of the current paving or optimization, to be cancelled
+   */
+  private transient MultiThreadServiceExecutor.TaskGroup runningJob;
+  private transient CompletableFuture<Void> runningPaving;
   private Model model;
   private MeshEvents state;
   private AScheduler scheduler = CraftConfig.schedulerPreloaded[0];
@@ -74,14 +84,103 @@ public class Mesh extends Observable implements Observer, Serializable {
   public Object clone()throws CloneNotSupportedException{
     return super.clone();
   }
+  /**
+   * Open a project saved by {@link #saveAs(File)}. Projects saved with java serialization by
+   * previous versions are still read.
+   */
   public static Mesh open(File file) throws IOException, ClassNotFoundException {
     Logger.message("open starts");
-    try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
+    if (ProjectFile.isProjectFile(file.toPath())) {
+      return ProjectFile.open(file.toPath())
+          .readMesh();
+    }
+    try (ObjectInputStream ois = new ObjectInputStream(
+        new BufferedInputStream(new FileInputStream(file)))) {
       Mesh mesh = (Mesh) ois.readObject();
       return mesh;
     }
   }
 
+  /**
+   * Write everything but the content of the layers, which is in their own blocks
+   */
+  void writeProject(ProjectOutput out) throws IOException {
+    out.writeInt(layers.size());
+    for (Layer layer : layers) {
+      if (out.writeLink(layer)) {
+        Layer.writeProject(out, layer);
+      }
+    }
+    out.writeInt(slices.size());
+    for (Slice slice : slices) {
+      if (out.writeLink(slice) && out.writeReference(slice)) {
+        slice.writeProject(out);
+      }
+    }
+    out.writeDouble(skirtRadius);
+    out.writeBoolean(model != null);
+    if (model != null) {
+      model.writeProject(out);
+    }
+    out.writeNullableString(state == null ? null : state.name());
+    out.writeNullableString(scheduler == null ? null : scheduler.getClass()
+        .getName());
+    if (scheduler != null) {
+      scheduler.writeProject(out);
+    }
+    out.writeNullableString(modelFile);
+    out.writeInt(stripes.size());
+    for (ArrayList<Strip> layerStripes : stripes) {
+      out.writeInt(layerStripes.size());
+      for (Strip strip : layerStripes) {
+        Strip.writeProject(out, strip);
+      }
+    }
+  }
+
+  static Mesh readProject(ProjectInput in) throws IOException {
+    Mesh mesh = new Mesh();
+    int nbLayers = in.readInt();
+    for (int i = 0; i < nbLayers; i++) {
+      mesh.layers.add(in.readLink(Layer::readProject));
+    }
+    int nbSlices = in.readInt();
+    for (int i = 0; i < nbSlices; i++) {
+      mesh.slices.add(in.readLink(
+          l -> l.readReference(r -> new Slice(), (r, slice) -> slice.readProject(r))));
+    }
+    mesh.skirtRadius = in.readDouble();
+    mesh.model = in.readBoolean() ? Model.readProject(in) : null;
+    String state = in.readNullableString();
+    mesh.state = state == null ? null : MeshEvents.valueOf(state);
+    String schedulerClass = in.readNullableString();
+    if (schedulerClass == null) {
+      mesh.scheduler = null;
+    } else {
+      try {
+        mesh.scheduler = Class.forName(schedulerClass)
+            .asSubclass(AScheduler.class)
+            .getDeclaredConstructor()
+            .newInstance();
+      } catch (ReflectiveOperationException | ClassCastException e) {
+        throw new IOException("Unknown scheduler " + schedulerClass, e);
+      }
+      mesh.scheduler.setMesh(mesh);
+      mesh.scheduler.readProject(in);
+    }
+    mesh.modelFile = in.readNullableString();
+    int nbLayerStripes = in.readInt();
+    for (int i = 0; i < nbLayerStripes; i++) {
+      int nbStripes = in.readInt();
+      ArrayList<Strip> layerStripes = new ArrayList<>(nbStripes);
+      for (int j = 0; j < nbStripes; j++) {
+        layerStripes.add(Strip.readProject(in));
+      }
+      mesh.stripes.add(layerStripes);
+    }
+    return mesh;
+  }
+
   /**
    * Register a model given a path
    *
@@ -149,13 +248,16 @@ public ArrayList<ArrayList<Strip>> getStripes(){
   }
 
   /**
-   * Given a certain template, pave the whole mesh sequentially
+   * Given a certain template, pave the whole mesh. Layers are paved in parallel on the central
+   * scheduler, unless the template is interdependent.
    *
    * @param template an automatic builder
+   * @return completed once {@link MeshEvents#PAVED_MESH} has been sent, exceptionally if a layer
+   * failed. Cancelled by {@link #cancel()}
    * @throws Exception when an other action is currently executing or {@link Mesh} is not sliced
    *                   yet
    */
-  public void pave(PatternTemplate template) throws Exception {
+  public CompletableFuture<Void> pave(PatternTemplate template) throws Exception {
     getLayers().forEach(layer -> layer.getRemovedSubBitsPositions().clear());
     pavementSafetyCheck();
     setState(MeshEvents.PAVING_MESH);
@@ -169,11 +271,21 @@ public ArrayList<ArrayList<Strip>> getStripes(){
       sequentialPavingWorker.addObserver(this);
 //            (new Thread(sequentialPavingWorker)).start();
       sequentialPavingWorker.run();
+      return CompletableFuture.completedFuture(null);
     } else {
-      PavingWorkerMaster pavingWorkerMaster = new PavingWorkerMaster(template);
+      MultiThreadServiceExecutor.TaskGroup job = MultiThreadServiceExecutor.instance.newTaskGroup();
+      runningJob = job;
+      PavingWorkerMaster pavingWorkerMaster = new PavingWorkerMaster(template, job);
       pavingWorkerMaster.addObserver(this);
-//            (new Thread(pavingWorkerMaster)).start();
-      pavingWorkerMaster.run();
+      runningPaving = pavingWorkerMaster.start()
+          .whenComplete((v, e) -> {
+            // Reported by the caller
+            if (e != null && !job.isCancelled()) {
+              job.cancel();
+              setState(MeshEvents.SLICED);
+            }
+          });
+      return runningPaving;
     }
   }
 
@@ -202,10 +314,42 @@ public ArrayList<ArrayList<Strip>> getStripes(){
     setState(MeshEvents.OPTIMIZING_MESH);
     // MeshEvents.OPTIMIZED_MESH will be sent in update() after receiving
     // enough signals from layers
-    MeshOptimizerMaster meshOptimizerMaster = new MeshOptimizerMaster();
+    runningJob = MultiThreadServiceExecutor.instance.newTaskGroup();
+    MeshOptimizerMaster meshOptimizerMaster = new MeshOptimizerMaster(runningJob);
     meshOptimizerMaster.addObserver(this);
-    Thread t = new Thread(meshOptimizerMaster);
-    t.start();
+    meshOptimizerMaster.run();
+  }
+
+  /**
+   * Cancel the running paving or optimization of the whole mesh. Layers already done are kept,
+   * the others are left as they were.
+   *
+   * @return <tt>false</tt> if there was nothing to cancel
+   */
+  public boolean cancel() {
+    MultiThreadServiceExecutor.TaskGroup job = runningJob;
+    if (job == null || !state.isWorking()) {
+      return false;
+    }
+    job.cancel();
+    runningJob = null;
+    if (runningPaving != null) {
+      runningPaving.cancel(false);
+      runningPaving = null;
+    }
+    switch (state) {
+      case PAVING_MESH:
+        Logger.updateStatus("Paving cancelled");
+        setState(MeshEvents.SLICED);
+        return true;
+      case OPTIMIZING_MESH:
+      case OPTIMIZING_LAYER:
+        Logger.updateStatus("Optimization cancelled");
+        setState(MeshEvents.PAVED_MESH);
+        return true;
+      default:
+        return false;
+    }
   }
 
   private void optimizationSafetyCheck() throws Exception {
@@ -250,8 +394,8 @@ public ArrayList<ArrayList<Strip>> getStripes(){
     LayerOptimizer layerOptimizer = new LayerOptimizer(layer);
     layerOptimizer.addObserver(this);
     // MeshEvents.OPTIMIZED_LAYER will be sent after completed the task
-    Thread t = new Thread(layerOptimizer);
-    t.start();
+    runningJob = MultiThreadServiceExecutor.instance.newTaskGroup();
+    runningJob.execute(layerOptimizer);
   }
 
   /**
@@ -400,17 +544,31 @@ public ArrayList<ArrayList<Strip>> getStripes(){
   }
 
   /**
-   * Generate empty layers
+   * Generate empty layers. Each layer computes the area of its slice, so they are built in
+   * parallel on the central scheduler, with at most {@link CraftConfig#slicingThreads} threads.
+   * Layers are added in the order of slices.
    */
   private void initLayers() {
     Logger.updateStatus("Generating layers");
     int jobsize = slices.size();
-    for (int i = 0; i < jobsize; i++) {
-      Layer layer = new Layer(i, slices.get(i));
-      layers.add(layer);
-      Logger.setProgress(i + 1, jobsize);
-
+    if (jobsize <= 1 || CraftConfig.slicingThreads == 1) {
+      for (int i = 0; i < jobsize; i++) {
+        Layer layer = new Layer(i, slices.get(i));
+        layers.add(layer);
+        Logger.setProgress(i + 1, jobsize);
+      }
+      return;
     }
+
+    Layer[] builtLayers = new Layer[jobsize];
+    AtomicInteger finished = new AtomicInteger();
+    MultiThreadServiceExecutor.instance.invokeParallel(() -> IntStream.range(0, jobsize)
+        .parallel()
+        .forEach(i -> {
+          builtLayers[i] = new Layer(i, slices.get(i));
+          Logger.setProgress(finished.incrementAndGet(), jobsize);
+        }), CraftConfig.slicingThreads);
+    layers.addAll(Arrays.asList(builtLayers));
   }
 
   public AScheduler getScheduler() {
@@ -469,7 +627,6 @@ public ArrayList<ArrayList<Strip>> getStripes(){
       if (layers.get(i) == null
           || layers.get(i)
           .getFlatPavement()
-          .getBitsKeys()
           .size() == 0) {
         indexes.add(i);
       }
@@ -517,13 +674,12 @@ public ArrayList<ArrayList<Strip>> getStripes(){
 
   }
 
+  /**
+   * Save the project in a {@link ProjectFile}
+   */
   public void saveAs(File file) throws IOException {
-    //this.convertAllLayerHorizontalAreaToPath2D();
-    try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(file))) {
-      System.out.println(file.getPath());
-      oos.writeObject(this);
-
-      oos.flush();
+    try {
+      ProjectFile.write(this, file.toPath());
       setChanged();
       notifyObservers(MeshEvents.SAVED);
     } catch (IOException e) {
@@ -594,67 +750,63 @@ public ArrayList<ArrayList<Strip>> getStripes(){
   }
 
   /**
-   * Simultaneously pave all layers
+   * Simultaneously pave all layers. Each layer is an independent future, and the master only
+   * gathers them, so no lock is held while paving.
    */
-  private class PavingWorkerMaster extends Observable implements Observer, Runnable {
+  private class PavingWorkerMaster extends Observable {
 
-    private Map<Layer, PavingWorkerSlave> jobsMap = new ConcurrentHashMap<>();
-    private int jobsTotalCount = 0;
-    private int finishedJobsCount = 0;
-    private PatternTemplate originalPatternTemplate;
+    private final List<PavingWorkerSlave> slaves = new ArrayList<>();
+    private final PatternTemplate originalPatternTemplate;
+    private final MultiThreadServiceExecutor.TaskGroup job;
+    private final AtomicInteger finishedJobsCount = new AtomicInteger();
+    private final LongAdder bitsCount = new LongAdder();
 
-    PavingWorkerMaster(PatternTemplate patternTemplate) {
+    PavingWorkerMaster(PatternTemplate patternTemplate, MultiThreadServiceExecutor.TaskGroup job) {
       originalPatternTemplate = patternTemplate;
+      this.job = job;
       layers.forEach(layer -> {
         try {
-          PavingWorkerSlave pavingWorkerSlave = new PavingWorkerSlave(
-              (PatternTemplate) patternTemplate.clone(),
-              layer
-          );
-          pavingWorkerSlave.addObserver(this);
-          jobsMap.put(layer, pavingWorkerSlave);
-          jobsTotalCount++;
+          slaves.add(new PavingWorkerSlave((PatternTemplate) patternTemplate.clone(), layer));
         } catch (CloneNotSupportedException e) {
           e.printStackTrace();
         }
       });
     }
 
-    @Override
-    public void run() {
+    /**
+     * Submit all layers
+     *
+     * @return completed after sending {@link MeshEvents#PAVED_MESH}, exceptionally if the job is
+     * cancelled before all layers are paved
+     */
+    CompletableFuture<Void> start() {
       Logger.updateStatus("Paving mesh parallelly with " + originalPatternTemplate.getCommonName());
-      jobsMap.forEach((layer, pavingWorkerSlave)
-          -> MultiThreadServiceExecutor.instance.execute(pavingWorkerSlave));
-    }
-
-    @Override
-    public synchronized void update(Observable o, Object arg) {
-      if (o instanceof PavingWorkerSlave) {
-        finishedJobsCount++;
-        Logger.setProgress(finishedJobsCount, jobsTotalCount);
-      }
-      if (finishedJobsCount == jobsTotalCount) {
-        // Finished all
-        Logger.updateStatus(layers.size() + " layers have been paved");
-        // Notify
-        setChanged();
-        notifyObservers(MeshEvents.PAVED_MESH);
-      /*if(WindowStatus==true) {
-        processor.onTerminated();
-        uipwAnimation.closeWindow();
-        uipwView.closeWindow();
-        uipwController.close();
-
-      }*/
-      }
-
+      long startTime = System.nanoTime();
+      int jobsTotalCount = slaves.size();
+      CompletableFuture<?>[] futures = slaves.stream()
+          .map(slave -> job.runAsync(() -> {
+            slave.run();
+            bitsCount.add(slave.layer.getBitsNb());
+            Logger.setProgress(finishedJobsCount.incrementAndGet(), jobsTotalCount);
+          }))
+          .toArray(CompletableFuture[]::new);
+      return CompletableFuture.allOf(futures)
+          .thenRun(() -> {
+            double seconds = Math.max((System.nanoTime() - startTime) / 1e9, 1e-9);
+            long bits = bitsCount.sum();
+            Logger.updateStatus(String.format(
+                "%d layers have been paved in %.2f s (%.1f layers/s, %.0f bits/s)", jobsTotalCount,
+                seconds, jobsTotalCount / seconds, bits / seconds));
+            setChanged();
+            notifyObservers(MeshEvents.PAVED_MESH);
+          });
     }
   }
 
   /**
    * Separated thread to pave a certain layer
    */
-  private class PavingWorkerSlave extends Observable implements Runnable {
+  private class PavingWorkerSlave implements Runnable {
 
     private PatternTemplate patternTemplate;
     private Layer layer;
@@ -668,8 +820,6 @@ public ArrayList<ArrayList<Strip>> getStripes(){
     public void run() {
       layer.setPatternTemplate(patternTemplate);
       layer.startPaver();
-      setChanged();
-      notifyObservers();
     }
   }
 
@@ -724,8 +874,10 @@ public ArrayList<ArrayList<Strip>> getStripes(){
     private List<Layer> uncleanLayers = new ArrayList<>();
     private List<Layer> unsolvedLayers = new ArrayList<>();
     private List<MeshOptimizerSlave> slaves = new ArrayList<>();
+    private final MultiThreadServiceExecutor.TaskGroup job;
 
-    MeshOptimizerMaster() {
+    MeshOptimizerMaster(MultiThreadServiceExecutor.TaskGroup job) {
+      this.job = job;
       for (Layer layer : layers) {
         MeshOptimizerSlave slave = new MeshOptimizerSlave(layer);
         slave.addObserver(this);
@@ -735,11 +887,14 @@ public ArrayList<ArrayList<Strip>> getStripes(){
 
     @Override
     public void run() {
-      slaves.forEach(meshOptimizerSlave -> (new Thread(meshOptimizerSlave)).start());
+      slaves.forEach(job::execute);
     }
 
     @Override
     public synchronized void update(Observable o, Object arg) {
+      if (job.isCancelled()) {
+        return;
+      }
       if (o instanceof MeshOptimizerSlave) {
         finishedJob++;
         Logger.setProgress(finishedJob, layers.size());
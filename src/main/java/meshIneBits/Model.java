@@ -29,18 +29,26 @@
 
 package meshIneBits;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 import java.util.Vector;
 import meshIneBits.util.Logger;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
 import meshIneBits.util.Triangle;
+import meshIneBits.util.TriangleStore;
 import meshIneBits.util.Vector3;
+import meshIneBits.util.supportImportFile.AsciiSTLReader;
+import meshIneBits.util.supportImportFile.BinarySTLReader;
 import remixlab.dandelion.geom.Rotation;
-import remixlab.dandelion.geom.Vec;
 
 
 /**
@@ -49,10 +57,24 @@ import remixlab.dandelion.geom.Vec;
  */
 public class Model implements Serializable {
 
-  private Vector<Triangle> triangles = new Vector<>();
+  private static final long serialVersionUID = -5777743428387583249L;
+
+  /**
+   * Triangles are serialized as a {@link Vector} of {@link Triangle}, as in previous versions
+   */
+  private static final ObjectStreamField[] serialPersistentFields = {
+      new ObjectStreamField("triangles", Vector.class),
+      new ObjectStreamField("position", Vector3.class),
+      new ObjectStreamField("modelName", String.class)
+  };
+
+  private transient TriangleStore triangles = new TriangleStore();
   private Vector3 position = new Vector3(0, 0, 0);
   private String modelName;
 
+  private Model() {
+  }
+
   /**
    * Read all the triangles of the STL file, whether it's an Ascii or a Binary STL.
    *
@@ -64,22 +86,17 @@ public class Model implements Serializable {
     modelName = filename.substring(0, filename.lastIndexOf('.'));
     if (filename.toLowerCase()
         .endsWith(".stl")) {
-      char[] buf = new char[5];
-      BufferedReader br = new BufferedReader(new FileReader(filename));
-      br.mark(5);
-      //noinspection ResultOfMethodCallIgnored
-      br.read(buf);
-      br.close();
-      String header = new String(buf);
-
-      if (header.equals("solid")) {
-        this.triangles.addAll(readAsciiSTL(filename));
-        //this.triangles.addAll(readBinarySTL(filename));
-        if (triangles.size() == 0) {
-          this.triangles.addAll(readBinarySTL(filename));
+      try (FileChannel channel = FileChannel.open(Paths.get(filename),
+          StandardOpenOption.READ)) {
+        if (BinarySTLReader.isBinary(channel)) {
+          this.triangles = readBinarySTL(channel);
+        } else {
+          this.triangles = readAsciiSTL(channel);
+          if (triangles.size() == 0) {
+            // Not a readable ASCII STL, let binary reader report what is wrong
+            this.triangles = readBinarySTL(channel);
+          }
         }
-      } else {
-        this.triangles.addAll(readBinarySTL(filename));
       }
     } else {
       Logger.error("Unknown model format: " + filename);
@@ -111,24 +128,7 @@ public class Model implements Serializable {
    * @return {@link Vector3}
    */
   public Vector3 getMax() {
-    Vector3 ret = new Vector3();
-    ret.x = Double.MIN_VALUE;
-    ret.y = Double.MIN_VALUE;
-    ret.z = Double.MIN_VALUE;
-    for (Triangle t : triangles) {
-      for (int i = 0; i < 3; i++) {
-        if (ret.x < t.point[i].x) {
-          ret.x = t.point[i].x;
-        }
-        if (ret.y < t.point[i].y) {
-          ret.y = t.point[i].y;
-        }
-        if (ret.z < t.point[i].z) {
-          ret.z = t.point[i].z;
-        }
-      }
-    }
-    return ret;
+    return triangles.getMax();
   }
 
   /**
@@ -137,28 +137,21 @@ public class Model implements Serializable {
    * @return {@link Vector3}
    */
   public Vector3 getMin() {
-    Vector3 ret = new Vector3();
-    ret.x = Double.MAX_VALUE;
-    ret.y = Double.MAX_VALUE;
-    ret.z = Double.MAX_VALUE;
-    for (Triangle t : triangles) {
-      for (int i = 0; i < 3; i++) {
-        if (ret.x > t.point[i].x) {
-          ret.x = t.point[i].x;
-        }
-        if (ret.y > t.point[i].y) {
-          ret.y = t.point[i].y;
-        }
-        if (ret.z > t.point[i].z) {
-          ret.z = t.point[i].z;
-        }
-      }
-    }
-    return ret;
+    return triangles.getMin();
   }
 
+  /**
+   * @return read-only view of the triangles. Each access creates a new {@link Triangle}, so
+   * modifying it does not alter the model
+   */
+  public List<Triangle> getTriangles() {
+    return triangles.asTriangles();
+  }
 
-  public Vector<Triangle> getTriangles() {
+  /**
+   * @return the underlying structure-of-arrays storage
+   */
+  public TriangleStore getTriangleStore() {
     return triangles;
   }
 
@@ -168,95 +161,33 @@ public class Model implements Serializable {
    * @param translate {@link Vector3}
    */
   public void move(Vector3 translate) {
-    for (Triangle t : triangles) {
-      for (int i = 0; i < 3; i++) {
-        t.point[i].addToSelf(translate);
-      }
-    }
+    triangles.translate(translate);
   }
 
   /**
-   * Convert ascii STL file to a {@link Vector} of {@link Triangle}.
+   * Convert ascii STL file to a {@link TriangleStore}.
    *
-   * @param filename path of input file
-   * @return {@link Vector} of {@link Triangle}
+   * @param channel opened on input file
+   * @return {@link TriangleStore}
    * @throws IOException when bad input
+   * @see AsciiSTLReader
    */
-  private Vector<Triangle> readAsciiSTL(String filename) throws IOException {
-    BufferedReader br = new BufferedReader(new FileReader(filename));
-    String line;
-    int i = 0;
-    Vector3 normal = null;
-    Triangle nextTri = new Triangle();
-    Vector<Triangle> resultTriangles = new Vector<>();
-    while ((line = br.readLine()) != null) {
-      line = line.trim();
-      if (line.startsWith("facet normal")) {
-        String[] parts = line.split(" +");
-        normal = new Vector3(Double.parseDouble(parts[2]), Double.parseDouble(parts[3]),
-            Double.parseDouble(parts[4]));
-      }
-      if (line.startsWith("vertex")) {
-        String[] parts = line.split(" +");
-        nextTri.point[i] = new Vector3(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]),
-            Double.parseDouble(parts[3]));
-        i++;
-        if (i == 3) {
-          //noinspection ConstantConditions
-          if ((normal.vSize2() > 0.1)) {
-            nextTri.getNormal()
-                .dot(normal);
-          }
-          // Triangle winding order and normal don't point in the same direction...
-          // Flip the triangle?
-          resultTriangles.add(nextTri);
-          nextTri = new Triangle();
-          i = 0;
-        }
-      }
-    }
-    br.close();
-    return resultTriangles;
+  private TriangleStore readAsciiSTL(FileChannel channel) throws IOException {
+    Logger.message("ReadAsciiSTL starts");
+    return TriangleStore.fromPacked(AsciiSTLReader.read(channel));
   }
 
   /**
-   * Convert binary STL file to a {@link Vector} of {@link Triangle}.
+   * Convert binary STL file to a {@link TriangleStore}.
    *
-   * @param filename path of input file
-   * @return {@link Vector} of {@link Triangle}
+   * @param channel opened on input file
+   * @return {@link TriangleStore}
    * @throws IOException when bad input
+   * @see BinarySTLReader
    */
-  private Vector<Triangle> readBinarySTL(String filename) throws IOException {
+  private TriangleStore readBinarySTL(FileChannel channel) throws IOException {
     Logger.message("ReadBinarySTL starts");
-    RandomAccessFile raf = new RandomAccessFile(filename, "r");
-    byte[] header = new byte[80];
-    raf.read(header);
-    int triangleCount = Integer.reverseBytes(raf.readInt());
-    Vector<Triangle> resultTriangles = new Vector<>();
-    for (int i = 0; i < triangleCount; i++) {
-      Logger.setProgress(i, triangleCount - 1);
-      for (int j = 0; j < 3; j++) {
-        raf.readFloat();
-      }
-
-      Triangle t = new Triangle();
-      float x = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-      float y = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-      float z = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-      t.point[0] = new Vector3(x, y, z);
-      x = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-      y = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-      z = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-      t.point[1] = new Vector3(x, y, z);
-      x = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-      y = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-      z = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-      t.point[2] = new Vector3(x, y, z);
-      raf.readShort();// flags
-      resultTriangles.add(t);
-    }
-    raf.close();
-    return resultTriangles;
+    return TriangleStore.fromPacked(BinarySTLReader.read(channel));
   }
 
   /**
@@ -265,18 +196,7 @@ public class Model implements Serializable {
    * @param r angle
    */
   public void rotate(Rotation r) {
-    for (Triangle t : triangles) {
-      rotateTriangle(t, r);
-    }
-  }
-
-  private void rotateTriangle(Triangle t, Rotation rot) {
-    for (Vector3 p : t.point) {
-      Vec v = rot.rotate(new Vec((float) p.x, (float) p.y, (float) p.z));
-      p.x = v.x();
-      p.y = v.y();
-      p.z = v.z();
-    }
+    triangles.rotate(r);
   }
 
   public void translate(Vector3 trans) {
@@ -298,16 +218,53 @@ public class Model implements Serializable {
   }
 
   public void applyScale(float scaling) {
-    for (Triangle t : triangles) {
-      scaleTriangle(t, scaling);
-    }
+    triangles.scale(scaling);
   }
 
-  private void scaleTriangle(Triangle t, float scaling) {
-    for (Vector3 p : t.point) {
-      p.addToSelf(new Vector3(p.x * scaling - p.x, p.y * scaling - p.y, p.z * scaling - p.z));
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    ObjectOutputStream.PutField fields = out.putFields();
+    fields.put("triangles", new Vector<>(triangles.asTriangles()));
+    fields.put("position", position);
+    fields.put("modelName", modelName);
+    out.writeFields();
+  }
+
+  /**
+   * Write the triangles as packed coordinates in a project file
+   */
+  void writeProject(ProjectOutput out) throws IOException {
+    out.writeNullableString(modelName);
+    out.writeDouble(position.x);
+    out.writeDouble(position.y);
+    out.writeDouble(position.z);
+    double[] vertices = triangles.toPacked();
+    out.writeInt(vertices.length);
+    for (double d : vertices) {
+      out.writeDouble(d);
     }
   }
 
+  static Model readProject(ProjectInput in) throws IOException {
+    Model model = new Model();
+    model.modelName = in.readNullableString();
+    model.position = new Vector3(in.readDouble(), in.readDouble(), in.readDouble());
+    double[] vertices = new double[in.readInt()];
+    for (int i = 0; i < vertices.length; i++) {
+      vertices[i] = in.readDouble();
+    }
+    model.triangles = TriangleStore.fromPacked(vertices);
+    return model;
+  }
 
+  @SuppressWarnings("unchecked")
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    ObjectInputStream.GetField fields = in.readFields();
+    Vector<Triangle> savedTriangles = (Vector<Triangle>) fields.get("triangles", null);
+    triangles = new TriangleStore(savedTriangles == null ? 0 : savedTriangles.size());
+    if (savedTriangles != null) {
+      savedTriangles.forEach(triangles::add);
+    }
+    position = (Vector3) fields.get("position", new Vector3(0, 0, 0));
+    modelName = (String) fields.get("modelName", null);
+  }
 }
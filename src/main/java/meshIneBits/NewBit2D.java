@@ -3,6 +3,8 @@ package meshIneBits;
 import meshIneBits.SubBit2D.SubBitBuilder;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.util.CutPathCalc;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
 import meshIneBits.util.Vector2;
 import org.jetbrains.annotations.NotNull;
 
@@ -16,6 +18,9 @@ import java.util.Vector;
 import java.util.stream.Collectors;
 
 public class NewBit2D extends Bit2D {
+
+  private static final long serialVersionUID = 3271987599803038919L;
+
   private Vector<SubBit2D> subBits = new Vector<>();
   private Area areaSent;
 
@@ -194,6 +199,31 @@ public void removeSubbit(SubBit2D sub){
 
 
 
+  /**
+   * Empty bit, to be filled from a project file
+   */
+  NewBit2D() {
+  }
+
+  @Override
+  void writeProjectContent(ProjectOutput out) throws IOException {
+    super.writeProjectContent(out);
+    out.writeInt(subBits.size());
+    for (SubBit2D subBit : subBits) {
+      SubBit2D.writeProject(out, subBit);
+    }
+  }
+
+  @Override
+  void readProjectContent(ProjectInput in) throws IOException {
+    super.readProjectContent(in);
+    int size = in.readInt();
+    subBits = new Vector<>(size);
+    for (int i = 0; i < size; i++) {
+      subBits.add(SubBit2D.readProject(in));
+    }
+  }
+
   private void writeObject(ObjectOutputStream oos) throws IOException {
    oos.writeObject(subBits);
   }
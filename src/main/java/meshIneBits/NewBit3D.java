@@ -10,10 +10,18 @@ import java.util.stream.Collectors;
 
 public class NewBit3D extends Bit3D {
 
+  private static final long serialVersionUID = 4947844436070398408L;
+
   NewBit3D(NewBit2D baseBit, Layer layer) {
     super(baseBit, layer);
   }
 
+  /**
+   * Empty bit, to be filled from a project file
+   */
+  NewBit3D() {
+  }
+
   @Override
   public NewBit2D getBaseBit() {
     return (NewBit2D) super.getBaseBit();
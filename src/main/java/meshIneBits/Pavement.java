@@ -30,32 +30,61 @@
 
 package meshIneBits;
 
+import meshIneBits.config.CraftConfig;
 import meshIneBits.config.patternParameter.DoubleParam;
 import meshIneBits.patterntemplates.PatternTemplate;
 import meshIneBits.slicer.Slice;
 import meshIneBits.util.AreaTool;
 import meshIneBits.util.Logger;
+import meshIneBits.util.MultiThreadServiceExecutor;
+import meshIneBits.util.PackedArea;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
 import meshIneBits.util.Vector2;
 
 import java.awt.geom.Area;
 import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Build by a {@link PatternTemplate}. Literally a {@link Set} of {@link Bit2D}.
  */
 public class Pavement extends Observable implements Cloneable, Serializable {
 
+  private static final long serialVersionUID = -5585634515137662458L;
+
   /**
    * The key is the origin of {@link Bit2D} in {@link Mesh} coordinate system.
    */
   private Map<Vector2, Bit2D> mapBits;
 
+  /**
+   * Side of the cells of {@link #grid}, in mm
+   */
+  static final double CELL_SIZE = 20;
+
+  /**
+   * Keys of {@link #mapBits}, by the cell of the uniform grid their origin falls in. Rebuilt after
+   * reading, never saved.
+   */
+  private transient Map<Long, List<Vector2>> grid;
+  /**
+   * Key of each bit of {@link #mapBits}
+   */
+  private transient Map<Bit2D, Vector2> keysOfBits;
+  /**
+   * No point of a bit is farther from its origin
+   */
+  private transient double reach;
+
   private Area areaAvailable;
   private Path2D areaConverted;
 
@@ -90,6 +119,30 @@ public class Pavement extends Observable implements Cloneable, Serializable {
     this.mapBits = (Map<Vector2, Bit2D>) ois.readObject();
     this.areaConverted = (Path2D) ois.readObject();
     this.areaAvailable = Layer.SerializeArea.toArea(areaConverted);
+    index();
+  }
+
+  /**
+   * Write the bits and the available area in a project file
+   */
+  void writeProject(ProjectOutput out) throws IOException {
+    out.writeInt(mapBits.size());
+    for (Map.Entry<Vector2, Bit2D> entry : mapBits.entrySet()) {
+      out.writeVector2(entry.getKey());
+      Bit2D.writeProject(out, entry.getValue());
+    }
+    out.writeShape(areaAvailable);
+  }
+
+  static Pavement readProject(ProjectInput in) throws IOException {
+    Pavement pavement = new Pavement(Collections.emptyList());
+    int size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      pavement.put(in.readVector2(), Bit2D.readProject(in));
+    }
+    Path2D area = in.readShape();
+    pavement.areaAvailable = area == null ? null : new Area(area);
+    return pavement;
   }
 
   /**
@@ -101,6 +154,7 @@ public class Pavement extends Observable implements Cloneable, Serializable {
   public Pavement(Collection<Bit2D> bits) {
     // Set up map of bits
     mapBits = new HashMap<>();
+    index();
     for (Bit2D bit : bits) {
       addBit(bit);
 
@@ -115,25 +169,168 @@ public class Pavement extends Observable implements Cloneable, Serializable {
   public Vector2 addBit(Bit2D bit) {
     Vector2 origin = bit.getOriginCS();
     // We check that there is not already a bit at this place
-    for (Vector2 key : getBitsKeys()) {
-      if (origin.asGoodAsEqual(key)) {
-        Logger.warning(
-            "A bit already exists at these coordinates: "
-                + key
-                + ", it has been replaced by the new one.");
-        removeBit(key);
-      }
+    for (Vector2 key : getKeysNear(origin)) {
+      Logger.warning(
+          "A bit already exists at these coordinates: "
+              + key
+              + ", it has been replaced by the new one.");
+      removeBit(key);
     }
-    mapBits.put(origin, bit);
+    put(origin, bit);
     return origin;
   }
 
+  private void index() {
+    grid = new HashMap<>();
+    keysOfBits = new IdentityHashMap<>();
+    reach = 0;
+    mapBits.forEach(this::indexBit);
+  }
+
+  private void indexBit(Vector2 key, Bit2D bit) {
+    grid.computeIfAbsent(cellOf(key.x, key.y), k -> new ArrayList<>(2))
+        .add(key);
+    keysOfBits.put(bit, key);
+    // The bit is cut inside the rectangle of a full bit centered on its origin
+    reach = Math.max(reach, Math.hypot(
+        Math.max(bit.getLength(), CraftConfig.lengthFull) / 2,
+        Math.max(bit.getWidth(), CraftConfig.bitWidth) / 2));
+  }
+
+  private void put(Vector2 key, Bit2D bit) {
+    Bit2D previous = mapBits.put(key, bit);
+    if (previous != null) {
+      unindex(key, previous);
+    }
+    indexBit(key, bit);
+  }
+
+  private void unindex(Vector2 key, Bit2D bit) {
+    long cell = cellOf(key.x, key.y);
+    List<Vector2> keys = grid.get(cell);
+    if (keys != null) {
+      keys.removeIf(k -> k == key);
+      if (keys.isEmpty()) {
+        grid.remove(cell);
+      }
+    }
+    if (keysOfBits.get(bit) == key) {
+      keysOfBits.remove(bit);
+    }
+  }
+
+  private static long cellOf(double x, double y) {
+    return cellKey(cell(x), cell(y));
+  }
+
+  private static int cell(double coordinate) {
+    return (int) Math.floor(coordinate / CELL_SIZE);
+  }
+
+  private static long cellKey(int column, int row) {
+    return ((long) column << 32) | (row & 0xffffffffL);
+  }
+
+  /**
+   * @return keys in the cells overlapping the given box
+   */
+  private List<Vector2> keysInCells(double minX, double minY, double maxX, double maxY) {
+    List<Vector2> result = new ArrayList<>();
+    for (int column = cell(minX); column <= cell(maxX); column++) {
+      for (int row = cell(minY); row <= cell(maxY); row++) {
+        List<Vector2> keys = grid.get(cellKey(column, row));
+        if (keys != null) {
+          result.addAll(keys);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param point in {@link Mesh} coordinate system
+   * @return keys {@link Vector2#asGoodAsEqual(Vector2) as good as equal} to <tt>point</tt>
+   */
+  private List<Vector2> getKeysNear(Vector2 point) {
+    double tolerance = Math.pow(10, -CraftConfig.errorAccepted);
+    List<Vector2> result = keysInCells(point.x - tolerance, point.y - tolerance,
+        point.x + tolerance, point.y + tolerance);
+    result.removeIf(key -> !point.asGoodAsEqual(key));
+    return result;
+  }
+
+  /**
+   * Find the key of the bit placed at <tt>point</tt>, within the accepted error.
+   *
+   * @param point in {@link Mesh} coordinate system
+   * @return the nearest key {@link Vector2#asGoodAsEqual(Vector2) as good as equal} to
+   * <tt>point</tt>. <tt>null</tt> if none
+   */
+  public Vector2 getKeyNear(Vector2 point) {
+    Vector2 nearest = null;
+    double nearestDistance = Double.POSITIVE_INFINITY;
+    for (Vector2 key : getKeysNear(point)) {
+      double distance = Math.abs(key.x - point.x) + Math.abs(key.y - point.y);
+      if (distance < nearestDistance) {
+        nearest = key;
+        nearestDistance = distance;
+      }
+    }
+    return nearest;
+  }
+
+  /**
+   * @param bit in {@link Mesh} coordinate system
+   * @return the key under which <tt>bit</tt> itself is registered. <tt>null</tt> if it is not in
+   * this pavement
+   */
+  public Vector2 getKey(Bit2D bit) {
+    return keysOfBits.get(bit);
+  }
+
+  /**
+   * @param region in {@link Mesh} coordinate system
+   * @return keys of the bits whose bounds intersect <tt>region</tt>
+   */
+  public List<Vector2> getBitsKeysIn(Rectangle2D region) {
+    List<Vector2> result = keysInCells(region.getMinX() - reach, region.getMinY() - reach,
+        region.getMaxX() + reach, region.getMaxY() + reach);
+    result.removeIf(key -> !intersects(mapBits.get(key)
+        .getAreaCS()
+        .getBounds2D(), region));
+    return result;
+  }
+
+  /**
+   * Unlike {@link Rectangle2D#intersects(Rectangle2D)}, a point or a border touching is enough
+   */
+  private static boolean intersects(Rectangle2D a, Rectangle2D b) {
+    return a.getMinX() <= b.getMaxX() && b.getMinX() <= a.getMaxX()
+        && a.getMinY() <= b.getMaxY() && b.getMinY() <= a.getMaxY();
+  }
+
+  /**
+   * @param position in {@link Mesh} coordinate system
+   * @return key of a bit containing <tt>position</tt>. <tt>null</tt> if none
+   */
+  public Vector2 getBitKeyAt(Point2D position) {
+    for (Vector2 key : getBitsKeysIn(
+        new Rectangle2D.Double(position.getX(), position.getY(), 0, 0))) {
+      if (mapBits.get(key)
+          .getAreaCS()
+          .contains(position)) {
+        return key;
+      }
+    }
+    return null;
+  }
+
   @SuppressWarnings("MethodDoesntCallSuperMethod")
   @Override
   public Pavement clone() {
-    Collection<Bit2D> clonedMapBits = this.getBitsKeys()
+    Collection<Bit2D> clonedMapBits = mapBits.values()
         .stream()
-        .map(vector2 -> getBit(vector2).clone())
+        .map(Bit2D::clone)
         .collect(Collectors.toSet());
     return new Pavement(clonedMapBits);
   }
@@ -172,6 +369,29 @@ public class Pavement extends Observable implements Cloneable, Serializable {
     return new HashSet<>(mapBits.keySet());
   }
 
+  /**
+   * Read only view of the {@link Bit2D} origins, without copy. Must not be iterated while the
+   * pavement changes, use {@link #getBitsKeys()} then.
+   *
+   * @return a {@link Set} in {@link Mesh} coordinate system
+   */
+  public Set<Vector2> getBitsKeysView() {
+    return Collections.unmodifiableSet(mapBits.keySet());
+  }
+
+  /**
+   * Read only view of the {@link Bit2D}s, without copy
+   *
+   * @see #getBitsKeysView()
+   */
+  public Collection<Bit2D> getBitsView() {
+    return Collections.unmodifiableCollection(mapBits.values());
+  }
+
+  public int size() {
+    return mapBits.size();
+  }
+
   /**
    * Move the chosen bit in the wanted direction. Note: not exactly "moving", but rather "removing"
    * then "adding" new one with same size
@@ -219,7 +439,10 @@ public class Pavement extends Observable implements Cloneable, Serializable {
    * @param key origin of bit in {@link Mesh} coordinate system
    */
   public void removeBit(Vector2 key) {
-    mapBits.remove(key);
+    Bit2D bit = mapBits.remove(key);
+    if (bit != null) {
+      unindex(key, bit);
+    }
   }
 
   public void removeSubBit(Vector2 key,SubBit2D sub){
@@ -236,9 +459,7 @@ public class Pavement extends Observable implements Cloneable, Serializable {
    * @return whole schema in {@link Mesh} coordinate system
    */
   public Set<Bit2D> getBits() {
-    return getBitsKeys().stream()
-        .map(this::getBit)
-        .collect(Collectors.toSet());
+    return new HashSet<>(mapBits.values());
   }
 
   /**
@@ -251,24 +472,64 @@ public class Pavement extends Observable implements Cloneable, Serializable {
   }
 
   /**
-   * Recompute surfaces of {@link Bit2D}s
+   * Recompute surfaces of {@link Bit2D}s. Bits are first placed against the border of
+   * <tt>areaSlider</tt>: those entirely inside are kept as they are, those entirely outside are
+   * removed, and only those across the border are intersected with it. Bits are computed in
+   * parallel.
    *
    * @param areaSlider in {@link Mesh} coordinate system
    * @see #computeBits(Slice)
    */
   public void computeBits(Area areaSlider) {
     areaAvailable = (Area) areaSlider.clone();
-    for (Vector2 key : getBitsKeys()) {
-      Bit2D bit = getBit(key);
-      Area bitArea = bit.getAreaCS();
-      bitArea.intersect(areaAvailable);
-      if (bitArea.isEmpty()) {
+    PackedArea section = PackedArea.of(areaAvailable);
+    List<Vector2> keys = new ArrayList<>(mapBits.keySet());
+    boolean[] kept = new boolean[keys.size()];
+    MultiThreadServiceExecutor.instance.invokeParallel(() -> IntStream.range(0, keys.size())
+        .parallel()
+        .forEach(i -> kept[i] = computeBit(mapBits.get(keys.get(i)), section)), 0);
+    for (int i = 0; i < kept.length; i++) {
+      if (!kept[i]) {
         // Outside of border
-        mapBits.remove(key);
-      } else {
+        removeBit(keys.get(i));
+      }
+    }
+  }
+
+  /**
+   * Cut <tt>bit</tt> by {@link #areaAvailable}. Does not change the pavement, so may run in
+   * parallel for different bits.
+   *
+   * @param section {@link #areaAvailable}
+   * @return <tt>false</tt> if nothing is left of <tt>bit</tt>
+   */
+  private boolean computeBit(Bit2D bit, PackedArea section) {
+    // Curves would be flattened, those are cut as areas
+    PackedArea packedBit = areaAvailable.isPolygonal() ? bit.getPackedAreaCS() : null;
+    Area bitArea = packedBit == null ? bit.getAreaCS() : null;
+    if (packedBit != null ? packedBit.isEmpty() : bitArea.isEmpty()) {
+      return false;
+    }
+    Rectangle2D bounds = packedBit != null ? packedBit.getBounds2D() : bitArea.getBounds2D();
+    switch (section.locate(bounds)) {
+      case OUTSIDE:
+        return false;
+      case INSIDE:
+        // Nothing to cut
+        return true;
+      default:
+        if (packedBit != null) {
+          PackedArea cut = packedBit.intersect(section);
+          bitArea = cut.isEmpty() ? null : cut.toArea();
+        } else {
+          bitArea.intersect(areaAvailable);
+        }
+        if (bitArea == null || bitArea.isEmpty()) {
+          return false;
+        }
         bit.updateBoundaries(bitArea);
         bit.calcCutPath();
-      }
+        return true;
     }
   }
 
@@ -280,7 +541,7 @@ public class Pavement extends Observable implements Cloneable, Serializable {
       bitArea.intersect(areaAvailable);
       if (bitArea.isEmpty()) {
         // Outside of border
-        mapBits.remove(key);
+        removeBit(key);
       } else {
         bit.updateBoundaries(bitArea);
         bit.calcCutPath();
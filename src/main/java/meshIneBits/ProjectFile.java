@@ -0,0 +1,406 @@
+package meshIneBits;
+
+import meshIneBits.util.Logger;
+import meshIneBits.util.MultiThreadServiceExecutor;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Binary file of a saved {@link Mesh}. Each layer is written in its own compressed block, with its
+ * geometry as packed coordinates, so layers are saved and opened on all cores and one layer may be
+ * read alone. The file is made of:
+ * <ol>
+ *   <li>the header: {@link #MAGIC} and {@link #VERSION}</li>
+ *   <li>one block per layer</li>
+ *   <li>the block of objects kept with java serialization, such as pattern templates</li>
+ *   <li>the block of the mesh, linking to the layers and their bits</li>
+ *   <li>the directory: offset and length of each block</li>
+ *   <li>the offset of the directory, on 8 bytes</li>
+ * </ol>
+ *
+ * @see ProjectOutput
+ */
+public class ProjectFile {
+
+  /**
+   * "MIBP"
+   */
+  static final int MAGIC = 0x4D494250;
+  static final int VERSION = 1;
+  private static final int HEADER_LENGTH = 8;
+
+  /**
+   * Position of a compressed block in the file
+   */
+  private static class BlockEntry {
+
+    private final long offset;
+    private final int length;
+    private final int rawLength;
+
+    private BlockEntry(long offset, int length, int rawLength) {
+      this.offset = offset;
+      this.length = length;
+      this.rawLength = rawLength;
+    }
+  }
+
+  /**
+   * Compressed block ready to be written
+   */
+  private static class Block {
+
+    private final byte[] data;
+    private final int rawLength;
+    private final Map<Object, Integer> references;
+
+    private Block(byte[] data, int rawLength, Map<Object, Integer> references) {
+      this.data = data;
+      this.rawLength = rawLength;
+      this.references = references;
+    }
+  }
+
+  private interface BlockWriter {
+
+    void write(ProjectOutput out) throws IOException;
+  }
+
+  private final Path path;
+  private final BlockEntry[] layerEntries;
+  private final int[] layerNumbers;
+  private final BlockEntry objectsEntry;
+  private final BlockEntry meshEntry;
+  private List<Object> serializedObjects;
+
+  private ProjectFile(Path path, BlockEntry[] layerEntries, int[] layerNumbers,
+      BlockEntry objectsEntry, BlockEntry meshEntry) {
+    this.path = path;
+    this.layerEntries = layerEntries;
+    this.layerNumbers = layerNumbers;
+    this.objectsEntry = objectsEntry;
+    this.meshEntry = meshEntry;
+  }
+
+  /**
+   * @return <tt>true</tt> if <tt>path</tt> starts like a project file. Projects saved with java
+   * serialization do not
+   */
+  public static boolean isProjectFile(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(4);
+      return read(channel, header, 0) && header.getInt(0) == MAGIC;
+    }
+  }
+
+  /**
+   * Save <tt>mesh</tt>. Layers are encoded on all cores.
+   */
+  public static void write(Mesh mesh, Path path) throws IOException {
+    long start = System.currentTimeMillis();
+    List<Layer> layers = new ArrayList<>(mesh.getLayers());
+    Map<Object, Integer> serializedObjects = new IdentityHashMap<>();
+    List<Future<Block>> encodedLayers = new ArrayList<>(layers.size());
+    for (Layer layer : layers) {
+      encodedLayers.add(MultiThreadServiceExecutor.instance.submit(
+          () -> encode(out -> Layer.writeProject(out, layer), serializedObjects,
+              Collections.emptyMap())));
+    }
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+      header.putInt(MAGIC)
+          .putInt(VERSION)
+          .flip();
+      writeFully(channel, header);
+
+      BlockEntry[] layerEntries = new BlockEntry[layers.size()];
+      Map<Object, Long> links = new IdentityHashMap<>();
+      for (int i = 0; i < layers.size(); i++) {
+        Block block = get(encodedLayers.get(i));
+        layerEntries[i] = writeBlock(channel, block);
+        for (Map.Entry<Object, Integer> reference : block.references.entrySet()) {
+          links.put(reference.getKey(), ProjectOutput.linkOf(i, reference.getValue()));
+        }
+        Logger.setProgress(i + 1, layers.size());
+      }
+      Block meshBlock = encode(mesh::writeProject, serializedObjects, links);
+
+      // Serialized objects are known once all the other blocks are encoded
+      Object[] objects = new Object[serializedObjects.size()];
+      serializedObjects.forEach((o, index) -> objects[index] = o);
+      ByteArrayOutputStream objectsBytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream oos = new ObjectOutputStream(objectsBytes)) {
+        oos.writeInt(objects.length);
+        for (Object o : objects) {
+          oos.writeObject(o);
+        }
+      }
+      Block objectsBlock = encode(out -> out.write(objectsBytes.toByteArray()), null, null);
+
+      BlockEntry objectsEntry = writeBlock(channel, objectsBlock);
+      BlockEntry meshEntry = writeBlock(channel, meshBlock);
+
+      long directoryOffset = channel.position();
+      ByteBuffer directory = ByteBuffer.allocate(4 + layers.size() * 20 + 2 * 16 + 8);
+      directory.putInt(layers.size());
+      for (int i = 0; i < layers.size(); i++) {
+        putEntry(directory, layerEntries[i]);
+        directory.putInt(layers.get(i)
+            .getLayerNumber());
+      }
+      putEntry(directory, objectsEntry);
+      putEntry(directory, meshEntry);
+      directory.putLong(directoryOffset)
+          .flip();
+      writeFully(channel, directory);
+      Logger.message(
+          "Project saved in " + path + ": " + layers.size() + " layers, " + channel.position()
+              + " bytes in " + (System.currentTimeMillis() - start) + " ms");
+    } finally {
+      encodedLayers.forEach(future -> future.cancel(true));
+    }
+  }
+
+  /**
+   * Read the directory of a project file. Blocks are read on demand.
+   *
+   * @throws IOException if <tt>path</tt> is not a project file or is saved by a newer version
+   */
+  public static ProjectFile open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+      if (!read(channel, header, 0) || header.getInt(0) != MAGIC) {
+        throw new IOException(path + " is not a project file");
+      }
+      int version = header.getInt(4);
+      if (version > VERSION) {
+        throw new IOException(
+            path + " is saved in version " + version + " of project files, only version "
+                + VERSION + " and before are known");
+      }
+      long size = channel.size();
+      ByteBuffer end = ByteBuffer.allocate(8);
+      if (size < HEADER_LENGTH + 8 || !read(channel, end, size - 8)) {
+        throw new IOException(path + " is truncated");
+      }
+      long directoryOffset = end.getLong(0);
+      if (directoryOffset < HEADER_LENGTH || directoryOffset > size - 8) {
+        throw new IOException(path + " is corrupted: no directory");
+      }
+      ByteBuffer directory = ByteBuffer.allocate((int) (size - 8 - directoryOffset));
+      read(channel, directory, directoryOffset);
+      directory.flip();
+      int layerCount = directory.getInt();
+      BlockEntry[] layerEntries = new BlockEntry[layerCount];
+      int[] layerNumbers = new int[layerCount];
+      for (int i = 0; i < layerCount; i++) {
+        layerEntries[i] = getEntry(directory);
+        layerNumbers[i] = directory.getInt();
+      }
+      return new ProjectFile(path, layerEntries, layerNumbers, getEntry(directory),
+          getEntry(directory));
+    }
+  }
+
+  public int getLayerCount() {
+    return layerEntries.length;
+  }
+
+  /**
+   * @param index of the layer in the file
+   * @return number of the layer, as in {@link Layer#getLayerNumber()}
+   */
+  public int getLayerNumber(int index) {
+    return layerNumbers[index];
+  }
+
+  /**
+   * Read one layer with its pavement and bits, without the rest of the project
+   *
+   * @param index of the layer in the file
+   */
+  public Layer readLayer(int index) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ProjectInput in = new ProjectInput(readBlock(channel, layerEntries[index]),
+          getSerializedObjects(channel), null);
+      return Layer.readProject(in);
+    }
+  }
+
+  /**
+   * Read the whole project. Layers are decoded on all cores.
+   */
+  public Mesh readMesh() throws IOException {
+    long start = System.currentTimeMillis();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      List<Object> objects = getSerializedObjects(channel);
+      List<Future<List<Object>>> decodedLayers = new ArrayList<>(layerEntries.length);
+      for (BlockEntry entry : layerEntries) {
+        decodedLayers.add(MultiThreadServiceExecutor.instance.submit(() -> {
+          ProjectInput in = new ProjectInput(readBlock(channel, entry), objects, null);
+          Layer.readProject(in);
+          return in.getReferences();
+        }));
+      }
+      List<List<Object>> links = new ArrayList<>(layerEntries.length);
+      try {
+        for (int i = 0; i < decodedLayers.size(); i++) {
+          links.add(get(decodedLayers.get(i)));
+          Logger.setProgress(i + 1, decodedLayers.size());
+        }
+      } finally {
+        decodedLayers.forEach(future -> future.cancel(true));
+      }
+      Mesh mesh = Mesh.readProject(new ProjectInput(readBlock(channel, meshEntry), objects, links));
+      Logger.message(
+          "Project opened from " + path + ": " + layerEntries.length + " layers in "
+              + (System.currentTimeMillis() - start) + " ms");
+      return mesh;
+    }
+  }
+
+  private synchronized List<Object> getSerializedObjects(FileChannel channel)
+      throws IOException {
+    if (serializedObjects == null) {
+      try (ObjectInputStream ois = new ObjectInputStream(readBlock(channel, objectsEntry))) {
+        int size = ois.readInt();
+        List<Object> objects = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          objects.add(ois.readObject());
+        }
+        serializedObjects = Collections.unmodifiableList(objects);
+      } catch (ClassNotFoundException e) {
+        throw new IOException("Unknown class in " + path, e);
+      }
+    }
+    return serializedObjects;
+  }
+
+  private static Block encode(BlockWriter writer, Map<Object, Integer> serializedObjects,
+      Map<Object, Long> links) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      ProjectOutput out = new ProjectOutput(
+          new DeflaterOutputStream(bytes, deflater, 1 << 16), serializedObjects, links);
+      writer.write(out);
+      out.close();
+      return new Block(bytes.toByteArray(), out.size(), out.getReferences());
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static ByteArrayInputStream readBlock(FileChannel channel, BlockEntry entry)
+      throws IOException {
+    ByteBuffer compressed = ByteBuffer.allocate(entry.length);
+    if (!read(channel, compressed, entry.offset)) {
+      throw new IOException("Block at " + entry.offset + " is truncated");
+    }
+    byte[] raw = new byte[entry.rawLength];
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed.array());
+      int inflated = 0;
+      while (inflated < raw.length && !inflater.finished()) {
+        int n = inflater.inflate(raw, inflated, raw.length - inflated);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        inflated += n;
+      }
+      if (inflated != raw.length) {
+        throw new IOException("Block at " + entry.offset + " is corrupted");
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Block at " + entry.offset + " is corrupted", e);
+    } finally {
+      inflater.end();
+    }
+    return new ByteArrayInputStream(raw);
+  }
+
+  private static BlockEntry writeBlock(FileChannel channel, Block block) throws IOException {
+    long offset = channel.position();
+    writeFully(channel, ByteBuffer.wrap(block.data));
+    return new BlockEntry(offset, block.data.length, block.rawLength);
+  }
+
+  private static void putEntry(ByteBuffer directory, BlockEntry entry) {
+    directory.putLong(entry.offset)
+        .putInt(entry.length)
+        .putInt(entry.rawLength);
+  }
+
+  private static BlockEntry getEntry(ByteBuffer directory) {
+    return new BlockEntry(directory.getLong(), directory.getInt(), directory.getInt());
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * Fill <tt>buffer</tt> from <tt>position</tt>, without moving the channel
+   *
+   * @return <tt>false</tt> if the file ends before
+   */
+  private static boolean read(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      int n = channel.read(buffer, position);
+      if (n < 0) {
+        return false;
+      }
+      position += n;
+    }
+    return true;
+  }
+
+  private static <T> T get(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread()
+          .interrupt();
+      throw new InterruptedIOException("Interrupted while saving or opening a project");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+}
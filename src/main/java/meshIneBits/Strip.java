@@ -1,7 +1,10 @@
 package meshIneBits;
 
 import meshIneBits.config.CraftConfig;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 
@@ -14,6 +17,9 @@ import static meshIneBits.config.CraftConfig.printerY;
  * c.à.d chaque layer peut contenir plusieurs strip ou minimmum 1 et chaque stripe peut contenir plusieurs bits ou minimmum 1
  */
 public class Strip implements Serializable {
+
+  private static final long serialVersionUID = -7461804388793658712L;
+
 private double Xposition=-printerX / 2 - CraftConfig.workingWidth - 20;
 
 private double Zposition;
@@ -26,6 +32,46 @@ this.Xposition=firstbit.getTwoExtremeXPointsCS().get(0).x;
 this.Zposition=firstbit.getLowerAltitude();
 this.layer=layer;
     }
+    private Strip() {
+    }
+
+    /**
+     * Write <tt>strip</tt> by reference in a project file. Its bits and layer are linked to the
+     * blocks of the layers
+     */
+    public static void writeProject(ProjectOutput out, Strip strip) throws IOException {
+        if (!out.writeReference(strip)) {
+            return;
+        }
+        out.writeDouble(strip.Xposition);
+        out.writeDouble(strip.Zposition);
+        out.writeInt(strip.bits.size());
+        for (Bit3D bit : strip.bits) {
+            if (out.writeLink(bit)) {
+                Bit3D.writeProject(out, bit);
+            }
+        }
+        out.writeFloat(strip.width);
+        out.writeFloat(strip.length);
+        if (out.writeLink(strip.layer)) {
+            Layer.writeProject(out, strip.layer);
+        }
+    }
+
+    public static Strip readProject(ProjectInput in) throws IOException {
+        return in.readReference(i -> new Strip(), (i, strip) -> {
+            strip.Xposition = i.readDouble();
+            strip.Zposition = i.readDouble();
+            int size = i.readInt();
+            for (int k = 0; k < size; k++) {
+                strip.bits.add(i.readLink(Bit3D::readProject));
+            }
+            strip.width = i.readFloat();
+            strip.length = i.readFloat();
+            strip.layer = i.readLink(Layer::readProject);
+        });
+    }
+
 public void addBit3D(Bit3D bit3D){
         bits.add(bit3D);
 }
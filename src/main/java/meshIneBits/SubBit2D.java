@@ -2,6 +2,8 @@ package meshIneBits;
 
 import meshIneBits.config.CraftConfig;
 import meshIneBits.util.LiftPointCalc;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
 import meshIneBits.util.TwoDistantPointsCalc;
 import meshIneBits.util.Vector2;
 import org.jetbrains.annotations.NotNull;
@@ -25,6 +27,8 @@ import static meshIneBits.gui.view2d.MeshController.thecontroller;
 //TODO define readObject and writeObject for save mesh
 public class SubBit2D implements Serializable {
 
+  private static final long serialVersionUID = 6907725040692644508L;
+
   private Bit2D parentBit;
   private Vector2 originPositionCS;
   private Vector2 orientationCS;
@@ -248,6 +252,53 @@ public class SubBit2D implements Serializable {
     }
 
 
+    /**
+     * Empty sub bit, to be filled from a project file
+     */
+    private SubBit2D() {
+    }
+
+    /**
+     * Write <tt>subBit</tt> by reference in a project file
+     */
+    public static void writeProject(ProjectOutput out, SubBit2D subBit) throws IOException {
+        if (!out.writeReference(subBit)) {
+            return;
+        }
+        Bit2D.writeProject(out, subBit.parentBit);
+        out.writeVector2(subBit.originPositionCS);
+        out.writeVector2(subBit.orientationCS);
+        out.writeVector2(subBit.liftPointCB);
+        out.writeVector2(subBit.firstDistantPointCB);
+        out.writeVector2(subBit.secondDistantPointCB);
+        out.writeTransform(subBit.transformMatrixToCS);
+        out.writeTransform(subBit.inverseMatrixToCB);
+        out.writeVector2(subBit.XminPoint);
+        out.writeVector2(subBit.XmaxPoint);
+        out.writePath(subBit.cutPath);
+        out.writeShape(subBit.areaCB);
+        out.writeBoolean(subBit.removed);
+    }
+
+    public static SubBit2D readProject(ProjectInput in) throws IOException {
+        return in.readReference(i -> new SubBit2D(), (i, subBit) -> {
+            subBit.parentBit = Bit2D.readProject(i);
+            subBit.originPositionCS = i.readVector2();
+            subBit.orientationCS = i.readVector2();
+            subBit.liftPointCB = i.readVector2();
+            subBit.firstDistantPointCB = i.readVector2();
+            subBit.secondDistantPointCB = i.readVector2();
+            subBit.transformMatrixToCS = i.readTransform();
+            subBit.inverseMatrixToCB = i.readTransform();
+            subBit.XminPoint = i.readVector2();
+            subBit.XmaxPoint = i.readVector2();
+            subBit.cutPath = i.readPath();
+            Shape area = i.readShape();
+            subBit.areaCB = area == null ? null : new Area(area);
+            subBit.removed = i.readBoolean();
+        });
+    }
+
     private void writeObject(ObjectOutputStream oos) throws IOException {
         oos.writeObject(parentBit);
         oos.writeObject(originPositionCS);
@@ -280,7 +331,9 @@ public class SubBit2D implements Serializable {
         Shape s = (Shape) ois.readObject();
         this.areaCB=new Area(s);
         this.removed=ois.readBoolean();
-        thecontroller.updateCore();
+        if (thecontroller != null) {
+            thecontroller.updateCore();
+        }
         // this.updateBoundaries(new Area(s));
     }
 }
@@ -31,9 +31,12 @@
 package meshIneBits.borderPaver.genetics;
 
 import meshIneBits.borderPaver.util.Section;
+import meshIneBits.util.CustomLogger;
 import meshIneBits.util.Vector2;
 
 import java.awt.geom.Area;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Vector;
 
 /**
@@ -44,6 +47,7 @@ import java.util.Vector;
  * @see Solution
  */
 public class Evolution {
+    private static final CustomLogger logger = new CustomLogger(Evolution.class);
     /**
      * The probability for a Solution to mutate.
      */
@@ -56,6 +60,14 @@ public class Evolution {
      * The percentage of reproduced Solutions to give to the new Generation.
      */
     private static final double RANK_REPRODUCTION = 0.5;
+    /**
+     * The number of last generations kept alive. Only the best solution is kept from the older ones.
+     */
+    private static final int GENERATIONS_WINDOW = 2;
+    /**
+     * The minimal gain of score for the evolution not to be stagnating.
+     */
+    private static final double MIN_IMPROVEMENT = 1e-6;
     /**
      * The ratio between the area and the length, used when calculating the score.
      */
@@ -68,11 +80,26 @@ public class Evolution {
      * The size of the population to keep alive.
      */
     private final int POP_SIZE;
+    /**
+     * The number of generations without improvement before stopping, 0 to never stop early.
+     */
+    private final int STAGNATION_LIMIT;
     private final Vector2 startPoint;
     private final Vector<Vector2> bound;
-    private final Vector<Generation> generations = new Vector<>();
-    private final Area layerAvailableArea;
+    private final Deque<Generation> generations = new ArrayDeque<>(GENERATIONS_WINDOW + 1);
+    private final FitnessCache fitnessCache;
     private final Section section;
+    /**
+     * The number of generations generated by {@link #run()}.
+     */
+    private int generationNumber = 0;
+    /**
+     * The last generation which improved the best score.
+     */
+    private int lastImprovingGeneration = 0;
+    /**
+     * The best solution found so far, among all generations.
+     */
     public Solution bestSolution;
 
     /**
@@ -86,13 +113,28 @@ public class Evolution {
      * @param RATIO              the ratio between the area and the length, used when calculating the score.
      */
     public Evolution(Area layerAvailableArea, Section section, Vector<Vector2> bound, int nbOfGenerations, int popSize, int RATIO) {
-        this.layerAvailableArea = layerAvailableArea;
-        Vector<Vector2> pointSection = section.getPoints();
+        this(layerAvailableArea, section, bound, nbOfGenerations, popSize, RATIO, 0);
+    }
+
+    /**
+     * An evolution searches the best Solution for a given set of points.
+     *
+     * @param layerAvailableArea the available Area of the layer, not to be changed during the evolution.
+     * @param section            the section to place the bit on.
+     * @param bound              the bound where the bit has to be placed.
+     * @param nbOfGenerations    the maximum number of generations to generate.
+     * @param popSize            the size of the population to keep alive during the process.
+     * @param RATIO              the ratio between the area and the length, used when calculating the score.
+     * @param stagnationLimit    the number of generations without improvement before stopping, 0 to never stop early.
+     */
+    public Evolution(Area layerAvailableArea, Section section, Vector<Vector2> bound, int nbOfGenerations, int popSize, int RATIO, int stagnationLimit) {
+        this.fitnessCache = new FitnessCache(layerAvailableArea);
         this.startPoint = section.getStartPoint();
         this.bound = bound;
         this.NB_OF_GENERATIONS = nbOfGenerations;
         this.POP_SIZE = popSize;
         this.RATIO = RATIO;
+        this.STAGNATION_LIMIT = stagnationLimit;
         this.section = section;
     }
 
@@ -107,29 +149,33 @@ public class Evolution {
                 RANK_REPRODUCTION,
                 PROB_MUTATION,
                 RATIO,
-                layerAvailableArea,
+                fitnessCache,
                 startPoint,
                 bound
         );
         initGeneration.initialize(section);
-        int currentGenerationNumber = 0;
+        generationNumber = 0;
+        lastImprovingGeneration = 0;
         generations.add(initGeneration);
 
-        while (currentGenerationNumber < NB_OF_GENERATIONS) {
+        while (generationNumber < NB_OF_GENERATIONS) {
+            Generation lastGeneration = generations.getLast();
             Generation currentGeneration = new Generation(
                     POP_SIZE,
                     RANK_SELECTION,
                     RANK_REPRODUCTION,
                     PROB_MUTATION,
                     RATIO,
-                    layerAvailableArea,
+                    fitnessCache,
                     startPoint,
                     bound
             );
-            currentGenerationNumber++;
+            generationNumber++;
             generations.add(currentGeneration);
+            if (generations.size() > GENERATIONS_WINDOW)
+                generations.removeFirst();
 
-            Vector<Solution> mutatedSolutionsFromLastGen = currentGeneration.mutate(generations.get(currentGenerationNumber - 1).solutions);
+            Vector<Solution> mutatedSolutionsFromLastGen = currentGeneration.mutate(lastGeneration.solutions);
             Vector<Solution> sortedSolutions = currentGeneration.select(mutatedSolutionsFromLastGen);
             Vector<Solution> reproducedSolutions = currentGeneration.reproduce(mutatedSolutionsFromLastGen);
 
@@ -141,17 +187,48 @@ public class Evolution {
             currentGeneration.solutions.addAll(solutionsToCompleteWith);
 
             //evaluates and deletes bad solutions
-            Vector<Solution> badSolutions = new Vector<>();
-            for (Solution solution : currentGeneration.solutions) {
-                if (solution.isBad())
-                    badSolutions.add(solution);
-            }
-            System.out.println("bad sol in gen " + currentGenerationNumber + " : " + badSolutions.size() + "/" + currentGeneration.solutions.size());
-            currentGeneration.solutions.removeAll(badSolutions);
+            int nbOfSolutions = currentGeneration.solutions.size();
+            int nbOfBadSolutions = currentGeneration.removeBadSolutions();
+            System.out.println("bad sol in gen " + generationNumber + " : " + nbOfBadSolutions + "/" + nbOfSolutions);
             currentGeneration.evaluateGeneration();
-            bestSolution = currentGeneration.bestSolution;
+            if (keepBest(currentGeneration.bestSolution))
+                lastImprovingGeneration = generationNumber;
 
             currentGeneration.sortSolutions(currentGeneration.solutions);
+            if (STAGNATION_LIMIT > 0 && generationNumber - lastImprovingGeneration >= STAGNATION_LIMIT) {
+                logger.logDEBUGMessage("No improvement for " + STAGNATION_LIMIT + " generations, stopped at generation " + generationNumber);
+                break;
+            }
         }
     }
+
+    /**
+     * @return the number of generations generated by the last {@link #run()}.
+     */
+    int getGenerationNumber() {
+        return generationNumber;
+    }
+
+    /**
+     * @return the last generation which improved the best score, 0 if none did.
+     */
+    int getLastImprovingGeneration() {
+        return lastImprovingGeneration;
+    }
+
+    /**
+     * Keeps a copy of the given solution if it is the best so far,
+     * as solutions of the next generations mutate.
+     *
+     * @param solution the best solution of a generation.
+     * @return true if the best score has improved by at least <code>MIN_IMPROVEMENT</code>.
+     */
+    boolean keepBest(Solution solution) {
+        if (solution == null)
+            return false;
+        boolean improved = bestSolution == null || solution.getScore() > bestSolution.getScore() + MIN_IMPROVEMENT;
+        if (bestSolution == null || solution.getScore() > bestSolution.getScore())
+            bestSolution = solution.copy();
+        return improved;
+    }
 }
\ No newline at end of file
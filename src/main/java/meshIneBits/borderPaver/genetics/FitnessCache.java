@@ -0,0 +1,182 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package meshIneBits.borderPaver.genetics;
+
+import meshIneBits.util.PackedArea;
+import meshIneBits.util.Vector2;
+
+import java.awt.geom.Area;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Scores of the solutions of one {@link Evolution}, shared by all its generations and safe to use
+ * from several threads.
+ * Solutions are told apart by their position and angle, quantized by {@link #POSITION_STEP} and
+ * {@link #ANGLE_STEP}. A solution is scored as the center of its quantum, so that survivors and
+ * children equal to their parents are scored once.
+ *
+ * @see Solution
+ */
+public class FitnessCache {
+    /**
+     * The quantum of position, in mm.
+     */
+    static final double POSITION_STEP = 1e-3;
+    /**
+     * The quantum of angle, in degrees.
+     */
+    static final double ANGLE_STEP = 1e-3;
+
+    private final Area layerAvailableArea;
+    /**
+     * Same as <code>layerAvailableArea</code>, <code>null</code> if it has curves.
+     */
+    private final PackedArea packedAvailableArea;
+    private final Map<Key, Fitness> fitnesses = new ConcurrentHashMap<>();
+    private final Map<Key, Boolean> badness = new ConcurrentHashMap<>();
+
+    /**
+     * @param layerAvailableArea the available Area of the layer, not to be changed during the evolution.
+     */
+    public FitnessCache(Area layerAvailableArea) {
+        this.layerAvailableArea = layerAvailableArea;
+        this.packedAvailableArea = layerAvailableArea.isPolygonal() ? PackedArea.of(layerAvailableArea) : null;
+    }
+
+    /**
+     * @param bitArea area of a bit, may be changed.
+     * @return the part of <code>bitArea</code> inside the available Area of the layer.
+     */
+    Area clip(Area bitArea) {
+        if (packedAvailableArea == null || !bitArea.isPolygonal()) {
+            bitArea.intersect(layerAvailableArea);
+            return bitArea;
+        }
+        switch (packedAvailableArea.locate(bitArea.getBounds2D())) {
+            case OUTSIDE:
+                return new Area();
+            case INSIDE:
+                return bitArea;
+            default:
+                PackedArea cut = PackedArea.of(bitArea).intersect(packedAvailableArea);
+                return cut.isEmpty() ? new Area() : cut.toArea();
+        }
+    }
+
+    /**
+     * @param evaluation computes the fitness if it is not known yet.
+     * @return the first fitness stored for the key, the same for all threads.
+     */
+    Fitness getFitness(Key key, Supplier<Fitness> evaluation) {
+        Fitness fitness = fitnesses.get(key);
+        if (fitness == null) {
+            // Computed out of the map, two threads may compute the same fitness but only the first one is kept
+            fitness = evaluation.get();
+            Fitness stored = fitnesses.putIfAbsent(key, fitness);
+            if (stored != null)
+                fitness = stored;
+        }
+        return fitness;
+    }
+
+    /**
+     * @param check tells if the solution is bad, if it is not known yet.
+     * @return the first answer stored for the key, the same for all threads.
+     */
+    boolean isBad(Key key, BooleanSupplier check) {
+        Boolean bad = badness.get(key);
+        if (bad == null) {
+            bad = check.getAsBoolean();
+            Boolean stored = badness.putIfAbsent(key, bad);
+            if (stored != null)
+                bad = stored;
+        }
+        return bad;
+    }
+
+    /**
+     * The score of a solution, and whether its bit is out of the layer.
+     */
+    static class Fitness {
+        static final Fitness OUTSIDE = new Fitness(0, true);
+
+        final double score;
+        final boolean outside;
+
+        Fitness(double score, boolean outside) {
+            this.score = score;
+            this.outside = outside;
+        }
+    }
+
+    /**
+     * Quantized position and angle of a solution.
+     */
+    static class Key {
+        private final long position;
+        private final long angle;
+
+        Key(double position, Vector2 angle) {
+            this.position = Math.round(position / POSITION_STEP);
+            this.angle = Math.round(Math.toDegrees(Math.atan2(angle.y, angle.x)) / ANGLE_STEP);
+        }
+
+        /**
+         * @return the position at the center of the quantum.
+         */
+        double getPosition() {
+            return position * POSITION_STEP;
+        }
+
+        /**
+         * @return the unit vector of the angle at the center of the quantum.
+         */
+        Vector2 getAngle() {
+            double radians = Math.toRadians(angle * ANGLE_STEP);
+            return new Vector2(Math.cos(radians), Math.sin(radians));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key
+                    && position == ((Key) o).position
+                    && angle == ((Key) o).angle;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(position) + Long.hashCode(angle);
+        }
+    }
+}
@@ -33,10 +33,10 @@ package meshIneBits.borderPaver.genetics;
 import meshIneBits.borderPaver.util.Section;
 import meshIneBits.borderPaver.util.SectionTransformer;
 import meshIneBits.config.CraftConfig;
+import meshIneBits.util.MultiThreadServiceExecutor;
 import meshIneBits.util.Vector2;
 import org.jetbrains.annotations.NotNull;
 
-import java.awt.geom.Area;
 import java.util.*;
 
 /**
@@ -59,7 +59,7 @@ public class Generation {
     private final double rankReproduction;
     private final double probMutation;
     private final int ratio;
-    private final Area layerAvailableArea;
+    private final FitnessCache fitnessCache;
     public Solution bestSolution;
 
     /**
@@ -70,10 +70,11 @@ public class Generation {
      * @param rankSelection    the percentage of selected solutions from the previous generation to make the new one.
      * @param rankReproduction the percentage of reproduced solutions from the previous generation to make the new one.
      * @param probMutation     the probability for a solution to mutate by itself at each generation.
+     * @param fitnessCache     the scores of the evolution.
      * @param startPoint       the point on which the bit has to be placed
      * @param bound            the bound on which the bit has to be placed
      */
-    public Generation(int popSize, double rankSelection, double rankReproduction, double probMutation, int ratio, Area layerAvailableArea, Vector2 startPoint, Vector<Vector2> bound) {
+    public Generation(int popSize, double rankSelection, double rankReproduction, double probMutation, int ratio, FitnessCache fitnessCache, Vector2 startPoint, Vector<Vector2> bound) {
         this.popSize = popSize;
         this.solutions = new Vector<>(popSize);
         this.rankSelection = rankSelection;
@@ -82,7 +83,7 @@ public class Generation {
         this.startPoint = startPoint;
         this.bound = bound;
         this.ratio = ratio;
-        this.layerAvailableArea = layerAvailableArea;
+        this.fitnessCache = fitnessCache;
     }
 
     /**
@@ -118,7 +119,7 @@ public class Generation {
         int dir = Math.random() > 0.5 ? 1 : -1;
         double rotation = angleSection + Math.random() * MAX_ANGLE * dir;
         Vector2 rotationVector = Vector2.getEquivalentVector(rotation);
-        return new Solution(position, rotationVector, startPoint, this, bound, ratio, layerAvailableArea);
+        return new Solution(position, rotationVector, startPoint, bound, ratio, fitnessCache);
     }
 
     /**
@@ -129,18 +130,20 @@ public class Generation {
      * @return the new solution.
      */
     private @NotNull Solution createNewSolution(double pos, Vector2 angle) {
-        return new Solution(pos, angle, startPoint, this, bound, ratio, layerAvailableArea);
+        return new Solution(pos, angle, startPoint, bound, ratio, fitnessCache);
     }
 
     /**
-     * Evaluates the current generation and stores scores.
+     * Evaluates the current generation in parallel and stores scores.
+     * Solutions out of the Slice are deleted.
      */
     @SuppressWarnings("unchecked")
     public void evaluateGeneration() {
         Vector<Solution> clonedSolutions = (Vector<Solution>) solutions.clone();
-        for (Solution solution : clonedSolutions) {
-            solution.evaluate();
-        }
+        MultiThreadServiceExecutor.instance.invokeParallel(() -> clonedSolutions.parallelStream()
+                .forEach(Solution::evaluate), 0);
+        clonedSolutions.removeIf(Solution::isOutside);
+        solutions.removeIf(Solution::isOutside);
         List<Solution> solListSorted = sortSolutions(clonedSolutions);
         try {
             bestSolution = solListSorted.get(0);
@@ -149,6 +152,21 @@ public class Generation {
         }
     }
 
+    /**
+     * Checks in parallel which solutions are awful and deletes them.
+     *
+     * @return the number of deleted solutions.
+     * @see Solution#isBad()
+     */
+    public int removeBadSolutions() {
+        Vector<Solution> checkedSolutions = new Vector<>(solutions);
+        MultiThreadServiceExecutor.instance.invokeParallel(() -> checkedSolutions.parallelStream()
+                .forEach(Solution::isBad), 0);
+        int size = solutions.size();
+        solutions.removeIf(Solution::isBad);
+        return size - solutions.size();
+    }
+
     /**
      * Select the best solutions.
      *
@@ -35,13 +35,12 @@ import meshIneBits.Bit2D;
 import meshIneBits.borderPaver.util.GeneralTools;
 import meshIneBits.borderPaver.util.Section;
 import meshIneBits.config.CraftConfig;
-import meshIneBits.util.CalculateAreaSurface;
+import meshIneBits.util.PackedArea;
 import meshIneBits.util.Segment2D;
 import meshIneBits.util.Vector2;
 import org.jetbrains.annotations.NotNull;
 
 import java.awt.geom.Area;
-import java.awt.geom.Rectangle2D;
 import java.util.Comparator;
 import java.util.Vector;
 
@@ -62,11 +61,11 @@ public class Solution {
     private final int RATIO;
     private final Vector<Vector2> bound;
     private final Vector2 startPoint;
-    private final Generation generation;
-    private final Area layerAvailableArea;
+    private final FitnessCache fitnessCache;
     private boolean hasBeenEvaluated = false;
     private boolean hasBeenCheckedBad = false;
     private boolean bad = false;
+    private boolean outside = false;
     private Bit2D bit;
     private double bitPos;
     private Vector2 bitAngle;
@@ -80,71 +79,81 @@ public class Solution {
      * @param pos                the position of the Bit2D in a local coordinate system.
      * @param bitAngle           the angle of the Bit2D.
      * @param startPoint         the origin of the local coordinate system.
-     * @param generation         its generation.
      * @param bound              the bound of the Slice on which the bit has to be placed.
      * @param RATIO              The ratio between the area and the length, used when calculating the score.
-     * @param layerAvailableArea the available Area of the Layer.
+     * @param fitnessCache       the scores of the evolution, which knows the available Area of the Layer.
      */
-    public Solution(double pos, Vector2 bitAngle, Vector2 startPoint, Generation generation, Vector<Vector2> bound, int RATIO, Area layerAvailableArea) {
+    public Solution(double pos, Vector2 bitAngle, Vector2 startPoint, Vector<Vector2> bound, int RATIO, FitnessCache fitnessCache) {
         this.bitPos = pos;
         this.bitAngle = bitAngle;
         this.startPoint = startPoint;
-        this.generation = generation;
         this.bound = bound;
         this.RATIO = RATIO;
-        this.layerAvailableArea = layerAvailableArea;
+        this.fitnessCache = fitnessCache;
+    }
+
+    /**
+     * @return a copy which is not changed by later mutations of this solution.
+     */
+    Solution copy() {
+        Solution copy = new Solution(bitPos, bitAngle, startPoint, bound, RATIO, fitnessCache);
+        copy.hasBeenEvaluated = hasBeenEvaluated;
+        copy.hasBeenCheckedBad = hasBeenCheckedBad;
+        copy.bad = bad;
+        copy.outside = outside;
+        copy.bit = bit;
+        copy.score = score;
+        return copy;
     }
 
 
     /**
      * Evaluates the current solution according to its lost surface.
      * Applies penalties to the score.
+     * Solutions with the same quantized parameters share their score through the {@link FitnessCache}.
      */
     public void evaluate() {
         if (hasBeenEvaluated)
             return;
-        score = getAreaScore(); //the used area
+        FitnessCache.Fitness fitness = fitnessCache.getFitness(getKey(), this::computeFitness);
+        score = fitness.score;
+        outside = fitness.outside;
+        hasBeenEvaluated = true;
+    }
+
+    private FitnessCache.Fitness computeFitness() {
+        Bit2D bit2D = getBit(startPoint);
+        Area availableBitArea = fitnessCache.clip(bit2D.getAreaCS());
+        if (availableBitArea.isEmpty()) {// || DetectorTool.checkIrregular(availableBitArea)) { // Outside of border or irregular
+            return FitnessCache.Fitness.OUTSIDE;
+        }
+        double score = getAreaScore(bit2D, availableBitArea); //the used area
         try {
             score += getLengthScore();
-            hasBeenEvaluated = true;
         } catch (Exception e) {
             e.printStackTrace();
         }
+        return new FitnessCache.Fitness(score, false);
     }
 
     /**
      * Calculates the area of the Bit2D.
      * It is the area of the part of the Bit2D inside the Slice.
      *
+     * @param availableBitArea the part of <code>bit2D</code> inside the Slice.
      * @return the area.
      */
-    private double getAreaScore() {
-        if (score != 0d)
-            return score;
-        bit = getBit(startPoint);
-        Area availableBitArea = bit.getAreaCS();
-        availableBitArea.intersect(layerAvailableArea);
-
-        if (availableBitArea.isEmpty()) {// || DetectorTool.checkIrregular(availableBitArea)) { // Outside of border or irregular
-            this.generation.solutions.remove(this);
-            return 0;
-        } else {
-
-            bit.updateBoundaries(availableBitArea);
-            bit.calcCutPath();
-
-            Rectangle2D rectangle2D = new Rectangle2D.Double(0,
-                                                             0,
-                                                             CraftConfig.lengthFull,
-                                                             CraftConfig.bitWidth);
-            double maxArea = CalculateAreaSurface.approxArea(new Area(rectangle2D),
-                                                             0);
-            double area = CalculateAreaSurface.approxArea(bit.getAreaCS(),
-                                                          0);
-            score = ((1 - RATIO / 100.0) * area / maxArea);
-            return score;
+    private double getAreaScore(Bit2D bit2D, Area availableBitArea) {
+        bit2D.updateBoundaries(availableBitArea);
+        double maxArea = CraftConfig.lengthFull * CraftConfig.bitWidth;
+        // The surfaces of a bit never overlap and keep their area once placed
+        double area = 0;
+        for (Area surface : bit2D.getAreasCB()) {
+            area += PackedArea.of(surface).area();
         }
+        return (1 - RATIO / 100.0) * area / maxArea;
     }
+
     /**
      * Mutates parameters of the solution.
      */
@@ -162,6 +171,9 @@ public class Solution {
         }
         hasBeenEvaluated = false;
         hasBeenCheckedBad = false;
+        outside = false;
+        bit = null;
+        score = 0;
     }
 
     /**
@@ -183,21 +195,28 @@ public class Solution {
         }
         */
 
-        try {
-            double maxDistanceForNextStart = CraftConfig.lengthFull + CraftConfig.errorAccepted;
+        bad = fitnessCache.isBad(getKey(), () -> {
+            try {
+                double maxDistanceForNextStart = CraftConfig.lengthFull + CraftConfig.errorAccepted;
 
-            Vector2 nextStartPoint = new GeneralTools().getNextBitStartPoint(getBit(startPoint), bound, startPoint);
-            double distViaSegments = Section.getDistViaSegments(startPoint, nextStartPoint, Section.pointsToSegments(bound));
-            if (distViaSegments > maxDistanceForNextStart) {
-                bad = true;
+                Vector2 nextStartPoint = new GeneralTools().getNextBitStartPoint(getBit(startPoint), bound, startPoint);
+                double distViaSegments = Section.getDistViaSegments(startPoint, nextStartPoint, Section.pointsToSegments(bound));
+                return distViaSegments > maxDistanceForNextStart;
+            } catch (Exception e) {
+                return true;
             }
-        } catch (Exception e) {
-            bad = true;
-        }
+        });
         hasBeenCheckedBad = true;
         return bad;
     }
 
+    /**
+     * @return true if the bit of the solution is out of the Slice. Known once evaluated.
+     */
+    boolean isOutside() {
+        return outside;
+    }
+
     /**
      * Returns the number of intersections between bit's edges and the given bound.
      *
@@ -220,20 +239,26 @@ public class Solution {
 
     /**
      * Get the Solution's Bit2D according to the startPoint.
+     * The bit is placed with the quantized parameters, as it is scored.
      *
      * @param startPoint the point where the bit's edge should be placed
      * @return the related Bit
      */
     private @NotNull Bit2D getBit(@NotNull Vector2 startPoint) {
-        Vector2 collinear = this.bitAngle.normal();
+        FitnessCache.Key key = getKey();
+        Vector2 collinear = key.getAngle();
         Vector2 orthogonal = collinear
                 .rotate(new Vector2(0, -1)); // 90deg anticlockwise rotation
         Vector2 position = startPoint
-                .add(orthogonal.mul(this.bitPos))
+                .add(orthogonal.mul(key.getPosition()))
                 .add(collinear.mul(CraftConfig.lengthFull / 2))
                 .sub(orthogonal.mul(CraftConfig.bitWidth / 2));
 
-        return new Bit2D(position, this.bitAngle);
+        return new Bit2D(position, collinear);
+    }
+
+    private FitnessCache.Key getKey() {
+        return new FitnessCache.Key(bitPos, bitAngle);
     }
 
 
@@ -260,7 +285,17 @@ public class Solution {
         return "pos: " + this.bitPos + " , angle: " + this.bitAngle;
     }
 
+    /**
+     * The bit is only built for the solution asked for, not during the evaluation.
+     *
+     * @return the Bit2D cut by the Slice, <code>null</code> if the solution has not been evaluated or is out of the Slice.
+     */
     public Bit2D getBit() {
+        if (bit == null && hasBeenEvaluated && !outside) {
+            bit = getBit(startPoint);
+            bit.updateBoundaries(fitnessCache.clip(bit.getAreaCS()));
+            bit.calcCutPath();
+        }
         return bit;
     }
 
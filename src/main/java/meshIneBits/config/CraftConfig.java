@@ -86,6 +86,18 @@ public class CraftConfig {
   )
   public static double joinMinCosAngle = 0.995;
 
+  @IntegerSetting(
+      title = "Slicing threads",
+      description = "Number of threads used to slice the model and build its layers.\n0 uses every available core, 1 keeps the serial slicer.",
+      minValue = 0,
+      maxValue = 256,
+      defaultValue = 0
+  )
+  @SlicerSetting(
+      order = 3
+  )
+  public static int slicingThreads = 0;
+
 
   // Bits options
   @DoubleSetting(
@@ -425,6 +437,18 @@ public class CraftConfig {
   )
   public static int nbBits = 72;
 
+  @IntegerSetting(
+      title = "Compress XML files",
+      description = "1 writes each batch as a gzip file (.xml.gz), 0 as plain XML.",
+      minValue = 0,
+      maxValue = 1,
+      defaultValue = 0
+  )
+  @XMLSetting(
+      order = 3
+  )
+  public static int xmlCompression = 0;
+
   @IntegerSetting(
       title = "Number of bits on a plate",
       minValue = 1,
@@ -39,6 +39,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 
 public class UPPPaveMesh extends UtilityParametersPanel {
 public static JButton button;
@@ -90,10 +92,22 @@ public static JButton button;
     c.anchor = GridBagConstraints.CENTER;
     add(startButton, c);
 button=startButton;
+
+    JButton cancelButton = new JButton("Cancel");
+    cancelButton.setToolTipText("Stop the running paving, layers already paved are kept");
+    cancelButton.addActionListener(e -> meshController.cancelMeshJob());
     c = new GridBagConstraints();
-    c.fill = GridBagConstraints.BOTH;
     c.gridx = 2;
     c.gridy = 0;
+    c.weighty = 0;
+    c.weightx = 0;
+    c.anchor = GridBagConstraints.CENTER;
+    add(cancelButton, c);
+
+    c = new GridBagConstraints();
+    c.fill = GridBagConstraints.BOTH;
+    c.gridx = 3;
+    c.gridy = 0;
     c.weighty = 1;
     c.weightx = 1;
     c.anchor = GridBagConstraints.LINE_START;
@@ -102,7 +116,14 @@ button=startButton;
 
     private void startMeshPavement(MeshController meshController, PatternComboBox patternComboBox) {
         try {
-            meshController.paveMesh(patternComboBox.getCurrentChoice());
+            meshController.paveMesh(patternComboBox.getCurrentChoice())
+                .whenComplete((paved, e) -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    // A cancellation has already been reported by the mesh
+                    if (cause != null && !(cause instanceof CancellationException)) {
+                        meshController.handleException(new Exception("Paving failed: " + cause.getMessage(), cause));
+                    }
+                });
         } catch (Exception e1) {
             meshController.handleException(e1);
         }
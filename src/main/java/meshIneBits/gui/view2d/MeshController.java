@@ -58,6 +58,8 @@ import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
@@ -209,7 +211,7 @@ public class MeshController extends Observable implements Observer ,
   /**
    *
    */
-  private ITheardServiceExecutor serviceExecutor = MultiThreadServiceExecutor.instance;
+  private ITheardServiceExecutor serviceExecutor = MultiThreadServiceExecutor.ioInstance;
 public static AtomicBoolean Paved=new AtomicBoolean(false);
 public static CountDownLatch r=new CountDownLatch(1);
   MeshController(MeshWindow meshWindow) {
@@ -599,7 +601,12 @@ public static CountDownLatch r=new CountDownLatch(1);
     });
   }
 
-  public void paveMesh(PatternTemplate patternTemplate) throws Exception {
+  /**
+   * Pave the whole mesh in background
+   *
+   * @return completed when the mesh is paved, exceptionally if the paving could not start or failed
+   */
+  public CompletableFuture<Void> paveMesh(PatternTemplate patternTemplate) throws Exception {
     if (mesh == null) {
       throw new Exception("Mesh not found");
     }
@@ -611,19 +618,28 @@ public static CountDownLatch r=new CountDownLatch(1);
       throw new Exception("Mesh not sliced");
     }
     CraftConfigLoader.saveConfig(null);
-    serviceExecutor.execute(() -> {
-      try {
-
-        mesh.pave(patternTemplate);
-      } catch (Exception e) {
-        e.printStackTrace();
-      }
-    });
+    return CompletableFuture.supplyAsync(() -> {
+          try {
+            return mesh.pave(patternTemplate);
+          } catch (Exception e) {
+            throw new CompletionException(e);
+          }
+        }, serviceExecutor::execute)
+        .thenCompose(paving -> paving);
 //        mesh.pave(patternTemplate);
   }
 
 
 
+  /**
+   * Cancel the running paving or optimization of the mesh
+   */
+  public void cancelMeshJob() {
+    if (mesh == null || !mesh.cancel()) {
+      Logger.warning("Nothing to cancel");
+    }
+  }
+
   public PropertyChangeSupport getChanges(){
     return changes;
   }
@@ -838,15 +854,8 @@ public void deleteSubbits(Set<SubBit2D> subs){
    * @return key of bit containing <tt>position</tt>. <tt>null</tt> if not found
    */
   private Vector2 findBitAt(Point2D.Double position) {
-    Pavement flatPavement = getCurrentLayer().getFlatPavement();
-    for (Vector2 key : flatPavement.getBitsKeys()) {
-      if (flatPavement.getBit(key)
-          .getAreaCS()
-          .contains(position)) {
-        return key;
-      }
-    }
-    return null;
+    return getCurrentLayer().getFlatPavement()
+        .getBitKeyAt(position);
   }
 
   private SubBit2D findSubBitAt(Point2D.Double position){
@@ -941,7 +950,7 @@ public void deleteSubbits(Set<SubBit2D> subs){
       return;
     }
     Pavement flatPavement = getCurrentLayer().getFlatPavement();
-    for (Vector2 key : flatPavement.getBitsKeys()) {NewBit2D bit=(NewBit2D)flatPavement.getBit(key);
+    for (Vector2 key : flatPavement.getBitsKeysIn(bulkSelectZone)) {NewBit2D bit=(NewBit2D)flatPavement.getBit(key);
      for(SubBit2D sub:bit.getSubBits()){
        if (bulkSelectZone.contains(sub
                .getAreaCS()
@@ -5,14 +5,13 @@ import java.text.DecimalFormat;
 import java.util.concurrent.atomic.AtomicBoolean;
 import meshIneBits.Mesh;
 import meshIneBits.NewBit3D;
-import meshIneBits.gui.view3d.Visualization3DConfig;
 import meshIneBits.gui.view3d.oldversion.GraphicElementLabel;
 import meshIneBits.gui.view3d.provider.CuttingBitShapeProvider;
 import meshIneBits.gui.view3d.provider.MeshProvider;
 import meshIneBits.gui.view3d.view.UIPWListener;
 import meshIneBits.opcuaHelper.CuttingMachineCommander;
+import meshIneBits.opcuaHelper.OpcUaSubscriptionService;
 import meshIneBits.util.CustomLogger;
-import meshIneBits.util.MultiThreadServiceExecutor;
 import processing.core.PApplet;
 import processing.core.PShape;
 
@@ -30,6 +29,7 @@ public class CuttingMachineProcessor implements UIPWListener {
   private final BitInCuttingProcessCallback callback;
   private final AtomicBoolean inProcess = new AtomicBoolean(false);
   private final DecimalFormat df;
+  private OpcUaSubscriptionService.Registration cuttingBitRegistration;
 
   {
     df = new DecimalFormat("#.##");
@@ -57,8 +57,9 @@ public class CuttingMachineProcessor implements UIPWListener {
   private void startMachine() {
     try {
       commander.startMachine();
-      MultiThreadServiceExecutor.instance.execute(new SubscriptionTask());
       inProcess.set(true);
+      // The machine pushes the bit in cutting, no thread waits between two readings
+      cuttingBitRegistration = commander.subscribeCuttingBit(this::onCuttingBit);
     } catch (Exception e) {
       e.printStackTrace();
     }
@@ -68,6 +69,10 @@ public class CuttingMachineProcessor implements UIPWListener {
     try {
       commander.stopMachine();
       inProcess.set(false);
+      if (cuttingBitRegistration != null) {
+        cuttingBitRegistration.cancel();
+        cuttingBitRegistration = null;
+      }
     } catch (Exception e) {
       e.printStackTrace();
     }
@@ -90,25 +95,13 @@ public class CuttingMachineProcessor implements UIPWListener {
     }
   }
 
-  public class SubscriptionTask implements Runnable {
-
-    @Override
-    public void run() {
-      try {
-        while (inProcess.get()) {
-          NewBit3D bit3D = commander.getCuttingBit();
-          Mesh mesh = MeshProvider.getInstance().getCurrentMesh();
-          callback.callback(
-              provider.getCuttingBitShapeByBit(bit3D).getShape(),
-              Integer.toString(mesh.getScheduler().getBitIndex(bit3D)),
-              Integer.toString(mesh.getScheduler().getLayerContainBit(bit3D).getLayerNumber()),
-              Integer.toString(bit3D.getSubBits().size()),
-              df.format(bit3D.getOrigin().x) + ", " + df.format(bit3D.getOrigin().y));
-          Thread.sleep(Visualization3DConfig.REFRESH_TIME);
-        }
-      } catch (Exception e) {
-        e.printStackTrace();
-      }
-    }
+  private void onCuttingBit(NewBit3D bit3D) {
+    Mesh mesh = MeshProvider.getInstance().getCurrentMesh();
+    callback.callback(
+        provider.getCuttingBitShapeByBit(bit3D).getShape(),
+        Integer.toString(mesh.getScheduler().getBitIndex(bit3D)),
+        Integer.toString(mesh.getScheduler().getLayerContainBit(bit3D).getLayerNumber()),
+        Integer.toString(bit3D.getSubBits().size()),
+        df.format(bit3D.getOrigin().x) + ", " + df.format(bit3D.getOrigin().y));
   }
 }
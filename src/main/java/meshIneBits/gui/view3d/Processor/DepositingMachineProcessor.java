@@ -4,23 +4,42 @@ import meshIneBits.Mesh;
 import meshIneBits.gui.view3d.provider.MeshProvider;
 import meshIneBits.gui.view3d.view.UIPWListener;
 import meshIneBits.opcuaHelper.DepositingMachineCommander;
+import meshIneBits.opcuaHelper.DepositingMachineTelemetry;
+import meshIneBits.opcuaHelper.OpcUaSubscriptionService;
+import meshIneBits.util.Logger;
 import meshIneBits.util.MultiThreadServiceExecutor;
 
 import java.io.IOException;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 import static meshIneBits.gui.view3d.oldversion.GraphicElementLabel.*;
 
 public class DepositingMachineProcessor implements UIPWListener {
 
   public interface DepositingProcessCallback {
+      /**
+       * @param currentBitData       <tt>null</tt> when the machine cannot be reached
+       * @param currentAxesPositions <tt>null</tt> when the machine cannot be reached
+       */
       void callback( String messageError, String[] currentBitData,boolean continueButtonLock, String[] currentAxesPositions);
   }
 
-  private /*final*/ DepositingMachineCommander commander;
+  /**
+   * Completed once the client of the machine is created, which looks up its endpoints
+   */
+  private final CompletableFuture<DepositingMachineCommander> commander;
 
   private/* final*/ DepositingProcessCallback callback;
+  /**
+   * Completed once the machine accepts the subscription, exceptionally if it cannot be reached
+   */
+  private final CompletableFuture<OpcUaSubscriptionService.Registration> telemetryRegistration;
+  private volatile boolean stopped = false;
+  private final DecimalFormat positionFormat = new DecimalFormat("0.00");
   private final DecimalFormat df;
 
   {
@@ -31,151 +50,123 @@ public class DepositingMachineProcessor implements UIPWListener {
 
   public DepositingMachineProcessor(DepositingProcessCallback callback)  {
     Mesh mesh = MeshProvider.getInstance().getCurrentMesh();
-    commander= new DepositingMachineCommander(mesh);
     this.callback = callback;
-   MultiThreadServiceExecutor.instance.execute(new DepositingMachineProcessor.SubscriptionTask());
+    // Reaching the machine may take long, so it is not done on the thread opening the view.
+    // Commands sent meanwhile wait for the client
+    commander = CompletableFuture.supplyAsync(() -> new DepositingMachineCommander(mesh),
+        MultiThreadServiceExecutor.ioInstance::execute);
+    // The machine pushes its changes, no thread waits between two readings
+    telemetryRegistration = commander.thenApplyAsync(
+        c -> c.subscribeTelemetry(this::onTelemetry),
+        MultiThreadServiceExecutor.ioInstance::execute);
+    telemetryRegistration.exceptionally(e -> {
+      reportFailure("Subscription to the machine", e);
+      if (!stopped) {
+        callback.callback("Machine not reachable", null, true, null);
+      }
+      return null;
+    });
   }
 
-  private void startDepose() {
-    try {
-      this.powershell("ssh pi@voiceslicr-nog ./speak2.sh please clear the machine area ; ssh pi@voiceslicr-nog omxplayer --vol -2000 -o local /home/pi/music/rocknroll.mp3");
-      commander.startDepose();
-    } catch (Exception e) {
-      e.printStackTrace();
+  private void onTelemetry(DepositingMachineTelemetry telemetry) {
+    if (stopped) {
+      return;
     }
+    callback.callback(telemetry.getMessageError(),getCurrentBitData(telemetry), telemetry.getLockContinueButton(),getCurrentAxesPositions(telemetry));
+  }
+
+  /**
+   * Stop receiving the state of the machine and disconnect from it. A subscription still
+   * connecting is cancelled once it is made
+   */
+  public void stop() {
+    stopped = true;
+    telemetryRegistration.thenAccept(OpcUaSubscriptionService.Registration::cancel)
+        .whenComplete((v, e) -> commander.thenAccept(DepositingMachineCommander::close));
+  }
+
+  /**
+   * Show the failure of a command in the status of the main window. The commander has already
+   * logged it
+   */
+  private Void reportFailure(String command, Throwable e) {
+    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    Logger.error(command + " failed: " + cause.getMessage());
+    return null;
+  }
+
+  /**
+   * Send a command once the client is created. Failures are shown by {@link
+   * #reportFailure(String, Throwable)}
+   */
+  private void send(String command,
+      Function<DepositingMachineCommander, CompletableFuture<Void>> action) {
+    commander.thenCompose(action)
+        .exceptionally(e -> reportFailure(command, e));
+  }
+
+  // The commands below return at once. The machine's answer is handled by the client's threads,
+  // so the view stays responsive
+  private void startDepose() {
+    this.powershell("ssh pi@voiceslicr-nog ./speak2.sh please clear the machine area ; ssh pi@voiceslicr-nog omxplayer --vol -2000 -o local /home/pi/music/rocknroll.mp3");
+    send("startDepose", DepositingMachineCommander::startDeposeAsync);
   }
   private void stopDepose() {
-    try {
-      commander.stopDepose();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("stopDepose", DepositingMachineCommander::stopDeposeAsync);
   }
   private void resetDepose() {
-    try {
-      commander.resetDepose();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("resetDepose", DepositingMachineCommander::resetDeposeAsync);
   }
   private void continueDepose() {
-    try {
-      commander.continueDepose();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("continueDepose", DepositingMachineCommander::continueDeposeAsync);
   }
   private void pauseDepose() {
-    try {
-      commander.pauseDepose();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("pauseDepose", DepositingMachineCommander::pauseDeposeAsync);
   }
   private void continueAfterTurnOff() {
-    try {
-      commander.continueAfterTurnOff();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("continueAfterTurnOff", DepositingMachineCommander::continueAfterTurnOffAsync);
   }
   private void continueAfterESTOP() {
-    try {
-      commander.continueAfterESTOP();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("continueAfterESTOP", DepositingMachineCommander::continueAfterESTOPAsync);
   }
   private void cameraLogin() {
-    try {
-      commander.cameraLogin();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("cameraLogin", DepositingMachineCommander::cameraLoginAsync);
   }
   private void cameraCaptureImage() {
-    try {
-      commander.cameraCaptureImage();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("cameraCaptureImage", DepositingMachineCommander::cameraCaptureImageAsync);
   }
   private void acknowledgeError() {
-    try {
-      commander.acknowledgeError();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("acknowledgeError", DepositingMachineCommander::acknowledgeErrorAsync);
   }
   private void resetPowerAxes() {
-    try {
-      commander.resetPowerAxes();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("resetPowerAxes", DepositingMachineCommander::resetPowerAxesAsync);
   }
   private void takeBatch() {
-    try {
-      commander.takeBatch();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("takeBatch", DepositingMachineCommander::takeBatchAsync);
   }
   private void deposeBatch() {
-    try {
-      commander.deposeBatch();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("deposeBatch", DepositingMachineCommander::deposeBatchAsync);
   }
   private void readXMLFile() {
-    try {
-      commander.readXMLFile();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("readXMLFile", DepositingMachineCommander::readXMLFileAsync);
   }
   private void renameXMLFile() {
-    try {
-      commander.renameXMLFile();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("renameXMLFile", DepositingMachineCommander::renameXMLFileAsync);
   }
   private void synchroAxesX() {
-    try {
-      commander.synchroAxesX();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("synchroAxesX", DepositingMachineCommander::synchroAxesXAsync);
   }
   private void synchroAxesZ() {
-    try {
-      commander.synchroAxesZ();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("synchroAxesZ", DepositingMachineCommander::synchroAxesZAsync);
   }
   private void homingAxisSubX() {
-    try {
-      commander.homingAxisSubX();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("homingAxisSubX", DepositingMachineCommander::homingAxisSubXAsync);
   }
   private void homingAxisSubZ() {
-    try {
-      commander.homingAxisSubZ();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("homingAxisSubZ", DepositingMachineCommander::homingAxisSubZAsync);
   }
   private void homingAxisTheta() {
-    try {
-      commander.homingAxisTheta();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+    send("homingAxisTheta", DepositingMachineCommander::homingAxisThetaAsync);
   }
 
   @Override
@@ -244,59 +235,27 @@ public class DepositingMachineProcessor implements UIPWListener {
     }
   }
 
-  public class SubscriptionTask implements Runnable {
-    private boolean exitThread=false;
-    @Override
-    public void run() {
-      try {
-        while(!exitThread){
-          callback.callback(commander.getMessageError(),getCurrentBitData(), commander.getLockContinueButton(),getCurrentAxesPositions());
-          Thread.sleep(100);
-        }
-      } catch (Exception e) {
-        e.printStackTrace();
-      }
-    }
-    private String[] getCurrentBitData(){
-      String[] currentBitData;
-      currentBitData=new String[10];
-      try {
-        currentBitData[0]= String.valueOf(commander.getCurrentBitId());
-        currentBitData[1]= String.valueOf(commander.getCurrentBitIdInBatch());
-        currentBitData[2]= String.valueOf(new DecimalFormat("0.00").format(commander.getCurrentBitX()));
-        currentBitData[3]= String.valueOf(new DecimalFormat("0.00").format(commander.getCurrentBitZ()));
-        currentBitData[4]= String.valueOf(new DecimalFormat("0.00").format(commander.getCurrentBitY()));
-        currentBitData[5]= String.valueOf(new DecimalFormat("0.00").format(commander.getCurrentBitSubX()));
-        currentBitData[6]= String.valueOf(new DecimalFormat("0.00").format(commander.getCurrentBitRotation()));
-        currentBitData[7]= String.valueOf(new DecimalFormat("0.00").format(commander.getCurrentBitReflineVu()));
-        currentBitData[8]= String.valueOf(new DecimalFormat("0.00").format(commander.getCurrentBitReflineRot()));
-        currentBitData[9]= String.valueOf(new DecimalFormat("0.00").format(commander.getCurrentBitTheta()));
-      } catch (Exception e) {
-        e.printStackTrace();
-      }
-      return currentBitData;
+  private String[] getCurrentBitData(DepositingMachineTelemetry telemetry){
+    String[] currentBitData;
+    currentBitData=new String[10];
+    currentBitData[0]= String.valueOf(telemetry.getCurrentBitId());
+    currentBitData[1]= String.valueOf(telemetry.getCurrentBitIdInBatch());
+    double[] data = telemetry.getCurrentBitData();
+    for (int i = 0; i < data.length; i++) {
+      currentBitData[i + 2]= positionFormat.format(data[i]);
     }
+    return currentBitData;
+  }
 
 
-    private String[] getCurrentAxesPositions(){
-      String[] currentAxesPositions;
-      currentAxesPositions=new String[6];
-      try {
-        currentAxesPositions[0]= String.valueOf(new DecimalFormat("0.00").format(commander.getXCurrentPosition()));
-        currentAxesPositions[1]= String.valueOf(new DecimalFormat("0.00").format(commander.getZCurrentPosition()));
-        currentAxesPositions[2]= String.valueOf(new DecimalFormat("0.00").format(commander.getYCurrentPosition()));
-        currentAxesPositions[3]= String.valueOf(new DecimalFormat("0.00").format(commander.getSubXCurrentPosition()));
-        currentAxesPositions[4]= String.valueOf(new DecimalFormat("0.00").format(commander.getSubZCurrentPosition()));
-        currentAxesPositions[5]= String.valueOf(new DecimalFormat("0.00").format(commander.getThetaCurrentPosition()));
-      } catch (Exception e) {
-        e.printStackTrace();
-      }
-      return currentAxesPositions;
-    }
-
-    public void stop(){
-      exitThread=true;
+  private String[] getCurrentAxesPositions(DepositingMachineTelemetry telemetry){
+    double[] positions = telemetry.getAxesPositions();
+    String[] currentAxesPositions;
+    currentAxesPositions=new String[positions.length];
+    for (int i = 0; i < positions.length; i++) {
+      currentAxesPositions[i]= positionFormat.format(positions[i]);
     }
+    return currentAxesPositions;
   }
 
   // voice SlicR :)
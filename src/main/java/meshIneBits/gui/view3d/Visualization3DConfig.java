@@ -23,6 +23,10 @@ public class Visualization3DConfig {
   public static final int V3D_FRAMERATE = 60;
   public static final Color V3D_BACKGROUND = new Color(150, 150, 150);
   public static final Color V3D_AMBIENT_LIGHT = new Color(255, 255, 255);
+  //millisecond, over this frames draw far layers with less detail
+  public static final double V3D_FRAME_BUDGET = 1000.0 / 30;
+  //layers in detail around the inspected one
+  public static final int V3D_LAYER_WINDOW = 10;
 
   //AssemblingProcessView config
   public static final String ASSEMBLING_PROCESS_VIEW_TITLE = "MeshIneBits - Model view";
@@ -3,17 +3,23 @@ package meshIneBits.gui.view3d.builder;
 import meshIneBits.*;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.gui.view3d.Visualization3DConfig;
+import meshIneBits.gui.view3d.util.LayerDetailPlanner.LayerBounds;
 import meshIneBits.scheduler.AScheduler;
 import meshIneBits.scheduler.AdvancedScheduler;
 import meshIneBits.util.CustomLogger;
+import meshIneBits.util.MultiThreadServiceExecutor;
+import meshIneBits.util.Polygon;
 import processing.core.PApplet;
 import processing.core.PConstants;
 import processing.core.PShape;
 
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import static meshIneBits.config.CraftConfig.nbBitesBatch;
-import static meshIneBits.gui.view3d.view.BaseVisualization3DView.WindowStatus;
 
 public class BaseMeshBuilder implements IMeshShapeBuilder {
 
@@ -35,74 +41,117 @@ private  ArrayList<ArrayList<Strip>> meshstrips=new ArrayList<>();
     if (!mesh.isPaved()) {
       return new PavedMeshBuilderResult(null, null);
     }
+    long start = System.currentTimeMillis();
+    // Triangles are computed off screen, each layer on its own thread
+    List<Future<LayerGeometry>> futures = new ArrayList<>();
+    mesh.getLayers()
+        .forEach(layer -> futures.add(
+            MultiThreadServiceExecutor.instance.submit(() -> buildLayerGeometry(layer))));
+
     Vector<BitShape> bitShapes = new Vector<>();
+    Vector<LayerShape> layerShapes = new Vector<>();
     PShape meshShape = context.createShape(PConstants.GROUP);
-    mesh.getLayers().forEach((layer) -> {
-      //TODO temporary code, need to be clean after!!!
-      List<Bit3D> bitsInCurrentLayer = AScheduler.getSetBit3DsSortedFrom(
-              mesh.getScheduler().filterBits(layer.sortBits()));
-      int layerId = layer.getLayerNumber();
-      bitsInCurrentLayer.forEach(bit3D -> {
-        BitShape bitShape = buildBitShape((NewBit3D) bit3D);
-        updateBitShapeLocation(bit3D, bitShape);
-        bitShape.setLayerId(layerId);
-        NewBit2D newBit2D = ((NewBit3D) bit3D).getBaseBit();
-        Vector<SubBit2D> validSubBits = newBit2D.getValidSubBits();
-        for (int i = 0; i < validSubBits.size(); i++) {
-          int batchId = ((AdvancedScheduler) mesh.getScheduler()).getSubBitBatch(
-                  validSubBits.get(i));
-          if (batchId != -1) {
-            bitShape.getSubBitShapes()
-                    .get(i)
-                    .setLayerId(layerId)
-                    .setBatchId(batchId);
-          }
+    int nbTriangles = 0;
+    for (Future<LayerGeometry> future : futures) {
+      LayerGeometry layerGeometry;
+      try {
+        layerGeometry = future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread()
+            .interrupt();
+        futures.forEach(f -> f.cancel(true));
+        return new PavedMeshBuilderResult(null, null);
+      } catch (ExecutionException e) {
+        throw new RuntimeException(e.getCause());
+      }
+      // Only one shape per layer is handed to Processing for the whole mesh
+      if (!layerGeometry.merged.isEmpty()) {
+        PShape layerShape = layerGeometry.merged.toShape(context);
+        layerShape.setFill(Visualization3DConfig.MESH_COLOR.getRGB());
+        meshShape.addChild(layerShape);
+        nbTriangles += layerGeometry.merged.getTriangleCount();
+        PShape proxyShape = layerShape;
+        if (!layerGeometry.proxy.isEmpty()) {
+          proxyShape = layerGeometry.proxy.toShape(context);
+          proxyShape.setFill(Visualization3DConfig.MESH_COLOR.getRGB());
         }
-
-        meshShape.addChild(bitShape.getShape());
-        bitShapes.add(bitShape);
-      });
-    });
-    return new PavedMeshBuilderResult(meshShape, bitShapes);
+        layerShapes.add(new LayerShape(layerGeometry.layerId, layerShape, proxyShape,
+            layerGeometry.merged.getBounds()));
+      }
+      bitShapes.addAll(layerGeometry.bitShapes);
+    }
+    logger.logDEBUGMessage(
+        "Mesh shape built in " + (System.currentTimeMillis() - start) + " ms, " + nbTriangles
+            + " triangles in " + meshShape.getChildCount() + " layers. Extrusions: "
+            + ExtrusionCache.geometries);
+    return new PavedMeshBuilderResult(meshShape, bitShapes, layerShapes);
   }
 
-  private void updateBitShapeLocation(Bit3D bit3D, BitShape bitShape) {
-    bitShape.rotateZ(PApplet.radians((float) bit3D.getOrientation().getEquivalentAngle2()));
-//    bitShape.getShape().rotate(bit3D.getOrientation().get);
-    bitShape.translate(
-        (float) bit3D.getOrigin().x,
-        (float) bit3D.getOrigin().y,
-        (float) bit3D.getLowerAltitude());
+  /**
+   * Compute the triangles of the sub bits of <tt>layer</tt>, where they are in the mesh. Does not
+   * touch Processing, so may run on any thread.
+   */
+  private LayerGeometry buildLayerGeometry(Layer layer) {
+    //TODO temporary code, need to be clean after!!!
+    List<Bit3D> bitsInCurrentLayer = AScheduler.getSetBit3DsSortedFrom(
+        mesh.getScheduler().filterBits(layer.sortBits()));
+    int layerId = layer.getLayerNumber();
+    LayerGeometry layerGeometry = new LayerGeometry();
+    layerGeometry.layerId = layerId;
+    int depth = (int) Visualization3DConfig.BIT_THICKNESS;
+    for (Bit3D bit3D : bitsInCurrentLayer) {
+      AffineTransform location = new AffineTransform();
+      location.translate(bit3D.getOrigin().x, bit3D.getOrigin().y);
+      location.rotate(Math.toRadians(bit3D.getOrientation()
+          .getEquivalentAngle2()));
+      float z = (float) bit3D.getLowerAltitude();
+      Vector<SubBitShape> subBitShapes = new Vector<>();
+      for (SubBit2D subBit2D : ((NewBit3D) bit3D).getBaseBit()
+          .getValidSubBits()) {
+        // Identical sub bits share their triangles, only placed differently
+        ExtrudedGeometry geometry = ExtrusionCache.geometries.get(subBit2D.getAreaCB(), depth,
+            area -> ExtrudedGeometry.extrude(area, depth));
+        layerGeometry.merged.append(geometry, location, z);
+        SubBitShape subBitShape = new SubBitShape(context, geometry, location, z,
+            Visualization3DConfig.MESH_COLOR);
+        int batchId = ((AdvancedScheduler) mesh.getScheduler()).getSubBitBatch(subBit2D);
+        if (batchId != -1) {
+          subBitShape.setLayerId(layerId)
+              .setBatchId(batchId);
+        }
+        subBitShapes.add(subBitShape);
+      }
+      layerGeometry.bitShapes.add(BitShape.createLazily(context, subBitShapes)
+          .setLayerId(layerId));
+    }
+    buildLayerProxy(layer, layerGeometry);
+    return layerGeometry;
   }
 
-  BitShape buildBitShape(Bit3D bit3D) {
-    /*Modify method to build shape of bit here (ie: extrude from area ...*/
-    BitShape shapeBit = BitShape.create(context);
-    bit3D.getRawAreas().forEach(area -> {
-      PShape subBit = ExtrusionFromAreaService.getInstance()
-          .buildShapeFromArea(context, area, Visualization3DConfig.BIT_THICKNESS);
-      shapeBit.addChild(subBit);
-    });
-    shapeBit.getShape().setFill(Visualization3DConfig.MESH_COLOR.getRGB());
-
-    return shapeBit;
+  /**
+   * Extrude the outline of the section of <tt>layer</tt> over the height of its bits. Stands for
+   * the layer when seen from afar, with a few triangles per outline vertex instead of all the sub
+   * bits.
+   */
+  private void buildLayerProxy(Layer layer, LayerGeometry layerGeometry) {
+    LayerBounds bounds = layerGeometry.merged.getBounds();
+    if (bounds == null || layer.getHorizontalSection() == null) {
+      return;
+    }
+    float z = (float) bounds.getMinZ();
+    float depth = (float) (bounds.getMaxZ() - bounds.getMinZ());
+    for (Polygon polygon : layer.getHorizontalSection()) {
+      layerGeometry.proxy.append(
+          ExtrudedGeometry.extrude(new Area(polygon.toPath2D()), depth, null, z));
+    }
   }
 
-  @SuppressWarnings("unused")
-  BitShape buildBitShape(NewBit3D bit3D) {
-    /*Modify method to build shape of bit here (ie: extrude from area ...*/
-    BitShape shapeBit = BitShape.create(context);
-    bit3D.getBaseBit().getValidSubBits().forEach(subBit2D -> {
-      PShape shape = ExtrusionFromAreaService.getInstance()
-          .buildShapeFromArea(context, subBit2D.getAreaCB(), Visualization3DConfig.BIT_THICKNESS);
-      SubBitShape subBitShape = new SubBitShape(shape);
-      shapeBit.addSubBit(subBitShape);
-    });
-    shapeBit.getShape().setFill(Visualization3DConfig.MESH_COLOR.getRGB());
-   if(WindowStatus==2){
-    shapeBit.getShape().setStrokeWeight(1);
-   }
-    return shapeBit;
+  private static class LayerGeometry {
+
+    private int layerId;
+    private final ExtrudedGeometry merged = new ExtrudedGeometry(1024);
+    private final ExtrudedGeometry proxy = new ExtrudedGeometry();
+    private final List<BitShape> bitShapes = new ArrayList<>();
   }
 
   /**
@@ -7,9 +7,10 @@ import processing.core.PShape;
 
 public class BitShape {
 
-  private final PShape shape;
+  private PShape shape;
   private final Vector<SubBitShape> subBitShapes = new Vector<>();
   private Integer layerId;
+  private PApplet context;
 
   public BitShape(PShape shapeBit) {
     this.shape = shapeBit;
@@ -19,19 +20,36 @@ public class BitShape {
     return new BitShape(context.createShape(PConstants.GROUP));
   }
 
+  /**
+   * The group of the sub bits is only created when asked, on the rendering thread. Sub bits
+   * are supposed to be already located and painted.
+   */
+  public static BitShape createLazily(PApplet context, Vector<SubBitShape> subBitShapes) {
+    BitShape bitShape = new BitShape(null);
+    bitShape.context = context;
+    bitShape.subBitShapes.addAll(subBitShapes);
+    return bitShape;
+  }
+
   public void addChild(PShape shape) {
-    this.shape.addChild(shape);
+    getShape().addChild(shape);
   }
 
   @SuppressWarnings("unused")
   public void addSubBit(SubBitShape subBitShape) {
-    this.shape.addChild(subBitShape.getShape());
+    if (shape != null) {
+      this.shape.addChild(subBitShape.getShape());
+    }
     if (!subBitShapes.contains(subBitShape)) {
       subBitShapes.add(subBitShape);
     }
   }
 
   public PShape getShape() {
+    if (shape == null) {
+      shape = context.createShape(PConstants.GROUP);
+      subBitShapes.forEach(subBitShape -> shape.addChild(subBitShape.getShape()));
+    }
     return shape;
   }
 
@@ -0,0 +1,361 @@
+package meshIneBits.gui.view3d.builder;
+
+import meshIneBits.gui.view3d.util.LayerDetailPlanner.LayerBounds;
+import meshIneBits.util.AreaTool;
+import meshIneBits.util.Segment2D;
+import processing.core.PApplet;
+import processing.core.PConstants;
+import processing.core.PShape;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.util.Arrays;
+import java.util.Vector;
+
+/**
+ * Triangles of extruded areas, kept in flat vertex and index buffers, with the edges of the
+ * extruded outlines. Buffers are computed on any thread, only {@link #toShape(PApplet)} has to run
+ * on the rendering thread.
+ */
+public class ExtrudedGeometry {
+
+  private float[] vertices;
+  private int[] indices;
+  private int[] edges;
+  private int vertexCount = 0;
+  private int indexCount = 0;
+  private int edgeIndexCount = 0;
+
+  public ExtrudedGeometry() {
+    this(64);
+  }
+
+  /**
+   * @param vertexCapacity expected number of vertices
+   */
+  public ExtrudedGeometry(int vertexCapacity) {
+    vertices = new float[Math.max(vertexCapacity, 4) * 3];
+    indices = new int[Math.max(vertexCapacity, 4) * 2];
+    edges = new int[Math.max(vertexCapacity, 4)];
+  }
+
+  /**
+   * Extrude the largest polygon of <tt>area</tt> from altitude 0, in the coordinate system of
+   * <tt>area</tt>
+   *
+   * @return empty geometry if <tt>area</tt> has no polygon
+   * @see ExtrusionCache#geometries
+   */
+  public static ExtrudedGeometry extrude(Area area, float depth) {
+    return extrude(area, depth, null, 0);
+  }
+
+  /**
+   * Extrude the largest polygon of <tt>area</tt>, as {@link ExtrusionFromAreaService} does.
+   *
+   * @param transform from the coordinate system of <tt>area</tt> to the one of the result
+   * @param z         altitude of the lower face
+   * @return empty geometry if <tt>area</tt> has no polygon
+   */
+  public static ExtrudedGeometry extrude(Area area, float depth, AffineTransform transform,
+      float z) {
+    Vector<Segment2D> outline = area == null ? null : AreaTool.getLargestPolygon(area);
+    if (outline == null || outline.size() < 3) {
+      return new ExtrudedGeometry(0);
+    }
+    int n = outline.size();
+    double[] xy = new double[n * 2];
+    for (int i = 0; i < n; i++) {
+      xy[2 * i] = outline.get(i).start.x;
+      xy[2 * i + 1] = outline.get(i).start.y;
+    }
+    if (transform != null) {
+      transform.transform(xy, 0, xy, 0, n);
+    }
+    int[] cap = triangulate(xy, n);
+
+    ExtrudedGeometry geometry = new ExtrudedGeometry(n * 6);
+    // Lower and upper faces
+    for (float height : new float[]{z, z + depth}) {
+      int first = geometry.vertexCount;
+      for (int i = 0; i < n; i++) {
+        geometry.addVertex((float) xy[2 * i], (float) xy[2 * i + 1], height);
+      }
+      for (int index : cap) {
+        geometry.addIndex(first + index);
+      }
+    }
+    // Sides, one quad per edge
+    for (int i = 0; i < n; i++) {
+      int j = (i + 1) % n;
+      int first = geometry.vertexCount;
+      geometry.addVertex((float) xy[2 * i], (float) xy[2 * i + 1], z + depth);
+      geometry.addVertex((float) xy[2 * j], (float) xy[2 * j + 1], z + depth);
+      geometry.addVertex((float) xy[2 * j], (float) xy[2 * j + 1], z);
+      geometry.addVertex((float) xy[2 * i], (float) xy[2 * i + 1], z);
+      geometry.addTriangle(first, first + 1, first + 2);
+      geometry.addTriangle(first, first + 2, first + 3);
+    }
+    // Outline of both faces and vertical edges, on the vertices of the faces
+    for (int i = 0; i < n; i++) {
+      int j = (i + 1) % n;
+      geometry.addEdge(i, j);
+      geometry.addEdge(n + i, n + j);
+      geometry.addEdge(i, n + i);
+    }
+    return geometry;
+  }
+
+  /**
+   * Ear clipping of a simple polygon. A polygon which is not simple is still covered, with a fan
+   * of the vertices left once no ear is found.
+   *
+   * @param xy packed coordinates of <tt>n</tt> vertices, in any winding order
+   * @return indices of the triangles, 3 per triangle
+   */
+  static int[] triangulate(double[] xy, int n) {
+    if (n < 3) {
+      return new int[0];
+    }
+    double signedArea = 0;
+    for (int i = 0; i < n; i++) {
+      int j = (i + 1) % n;
+      signedArea += xy[2 * i] * xy[2 * j + 1] - xy[2 * j] * xy[2 * i + 1];
+    }
+    // Walk counter clockwise
+    int[] polygon = new int[n];
+    for (int i = 0; i < n; i++) {
+      polygon[i] = signedArea >= 0 ? i : n - 1 - i;
+    }
+    int[] triangles = new int[(n - 2) * 3];
+    int count = 0;
+    int remaining = n;
+    int fails = 0;
+    int v = 0;
+    while (remaining > 3 && fails < remaining) {
+      int prev = polygon[(v + remaining - 1) % remaining];
+      int cur = polygon[v % remaining];
+      int next = polygon[(v + 1) % remaining];
+      if (isEar(xy, polygon, remaining, prev, cur, next)) {
+        triangles[count++] = prev;
+        triangles[count++] = cur;
+        triangles[count++] = next;
+        int removed = v % remaining;
+        System.arraycopy(polygon, removed + 1, polygon, removed, remaining - removed - 1);
+        remaining--;
+        fails = 0;
+        v = removed % remaining;
+      } else {
+        v = (v + 1) % remaining;
+        fails++;
+      }
+    }
+    for (int i = 1; i < remaining - 1; i++) {
+      triangles[count++] = polygon[0];
+      triangles[count++] = polygon[i];
+      triangles[count++] = polygon[i + 1];
+    }
+    return triangles;
+  }
+
+  private static boolean isEar(double[] xy, int[] polygon, int remaining, int a, int b, int c) {
+    double ax = xy[2 * a];
+    double ay = xy[2 * a + 1];
+    double bx = xy[2 * b];
+    double by = xy[2 * b + 1];
+    double cx = xy[2 * c];
+    double cy = xy[2 * c + 1];
+    if (cross(ax, ay, bx, by, cx, cy) <= 0) {
+      // Reflex or flat
+      return false;
+    }
+    for (int k = 0; k < remaining; k++) {
+      int p = polygon[k];
+      if (p == a || p == b || p == c) {
+        continue;
+      }
+      double px = xy[2 * p];
+      double py = xy[2 * p + 1];
+      if (cross(ax, ay, bx, by, px, py) >= 0 && cross(bx, by, cx, cy, px, py) >= 0
+          && cross(cx, cy, ax, ay, px, py) >= 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static double cross(double ax, double ay, double bx, double by, double cx,
+      double cy) {
+    return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+  }
+
+  private void addVertex(float x, float y, float z) {
+    if (vertexCount * 3 + 3 > vertices.length) {
+      vertices = Arrays.copyOf(vertices, Math.max(vertices.length * 2, vertexCount * 3 + 3));
+    }
+    vertices[vertexCount * 3] = x;
+    vertices[vertexCount * 3 + 1] = y;
+    vertices[vertexCount * 3 + 2] = z;
+    vertexCount++;
+  }
+
+  private void addIndex(int index) {
+    if (indexCount == indices.length) {
+      indices = Arrays.copyOf(indices, Math.max(indices.length * 2, 6));
+    }
+    indices[indexCount++] = index;
+  }
+
+  private void addTriangle(int a, int b, int c) {
+    addIndex(a);
+    addIndex(b);
+    addIndex(c);
+  }
+
+  private void addEdge(int a, int b) {
+    if (edgeIndexCount + 2 > edges.length) {
+      edges = Arrays.copyOf(edges, Math.max(edges.length * 2, edgeIndexCount + 2));
+    }
+    edges[edgeIndexCount++] = a;
+    edges[edgeIndexCount++] = b;
+  }
+
+  /**
+   * Add the triangles and edges of <tt>other</tt> to this geometry
+   */
+  public void append(ExtrudedGeometry other) {
+    append(other, null, 0);
+  }
+
+  /**
+   * Add the triangles and edges of <tt>other</tt>, placed by <tt>transform</tt> then lifted by <tt>z</tt>.
+   * Lets a geometry computed once be instanced at several places.
+   *
+   * @param transform <tt>null</tt> to keep the coordinates of <tt>other</tt>
+   */
+  public void append(ExtrudedGeometry other, AffineTransform transform, float z) {
+    int offset = vertexCount;
+    if ((vertexCount + other.vertexCount) * 3 > vertices.length) {
+      vertices = Arrays.copyOf(vertices,
+          Math.max(vertices.length * 2, (vertexCount + other.vertexCount) * 3));
+    }
+    if (transform == null) {
+      System.arraycopy(other.vertices, 0, vertices, vertexCount * 3, other.vertexCount * 3);
+      if (z != 0) {
+        for (int i = vertexCount * 3 + 2; i < (vertexCount + other.vertexCount) * 3; i += 3) {
+          vertices[i] += z;
+        }
+      }
+    } else {
+      double[] m = new double[6];
+      transform.getMatrix(m);
+      for (int i = 0, j = vertexCount * 3; i < other.vertexCount * 3; i += 3, j += 3) {
+        double x = other.vertices[i];
+        double y = other.vertices[i + 1];
+        vertices[j] = (float) (m[0] * x + m[2] * y + m[4]);
+        vertices[j + 1] = (float) (m[1] * x + m[3] * y + m[5]);
+        vertices[j + 2] = other.vertices[i + 2] + z;
+      }
+    }
+    vertexCount += other.vertexCount;
+    if (indexCount + other.indexCount > indices.length) {
+      indices = Arrays.copyOf(indices,
+          Math.max(indices.length * 2, indexCount + other.indexCount));
+    }
+    for (int i = 0; i < other.indexCount; i++) {
+      indices[indexCount++] = other.indices[i] + offset;
+    }
+    if (edgeIndexCount + other.edgeIndexCount > edges.length) {
+      edges = Arrays.copyOf(edges,
+          Math.max(edges.length * 2, edgeIndexCount + other.edgeIndexCount));
+    }
+    for (int i = 0; i < other.edgeIndexCount; i++) {
+      edges[edgeIndexCount++] = other.edges[i] + offset;
+    }
+  }
+
+  public int getVertexCount() {
+    return vertexCount;
+  }
+
+  public int getTriangleCount() {
+    return indexCount / 3;
+  }
+
+  public int getEdgeCount() {
+    return edgeIndexCount / 2;
+  }
+
+  /**
+   * @return coordinates packed as <tt>x y z</tt> for each vertex
+   */
+  public float[] getVertices() {
+    return Arrays.copyOf(vertices, vertexCount * 3);
+  }
+
+  /**
+   * @return indices of the vertices, 3 per triangle
+   */
+  public int[] getIndices() {
+    return Arrays.copyOf(indices, indexCount);
+  }
+
+  /**
+   * @return indices of the vertices, 2 per edge of an extruded outline
+   */
+  public int[] getEdges() {
+    return Arrays.copyOf(edges, edgeIndexCount);
+  }
+
+  /**
+   * @return box around the vertices, <tt>null</tt> if there is none
+   */
+  public LayerBounds getBounds() {
+    if (vertexCount == 0) {
+      return null;
+    }
+    float[] min = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+    float[] max = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+    for (int i = 0; i < vertexCount * 3; i++) {
+      min[i % 3] = Math.min(min[i % 3], vertices[i]);
+      max[i % 3] = Math.max(max[i % 3], vertices[i]);
+    }
+    return new LayerBounds(min[0], min[1], min[2], max[0], max[1], max[2]);
+  }
+
+  public boolean isEmpty() {
+    return indexCount == 0;
+  }
+
+  /**
+   * Hand the buffers to Processing, in a group of two shapes: the triangles, then the edges. Must
+   * be called on the rendering thread.
+   */
+  public PShape toShape(PApplet context) {
+    PShape shape = context.createShape(PConstants.GROUP);
+    PShape faces = context.createShape();
+    faces.beginShape(PConstants.TRIANGLES);
+    // Edges of the triangles are not the edges of the bits, those are drawn below
+    faces.noStroke();
+    for (int i = 0; i < indexCount; i++) {
+      int v = indices[i] * 3;
+      faces.vertex(vertices[v], vertices[v + 1], vertices[v + 2]);
+    }
+    faces.endShape();
+    shape.addChild(faces);
+    if (edgeIndexCount > 0) {
+      PShape outlines = context.createShape();
+      outlines.beginShape(PConstants.LINES);
+      outlines.noFill();
+      outlines.stroke(0);
+      outlines.strokeWeight(1);
+      for (int i = 0; i < edgeIndexCount; i++) {
+        int v = edges[i] * 3;
+        outlines.vertex(vertices[v], vertices[v + 1], vertices[v + 2]);
+      }
+      outlines.endShape();
+      shape.addChild(outlines);
+    }
+    return shape;
+  }
+}
@@ -0,0 +1,172 @@
+package meshIneBits.gui.view3d.builder;
+
+import java.awt.geom.Area;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Extrusions of areas, cached by the outline of the area in its own coordinate system. Most bits
+ * of a pavement are identical in their own coordinate system, so they are tessellated once and
+ * placed by transform afterwards. The least recently used extrusions are dropped first.
+ *
+ * @param <V> what is built from an area. Shared by all identical areas, so must not be modified
+ */
+public class ExtrusionCache<V> {
+
+  /**
+   * Triangles of sub bits, in their own coordinate system
+   */
+  public static final ExtrusionCache<ExtrudedGeometry> geometries = new ExtrusionCache<>(4096);
+
+  /**
+   * Coordinates closer than this are the same
+   */
+  private static final double QUANTUM = 1e-6;
+
+  private final int capacity;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  private final Map<Key, V> cache;
+
+  /**
+   * @param capacity maximum number of extrusions kept
+   */
+  public ExtrusionCache(int capacity) {
+    this.capacity = capacity;
+    cache = new LinkedHashMap<Key, V>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+        if (size() > ExtrusionCache.this.capacity) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * @param area      in its own coordinate system
+   * @param depth     of the extrusion
+   * @param extrusion called on a miss, outside of any lock. A <tt>null</tt> result is not kept
+   * @return extrusion of an area with the same outline and depth
+   */
+  public V get(Area area, float depth, Function<Area, V> extrusion) {
+    Key key = new Key(area, depth);
+    V value;
+    synchronized (cache) {
+      value = cache.get(key);
+    }
+    if (value != null) {
+      hits.incrementAndGet();
+      return value;
+    }
+    misses.incrementAndGet();
+    value = extrusion.apply(area);
+    if (value == null) {
+      return null;
+    }
+    synchronized (cache) {
+      // Another thread may have been quicker, keep a single instance
+      V previous = cache.putIfAbsent(key, value);
+      return previous != null ? previous : value;
+    }
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  /**
+   * @return part of the requests served by the cache, 0 if nothing has been requested
+   */
+  public double getHitRatio() {
+    long h = hits.get();
+    long total = h + misses.get();
+    return total == 0 ? 0 : (double) h / total;
+  }
+
+  public int size() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+
+  /**
+   * Forget every extrusion and reset the statistics
+   */
+  public void clear() {
+    synchronized (cache) {
+      cache.clear();
+    }
+    hits.set(0);
+    misses.set(0);
+    evictions.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d hits, %d misses (%.1f %% hits), %d evicted, %d/%d kept",
+        getHitCount(), getMissCount(), 100 * getHitRatio(), getEvictionCount(), size(), capacity);
+  }
+
+  /**
+   * Outline of an area, rounded to {@link #QUANTUM}, and depth of extrusion
+   */
+  private static class Key {
+
+    private final long[] fingerprint;
+    private final int hash;
+
+    Key(Area area, float depth) {
+      long[] values = new long[64];
+      int n = 0;
+      double[] coords = new double[6];
+      if (area != null) {
+        PathIterator pi = area.getPathIterator(null);
+        values[n++] = pi.getWindingRule();
+        for (; !pi.isDone(); pi.next()) {
+          int type = pi.currentSegment(coords);
+          int count = type == PathIterator.SEG_CLOSE ? 0
+              : type == PathIterator.SEG_QUADTO ? 4 : type == PathIterator.SEG_CUBICTO ? 6 : 2;
+          if (n + 1 + count + 1 > values.length) {
+            values = Arrays.copyOf(values, 2 * values.length + count);
+          }
+          values[n++] = type;
+          for (int i = 0; i < count; i++) {
+            values[n++] = Math.round(coords[i] / QUANTUM);
+          }
+        }
+      }
+      values[n++] = Float.floatToIntBits(depth);
+      fingerprint = Arrays.copyOf(values, n);
+      hash = Arrays.hashCode(fingerprint);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key
+          && hash == ((Key) o).hash
+          && Arrays.equals(fingerprint, ((Key) o).fingerprint);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -19,9 +19,26 @@ public class ExtrusionFromAreaService {
 
   private  static ExtrusionFromAreaService instance = new ExtrusionFromAreaService();
 
+  /**
+   * Extruded shapes a window keeps in its own cache
+   */
+  public static final int SHAPES_PER_VIEW = 256;
+
   public static ExtrusionFromAreaService getInstance() {
     return instance;
   }
+
+  /**
+   * Same as {@link #buildShapeFromArea(PApplet, Area, float)}, but the shape is built once for
+   * all the identical areas kept in <tt>shapes</tt>. The shape returned is shared, so must be
+   * drawn as it is, not transformed.
+   *
+   * @param shapes owned by <tt>context</tt>, so that its shapes go with it
+   */
+  public PShape getShapeFromArea(ExtrusionCache<PShape> shapes, PApplet context, Area area,
+      float extrudeDepth) {
+    return shapes.get(area, extrudeDepth, a -> buildShapeFromArea(context, a, extrudeDepth));
+  }
 /*
   public PShape buildShapeFromArea(PApplet context, Area area, float extrudeDepth) {
     Vector<Segment2D> segmentList = AreaTool.getLargestPolygon(area);
@@ -0,0 +1,42 @@
+package meshIneBits.gui.view3d.builder;
+
+import meshIneBits.gui.view3d.util.LayerDetailPlanner.LayerBounds;
+import processing.core.PShape;
+
+/**
+ * Shapes of one layer of the mesh, at the different levels of detail
+ */
+public class LayerShape {
+
+  private final int layerId;
+  private final PShape detailed;
+  private final PShape proxy;
+  private final LayerBounds bounds;
+
+  /**
+   * @param detailed every sub bit of the layer
+   * @param proxy    coarse shape standing for the layer from afar
+   */
+  public LayerShape(int layerId, PShape detailed, PShape proxy, LayerBounds bounds) {
+    this.layerId = layerId;
+    this.detailed = detailed;
+    this.proxy = proxy;
+    this.bounds = bounds;
+  }
+
+  public int getLayerId() {
+    return layerId;
+  }
+
+  public PShape getDetailed() {
+    return detailed;
+  }
+
+  public PShape getProxy() {
+    return proxy;
+  }
+
+  public LayerBounds getBounds() {
+    return bounds;
+  }
+}
@@ -10,9 +10,19 @@ public class PavedMeshBuilderResult {
   private  PShape meshShape;
   //private final Vector<BitShape> bitShapes;
   private  Vector<BitShape> bitShapes;
+  private final Vector<LayerShape> layerShapes;
   public PavedMeshBuilderResult(PShape meshShape, Vector<BitShape> bitShapes) {
+    this(meshShape, bitShapes, new Vector<>());
+  }
+
+  /**
+   * @param layerShapes children of <tt>meshShape</tt> with their proxy, layer by layer
+   */
+  public PavedMeshBuilderResult(PShape meshShape, Vector<BitShape> bitShapes,
+      Vector<LayerShape> layerShapes) {
     this.meshShape = meshShape;
     this.bitShapes = bitShapes;
+    this.layerShapes = layerShapes;
   }
 
   public PShape getMeshShape() {
@@ -23,6 +33,10 @@ public class PavedMeshBuilderResult {
     return bitShapes;
   }
 
+  public Vector<LayerShape> getLayerShapes() {
+    return layerShapes;
+  }
+
   public boolean isNull() {
     return meshShape == null || bitShapes == null;
   }
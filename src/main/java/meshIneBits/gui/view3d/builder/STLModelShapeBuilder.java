@@ -8,7 +8,7 @@ import processing.core.PApplet;
 import processing.core.PConstants;
 import processing.core.PShape;
 
-import java.util.Vector;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 public class STLModelShapeBuilder extends PApplet implements IModelShapeBuilder {
@@ -29,7 +29,7 @@ public static CountDownLatch shaping=new CountDownLatch(1);
   public PShape buildModelShape() {
     PShape modelShape = context.createShape(PConstants.GROUP);
 
-    Vector<Triangle> triangles = stlModel.getTriangles();
+    List<Triangle> triangles = stlModel.getTriangles();
     for (Triangle triangle : triangles) {
 
       PShape shape = buildShapeFromTriangle(triangle);
@@ -1,10 +1,18 @@
 package meshIneBits.gui.view3d.builder;
 
+import java.awt.Color;
+import java.awt.geom.AffineTransform;
+import processing.core.PApplet;
 import processing.core.PShape;
 
 public class SubBitShape {
   //private final PShape shape;
   private  PShape shape;
+  private PApplet context;
+  private ExtrudedGeometry geometry;
+  private AffineTransform location;
+  private float z;
+  private Color fill;
   private int batchId;
   private int layerId;
 
@@ -12,7 +20,31 @@ public class SubBitShape {
     this.shape = shape;
   }
 
+  /**
+   * The shape is only created from <tt>geometry</tt> when asked, on the rendering thread
+   *
+   * @param geometry may be shared with other sub bits
+   * @param location from the coordinate system of <tt>geometry</tt> to the mesh
+   * @param z        lower altitude of the sub bit
+   */
+  public SubBitShape(PApplet context, ExtrudedGeometry geometry, AffineTransform location,
+      float z, Color fill) {
+    this.context = context;
+    this.geometry = geometry;
+    this.location = location;
+    this.z = z;
+    this.fill = fill;
+  }
+
   public PShape getShape() {
+    if (shape == null && geometry != null) {
+      ExtrudedGeometry located = new ExtrudedGeometry(geometry.getVertexCount());
+      located.append(geometry, location, z);
+      shape = located.toShape(context);
+      shape.setFill(fill.getRGB());
+      geometry = null;
+      location = null;
+    }
     return shape;
   }
 
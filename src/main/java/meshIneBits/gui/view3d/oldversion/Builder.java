@@ -87,7 +87,7 @@ class Builder extends PApplet implements Observer {
    */
   void buildShape(Model model, PShape shape) {
     Logger.updateStatus("Start building STL model");
-    Vector<Triangle> stlTriangles = model.getTriangles();
+    List<Triangle> stlTriangles = model.getTriangles();
     //pApplet.shapeMode(CORNER);
     for (Triangle t : stlTriangles) {
       PShape shape1 = getPShapeFromTriangle(t);
@@ -51,6 +51,14 @@ public class BaseModel3DProvider implements IModel3DProvider, IAnimationModel3DP
     return meshPavedResult.getMeshShape();
   }
 
+  @Override
+  public Vector<LayerShape> getLayerShapes() {
+    if (meshPavedResult.isNull()) {
+      return new Vector<>();
+    }
+    return meshPavedResult.getLayerShapes();
+  }
+
   public ArrayList<ArrayList<Strip>> getMeshstrips() {
     return meshstrips;
   }
@@ -4,6 +4,7 @@ import meshIneBits.Mesh;
 import meshIneBits.Model;
 import meshIneBits.Strip;
 import meshIneBits.gui.view3d.builder.BitShape;
+import meshIneBits.gui.view3d.builder.LayerShape;
 import processing.core.PApplet;
 import processing.core.PShape;
 
@@ -19,6 +20,12 @@ public interface IModel3DProvider {
 
   PShape getMeshShape();
 
+  /**
+   * @return shapes of the layers of the mesh shape, with their proxy. Empty if the mesh is not
+   * paved
+   */
+  Vector<LayerShape> getLayerShapes();
+
   PShape getModelShape();
 
   ArrayList<ArrayList<Strip>> getMeshstrips();
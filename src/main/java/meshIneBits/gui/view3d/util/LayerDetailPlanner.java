@@ -0,0 +1,182 @@
+package meshIneBits.gui.view3d.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decides, frame after frame, how each layer of the mesh is drawn. Layers of the active window
+ * close enough to the eye are drawn in full, the others with a coarse proxy. The distance under
+ * which layers are drawn in full follows the time taken by the last frame, so the view stays
+ * interactive whatever the number of layers.
+ * <p>
+ * Does not depend on the rendering, the view only gives the eye position and the frame time.
+ */
+public class LayerDetailPlanner {
+
+  public enum Detail {FULL, PROXY, HIDDEN}
+
+  /**
+   * Detail distance is reduced by this factor after a frame over budget
+   */
+  static final double SHRINK = 0.8;
+  /**
+   * Detail distance is extended by this factor after a frame well under budget
+   */
+  static final double GROW = 1.1;
+  /**
+   * Part of the budget under which a frame is well under budget
+   */
+  static final double SLACK = 0.6;
+  /**
+   * Smallest detail distance extended, in mm
+   */
+  static final double MIN_DISTANCE = 1;
+
+  /**
+   * Axis aligned box around a layer
+   */
+  public static class LayerBounds {
+
+    private final double minX, minY, minZ, maxX, maxY, maxZ;
+
+    public LayerBounds(double minX, double minY, double minZ, double maxX, double maxY,
+        double maxZ) {
+      this.minX = minX;
+      this.minY = minY;
+      this.minZ = minZ;
+      this.maxX = maxX;
+      this.maxY = maxY;
+      this.maxZ = maxZ;
+    }
+
+    /**
+     * @return 0 if the point is inside
+     */
+    public double distanceFrom(double x, double y, double z) {
+      double dx = Math.max(0, Math.max(minX - x, x - maxX));
+      double dy = Math.max(0, Math.max(minY - y, y - maxY));
+      double dz = Math.max(0, Math.max(minZ - z, z - maxZ));
+      return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    public double getMinZ() {
+      return minZ;
+    }
+
+    public double getMaxZ() {
+      return maxZ;
+    }
+  }
+
+  private final List<LayerBounds> bounds;
+  private final double frameBudget;
+  private int windowFirst = 0;
+  private int windowLast;
+  private boolean hideOutsideWindow = false;
+  /**
+   * Infinite while every frame fits in the budget
+   */
+  private double detailDistance = Double.POSITIVE_INFINITY;
+
+  /**
+   * @param bounds      of the layers, in the order they are drawn
+   * @param frameBudget time in ms a frame should not exceed
+   */
+  public LayerDetailPlanner(List<LayerBounds> bounds, double frameBudget) {
+    this.bounds = bounds;
+    this.frameBudget = frameBudget;
+    this.windowLast = bounds.size() - 1;
+  }
+
+  /**
+   * Only layers from <tt>first</tt> to <tt>last</tt>, included, may be drawn in full. Indices are
+   * clamped to the existing layers.
+   */
+  public void setLayerWindow(int first, int last) {
+    windowFirst = Math.max(0, Math.min(first, last));
+    windowLast = Math.min(bounds.size() - 1, Math.max(first, last));
+  }
+
+  /**
+   * Every layer may be drawn in full
+   */
+  public void clearLayerWindow() {
+    windowFirst = 0;
+    windowLast = bounds.size() - 1;
+  }
+
+  public int getWindowFirst() {
+    return windowFirst;
+  }
+
+  public int getWindowLast() {
+    return windowLast;
+  }
+
+  public boolean isWindowed() {
+    return windowFirst > 0 || windowLast < bounds.size() - 1;
+  }
+
+  /**
+   * @param hide <tt>true</tt> to not draw layers out of the window at all, instead of drawing
+   *             their proxy
+   */
+  public void setHideOutsideWindow(boolean hide) {
+    hideOutsideWindow = hide;
+  }
+
+  public boolean isHideOutsideWindow() {
+    return hideOutsideWindow;
+  }
+
+  public double getDetailDistance() {
+    return detailDistance;
+  }
+
+  /**
+   * Adapt the detail distance to the last frame, then decide how to draw each layer.
+   *
+   * @param eyeX      eye position, in the coordinate system of the layer bounds
+   * @param lastFrame time taken by the last frame in ms. Non positive if unknown
+   * @return detail of each layer
+   */
+  public Detail[] plan(double eyeX, double eyeY, double eyeZ, double lastFrame) {
+    Detail[] details = new Detail[bounds.size()];
+    if (bounds.isEmpty()) {
+      return details;
+    }
+    double[] distances = new double[bounds.size()];
+    double nearest = Double.POSITIVE_INFINITY;
+    double farthest = 0;
+    for (int i = windowFirst; i <= windowLast; i++) {
+      distances[i] = bounds.get(i)
+          .distanceFrom(eyeX, eyeY, eyeZ);
+      nearest = Math.min(nearest, distances[i]);
+      farthest = Math.max(farthest, distances[i]);
+    }
+    adapt(lastFrame, nearest, farthest);
+
+    Arrays.fill(details, hideOutsideWindow ? Detail.HIDDEN : Detail.PROXY);
+    for (int i = windowFirst; i <= windowLast; i++) {
+      details[i] = distances[i] <= detailDistance ? Detail.FULL : Detail.PROXY;
+    }
+    return details;
+  }
+
+  private void adapt(double lastFrame, double nearest, double farthest) {
+    if (lastFrame <= 0) {
+      return;
+    }
+    if (lastFrame > frameBudget) {
+      // Start from what is drawn now
+      double current = Math.min(detailDistance, farthest);
+      // The nearest layers are always drawn in full
+      detailDistance = Math.max(nearest, current * SHRINK);
+    } else if (lastFrame < frameBudget * SLACK && !Double.isInfinite(detailDistance)) {
+      detailDistance = Math.max(Math.max(detailDistance, nearest), MIN_DISTANCE) * GROW;
+      if (detailDistance >= farthest) {
+        detailDistance = Double.POSITIVE_INFINITY;
+      }
+    }
+  }
+}
@@ -116,7 +116,7 @@ public static boolean getpausing(){
 }
   private void startAnimation()  {
 
-    MultiThreadServiceExecutor.instance.execute(new IndexIncrementTask());
+    MultiThreadServiceExecutor.ioInstance.execute(new IndexIncrementTask());
   //throw new IndexOutOfBoundsException("Refresh the 3d interface by clicking on it");
   }
 
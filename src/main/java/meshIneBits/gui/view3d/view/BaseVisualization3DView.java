@@ -9,8 +9,12 @@ import meshIneBits.config.CraftConfig;
 import meshIneBits.gui.view3d.Processor.BaseVisualization3DProcessor;
 import meshIneBits.gui.view3d.Processor.IVisualization3DProcessor;
 import meshIneBits.gui.view3d.Visualization3DConfig;
+import meshIneBits.gui.view3d.builder.LayerShape;
 import meshIneBits.gui.view3d.oldversion.ProcessingModelView.ModelChangesListener;
 import meshIneBits.gui.view3d.provider.MeshProvider;
+import meshIneBits.gui.view3d.util.LayerDetailPlanner;
+import meshIneBits.gui.view3d.util.LayerDetailPlanner.Detail;
+import meshIneBits.gui.view3d.util.LayerDetailPlanner.LayerBounds;
 import meshIneBits.gui.view3d.util.animation.AnimationIndexIncreasedListener;
 import meshIneBits.gui.view3d.util.animation.AnimationProcessor;
 import meshIneBits.util.CustomLogger;
@@ -33,6 +37,7 @@ import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Vector;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -63,6 +68,11 @@ public class BaseVisualization3DView extends AbstractVisualization3DView impleme
   private HashMap<Integer,PShape> meshShapes=new HashMap<Integer,PShape>();
   private PShape meshShape;
   private Vector<PShape> animationShapes;
+  private Vector<LayerShape> layerShapes;
+  private LayerDetailPlanner detailPlanner;
+  private boolean levelOfDetail = true;
+  private long lastFrameStart = 0;
+  private double lastFrameTime = 0;
   private com.jogamp.newt.opengl.GLWindow win;
   private final DecimalFormat df;
   public static int IndexExport = 0;
@@ -131,6 +141,7 @@ public void play(){
       WindowStatus=2;
       noLoop();
       initProcessor();
+      detailPlanner = null;
       meshShapes.put(1,processor.getModelProvider().getMeshShape());
       frame.setShape(shape);
 
@@ -421,9 +432,84 @@ private void initWorkingSpace(){
 
   @Override
   public void setDisplayMeshShape(PShape pShape) {
+    if (pShape != meshShape) {
+      // Layers are read again from the provider
+      detailPlanner = null;
+    }
     meshShape = pShape;
   }
 
+  /**
+   * Draw the layers of the mesh far from the eye or out of the layer window with a coarse shape
+   */
+  public void setLevelOfDetail(boolean levelOfDetail) {
+    this.levelOfDetail = levelOfDetail;
+  }
+
+  /**
+   * Only layers from <tt>first</tt> to <tt>last</tt> may be drawn in detail
+   */
+  public void setLayerWindow(int first, int last) {
+    if (getDetailPlanner() != null) {
+      detailPlanner.setLayerWindow(first, last);
+    }
+  }
+
+  public void clearLayerWindow() {
+    if (getDetailPlanner() != null) {
+      detailPlanner.clearLayerWindow();
+    }
+  }
+
+  private LayerDetailPlanner getDetailPlanner() {
+    if (detailPlanner == null && processor != null) {
+      layerShapes = processor.getModelProvider()
+          .getLayerShapes();
+      if (layerShapes == null || layerShapes.isEmpty()) {
+        return null;
+      }
+      List<LayerBounds> bounds = new Vector<>();
+      layerShapes.forEach(layerShape -> bounds.add(layerShape.getBounds()));
+      detailPlanner = new LayerDetailPlanner(bounds, Visualization3DConfig.V3D_FRAME_BUDGET);
+    }
+    return detailPlanner;
+  }
+
+  /**
+   * <tt>l</tt> switches the level of detail, <tt>w</tt> the layer window, moved with the up and
+   * down arrows, and <tt>h</tt> hides the layers out of the window.
+   */
+  @Override
+  public void keyPressed() {
+    if (getDetailPlanner() == null) {
+      return;
+    }
+    int first = detailPlanner.getWindowFirst();
+    int last = detailPlanner.getWindowLast();
+    if (key == 'l') {
+      levelOfDetail = !levelOfDetail;
+      Logger.updateStatus("Level of detail " + (levelOfDetail ? "on" : "off"));
+      return;
+    } else if (key == 'w') {
+      if (detailPlanner.isWindowed()) {
+        detailPlanner.clearLayerWindow();
+      } else {
+        detailPlanner.setLayerWindow(0, Visualization3DConfig.V3D_LAYER_WINDOW - 1);
+      }
+    } else if (key == 'h') {
+      detailPlanner.setHideOutsideWindow(!detailPlanner.isHideOutsideWindow());
+    } else if (key == CODED && keyCode == UP && last < layerShapes.size() - 1) {
+      detailPlanner.setLayerWindow(first + 1, last + 1);
+    } else if (key == CODED && keyCode == DOWN && first > 0) {
+      detailPlanner.setLayerWindow(first - 1, last - 1);
+    } else {
+      return;
+    }
+    Logger.updateStatus("Layers " + layerShapes.get(detailPlanner.getWindowFirst())
+        .getLayerId() + " to " + layerShapes.get(detailPlanner.getWindowLast())
+        .getLayerId() + " in detail");
+  }
+
   @Override
   public void
   setDisplayShapes(Vector<PShape> displayShapes) {
@@ -454,6 +540,9 @@ private void initWorkingSpace(){
 
   @Override
   public synchronized void draw() {
+    long frameStart = System.nanoTime();
+    lastFrameTime = lastFrameStart == 0 ? 0 : (frameStart - lastFrameStart) / 1e6;
+    lastFrameStart = frameStart;
 
     background(Visualization3DConfig.V3D_BACKGROUND.getRGB());
     lights();
@@ -636,11 +725,37 @@ private void initWorkingSpace(){
       Vector3 v = MeshProvider.getInstance().getModel().getPos();
       pushMatrix();
       translate((float) v.x, (float) v.y, (float) v.z);
-      shape(meshShape);
+      if (levelOfDetail && getDetailPlanner() != null) {
+        drawLayers(v);
+      } else {
+        shape(meshShape);
+      }
       popMatrix();
     }
   }
 
+  private void drawLayers(Vector3 meshPosition) {
+    Vec eye = scene.eye()
+        .position();
+    Detail[] details = detailPlanner.plan(eye.x() - meshPosition.x, eye.y() - meshPosition.y,
+        eye.z() - meshPosition.z, lastFrameTime);
+    for (int i = 0; i < details.length; i++) {
+      switch (details[i]) {
+        case FULL:
+          shape(layerShapes.get(i)
+              .getDetailed());
+          break;
+        case PROXY:
+          shape(layerShapes.get(i)
+              .getProxy());
+          break;
+        case HIDDEN:
+        default:
+          break;
+      }
+    }
+  }
+
 
 
   private void drawtest(){
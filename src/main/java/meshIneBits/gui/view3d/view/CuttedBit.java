@@ -7,10 +7,11 @@ import controlP5.Textlabel;
 import meshIneBits.util.Pair;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.gui.view3d.Visualization3DConfig;
+import meshIneBits.gui.view3d.builder.ExtrusionCache;
 import meshIneBits.gui.view3d.builder.ExtrusionFromAreaService;
+import meshIneBits.opcuaHelper.OpcUaSubscriptionService;
 import meshIneBits.opcuaHelper.RobotCommander;
 import meshIneBits.util.LiftPointCalc;
-import meshIneBits.util.MultiThreadServiceExecutor;
 import meshIneBits.util.Vector2;
 import meshIneBits.util.supportImportFile.DomParser;
 import meshIneBits.util.supportImportFile.FallType;
@@ -26,6 +27,7 @@ import java.awt.*;
 import java.awt.geom.Area;
 import java.awt.geom.Path2D;
 import java.util.ArrayList;
+import java.util.List;
 
 
 
@@ -33,9 +35,12 @@ public class CuttedBit extends PApplet {
     // private int id=42;
     private int id=0;
     private PShape bitShape;
+    // Shapes of the bits already shown, dropped with the window
+    private final ExtrusionCache<PShape> bitShapes = new ExtrusionCache<>(
+            ExtrusionFromAreaService.SHAPES_PER_VIEW);
     private Scene scene;
     private CustomInteractiveFrame frame;
-    private ArrayList<ArrayList<Pair<FallType, Path2D.Double>>> cutpaths;
+    private List<ArrayList<Pair<FallType, Path2D.Double>>> cutpaths;
     private com.jogamp.newt.opengl.GLWindow win;
     //private PShape limit1;
     //private PShape limit2;
@@ -50,7 +55,10 @@ public class CuttedBit extends PApplet {
     private double rotationSpeed=0.2;
     private Vector2 liftpoint;
     private Vector2 newOrigin;
-    private boolean exited = false;
+    private volatile boolean exited = false;
+    // Last id pushed by the robot. Its shape is built by draw(), on the animation thread
+    private volatile int requestedId = id;
+    private OpcUaSubscriptionService.Registration registersRegistration;
     private Textlabel[] currentCuttedBitData;
     private static final Color bit_data_color = new Color(254, 254, 254);
 
@@ -90,7 +98,7 @@ public class CuttedBit extends PApplet {
         cutpaths = DomParser.parseXml(0);
         Area bitArea= Reconstitute.getInstance().recreateArea(cutpaths,id,true);
         bitShape = ExtrusionFromAreaService.getInstance()
-                .buildShapeFromArea(this, bitArea, Visualization3DConfig.BIT_THICKNESS);
+                .getShapeFromArea(bitShapes, this, bitArea, Visualization3DConfig.BIT_THICKNESS);
         liftpoint= LiftPointCalc.instance.getLiftPoint(bitArea, CraftConfig.suckerDiameter / 2);
         newOrigin=new Vector2((liftpoint.x+CraftConfig.lengthFull/2),(liftpoint.y+CraftConfig.bitWidth/2));
 
@@ -107,7 +115,8 @@ public class CuttedBit extends PApplet {
         limit2.vertex((float) CraftConfig.lengthFull,(float) CraftConfig.bitWidth,0);
         limit2.vertex((float) CraftConfig.lengthFull,(float) CraftConfig.bitWidth,(float) 0.001);
         limit2.endShape(PConstants.CLOSE);*/
-        MultiThreadServiceExecutor.instance.execute(new CuttedBit.CheckRegister());
+        // The robot pushes its registers, no thread waits between two readings
+        registersRegistration = robotCommander.subscribeHoldingRegisters(this::onRegisters);
 
     }
 
@@ -115,7 +124,7 @@ public class CuttedBit extends PApplet {
     public void mouseClicked(MouseEvent event) {
         Area bitArea= Reconstitute.getInstance().recreateArea(cutpaths,id,true);
         bitShape = ExtrusionFromAreaService.getInstance()
-                .buildShapeFromArea(this, bitArea, Visualization3DConfig.BIT_THICKNESS);
+                .getShapeFromArea(bitShapes, this, bitArea, Visualization3DConfig.BIT_THICKNESS);
         liftpoint= LiftPointCalc.instance.getLiftPoint(bitArea, CraftConfig.suckerDiameter / 2);
         newOrigin=new Vector2((liftpoint.x+CraftConfig.lengthFull/2),(liftpoint.y+CraftConfig.bitWidth/2));
 
@@ -123,6 +132,7 @@ public class CuttedBit extends PApplet {
 
     @Override
     public void draw() {
+        updateShape(requestedId);
         lights();
         background(200,200,200);
 
@@ -145,15 +155,23 @@ public class CuttedBit extends PApplet {
         shape(limit2);
         popMatrix();*/
     }
+    private void onRegisters(short[] registers){
+        if(!exited){
+            requestedId = registers[2];
+        }
+    }
     public void UpdateId(){
         try {
-            if(id!=robotCommander.getHoldingRegisters()[2]){
-            updateShape(robotCommander.getHoldingRegisters()[2]);
-            }
+            requestedId = robotCommander.getHoldingRegisters()[2];
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Show the bit <tt>newId</tt>. Must be called on the animation thread, which owns the shapes.
+     * Other threads set the id to show with {@link #UpdateId()}.
+     */
     public void updateShape(int newId){
         if(id!=newId){
             id=newId;
@@ -166,7 +184,7 @@ public class CuttedBit extends PApplet {
             }
             Area bitArea= Reconstitute.getInstance().recreateArea(cutpaths,id,true);
             bitShape = ExtrusionFromAreaService.getInstance()
-                    .buildShapeFromArea(this, bitArea, Visualization3DConfig.BIT_THICKNESS);
+                    .getShapeFromArea(bitShapes, this, bitArea, Visualization3DConfig.BIT_THICKNESS);
             liftpoint= LiftPointCalc.instance.getLiftPoint(bitArea, CraftConfig.suckerDiameter / 2);
             newOrigin=new Vector2((liftpoint.x+CraftConfig.lengthFull/2),(liftpoint.y+CraftConfig.bitWidth/2));
         }
@@ -212,6 +230,10 @@ public class CuttedBit extends PApplet {
         if (!exited) {
             super.exit();
             exited = true;
+            bitShapes.clear();
+            if (registersRegistration != null) {
+                registersRegistration.cancel();
+            }
         }
     }
     @Override
@@ -228,19 +250,4 @@ public class CuttedBit extends PApplet {
         setCloseOperation();
         // refresh();
     }
-
-    public class CheckRegister implements Runnable{
-
-        @Override
-        public void run() {
-            while (!exited){
-                UpdateId();
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-        }
-    }
 }
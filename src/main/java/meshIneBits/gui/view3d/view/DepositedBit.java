@@ -6,6 +6,7 @@ import com.jogamp.newt.event.WindowEvent;
 import meshIneBits.util.Pair;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.gui.view3d.Visualization3DConfig;
+import meshIneBits.gui.view3d.builder.ExtrusionCache;
 import meshIneBits.gui.view3d.builder.ExtrusionFromAreaService;
 import meshIneBits.util.LiftPointCalc;
 import meshIneBits.util.Vector2;
@@ -24,14 +25,18 @@ import java.awt.*;
 import java.awt.geom.Area;
 import java.awt.geom.Path2D;
 import java.util.ArrayList;
+import java.util.List;
 
 public class DepositedBit extends PApplet implements DepositingProcessView.IdUpdated {
     private int id=57;
   // private int id=57;
     private PShape bitShape;
+    // Shapes of the bits already shown, dropped with the window
+    private final ExtrusionCache<PShape> bitShapes = new ExtrusionCache<>(
+            ExtrusionFromAreaService.SHAPES_PER_VIEW);
     private Scene sceneD;
     private CustomInteractiveFrame frame;
-    private ArrayList<ArrayList<Pair<FallType, Path2D.Double>>> cutpaths;
+    private List<ArrayList<Pair<FallType, Path2D.Double>>> cutpaths;
     private com.jogamp.newt.opengl.GLWindow win;
   //  private PShape limit1;
     //private PShape limit2;
@@ -43,6 +48,8 @@ public class DepositedBit extends PApplet implements DepositingProcessView.IdUpd
     private DepositingProcessView mainInterface;
     private String title;
     private boolean exited = false;
+    // Last id received from the machine. Its shape is built by draw(), on the animation thread
+    private volatile int requestedId = id;
     private float theta=0;
     private double rotationSpeed=0.2;
     private Vector2 liftpoint;
@@ -85,7 +92,7 @@ public DepositedBit(DepositingProcessView maininterface,String title,int width,i
         cutpaths = DomParser.parseXml(0);
         Area bitArea= Reconstitute.getInstance().recreateArea(cutpaths,id,false);
         bitShape = ExtrusionFromAreaService.getInstance()
-                .buildShapeFromArea(this, bitArea, Visualization3DConfig.BIT_THICKNESS);
+                .getShapeFromArea(bitShapes, this, bitArea, Visualization3DConfig.BIT_THICKNESS);
         liftpoint= LiftPointCalc.instance.getLiftPoint(bitArea, CraftConfig.suckerDiameter / 2);
         newOrigin=new Vector2((liftpoint.x+CraftConfig.lengthFull/2),(liftpoint.y+CraftConfig.bitWidth/2));
        /* limit1=createShape();
@@ -107,7 +114,7 @@ public DepositedBit(DepositingProcessView maininterface,String title,int width,i
     public void mouseClicked(MouseEvent event) {
         Area bitArea= Reconstitute.getInstance().recreateArea(cutpaths,id,false);
         bitShape = ExtrusionFromAreaService.getInstance()
-                .buildShapeFromArea(this, bitArea, Visualization3DConfig.BIT_THICKNESS);
+                .getShapeFromArea(bitShapes, this, bitArea, Visualization3DConfig.BIT_THICKNESS);
         liftpoint= LiftPointCalc.instance.getLiftPoint(bitArea, CraftConfig.suckerDiameter / 2);
         newOrigin=new Vector2((liftpoint.x+CraftConfig.lengthFull/2),(liftpoint.y+CraftConfig.bitWidth/2));
 
@@ -117,6 +124,7 @@ public DepositedBit(DepositingProcessView maininterface,String title,int width,i
 
     @Override
     public void draw() {
+        updateShape(requestedId);
         lights();
         background(200,200,200);
 
@@ -183,6 +191,7 @@ public DepositedBit(DepositingProcessView maininterface,String title,int width,i
         if (!exited) {
             super.exit();
             exited = true;
+            bitShapes.clear();
         }
     }
     @Override
@@ -201,8 +210,11 @@ public DepositedBit(DepositingProcessView maininterface,String title,int width,i
 
 
 
+    /**
+     * Show the bit <tt>newId</tt>. Must be called on the animation thread, which owns the shapes.
+     * Other threads go through {@link #idUpdated(int)}.
+     */
     public void updateShape(int newId){
-        System.out.println("updating dep");
         if(id!=newId){
             id=newId;
             if(id% CraftConfig.nbBitesBatch==0){
@@ -214,7 +226,7 @@ public DepositedBit(DepositingProcessView maininterface,String title,int width,i
             System.out.println("id_bit:"+id+" num_batch:"+DomParser.getBatch_num());
             Area bitArea= Reconstitute.getInstance().recreateArea(cutpaths,id,false);
             bitShape = ExtrusionFromAreaService.getInstance()
-                    .buildShapeFromArea(this, bitArea, Visualization3DConfig.BIT_THICKNESS);
+                    .getShapeFromArea(bitShapes, this, bitArea, Visualization3DConfig.BIT_THICKNESS);
             liftpoint= LiftPointCalc.instance.getLiftPoint(bitArea, CraftConfig.suckerDiameter / 2);
             newOrigin=new Vector2((liftpoint.x+CraftConfig.lengthFull/2),(liftpoint.y+CraftConfig.bitWidth/2));
             surface.setTitle(title+" (Id:"+String.valueOf(id)+"; Batch:"+(int)Math.ceil(id/ CraftConfig.nbBitesBatch)+"; Id in batch:"+id% CraftConfig.nbBitesBatch+")");
@@ -223,7 +235,7 @@ public DepositedBit(DepositingProcessView maininterface,String title,int width,i
 
     @Override
     public void idUpdated(int newId) {
-        updateShape(newId);
+        requestedId = newId;
     }
 }
 
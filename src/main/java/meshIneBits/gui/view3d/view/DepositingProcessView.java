@@ -119,6 +119,21 @@ public class DepositingProcessView extends UIParameterWindow implements MouseLis
 
   @Override
   public void onClose() {
+    stopProcessor();
+  }
+
+  @Override
+  public void dispose() {
+    // Also reached when the frame exits the application
+    stopProcessor();
+    super.dispose();
+  }
+
+  private synchronized void stopProcessor() {
+    if (processor != null) {
+      processor.stop();
+      processor = null;
+    }
   }
 
   @Override
@@ -501,8 +516,12 @@ public class DepositingProcessView extends UIParameterWindow implements MouseLis
                            String[] AxesPositions)
   {
     setMessageError(messageErr);
-    updateCurrentBitData(bitsdata);
     setContinueButton(continueButtonLock);
+    if (bitsdata == null || AxesPositions == null) {
+      // The machine is not reachable, the last values are kept
+      return;
+    }
+    updateCurrentBitData(bitsdata);
     updateCurrentAxesPositions(AxesPositions);
     depositedBitInterface.idUpdated(Integer.valueOf(bitsdata[0]));
   }
@@ -7,7 +7,6 @@ import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
 import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
 import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
 
-import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
 import static meshIneBits.opcuaHelper.CustomStatusCode.*;
@@ -24,15 +23,9 @@ public class BaseWriteNode implements IWriteNode {
                                    String typeValue,
                                     Object value)
       throws Exception {
-    client.connect().get();
-    String machineId = client.getConfig().getEndpoint().getEndpointUrl();
-    System.out.println("machineId:"+machineId);
-    NodeId nodeId = MeshIneBitNodeId.getMIBNodeIdByID(machineId, nodeIdString);
-
-    Objects.requireNonNull(nodeId, () -> {
-      client.disconnect();
-      return "NodeId not found in MeshIneBItNodeId class";
-    });
+    OpcUaSession session = OpcUaSession.of(client);
+    session.connect();
+    NodeId nodeId = session.getNodeId(nodeIdString);
 
     Variant v = new Variant(value);
     DataValue dv = new DataValue(v, null, null);
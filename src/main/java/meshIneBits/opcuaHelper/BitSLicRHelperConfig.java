@@ -14,4 +14,20 @@ public class BitSLicRHelperConfig {
 
   public static final String robot_decoupe_url = "opc.tcp://192.168.10.31:4880/FANUC/NanoUaServer";
 
+  /**
+   * Default milliseconds before an asynchronous request fails
+   */
+  public static long request_timeout = 5000;
+
+  //Subscriptions
+  /**
+   * Milliseconds between two samplings of a watched node by the server
+   */
+  public static double sampling_interval = 100;
+
+  /**
+   * Minimal change of a watched position (mm or degree) to be reported
+   */
+  public static double position_deadband = 0.005;
+
 }
\ No newline at end of file
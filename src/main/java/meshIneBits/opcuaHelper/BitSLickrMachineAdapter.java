@@ -1,12 +1,12 @@
 package meshIneBits.opcuaHelper;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 public abstract class BitSLickrMachineAdapter implements IClientHelper {
 
   protected ClientRunner clientRunner;
-  private CompletableFuture<ICustomResponse> future;
 
   public BitSLickrMachineAdapter()  {
      clientRunner=new ClientRunner(this);
@@ -31,17 +31,98 @@ public abstract class BitSLickrMachineAdapter implements IClientHelper {
       Object nodeId,
       String typeValue,
       Object value) throws ExecutionException, InterruptedException {
-    future = new CompletableFuture<>();
+    CompletableFuture<ICustomResponse> future = new CompletableFuture<>();
     clientRunner.runAction(getWriteAction(nodeId, typeValue, value), future);
     return future.get();
   }
 
   ICustomResponse readVariableNode(Object nodeId) throws ExecutionException, InterruptedException {
-    future = new CompletableFuture<>();
+    CompletableFuture<ICustomResponse> future = new CompletableFuture<>();
     clientRunner.runAction(getReadAction(nodeId), future);
     return future.get();
   }
 
+  /**
+   * Read several nodes in a single request.
+   *
+   * @param nodeIds identifiers declared in {@link MeshIneBitNodeId}
+   * @return the values read together
+   */
+  NodeSnapshot readVariableNodes(List<?> nodeIds) throws ExecutionException, InterruptedException {
+    CompletableFuture<NodeSnapshot> snapshot = new CompletableFuture<>();
+    clientRunner.runAction(
+        (client, future1) -> future1.complete(OpcUaSession.of(client).readValues(nodeIds)),
+        snapshot);
+    return snapshot.get();
+  }
+
+  CompletableFuture<NodeSnapshot> readVariableNodesAsync(List<?> nodeIds) {
+    CompletableFuture<NodeSnapshot> snapshot = new CompletableFuture<>();
+    clientRunner.runAction((client, future1) -> forward(OpcUaSession.of(client)
+        .readValuesAsync(nodeIds), future1), snapshot);
+    return snapshot;
+  }
+
+  /**
+   * Write several nodes in a single request, without waiting for the answer.
+   *
+   * @param nodeIds identifiers declared in {@link MeshIneBitNodeId}
+   * @param values  new values, one per node
+   * @return status of each write
+   */
+  CompletableFuture<List<ICustomResponse>> writeVariableNodesAsync(List<?> nodeIds,
+      List<?> values) {
+    CompletableFuture<List<ICustomResponse>> statuses = new CompletableFuture<>();
+    clientRunner.runAction((client, future1) -> forward(OpcUaSession.of(client)
+        .writeValuesAsync(nodeIds, values), future1), statuses);
+    return statuses;
+  }
+
+  private static <T> void forward(CompletableFuture<T> from, CompletableFuture<T> to) {
+    from.whenComplete((value, e) -> {
+      if (e != null) {
+        to.completeExceptionally(e);
+      } else {
+        to.complete(value);
+      }
+    });
+  }
+
+  /**
+   * Receive the changes of several nodes, sampled by the server.
+   *
+   * @param nodeIds          identifiers declared in {@link MeshIneBitNodeId}
+   * @param samplingInterval milliseconds between two samplings
+   * @param deadband         minimal absolute change of numeric values to be reported
+   * @param listener         receiver of the changes
+   * @return handle to stop receiving
+   */
+  OpcUaSubscriptionService.Registration subscribeVariableNodes(List<?> nodeIds,
+      double samplingInterval, double deadband, OpcUaSubscriptionService.Listener listener)
+      throws ExecutionException, InterruptedException {
+    CompletableFuture<OpcUaSubscriptionService.Registration> registration =
+        new CompletableFuture<>();
+    clientRunner.runAction((client, future1) -> future1.complete(OpcUaSession.of(client)
+            .getSubscriptions()
+            .subscribe(nodeIds, samplingInterval, deadband, listener)),
+        registration);
+    return registration.get();
+  }
+
+  /**
+   * Start a request to the machine, whose duration is not recorded.
+   */
+  public MachineRequest request() {
+    return new MachineRequest(this, null);
+  }
+
+  /**
+   * Disconnect from the machine and release the session of the client.
+   */
+  public void close() {
+    clientRunner.close();
+  }
+
   private IWriteNode createVariableNodeWriter() {
     return new BaseWriteNode();
   }
@@ -75,14 +75,25 @@ public class ClientRunner {
     );
   }
 
-  public void runAction(IClientAction clientAction, CompletableFuture<ICustomResponse> future) {
+  /**
+   * Disconnect the client and forget its session. Actions run afterwards reconnect it.
+   */
+  public void close() {
+    if (client != null) {
+      OpcUaSession.close(client);
+    }
+  }
+
+  public <T> void runAction(IClientAction<T> clientAction, CompletableFuture<T> future) {
     try {
       //client = createClient();
-
+      // Actions find the session of the client opened for this machine
+      OpcUaSession.of(client, this.clientAction.getMachineId());
       clientAction.run(client,future);
 
     } catch (Throwable t) {
       logger.logERRORMessage("Error getting client: " + t.getMessage());
+      future.completeExceptionally(t);
     }
   }
 }
@@ -6,7 +6,7 @@ public class CustomStatusCode {
 
   public static final CustomStatusCode instance = new CustomStatusCode();
   public static final long STATUS_GOOD = 10001;
-  public static final long STATUS_BAD = 10001;
+  public static final long STATUS_BAD = 10000;
   public static final long STATUS_UNCERTAIN = 10002;
   public static final long STATUS_SECURITY_ERROR = 10003;
   public static final long STATUS_UNKNOWN = 10004;
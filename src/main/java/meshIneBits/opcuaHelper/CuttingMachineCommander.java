@@ -4,6 +4,8 @@ import meshIneBits.Mesh;
 import meshIneBits.NewBit3D;
 import meshIneBits.util.CustomLogger;
 
+import java.util.function.Consumer;
+
 public class CuttingMachineCommander {
 
   private final CustomLogger logger = new CustomLogger(this.getClass());
@@ -58,6 +60,28 @@ public class CuttingMachineCommander {
     }
   }
 
+  /**
+   * Receive the bit in cutting each time the machine moves to another one.
+   *
+   * @param consumer called on the client's notification thread
+   * @return handle to stop receiving
+   */
+  public OpcUaSubscriptionService.Registration subscribeCuttingBit(Consumer<NewBit3D> consumer) {
+    return helper.subscribeCuttingBitId(snapshot -> {
+      ICustomResponse res = snapshot.get(helper.cuttingButNodeId);
+      if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
+        logger.logERRORMessage(res.getMessage());
+        return;
+      }
+      NewBit3D bit3D = new FilterBitById().filterBitById(mesh, ((Number) res.getValue()).intValue());
+      if (bit3D != null) {
+        consumer.accept(bit3D);
+      } else {
+        logger.logERRORMessage("Bit not found in Mesh");
+      }
+    });
+  }
+
   public int getCuttingCutPath() {
     return 0;
   }
@@ -2,6 +2,7 @@ package meshIneBits.opcuaHelper;
 
 import meshIneBits.util.CustomLogger;
 
+import java.util.Collections;
 import java.util.concurrent.ExecutionException;
 
 public class CuttingMachineOPCUAHelper extends BitSLickrMachineAdapter {
@@ -65,6 +66,16 @@ public class CuttingMachineOPCUAHelper extends BitSLickrMachineAdapter {
     }
   }
 
+  public OpcUaSubscriptionService.Registration subscribeCuttingBitId(
+      OpcUaSubscriptionService.Listener listener) {
+    try {
+      return subscribeVariableNodes(Collections.singletonList(cuttingButNodeId),
+          BitSLicRHelperConfig.sampling_interval, 0, listener);
+    } catch (ExecutionException | InterruptedException e) {
+      throw new RuntimeException(e.getMessage());
+    }
+  }
+
   public ICustomResponse getCuttingPathId(){
     try {
       return readVariableNode(cuttingPathId);
@@ -3,13 +3,17 @@ package meshIneBits.opcuaHelper;
 import meshIneBits.opcuaHelper.BaseCustomResponse.BaseCustomResponseBuilder;
 import meshIneBits.util.MultiThreadServiceExecutor;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class CuttingMachineSimulator extends CuttingMachineOPCUAHelper {
 
-  private MultiThreadServiceExecutor executor = MultiThreadServiceExecutor.instance;
+  private MultiThreadServiceExecutor executor = MultiThreadServiceExecutor.ioInstance;
   private CuttingIncreaseTask task = new CuttingIncreaseTask();
+  private final List<SimulatedRegistration> registrations = new CopyOnWriteArrayList<>();
 
   public CuttingMachineSimulator() throws Exception {
   }
@@ -59,6 +63,14 @@ public class CuttingMachineSimulator extends CuttingMachineOPCUAHelper {
         .build();
   }
 
+  @Override
+  public OpcUaSubscriptionService.Registration subscribeCuttingBitId(
+      OpcUaSubscriptionService.Listener listener) {
+    SimulatedRegistration registration = new SimulatedRegistration(listener);
+    registrations.add(registration);
+    return registration;
+  }
+
   @Override
   public ICustomResponse getCuttingPathId() {
     return new BaseCustomResponseBuilder()
@@ -103,6 +115,9 @@ public class CuttingMachineSimulator extends CuttingMachineOPCUAHelper {
           }
           Thread.sleep(((int) (Math.random() * range) + min) * 1000);
           bitId.set(bitId.get() + 1);
+          for (SimulatedRegistration registration : registrations) {
+            registration.listener.onChange(registration.getSnapshot());
+          }
         }
       } catch (InterruptedException e) {
         e.printStackTrace();
@@ -123,4 +138,33 @@ public class CuttingMachineSimulator extends CuttingMachineOPCUAHelper {
     }
   }
 
+  /**
+   * Pushes the simulated bit id on each change, like the machine would
+   */
+  private class SimulatedRegistration implements OpcUaSubscriptionService.Registration {
+
+    private final OpcUaSubscriptionService.Listener listener;
+    private volatile boolean cancelled = false;
+
+    private SimulatedRegistration(OpcUaSubscriptionService.Listener listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public NodeSnapshot getSnapshot() {
+      return new NodeSnapshot(getEndpointUrl(), Collections.singletonList(cuttingButNodeId),
+          Collections.singletonList(getCuttingBitId()));
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      registrations.remove(this);
+    }
+  }
 }
@@ -1,16 +1,31 @@
-
 package meshIneBits.opcuaHelper;
 
 
 import meshIneBits.Mesh;
 import meshIneBits.util.CustomLogger;
+import meshIneBits.util.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
+/**
+ * Commands of the depositing machine. Each command exists in a synchronous version and in an
+ * asynchronous one, suffixed by <tt>Async</tt>, which does not block the calling thread. Several
+ * writes and reads can be sent together with {@link #request(String)}.
+ */
 public class DepositingMachineCommander {
 
     private final CustomLogger logger = new CustomLogger(this.getClass());
     private final Mesh mesh;
     //private final DepositingMachineOPCUAHelper helper=new DepositingMachineOPCUAHelper();
     private  DepositingMachineOPCUAHelper helper;
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
 
     public DepositingMachineCommander(Mesh mesh)  {
            helper =new DepositingMachineOPCUAHelper();
@@ -22,475 +37,354 @@ public class DepositingMachineCommander {
         mesh = null;
     }
 
-    public void startDepose() throws Exception {
-        ICustomResponse res = helper.startDepose();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Starting...");
+    /**
+     * Start a request to the machine. Its duration is recorded under <tt>name</tt>.
+     *
+     * @param name label of the request in {@link #getLatencies()}
+     */
+    public MachineRequest request(String name) {
+        return new MachineRequest(helper,
+                latencies.computeIfAbsent(name, k -> new LatencyHistogram()));
+    }
+
+    /**
+     * @return durations of the requests sent so far, by name
+     */
+    public Map<String, LatencyHistogram> getLatencies() {
+        return Collections.unmodifiableMap(new TreeMap<>(latencies));
+    }
+
+    /**
+     * Disconnect from the machine. Requests sent afterwards reconnect.
+     */
+    public void close() {
+        if (helper != null) {
+            helper.close();
         }
     }
-    public void stopDepose() throws Exception {
-        ICustomResponse res = helper.stopDepose();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Stop...");
+
+    private CompletableFuture<Void> press(String name, String nodeId, String message) {
+        return request(name).write(nodeId, true)
+                .send()
+                .handle((snapshot, e) -> {
+                    if (e != null) {
+                        logger.logERRORMessage(name + ": " + unwrap(e).getMessage());
+                        throw new CompletionException(unwrap(e));
+                    }
+                    logger.logINFOMessage(message);
+                    return null;
+                });
+    }
+
+    private <T> CompletableFuture<T> read(String name, String nodeId, Class<T> type) {
+        return request(name).read(nodeId)
+                .send()
+                .handle((snapshot, e) -> {
+                    try {
+                        if (e != null) {
+                            throw unwrap(e);
+                        }
+                        return type.cast(snapshot.getValue(nodeId, type));
+                    } catch (Throwable t) {
+                        logger.logERRORMessage(name + ": " + t.getMessage());
+                        throw new CompletionException(t);
+                    }
+                });
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException)
+                && e.getCause() != null) {
+            e = e.getCause();
         }
+        return e;
     }
-    public void resetDepose() throws Exception {
-        ICustomResponse res = helper.resetDepose();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Reset...");
+
+    /**
+     * Wait for an asynchronous command, throwing its failure as is.
+     */
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
         }
     }
+
+    public CompletableFuture<Void> startDeposeAsync() {
+        return press("startDepose", helper.start_depose, "Starting...");
+    }
+    public void startDepose() throws Exception {
+        await(startDeposeAsync());
+    }
+    public CompletableFuture<Void> stopDeposeAsync() {
+        return press("stopDepose", helper.stop_depose, "Stop...");
+    }
+    public void stopDepose() throws Exception {
+        await(stopDeposeAsync());
+    }
+    public CompletableFuture<Void> resetDeposeAsync() {
+        return press("resetDepose", helper.reset_depose, "Reset...");
+    }
+    public void resetDepose() throws Exception {
+        await(resetDeposeAsync());
+    }
+    public CompletableFuture<Void> continueDeposeAsync() {
+        return press("continueDepose", helper.continue_depose, "Continuing...");
+    }
     public void continueDepose() throws Exception {
-        ICustomResponse res = helper.continueDepose();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Continuing...");
-        }
+        await(continueDeposeAsync());
+    }
+    public CompletableFuture<Void> pauseDeposeAsync() {
+        return press("pauseDepose", helper.pause_depose, "Pausing...");
     }
     public void pauseDepose() throws Exception {
-        ICustomResponse res = helper.pauseDepose();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Pausing...");
-        }
+        await(pauseDeposeAsync());
+    }
+    public CompletableFuture<Void> continueAfterTurnOffAsync() {
+        return press("continueAfterTurnOff", helper.continue_after_turn_off, "Continuing after turn off...");
     }
     public void continueAfterTurnOff() throws Exception {
-        ICustomResponse res = helper.continueAfterTurnOff();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Continuing after turn off...");
-        }
+        await(continueAfterTurnOffAsync());
+    }
+    public CompletableFuture<Void> continueAfterESTOPAsync() {
+        return press("continueAfterESTOP", helper.continue_after_E_STOP, "Continuing after emergency stop...");
     }
     public void continueAfterESTOP() throws Exception {
-        ICustomResponse res = helper.continueAfterESTOP();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Continuing after emergency stop...");
-        }
+        await(continueAfterESTOPAsync());
+    }
+    public CompletableFuture<Void> acknowledgeErrorAsync() {
+        return press("acknowledgeError", helper.acknowledge_error, "Acknowledge error...");
     }
     public void acknowledgeError() throws Exception {
-        ICustomResponse res = helper.acknowledgeError();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Acknowledge error...");
-        }
+        await(acknowledgeErrorAsync());
+    }
+    public CompletableFuture<Void> cameraLoginAsync() {
+        return press("cameraLogin", helper.camera_login, "Camera logging...");
+    }
+    public void cameraLogin() throws Exception {
+        await(cameraLoginAsync());
+    }
+    public CompletableFuture<Void> cameraCaptureImageAsync() {
+        return press("cameraCaptureImage", helper.camera_capture_image, "Capturing image...");
+    }
+    public void cameraCaptureImage() throws Exception {
+        await(cameraCaptureImageAsync());
+    }
+    public CompletableFuture<Void> resetPowerAxesAsync() {
+        return press("resetPowerAxes", helper.reset_power, "reset power axes...");
+    }
+    public void resetPowerAxes() throws Exception {
+        await(resetPowerAxesAsync());
+    }
+    public CompletableFuture<Void> takeBatchAsync() {
+        return press("takeBatch", helper.take_batch, "Taking batch...");
+    }
+    public void takeBatch() throws Exception {
+        await(takeBatchAsync());
+    }
+    public CompletableFuture<Void> deposeBatchAsync() {
+        return press("deposeBatch", helper.depose_batch, "Deposing batch...");
+    }
+    public void deposeBatch() throws Exception {
+        await(deposeBatchAsync());
+    }
+    public CompletableFuture<Void> readXMLFileAsync() {
+        return press("readXMLFile", helper.read_xml_file, "Reading XML file...");
+    }
+    public void readXMLFile() throws Exception {
+        await(readXMLFileAsync());
+    }
+    public CompletableFuture<Void> renameXMLFileAsync() {
+        return press("renameXMLFile", helper.rename_xml_file, "Renaming XML file...");
+    }
+    public void renameXMLFile() throws Exception {
+        await(renameXMLFileAsync());
+    }
+    public CompletableFuture<Void> synchroAxesXAsync() {
+        return press("synchroAxesX", helper.synchro_axes_x, "Synchronizing axes X...");
+    }
+    public void synchroAxesX() throws Exception {
+        await(synchroAxesXAsync());
+    }
+    public CompletableFuture<Void> synchroAxesZAsync() {
+        return press("synchroAxesZ", helper.synchro_axes_z, "Synchronizing axes Z...");
+    }
+    public void synchroAxesZ() throws Exception {
+        await(synchroAxesZAsync());
+    }
+    public CompletableFuture<Void> homingAxisSubXAsync() {
+        return press("homingAxisSubX", helper.homing_axis_subx, "Homing axis SubX...");
+    }
+    public void homingAxisSubX() throws Exception {
+        await(homingAxisSubXAsync());
+    }
+    public CompletableFuture<Void> homingAxisSubZAsync() {
+        return press("homingAxisSubZ", helper.homing_axis_subz, "Homing axis SubZ...");
+    }
+    public void homingAxisSubZ() throws Exception {
+        await(homingAxisSubZAsync());
+    }
+    public CompletableFuture<Void> homingAxisThetaAsync() {
+        return press("homingAxisTheta", helper.homing_axis_theta, "Homing axis Theta...");
+    }
+    public void homingAxisTheta() throws Exception {
+        await(homingAxisThetaAsync());
+    }
+    public CompletableFuture<String> getMessageErrorAsync() {
+        return read("getMessageError", helper.message_error, String.class);
     }
     public String getMessageError() throws Exception {
-        ICustomResponse res = helper.getMessageError();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof String) {
-            } else {
-                throw new Exception(
-                        "Value returned must be String type, Type of obj actual: " + res.getTypeValue());
-            }
-
-            return res.getValue().toString();
-        }
-
+        return await(getMessageErrorAsync());
+    }
+    public CompletableFuture<Boolean> getLockContinueButtonAsync() {
+        return read("getLockContinueButton", helper.lock_continue_button, Boolean.class);
     }
     public boolean getLockContinueButton() throws Exception {
-        ICustomResponse res = helper.getLockContinueButton();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Boolean) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Boolean type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (boolean)res.getValue();
-        }
+        return await(getLockContinueButtonAsync());
+    }
+    public CompletableFuture<Double> getXCurrentPositionAsync() {
+        return read("getXCurrentPosition", helper.x_current_position, Double.class);
     }
     public double getXCurrentPosition() throws Exception {
-        ICustomResponse res = helper.getXCurrentPosition();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Double) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Double type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (double)res.getValue();
-        }
+        return await(getXCurrentPositionAsync());
+    }
+    public CompletableFuture<Double> getZCurrentPositionAsync() {
+        return read("getZCurrentPosition", helper.z_current_position, Double.class);
     }
     public double getZCurrentPosition() throws Exception {
-        ICustomResponse res = helper.getZCurrentPosition();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Double) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Double type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (double)res.getValue();
-        }
+        return await(getZCurrentPositionAsync());
+    }
+    public CompletableFuture<Double> getYCurrentPositionAsync() {
+        return read("getYCurrentPosition", helper.y_current_position, Double.class);
     }
     public double getYCurrentPosition() throws Exception {
-        ICustomResponse res = helper.getYCurrentPosition();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Double) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Double type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (double)res.getValue();
-        }
+        return await(getYCurrentPositionAsync());
+    }
+    public CompletableFuture<Double> getSubXCurrentPositionAsync() {
+        return read("getSubXCurrentPosition", helper.subx_current_position, Double.class);
     }
     public double getSubXCurrentPosition() throws Exception {
-        ICustomResponse res = helper.getSubXCurrentPosition();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Double) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Double type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (double)res.getValue();
-        }
+        return await(getSubXCurrentPositionAsync());
+    }
+    public CompletableFuture<Double> getSubZCurrentPositionAsync() {
+        return read("getSubZCurrentPosition", helper.subz_current_position, Double.class);
     }
     public double getSubZCurrentPosition() throws Exception {
-        ICustomResponse res = helper.getSubZCurrentPosition();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Double) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Double type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (double)res.getValue();
-        }
+        return await(getSubZCurrentPositionAsync());
+    }
+    public CompletableFuture<Double> getThetaCurrentPositionAsync() {
+        return read("getThetaCurrentPosition", helper.theta_current_position, Double.class);
     }
     public double getThetaCurrentPosition() throws Exception {
-        ICustomResponse res = helper.getThetaCurrentPosition();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Double) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Double type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (double)res.getValue();
-        }
+        return await(getThetaCurrentPositionAsync());
     }
-    public long getCurrentBitId() throws Exception {
-        ICustomResponse res = helper.getCurrentBitId();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Long) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Long type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (long)res.getValue();
-        }
+    public CompletableFuture<Long> getCurrentBitIdAsync() {
+        return read("getCurrentBitId", helper.current_bit_id, Long.class);
     }
-    public long getCurrentBitIdInBatch() throws Exception {
-        ICustomResponse res = helper.getCurrentBitIdInBatch();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Long) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Integer type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (long)res.getValue();
-        }
+    public long getCurrentBitId() throws Exception {
+        return await(getCurrentBitIdAsync());
     }
-    public double getCurrentBitX() throws Exception {
-        ICustomResponse res = helper.getCurrentBitX();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Double) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Double type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (double)res.getValue();
-        }
+    public CompletableFuture<Long> getCurrentBitIdInBatchAsync() {
+        return read("getCurrentBitIdInBatch", helper.current_bit_id_in_batch, Long.class);
     }
-    public double getCurrentBitZ() throws Exception {
-        ICustomResponse res = helper.getCurrentBitZ();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Double) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Double type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (double)res.getValue();
-        }
+    public long getCurrentBitIdInBatch() throws Exception {
+        return await(getCurrentBitIdInBatchAsync());
     }
-    public double getCurrentBitY() throws Exception {
-        ICustomResponse res = helper.getCurrentBitY();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Double) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Double type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (double)res.getValue();
-        }
+    public CompletableFuture<Double> getCurrentBitXAsync() {
+        return read("getCurrentBitX", helper.current_bit_x, Double.class);
     }
-    public double getCurrentBitSubX() throws Exception {
-        ICustomResponse res = helper.getCurrentBitSubX();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Double) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Double type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (double)res.getValue();
-        }
+    public double getCurrentBitX() throws Exception {
+        return await(getCurrentBitXAsync());
     }
-    public double getCurrentBitRotation() throws Exception {
-        ICustomResponse res = helper.getCurrentBitRotation();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Double) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Double type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (double)res.getValue();
-        }
+    public CompletableFuture<Double> getCurrentBitZAsync() {
+        return read("getCurrentBitZ", helper.current_bit_z, Double.class);
     }
-    public double getCurrentBitReflineVu() throws Exception {
-        ICustomResponse res = helper.getCurrentBitReflineVu();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Double) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Double type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (double)res.getValue();
-        }
+    public double getCurrentBitZ() throws Exception {
+        return await(getCurrentBitZAsync());
     }
-    public double getCurrentBitReflineRot() throws Exception {
-        ICustomResponse res = helper.getCurrentBitReflineRot();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Double) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Double type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (double)res.getValue();
-        }
+    public CompletableFuture<Double> getCurrentBitYAsync() {
+        return read("getCurrentBitY", helper.current_bit_y, Double.class);
     }
-    public double getCurrentBitTheta() throws Exception {
-        ICustomResponse res = helper.getCurrentBitTheta();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception(
-                    "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
-                            + res.getStatusCode());
-        } else {
-            if (res.getValue() instanceof Double) {
-            } else {
-                throw new Exception(
-                        "Value returned must be Double type, Type of obj actual: " + res.getTypeValue());
-            }
-            return (double)res.getValue();
-        }
+    public double getCurrentBitY() throws Exception {
+        return await(getCurrentBitYAsync());
     }
-    public void cameraLogin() throws Exception {
-        ICustomResponse res = helper.cameraLogin();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Camera logging...");
-        }
+    public CompletableFuture<Double> getCurrentBitSubXAsync() {
+        return read("getCurrentBitSubX", helper.current_bit_subx, Double.class);
     }
-    public void cameraCaptureImage() throws Exception {
-        ICustomResponse res = helper.cameraCaptureImage();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Capturing image...");
-        }
+    public double getCurrentBitSubX() throws Exception {
+        return await(getCurrentBitSubXAsync());
     }
-    public void resetPowerAxes() throws Exception {
-        ICustomResponse res = helper.resetPowerAxes();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("reset power axes...");
-        }
+    public CompletableFuture<Double> getCurrentBitRotationAsync() {
+        return read("getCurrentBitRotation", helper.current_bit_rotation, Double.class);
     }
-    public void takeBatch() throws Exception {
-        ICustomResponse res = helper.takeBatch();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Capturing image...");
-        }
+    public double getCurrentBitRotation() throws Exception {
+        return await(getCurrentBitRotationAsync());
     }
-    public void deposeBatch() throws Exception {
-        ICustomResponse res = helper.deposeBatch();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Camera logging...");
-        }
+    public CompletableFuture<Double> getCurrentBitReflineVuAsync() {
+        return read("getCurrentBitReflineVu", helper.current_bit_refline_vu, Double.class);
     }
-    public void readXMLFile() throws Exception {
-        ICustomResponse res = helper.readXMLFile();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Capturing image...");
-        }
+    public double getCurrentBitReflineVu() throws Exception {
+        return await(getCurrentBitReflineVuAsync());
     }
-    public void renameXMLFile() throws Exception {
-        ICustomResponse res = helper.renameXMLFile();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Camera logging...");
-        }
+    public CompletableFuture<Double> getCurrentBitReflineRotAsync() {
+        return read("getCurrentBitReflineRot", helper.current_bit_refline_rot, Double.class);
     }
-    public void synchroAxesX() throws Exception {
-        ICustomResponse res = helper.synchroAxesX();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Capturing image...");
-        }
+    public double getCurrentBitReflineRot() throws Exception {
+        return await(getCurrentBitReflineRotAsync());
     }
-    public void synchroAxesZ() throws Exception {
-        ICustomResponse res = helper.synchroAxesZ();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Camera logging...");
-        }
+    public CompletableFuture<Double> getCurrentBitThetaAsync() {
+        return read("getCurrentBitTheta", helper.current_bit_theta, Double.class);
     }
-    public void homingAxisSubX() throws Exception {
-        ICustomResponse res = helper.homingAxisSubX();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Capturing image...");
-        }
+    public double getCurrentBitTheta() throws Exception {
+        return await(getCurrentBitThetaAsync());
+    }
+    /**
+     * Read every polled node of the machine in one request.
+     */
+    public CompletableFuture<DepositingMachineTelemetry> getTelemetryAsync() {
+        MachineRequest request = request("getTelemetry");
+        helper.telemetry.forEach(request::read);
+        return request.send()
+                .handle((snapshot, e) -> {
+                    try {
+                        if (e != null) {
+                            throw unwrap(e);
+                        }
+                        return new DepositingMachineTelemetry(helper, snapshot);
+                    } catch (Throwable t) {
+                        logger.logERRORMessage("getTelemetry: " + t.getMessage());
+                        throw new CompletionException(t);
+                    }
+                });
     }
-    public void homingAxisSubZ() throws Exception {
-        ICustomResponse res = helper.homingAxisSubZ();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Camera logging...");
-        }
+
+    /**
+     * Read every polled node of the machine in one request.
+     */
+    public DepositingMachineTelemetry getTelemetry() throws Exception {
+        return await(getTelemetryAsync());
     }
-    public void homingAxisTheta() throws Exception {
-        ICustomResponse res = helper.homingAxisTheta();
-        if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
-            logger.logERRORMessage(res.getMessage());
-            throw new Exception("Error of sending request to server :" + helper.getEndpointUrl());
-        } else {
-            logger.logINFOMessage("Capturing image...");
-        }
+
+    /**
+     * Receive the state of the machine each time one of its polled nodes changes.
+     *
+     * @param consumer called on the client's notification thread
+     * @return handle to stop receiving
+     */
+    public OpcUaSubscriptionService.Registration subscribeTelemetry(
+            Consumer<DepositingMachineTelemetry> consumer) {
+        return helper.subscribeTelemetry(snapshot -> {
+            try {
+                consumer.accept(new DepositingMachineTelemetry(helper, snapshot));
+            } catch (Exception e) {
+                logger.logERRORMessage(e.getMessage());
+            }
+        });
     }
 
     /*
@@ -3,6 +3,9 @@ package meshIneBits.opcuaHelper;
 
 import meshIneBits.util.CustomLogger;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 public class DepositingMachineOPCUAHelper extends BitSLickrMachineAdapter {
@@ -48,6 +51,18 @@ public class DepositingMachineOPCUAHelper extends BitSLickrMachineAdapter {
     public final String homing_axis_subz = "|var|CPX-E-CEC-M1-PN.Application.visu.homing_subz_button";
     public final String homing_axis_theta = "|var|CPX-E-CEC-M1-PN.Application.visu.homing_theta_button";
 
+    /**
+     * Nodes polled by the depositing window, read together by {@link #getTelemetry()}
+     * or watched by {@link #subscribeTelemetry(OpcUaSubscriptionService.Listener)}
+     */
+    public final List<String> telemetry = Collections.unmodifiableList(Arrays.asList(
+            message_error, lock_continue_button,
+            x_current_position, z_current_position, y_current_position,
+            subx_current_position, subz_current_position, theta_current_position,
+            current_bit_id, current_bit_id_in_batch,
+            current_bit_x, current_bit_z, current_bit_y, current_bit_subx,
+            current_bit_rotation, current_bit_refline_vu, current_bit_refline_rot, current_bit_theta));
+
 
     public ICustomResponse startDepose() {
         try {
@@ -105,6 +120,22 @@ public class DepositingMachineOPCUAHelper extends BitSLickrMachineAdapter {
             throw new RuntimeException(e.getMessage());
         }
     }
+    public NodeSnapshot getTelemetry(){
+        try {
+            return readVariableNodes(telemetry);
+        } catch (ExecutionException | InterruptedException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+    public OpcUaSubscriptionService.Registration subscribeTelemetry(
+            OpcUaSubscriptionService.Listener listener){
+        try {
+            return subscribeVariableNodes(telemetry, BitSLicRHelperConfig.sampling_interval,
+                    BitSLicRHelperConfig.position_deadband, listener);
+        } catch (ExecutionException | InterruptedException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
     public ICustomResponse getMessageError(){
         try {
             return readVariableNode(message_error);
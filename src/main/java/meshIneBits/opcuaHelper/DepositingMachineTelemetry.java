@@ -0,0 +1,77 @@
+package meshIneBits.opcuaHelper;
+
+/**
+ * State of the depositing machine at one instant, read in a single request.
+ */
+public final class DepositingMachineTelemetry {
+
+  private final String messageError;
+  private final boolean lockContinueButton;
+  private final double[] axesPositions;
+  private final long currentBitId;
+  private final long currentBitIdInBatch;
+  private final double[] currentBitData;
+  private final long timestamp;
+
+  DepositingMachineTelemetry(DepositingMachineOPCUAHelper helper, NodeSnapshot snapshot)
+      throws Exception {
+    messageError = snapshot.getString(helper.message_error);
+    lockContinueButton = snapshot.getBoolean(helper.lock_continue_button);
+    axesPositions = new double[]{
+        snapshot.getDouble(helper.x_current_position),
+        snapshot.getDouble(helper.z_current_position),
+        snapshot.getDouble(helper.y_current_position),
+        snapshot.getDouble(helper.subx_current_position),
+        snapshot.getDouble(helper.subz_current_position),
+        snapshot.getDouble(helper.theta_current_position)};
+    currentBitId = snapshot.getLong(helper.current_bit_id);
+    currentBitIdInBatch = snapshot.getLong(helper.current_bit_id_in_batch);
+    currentBitData = new double[]{
+        snapshot.getDouble(helper.current_bit_x),
+        snapshot.getDouble(helper.current_bit_z),
+        snapshot.getDouble(helper.current_bit_y),
+        snapshot.getDouble(helper.current_bit_subx),
+        snapshot.getDouble(helper.current_bit_rotation),
+        snapshot.getDouble(helper.current_bit_refline_vu),
+        snapshot.getDouble(helper.current_bit_refline_rot),
+        snapshot.getDouble(helper.current_bit_theta)};
+    timestamp = snapshot.getTimestamp();
+  }
+
+  public String getMessageError() {
+    return messageError;
+  }
+
+  public boolean getLockContinueButton() {
+    return lockContinueButton;
+  }
+
+  /**
+   * @return positions of the axes x, z, y, subX, subZ and theta
+   */
+  public double[] getAxesPositions() {
+    return axesPositions.clone();
+  }
+
+  public long getCurrentBitId() {
+    return currentBitId;
+  }
+
+  public long getCurrentBitIdInBatch() {
+    return currentBitIdInBatch;
+  }
+
+  /**
+   * @return x, z, y, subX, rotation, refline vu, refline rot and theta of the current bit
+   */
+  public double[] getCurrentBitData() {
+    return currentBitData.clone();
+  }
+
+  /**
+   * @return time of reading, in milliseconds
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+}
@@ -11,6 +11,13 @@ public interface IClientHelper {
 
   String getEndpointUrl();
 
+  /**
+   * @return url under which the nodes of the machine are declared in {@link MeshIneBitNodeId}
+   */
+  default String getMachineId() {
+    return getEndpointUrl();
+  }
+
   default Predicate<EndpointDescription> endpointFilter() {
     return e -> getSecurityPolicy().getUri().equals(e.getSecurityPolicyUri());
   }
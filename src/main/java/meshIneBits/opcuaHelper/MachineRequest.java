@@ -0,0 +1,118 @@
+package meshIneBits.opcuaHelper;
+
+import meshIneBits.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes and reads sent together to a machine. All the writes go in one request and, once they are
+ * all accepted, all the reads in another one. Requests to the same machine are sent one after the
+ * other, in the order of {@link #send()}. Nothing blocks the calling thread.
+ */
+public class MachineRequest {
+
+  /**
+   * End of the last request sent to each machine, by endpoint, even if it has timed out. Never
+   * completes exceptionally
+   */
+  private static final Map<String, CompletableFuture<?>> lastRequests = new HashMap<>();
+
+  private final BitSLickrMachineAdapter helper;
+  private final LatencyHistogram histogram;
+  private final List<Object> writtenIds = new ArrayList<>();
+  private final List<Object> writtenValues = new ArrayList<>();
+  private final List<Object> readIds = new ArrayList<>();
+  private long timeout = BitSLicRHelperConfig.request_timeout;
+
+  /**
+   * @param histogram where to record the duration of the request. May be <tt>null</tt>
+   */
+  MachineRequest(BitSLickrMachineAdapter helper, LatencyHistogram histogram) {
+    this.helper = helper;
+    this.histogram = histogram;
+  }
+
+  /**
+   * @param nodeId identifier declared in {@link MeshIneBitNodeId}
+   */
+  public MachineRequest write(Object nodeId, Object value) {
+    writtenIds.add(nodeId);
+    writtenValues.add(value);
+    return this;
+  }
+
+  /**
+   * @param nodeId identifier declared in {@link MeshIneBitNodeId}
+   */
+  public MachineRequest read(Object nodeId) {
+    readIds.add(nodeId);
+    return this;
+  }
+
+  /**
+   * @param timeout milliseconds given to the request once the previous ones to the same machine
+   *                are over, before it fails with a {@link java.util.concurrent.TimeoutException}.
+   *                Non positive waits forever
+   */
+  public MachineRequest timeout(long timeout) {
+    this.timeout = timeout;
+    return this;
+  }
+
+  /**
+   * @return completed with the values read, once every write has succeeded. Fails without reading
+   * if a write is not accepted, with the same message as the synchronous commands
+   */
+  public CompletableFuture<NodeSnapshot> send() {
+    long start = System.nanoTime();
+    List<Object> writtenIds = new ArrayList<>(this.writtenIds);
+    List<Object> writtenValues = new ArrayList<>(this.writtenValues);
+    List<Object> readIds = new ArrayList<>(this.readIds);
+    CompletableFuture<NodeSnapshot> result;
+    synchronized (lastRequests) {
+      CompletableFuture<?> previous = lastRequests.getOrDefault(helper.getEndpointUrl(),
+          CompletableFuture.completedFuture(null));
+      CompletableFuture<CompletableFuture<NodeSnapshot>> started = previous.thenApply(
+          v -> execute(writtenIds, writtenValues, readIds));
+      CompletableFuture<NodeSnapshot> execution = started.thenCompose(e -> e);
+      // The timeout starts with the execution and fails a copy, the execution goes on
+      result = timeout > 0
+          ? started.thenCompose(e -> e.copy()
+          .orTimeout(timeout, TimeUnit.MILLISECONDS))
+          : execution;
+      // The next request waits for the end of this one, whatever its outcome or timeout
+      lastRequests.put(helper.getEndpointUrl(), execution.handle((snapshot, e) -> null));
+    }
+    if (histogram != null) {
+      result.whenComplete((snapshot, e) -> histogram.recordSince(start));
+    }
+    return result;
+  }
+
+  private CompletableFuture<NodeSnapshot> execute(List<Object> writtenIds,
+      List<Object> writtenValues, List<Object> readIds) {
+    CompletableFuture<List<ICustomResponse>> writes = writtenIds.isEmpty()
+        ? CompletableFuture.completedFuture(Collections.emptyList())
+        : helper.writeVariableNodesAsync(writtenIds, writtenValues);
+    return writes.thenCompose(statuses -> {
+      for (ICustomResponse status : statuses) {
+        if (status.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
+          throw new CompletionException(new Exception(
+              "Error of sending request to server :" + helper.getEndpointUrl() + ", status code: "
+                  + status.getMessage()));
+        }
+      }
+      return readIds.isEmpty()
+          ? CompletableFuture.completedFuture(
+          new NodeSnapshot(helper.getEndpointUrl(), readIds, Collections.emptyList()))
+          : helper.readVariableNodesAsync(readIds);
+    });
+  }
+}
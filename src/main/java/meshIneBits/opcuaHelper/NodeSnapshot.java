@@ -0,0 +1,85 @@
+package meshIneBits.opcuaHelper;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable values of several nodes, read together in one request.
+ */
+public final class NodeSnapshot {
+
+  private final String machineId;
+  private final Map<Object, ICustomResponse> responses;
+  private final long timestamp;
+
+  NodeSnapshot(String machineId, List<?> ids, List<ICustomResponse> responses) {
+    this.machineId = machineId;
+    Map<Object, ICustomResponse> map = new LinkedHashMap<>();
+    for (int i = 0; i < ids.size(); i++) {
+      map.put(ids.get(i), responses.get(i));
+    }
+    this.responses = Collections.unmodifiableMap(map);
+    this.timestamp = System.currentTimeMillis();
+  }
+
+  /**
+   * @return raw response of the node, or <tt>null</tt> if it was not read
+   */
+  public ICustomResponse get(Object id) {
+    return responses.get(id);
+  }
+
+  /**
+   * @return responses in reading order
+   */
+  public Map<Object, ICustomResponse> getResponses() {
+    return responses;
+  }
+
+  /**
+   * @return time of reading, in milliseconds
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public String getString(Object id) throws Exception {
+    return (String) getValue(id, String.class);
+  }
+
+  public boolean getBoolean(Object id) throws Exception {
+    return (boolean) getValue(id, Boolean.class);
+  }
+
+  public double getDouble(Object id) throws Exception {
+    return (double) getValue(id, Double.class);
+  }
+
+  public long getLong(Object id) throws Exception {
+    return (long) getValue(id, Long.class);
+  }
+
+  /**
+   * @return value of the node
+   * @throws Exception if the node was not read, was not read correctly or is not of type
+   *                   <tt>type</tt>
+   */
+  public Object getValue(Object id, Class<?> type) throws Exception {
+    ICustomResponse res = responses.get(id);
+    if (res == null) {
+      throw new Exception("Node " + id + " is not part of this snapshot");
+    }
+    if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
+      throw new Exception(
+          "Error of sending request to server :" + machineId + ", status code: "
+              + res.getStatusCode());
+    }
+    if (!type.isInstance(res.getValue())) {
+      throw new Exception("Value returned must be " + type.getSimpleName()
+          + " type, Type of obj actual: " + res.getTypeValue());
+    }
+    return res.getValue();
+  }
+}
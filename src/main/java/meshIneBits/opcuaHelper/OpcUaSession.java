@@ -0,0 +1,232 @@
+package meshIneBits.opcuaHelper;
+
+import meshIneBits.opcuaHelper.BaseCustomResponse.BaseCustomResponseBuilder;
+import meshIneBits.util.CustomLogger;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Long-lived session on one {@link OpcUaClient}. The connection is opened once and reopened only
+ * after a failure, and the {@link NodeId}s looked up in {@link MeshIneBitNodeId} are cached. Several
+ * nodes can be read in a single request with {@link #readValues(List)}.
+ * <p>
+ * A session is kept until {@link #disconnect()}, which must be called once its client is no longer
+ * used.
+ */
+public class OpcUaSession {
+
+  private static final CustomLogger logger = new CustomLogger(OpcUaSession.class);
+
+  private static final Map<OpcUaClient, OpcUaSession> sessions = new ConcurrentHashMap<>();
+
+  private final OpcUaClient client;
+  private final String machineId;
+  private final Map<String, NodeId> nodeIds = new ConcurrentHashMap<>();
+  private CompletableFuture<?> connection;
+  private OpcUaSubscriptionService subscriptions;
+
+  private OpcUaSession(OpcUaClient client, String machineId) {
+    this.client = client;
+    this.machineId = machineId;
+  }
+
+  /**
+   * @return the session of <tt>client</tt>, created on first call. The machine is identified by
+   * the endpoint of the client
+   */
+  public static OpcUaSession of(OpcUaClient client) {
+    return of(client, client.getConfig()
+        .getEndpoint()
+        .getEndpointUrl());
+  }
+
+  /**
+   * @param machineId url under which the nodes of the machine are declared in {@link
+   *                  MeshIneBitNodeId}. Only used when the session is created
+   * @return the session of <tt>client</tt>, created on first call
+   */
+  public static OpcUaSession of(OpcUaClient client, String machineId) {
+    return sessions.computeIfAbsent(client, c -> new OpcUaSession(c, machineId));
+  }
+
+  /**
+   * Disconnect <tt>client</tt> and forget its session, if any.
+   *
+   * @return completed once disconnected
+   */
+  public static CompletableFuture<?> close(OpcUaClient client) {
+    OpcUaSession session = sessions.get(client);
+    return session != null ? session.disconnect() : client.disconnect();
+  }
+
+  public String getMachineId() {
+    return machineId;
+  }
+
+  /**
+   * @return the service pushing value changes of this machine's nodes
+   */
+  public synchronized OpcUaSubscriptionService getSubscriptions() {
+    if (subscriptions == null) {
+      subscriptions = new OpcUaSubscriptionService(this, client);
+    }
+    return subscriptions;
+  }
+
+  /**
+   * Connect if not already done. A failed connection is retried on next call.
+   */
+  public void connect() throws ExecutionException, InterruptedException {
+    connectAsync().get();
+  }
+
+  /**
+   * @return completed once connected. A failed connection is retried on next call
+   */
+  public synchronized CompletableFuture<?> connectAsync() {
+    if (connection == null || connection.isCompletedExceptionally()) {
+      connection = client.connect()
+          .whenComplete((c, e) -> {
+            if (e != null) {
+              logger.logERRORMessage("Unable to connect to " + machineId + ": " + e.getMessage());
+            }
+          });
+    }
+    return connection;
+  }
+
+  /**
+   * Disconnect the client, which also ends its subscriptions on the server, and forget this
+   * session. The next call to {@link #of(OpcUaClient)} opens a new one.
+   *
+   * @return completed once disconnected. The client must not reconnect before
+   */
+  public CompletableFuture<?> disconnect() {
+    sessions.remove(client, this);
+    synchronized (this) {
+      connection = null;
+      subscriptions = null;
+    }
+    return client.disconnect();
+  }
+
+  /**
+   * @param id identifier declared in {@link MeshIneBitNodeId} for this machine
+   * @return the matching node
+   * @throws NullPointerException if <tt>id</tt> is not declared for this machine
+   */
+  public NodeId getNodeId(Object id) {
+    NodeId nodeId = nodeIds.computeIfAbsent(id.toString(),
+        key -> MeshIneBitNodeId.getMIBNodeIdByID(machineId, key));
+    if (nodeId == null) {
+      throw new NullPointerException("NodeId " + id + " not found in MeshIneBitNodeId class");
+    }
+    return nodeId;
+  }
+
+  public ICustomResponse readValue(Object id) throws ExecutionException, InterruptedException {
+    return readValues(Collections.singletonList(id)).get(id);
+  }
+
+  /**
+   * Read all the given nodes in one request.
+   *
+   * @param ids identifiers declared in {@link MeshIneBitNodeId} for this machine
+   * @return values in an immutable snapshot
+   */
+  public NodeSnapshot readValues(List<?> ids) throws ExecutionException, InterruptedException {
+    return readValuesAsync(ids).get();
+  }
+
+  /**
+   * Same as {@link #readValues(List)}, without waiting for the answer.
+   */
+  public CompletableFuture<NodeSnapshot> readValuesAsync(List<?> ids) {
+    List<Object> keys = new ArrayList<>(ids);
+    return connectAsync().thenCompose(c -> {
+      List<NodeId> nodes = new ArrayList<>(keys.size());
+      for (Object id : keys) {
+        nodes.add(getNodeId(id));
+      }
+      return client.readValues(0.0, TimestampsToReturn.Neither, nodes);
+    })
+        .thenApply(values -> {
+          List<ICustomResponse> responses = new ArrayList<>(keys.size());
+          for (int i = 0; i < keys.size(); i++) {
+            responses.add(toResponse(keys.get(i), values.get(i)));
+          }
+          return new NodeSnapshot(machineId, keys, responses);
+        });
+  }
+
+  /**
+   * Write several nodes in one request, in the given order.
+   *
+   * @param ids    identifiers declared in {@link MeshIneBitNodeId} for this machine
+   * @param values new values, one per node
+   * @return status of each write, in the same order
+   */
+  public CompletableFuture<List<ICustomResponse>> writeValuesAsync(List<?> ids,
+      List<?> values) {
+    List<Object> keys = new ArrayList<>(ids);
+    List<DataValue> dataValues = new ArrayList<>(values.size());
+    for (Object value : values) {
+      dataValues.add(new DataValue(new Variant(value), null, null));
+    }
+    return connectAsync().thenCompose(c -> {
+      List<NodeId> nodes = new ArrayList<>(keys.size());
+      for (Object id : keys) {
+        nodes.add(getNodeId(id));
+      }
+      return client.writeValues(nodes, dataValues);
+    })
+        .thenApply(statusCodes -> {
+          List<ICustomResponse> responses = new ArrayList<>(keys.size());
+          for (int i = 0; i < keys.size(); i++) {
+            StatusCode statusCode = statusCodes.get(i);
+            responses.add(new BaseCustomResponseBuilder()
+                .setNodeId(keys.get(i))
+                .setMessage(statusCode.toString())
+                .setStatusCode(CustomStatusCode.instance.convertStatusCode(statusCode))
+                .setTypeValue(values.get(i)
+                    .getClass()
+                    .getName())
+                .setValue(statusCode.getValue())
+                .build());
+          }
+          return responses;
+        });
+  }
+
+  static ICustomResponse toResponse(Object id, DataValue value) {
+    Object content = value.getValue()
+        .getValue();
+    BaseCustomResponseBuilder responseBuilder = new BaseCustomResponseBuilder()
+        .setNodeId(id)
+        .setStatusCode(CustomStatusCode.instance.convertStatusCode(value.getStatusCode()));
+    if (content == null) {
+      // Bad reads carry no value
+      return responseBuilder.setMessage(String.valueOf(value.getStatusCode()))
+          .setTypeValue("null")
+          .setValue(String.valueOf(value.getStatusCode()))
+          .build();
+    }
+    return responseBuilder.setMessage(null)
+        .setTypeValue(content.getClass()
+            .getName())
+        .setValue(content)
+        .build();
+  }
+}
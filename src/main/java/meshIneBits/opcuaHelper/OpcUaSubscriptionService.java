@@ -0,0 +1,238 @@
+package meshIneBits.opcuaHelper;
+
+import meshIneBits.util.CustomLogger;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.DataChangeTrigger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.DeadbandType;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.DataChangeFilter;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemCreateRequest;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoringParameters;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+/**
+ * Pushes value changes of machine nodes to listeners, using OPC UA monitored items. The server
+ * samples the nodes and only reports changes, so no thread of ours waits between two readings.
+ */
+public class OpcUaSubscriptionService {
+
+  private static final CustomLogger logger = new CustomLogger(OpcUaSubscriptionService.class);
+
+  /**
+   * Number of samples kept by the server between two publications, per node
+   */
+  private static final int QUEUE_SIZE = 1;
+
+  /**
+   * Receives the values of the subscribed nodes.
+   */
+  public interface Listener {
+
+    /**
+     * Called once per publication containing a change, as soon as every node has been reported at
+     * least once. Runs on the client's notification thread: it should not block.
+     *
+     * @param snapshot latest values of all the subscribed nodes
+     */
+    void onChange(NodeSnapshot snapshot);
+  }
+
+  /**
+   * Nodes watched for one listener.
+   */
+  public interface Registration {
+
+    /**
+     * @return latest values of the nodes, or <tt>null</tt> if some were never reported
+     */
+    NodeSnapshot getSnapshot();
+
+    boolean isCancelled();
+
+    /**
+     * Stop receiving changes.
+     */
+    void cancel();
+  }
+
+  private final OpcUaSession session;
+  private final OpcUaClient client;
+
+  OpcUaSubscriptionService(OpcUaSession session, OpcUaClient client) {
+    this.session = session;
+    this.client = client;
+  }
+
+  /**
+   * Subscribe to changes of some nodes.
+   *
+   * @param ids              identifiers declared in {@link MeshIneBitNodeId} for this machine
+   * @param samplingInterval milliseconds between two samplings by the server
+   * @param deadband         minimal absolute change of a numeric value to be reported. Non
+   *                         positive reports every change. Ignored for non numeric nodes
+   * @param listener         receiver of the changes
+   * @return handle to stop the subscription
+   */
+  public Registration subscribe(List<?> ids, double samplingInterval, double deadband,
+      Listener listener) throws ExecutionException, InterruptedException {
+    session.connect();
+    UaSubscription subscription = client.getSubscriptionManager()
+        .createSubscription(samplingInterval)
+        .get();
+    MonitoredRegistration registration = new MonitoredRegistration(subscription, ids, listener);
+    subscription.addNotificationListener(new UaSubscription.NotificationListener() {
+      @Override
+      public void onDataChangeNotification(UaSubscription subscription,
+          List<UaMonitoredItem> monitoredItems, List<DataValue> dataValues,
+          DateTime publishTime) {
+        registration.update(monitoredItems, dataValues);
+      }
+    });
+
+    List<MonitoredItemCreateRequest> requests = new ArrayList<>(ids.size());
+    for (Object id : ids) {
+      requests.add(createRequest(subscription, id, samplingInterval, deadband, registration));
+    }
+    List<UaMonitoredItem> items = subscription.createMonitoredItems(TimestampsToReturn.Neither,
+        requests)
+        .get();
+
+    if (deadband > 0) {
+      // Servers refuse a deadband on strings and booleans. Watch them without filter
+      List<MonitoredItemCreateRequest> retries = new ArrayList<>();
+      List<UaMonitoredItem> refused = new ArrayList<>();
+      for (UaMonitoredItem item : items) {
+        if (item.getStatusCode()
+            .isBad()) {
+          Object id = registration.handles.remove(item.getClientHandle());
+          refused.add(item);
+          retries.add(createRequest(subscription, id, samplingInterval, 0, registration));
+        }
+      }
+      if (!retries.isEmpty()) {
+        subscription.deleteMonitoredItems(refused)
+            .get();
+        items = new ArrayList<>(items);
+        items.removeAll(refused);
+        items.addAll(subscription.createMonitoredItems(TimestampsToReturn.Neither, retries)
+            .get());
+      }
+    }
+    for (UaMonitoredItem item : items) {
+      if (item.getStatusCode()
+          .isBad()) {
+        logger.logERRORMessage("Unable to monitor " + registration.handles.get(
+            item.getClientHandle()) + ": " + item.getStatusCode());
+      }
+    }
+    return registration;
+  }
+
+  private MonitoredItemCreateRequest createRequest(UaSubscription subscription, Object id,
+      double samplingInterval, double deadband, MonitoredRegistration registration) {
+    ReadValueId readValueId = new ReadValueId(session.getNodeId(id), AttributeId.Value.uid(),
+        null, QualifiedName.NULL_VALUE);
+    UInteger handle = subscription.nextClientHandle();
+    registration.handles.put(handle, id);
+    ExtensionObject filter = null;
+    if (deadband > 0) {
+      filter = ExtensionObject.encode(client.getStaticSerializationContext(),
+          new DataChangeFilter(DataChangeTrigger.StatusValue,
+              uint(DeadbandType.Absolute.getValue()), deadband));
+    }
+    MonitoringParameters parameters = new MonitoringParameters(handle, samplingInterval, filter,
+        uint(QUEUE_SIZE), true);
+    return new MonitoredItemCreateRequest(readValueId, MonitoringMode.Reporting, parameters);
+  }
+
+  private class MonitoredRegistration implements Registration {
+
+    private final UaSubscription subscription;
+    private final List<?> ids;
+    private final Listener listener;
+    private final Map<UInteger, Object> handles = new ConcurrentHashMap<>();
+    private final Map<Object, ICustomResponse> latest = new ConcurrentHashMap<>();
+    private volatile boolean cancelled = false;
+
+    private MonitoredRegistration(UaSubscription subscription, List<?> ids, Listener listener) {
+      this.subscription = subscription;
+      this.ids = Collections.unmodifiableList(new ArrayList<>(ids));
+      this.listener = listener;
+    }
+
+    private void update(List<UaMonitoredItem> items, List<DataValue> values) {
+      if (cancelled) {
+        return;
+      }
+      for (int i = 0; i < items.size(); i++) {
+        Object id = handles.get(items.get(i)
+            .getClientHandle());
+        if (id != null) {
+          latest.put(id, OpcUaSession.toResponse(id, values.get(i)));
+        }
+      }
+      NodeSnapshot snapshot = getSnapshot();
+      if (snapshot != null) {
+        try {
+          listener.onChange(snapshot);
+        } catch (RuntimeException e) {
+          logger.logERRORMessage("Subscription listener failed: " + e.getMessage());
+        }
+      }
+    }
+
+    @Override
+    public NodeSnapshot getSnapshot() {
+      List<ICustomResponse> responses = new ArrayList<>(ids.size());
+      for (Object id : ids) {
+        ICustomResponse response = latest.get(id);
+        if (response == null) {
+          return null;
+        }
+        responses.add(response);
+      }
+      return new NodeSnapshot(session.getMachineId(), ids, responses);
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    /**
+     * Also delete the subscription on the server.
+     */
+    @Override
+    public void cancel() {
+      if (cancelled) {
+        return;
+      }
+      cancelled = true;
+      client.getSubscriptionManager()
+          .deleteSubscription(subscription.getSubscriptionId())
+          .whenComplete((s, e) -> {
+            if (e != null) {
+              logger.logWARNMessage("Unable to delete subscription: " + e.getMessage());
+            }
+          });
+    }
+  }
+}
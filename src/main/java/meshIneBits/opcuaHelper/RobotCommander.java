@@ -7,6 +7,7 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public class RobotCommander {
 
@@ -33,6 +34,23 @@ public class RobotCommander {
         }
     }
 
+    /**
+     * Receive the holding registers each time one of them changes.
+     *
+     * @param consumer called on the client's notification thread
+     * @return handle to stop receiving
+     */
+    public OpcUaSubscriptionService.Registration subscribeHoldingRegisters(Consumer<short[]> consumer) {
+        return robotOPCUAHelper.subscribeHoldingRegisters(snapshot -> {
+            ICustomResponse res = snapshot.get(robotOPCUAHelper.robotHoldingRegisters);
+            if (res.getStatusCode() != CustomStatusCode.STATUS_GOOD) {
+                logger.logERRORMessage(res.getMessage());
+            } else {
+                consumer.accept(stringToShort(Arrays.toString((Object[]) res.getValue())));
+            }
+        });
+    }
+
     public void setHoldingRegisters(Map<Integer, Short> map) throws Exception {
         short[] arr=getHoldingRegisters();
         int index;
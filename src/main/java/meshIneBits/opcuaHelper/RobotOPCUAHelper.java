@@ -4,6 +4,7 @@ package meshIneBits.opcuaHelper;
 
 import meshIneBits.util.CustomLogger;
 
+import java.util.Collections;
 import java.util.concurrent.ExecutionException;
 
 public class RobotOPCUAHelper extends BitSLickrMachineAdapter {
@@ -28,6 +29,15 @@ public class RobotOPCUAHelper extends BitSLickrMachineAdapter {
             throw new RuntimeException(e.getMessage());
         }
     }
+    public OpcUaSubscriptionService.Registration subscribeHoldingRegisters(
+            OpcUaSubscriptionService.Listener listener){
+        try {
+            return subscribeVariableNodes(Collections.singletonList(robotHoldingRegisters),
+                    BitSLicRHelperConfig.sampling_interval, 0, listener);
+        } catch (ExecutionException | InterruptedException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
     public ICustomResponse setHoldingRegisters(short[] s) {
         try {
             return writeVariableNode(robotHoldingRegisters, "short", s);
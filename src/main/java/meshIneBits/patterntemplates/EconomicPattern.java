@@ -39,14 +39,18 @@ import meshIneBits.config.patternParameter.DoubleListParam;
 import meshIneBits.config.patternParameter.DoubleParam;
 import meshIneBits.util.AreaTool;
 import meshIneBits.util.DetectorTool;
+import meshIneBits.util.TrialSearch;
 import meshIneBits.util.Vector2;
 
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
 import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
 import java.awt.geom.Rectangle2D;
 import java.awt.geom.Rectangle2D.Double;
 import java.util.*;
+import java.util.function.BooleanSupplier;
 
 /**
  * A pattern which tries optimization not by displacing paved bits but rather right from the phase
@@ -85,6 +89,23 @@ public class EconomicPattern extends PatternTemplate {
    */
   private static Map<Integer, java.lang.Double> layersRotations = new HashMap<>();
 
+  private static final int BAND_FILLS_SIZE = 4096;
+  /**
+   * Fills of bands, in the bounds of each band. Bands of same shape come back across rotations,
+   * flips and layers of a same part.
+   */
+  private static final Map<BandKey, Vector<Bit2D>> bandFills =
+      new LinkedHashMap<BandKey, Vector<Bit2D>>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<BandKey, Vector<Bit2D>> eldest) {
+      return size() > BAND_FILLS_SIZE;
+    }
+  };
+  /**
+   * Everything, beside its shape, a band fill depends on
+   */
+  private transient double[] bandSettings;
+
   /**
    * This will try to pave bits into the layer in the best way possible. The process should be
    * executed consequently because the rotation of each layer depends on the previous one
@@ -114,213 +135,217 @@ public class EconomicPattern extends PatternTemplate {
         .getCurrentValue();
     this.bitsWidthSpace = (double) config.get("bitsWidthSpace")
         .getCurrentValue();
-    Vector<Bit2D> overallPavement = new Vector<>();
-    double thisLayerRotation = 0;
-    boolean essay = true;
+    this.setupBandSettings();
     // Get all lv0 areas
-    List<Area> lv0Areas = AreaTool.getContinuousSurfacesFrom(area);
-    for (double trialRotation : trialRotations) {
-      thisLayerRotation = trialRotation;
-      // Assuming this rotation of this layer will give us the best answer
-      // Note: differential rotation means the difference of directions
-      // between this layer and the previous one
-      // We will pave the bits for each level-0 area
-      // which is a constraint zone not overlapping with another
-      //
-      // Pave bits into each lv0 area
-      // Receive the map of keys
-      for (Area zone : Objects.requireNonNull(lv0Areas)) {
-        Double bound = (Double) zone.getBounds2D();
-        double anchorX = bound.x + bound.width / 2, anchorY = bound.y + bound.height / 2;
-        Vector2 vectorRotation = Vector2.getEquivalentVector(thisLayerRotation);
-        AffineTransform rotate = AffineTransform.getRotateInstance(
-            vectorRotation.x,
-            vectorRotation.y,
-            anchorX,
-            anchorY),
-            rotateBack = new AffineTransform();
-        try {
-          rotateBack = rotate.createInverse();
-        } catch (Exception e) {
-          e.printStackTrace();
-          rotate.setToIdentity();
-          rotateBack.setToIdentity();
-        }
-        // Rotate the local zone
-        Area rotatedZone = zone.createTransformedArea(rotate);
-        Vector<Bit2D> localPavement = null;
-        Vector<AffineTransform> possibleFlips = this.calculatePossibleFlips(rotatedZone);
-        if (possibleFlips == null) {
-          essay = false;
-          break;
-        }
-        // Try all possible flips
-        // Including no flip, horizontal flip, vertical flip,
-        // center reflect
-        for (AffineTransform flip : possibleFlips) {
-          localPavement = this.fillZone(rotatedZone.createTransformedArea(flip));
-          if (localPavement != null) {
-            // Reverse the local pavement
-            // In this case, flip(flip(X)) = X
-            // And we must notice the first rotate
-            flip.preConcatenate(rotateBack);
-            localPavement = this.transform(localPavement, flip);
-            overallPavement.addAll(localPavement);
-            break;
-          }
-        }
-        // Even if we try all flips
-        if (localPavement == null) {
-          essay = false;
-          break;
-        }
-
-      }
-      if (essay) {
-        // If we find at least one fill
-        // Or we tried all rotation
-        break;
-      } else {
-        // Clear all to try at new rotation
-        overallPavement.clear();
-      }
-    }
+    List<Area> lv0Areas = Objects.requireNonNull(AreaTool.getContinuousSurfacesFrom(area));
+    // Rotations are tried concurrently.
+    // Note: differential rotation means the difference of directions
+    // between this layer and the previous one
+    // The first rotation, in order, filling every level-0 area is kept
+    LayerFill fill = TrialSearch.first(trialRotations.length,
+        (i, cancelled) -> this.fillZones(lv0Areas, trialRotations[i], cancelled));
 
     // Recreate the base pavement for this layer
-    if (!overallPavement.isEmpty()) {
-      layersRotations.put(layerNumber, thisLayerRotation);
-      return new Pavement(overallPavement);
+    if (fill != null && !fill.bits.isEmpty()) {
+      layersRotations.put(layerNumber, fill.rotation);
+      return new Pavement(fill.bits);
     } else {
       return new Pavement(new Vector<>());
     }
   }
 
+  /**
+   * Pave bits into each level-0 area, which is a constraint zone not overlapping with another.
+   *
+   * @param zones     level-0 areas of a layer
+   * @param rotation  of the layer
+   * @param cancelled tells when the fill is no longer wanted
+   * @return <tt>null</tt> if one zone can not be filled
+   */
+  private LayerFill fillZones(List<Area> zones, double rotation, BooleanSupplier cancelled) {
+    Vector<Bit2D> overallPavement = new Vector<>();
+    for (Area zone : zones) {
+      if (cancelled.getAsBoolean()) {
+        return null;
+      }
+      Double bound = (Double) zone.getBounds2D();
+      double anchorX = bound.x + bound.width / 2, anchorY = bound.y + bound.height / 2;
+      Vector2 vectorRotation = Vector2.getEquivalentVector(rotation);
+      AffineTransform rotate = AffineTransform.getRotateInstance(
+          vectorRotation.x,
+          vectorRotation.y,
+          anchorX,
+          anchorY),
+          rotateBack = new AffineTransform();
+      try {
+        rotateBack = rotate.createInverse();
+      } catch (Exception e) {
+        e.printStackTrace();
+        rotate.setToIdentity();
+        rotateBack.setToIdentity();
+      }
+      // Rotate the local zone
+      Area rotatedZone = zone.createTransformedArea(rotate);
+      Vector<AffineTransform> possibleFlips = this.calculatePossibleFlips(rotatedZone);
+      if (possibleFlips == null) {
+        return null;
+      }
+      // Try all possible flips
+      // Including no flip, horizontal flip, vertical flip,
+      // center reflect
+      AffineTransform back = rotateBack;
+      Vector<Bit2D> localPavement = TrialSearch.first(possibleFlips.size(), (i, flipCancelled) -> {
+        AffineTransform flip = possibleFlips.get(i);
+        Vector<Bit2D> flippedPavement = this.fillZone(rotatedZone.createTransformedArea(flip),
+            () -> cancelled.getAsBoolean() || flipCancelled.getAsBoolean());
+        if (flippedPavement == null) {
+          return null;
+        }
+        // Reverse the local pavement
+        // In this case, flip(flip(X)) = X
+        // And we must notice the first rotate
+        AffineTransform reverse = new AffineTransform(flip);
+        reverse.preConcatenate(back);
+        return this.transform(flippedPavement, reverse);
+      });
+      // Even if we try all flips
+      if (localPavement == null) {
+        return null;
+      }
+      overallPavement.addAll(localPavement);
+    }
+    return new LayerFill(rotation, overallPavement);
+  }
+
   @Override
   public int optimize(Layer actualState) {
     return 0;
   }
 
   /**
-   * Trying to fill a given area by bits following the predefined algorithm.
+   * Trying to fill a given area by bits following the predefined algorithm. Height offsets of the
+   * first line are tried concurrently.
    * <p>
    * Note: Only fill from top to bottom.
    *
-   * @param zone a constraint surface without any other one inside or outside.
+   * @param zone      a constraint surface without any other one inside or outside.
+   * @param cancelled tells when the fill is no longer wanted
    * @return <tt>null</tt> if no solution found
    */
-  private Vector<Bit2D> fillZone(Area zone) {
+  private Vector<Bit2D> fillZone(Area zone, BooleanSupplier cancelled) {
+    Vector<Bit2D> zonePavement = TrialSearch.first(trialHeightOffsets.length,
+        (i, offsetCancelled) -> this.fillZone(zone, trialHeightOffsets[i],
+            () -> cancelled.getAsBoolean() || offsetCancelled.getAsBoolean()));
+    if (zonePavement != null && !zonePavement.isEmpty()) {
+      return zonePavement;
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * One essay of {@link #fillZone(Area, BooleanSupplier)}
+   *
+   * @param trialHeightOffset how much the first line is pushed back
+   * @return <tt>null</tt> to try another offset, empty if the zone can not be filled at all
+   */
+  private Vector<Bit2D> fillZone(Area zone, double trialHeightOffset, BooleanSupplier cancelled) {
     Vector<Bit2D> zonePavement = new Vector<>();
     // The rectangle enclosing the area
     Rectangle2D.Double zoneOuterRect = (Double) zone.getBounds2D();
-    for (double trialHeightOffset : trialHeightOffsets) {
-      // System.out.println("Zone: W " + zone.getBounds2D().getWidth() + "
-      // H " + zone.getBounds2D().getHeight()
-      // + " - Essay of height:" + trialHeightOffsets[idx]);
-      // Initial parameters
-      Area unpavedZone = (Area) zone.clone();
-      Area lastState;
-      Vector<Bit2D> lastBand = null, thisBand;
-      double thisBandWidth = CraftConfig.bitWidth;
-      boolean essay = true;
-      // Starting to pave line by line
-      while (!unpavedZone.isEmpty()) {
-        lastState = (Area) unpavedZone.clone();
-        Double unpavedZoneRect = (Double) unpavedZone.getBounds2D();
-        // Creating a buffering rectangle
-        // which will contain a portion of the given area
-        // in which we will place the bits
-        Double unpavedBandRect = new Double();
-        if (zonePavement.isEmpty()) {
-          // If this is the first band,
-          // we will push it back a little bit
-          unpavedBandRect.setRect(unpavedZoneRect.x, unpavedZoneRect.y - trialHeightOffset,
-              unpavedZoneRect.width, thisBandWidth);
+    // Initial parameters
+    Area unpavedZone = (Area) zone.clone();
+    Area lastState;
+    Vector<Bit2D> lastBand = null, thisBand;
+    double thisBandWidth = CraftConfig.bitWidth;
+    // Starting to pave line by line
+    while (!unpavedZone.isEmpty()) {
+      if (cancelled.getAsBoolean()) {
+        return null;
+      }
+      lastState = (Area) unpavedZone.clone();
+      Double unpavedZoneRect = (Double) unpavedZone.getBounds2D();
+      // Creating a buffering rectangle
+      // which will contain a portion of the given area
+      // in which we will place the bits
+      Double unpavedBandRect = new Double();
+      if (zonePavement.isEmpty()) {
+        // If this is the first band,
+        // we will push it back a little bit
+        unpavedBandRect.setRect(unpavedZoneRect.x, unpavedZoneRect.y - trialHeightOffset,
+            unpavedZoneRect.width, thisBandWidth);
+      } else {
+        unpavedBandRect.setRect(unpavedZoneRect.x, unpavedZoneRect.y, unpavedZoneRect.width,
+            thisBandWidth);
+      }
+      Area unpavedBand = new Area(unpavedBandRect);
+      // Intersecting this band with the initial area
+      // gives us real surface in which we will fill bits
+      unpavedBand.intersect(zone);
+      // Starting to fill bit by bit
+      thisBand = this.fillBand(unpavedBand, thisBandWidth);
+      // Check out the result
+      if (thisBand == null) {
+        // It means we failed at this band
+        if (lastBand == null) {
+          // It means we failed to fill this zone
+          // (either we are in the first band
+          // or we were trying to rebuild a band)
+          // We need to change the height of first line
+          return null;
         } else {
-          unpavedBandRect.setRect(unpavedZoneRect.x, unpavedZoneRect.y, unpavedZoneRect.width,
-              thisBandWidth);
-        }
-        Area unpavedBand = new Area(unpavedBandRect);
-        // Intersecting this band with the initial area
-        // gives us real surface in which we will fill bits
-        unpavedBand.intersect(zone);
-        // Starting to fill bit by bit
-        thisBand = this.fillBand(unpavedBand, thisBandWidth);
-        // Check out the result
-        if (thisBand == null) {
-          // It means we failed at this band
-          if (lastBand == null) {
-            // It means we failed to fill this zone
-            // (either we are in the first band
-            // or we were trying to rebuild a band)
-            // We need to change the height of first line
-            essay = false;
-            break;
+          if (lastBand.firstElement()
+              .getWidth() == CraftConfig.bitWidth) {
+            // If the previous band has not been cut in half
+            // we will rebuild it with half of its height
+            // First, we need to recover the space
+            // taken by last band
+            double lastY = lastBand.firstElement()
+                .getOriginCS().y - CraftConfig.bitWidth / 2;
+            Double lastlyPavedSpaceRect = new Double(zoneOuterRect.x, lastY,
+                zoneOuterRect.width, unpavedZoneRect.y - lastY);
+            Area lastlyPavedSpace = new Area(lastlyPavedSpaceRect);
+            lastlyPavedSpace.intersect(zone);
+            // Then add to the unpaved zone
+            unpavedZone.add(lastlyPavedSpace);
+            // Assuming new height to build
+            thisBandWidth = CraftConfig.bitWidth / 2;
+            // Remove the old bits from zonePavement
+            zonePavement.removeAll(lastBand);
+            // Delete the memory
+            lastBand = null;
           } else {
-            if (lastBand.firstElement()
-                .getWidth() == CraftConfig.bitWidth) {
-              // If the previous band has not been cut in half
-              // we will rebuild it with half of its height
-              // First, we need to recover the space
-              // taken by last band
-              double lastY = lastBand.firstElement()
-                  .getOriginCS().y - CraftConfig.bitWidth / 2;
-              Double lastlyPavedSpaceRect = new Double(zoneOuterRect.x, lastY,
-                  zoneOuterRect.width, unpavedZoneRect.y - lastY);
-              Area lastlyPavedSpace = new Area(lastlyPavedSpaceRect);
-              lastlyPavedSpace.intersect(zone);
-              // Then add to the unpaved zone
-              unpavedZone.add(lastlyPavedSpace);
-              // Assuming new height to build
-              thisBandWidth = CraftConfig.bitWidth / 2;
-              // Remove the old bits from zonePavement
-              zonePavement.removeAll(lastBand);
-              // Delete the memory
-              lastBand = null;
-            } else {
-              // Although the last line has been rebuilt
-              // with half height
-              // we still can not find a solution for this line
-              // We need to change the height of first line
-              essay = false;
-              break;
-            }
+            // Although the last line has been rebuilt
+            // with half height
+            // we still can not find a solution for this line
+            // We need to change the height of first line
+            return null;
           }
-        } else {
-          // This line has been filled successfully
-          // Let's save this line for later use
-          lastBand = thisBand;
-          // Reduce the unpaved space
-          Double pavedZoneRect = new Double(zoneOuterRect.x, unpavedZoneRect.y,
-              zoneOuterRect.width, thisBandWidth + bitsLengthSpace);
-          unpavedZone.subtract(new Area(pavedZoneRect));
-          // Assuming the height of the next line
-          thisBandWidth = CraftConfig.bitWidth;
-          // Collecting the result
-          zonePavement.addAll(thisBand);
         }
-        // Preventing infinite loop
-        if (unpavedZone.equals(lastState)) {
-          return null;
-        }
-      }
-      // If we find at least one fill satisfying
-      // Or we had tried all possibilities
-      if (essay) {
-        break;
       } else {
-        // Reset
-        zonePavement.clear();
+        // This line has been filled successfully
+        // Let's save this line for later use
+        lastBand = thisBand;
+        // Reduce the unpaved space
+        Double pavedZoneRect = new Double(zoneOuterRect.x, unpavedZoneRect.y,
+            zoneOuterRect.width, thisBandWidth + bitsLengthSpace);
+        unpavedZone.subtract(new Area(pavedZoneRect));
+        // Assuming the height of the next line
+        thisBandWidth = CraftConfig.bitWidth;
+        // Collecting the result
+        zonePavement.addAll(thisBand);
+      }
+      // Preventing infinite loop
+      if (unpavedZone.equals(lastState)) {
+        return new Vector<>();
       }
     }
-    if (!zonePavement.isEmpty()) {
-      return zonePavement;
-    } else {
-      return null;
-    }
+    return zonePavement;
   }
 
   /**
-   * Trying to fill a horizontal line by bits.
+   * Trying to fill a horizontal line by bits. Fills are remembered by the shape of the band, so a
+   * band met again, even elsewhere, is not filled twice.
    * <p>
    * Note: Only fill from left to right.
    *
@@ -329,6 +354,34 @@ public class EconomicPattern extends PatternTemplate {
    * @return <tt>null</tt> if no solution found
    */
   private Vector<Bit2D> fillBand(Area band, double bandWidth) {
+    Rectangle2D bounds = band.getBounds2D();
+    BandKey key = new BandKey(band, bounds, bandWidth, bandSettings);
+    Vector<Bit2D> bandPavement;
+    synchronized (bandFills) {
+      bandPavement = bandFills.get(key);
+    }
+    if (bandPavement == null) {
+      // Filled in the bounds of the band, so that equal shapes share it
+      bandPavement = this.fillBandFromScratch(key.toArea(), bandWidth);
+      if (bandPavement == null) {
+        bandPavement = new Vector<>();
+      }
+      synchronized (bandFills) {
+        bandFills.put(key, bandPavement);
+      }
+    }
+    if (bandPavement.isEmpty()) {
+      return null;
+    }
+    return this.translate(bandPavement, bounds.getMinX(), bounds.getMinY());
+  }
+
+  /**
+   * Length offsets of the first bit are tried concurrently.
+   *
+   * @see #fillBand(Area, double)
+   */
+  private Vector<Bit2D> fillBandFromScratch(Area band, double bandWidth) {
     // A little tweak
     if (band.getBounds2D()
         .getHeight() < CraftConfig.suckerDiameter
@@ -336,111 +389,110 @@ public class EconomicPattern extends PatternTemplate {
         .getWidth() < CraftConfig.suckerDiameter) {
       return null;
     }
+    Vector<Bit2D> bandPavement = TrialSearch.first(trialLengthOffsets.length,
+        (i, cancelled) -> this.fillBand(band, bandWidth, trialLengthOffsets[i], cancelled));
+    if (bandPavement != null && !bandPavement.isEmpty()) {
+      return bandPavement;
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * One essay of {@link #fillBandFromScratch(Area, double)}
+   *
+   * @param trialLengthOffset how much the first bit is pushed back
+   * @return <tt>null</tt> to try another offset
+   */
+  private Vector<Bit2D> fillBand(Area band, double bandWidth, double trialLengthOffset,
+      BooleanSupplier cancelled) {
     Vector<Bit2D> bandPavement = new Vector<>();
-    for (double trialLengthOffset : trialLengthOffsets) {
-      // System.out.println("Band: W " + band.getBounds2D().getWidth() + " H " +
-      // band.getBounds2D().getHeight()
-      // + " - Height to build: " + bandHeight + " - Essay of length:" +
-      // trialLengthOffsets[idx]);
-      // Save the rest area
-      Area unpavedSpace = (Area) band.clone();
-      // Initial parameters
-      Double bandOuterRect = (Double) band.getBounds2D();
-      double originY =
-          bandOuterRect.y + CraftConfig.bitWidth / 2, thisBitLength = CraftConfig.lengthFull;
-      boolean essay = true;
-      // Start
-      while (!unpavedSpace.isEmpty()) {
-        // Get the boundary
-        Double unpavedSpaceRect = (Double) unpavedSpace.getBounds2D();
-        // Creating a new bit
-        // Attention to the case of rebuilding a bit
-        // with half of its normal length
-        Vector2 origin = new Vector2(unpavedSpaceRect.x + CraftConfig.lengthFull / 2, originY);
-        if (bandPavement.isEmpty()) {
-          // If this is the first bit
-          // we will push it backward a little bit
-          origin.sub(new Vector2(trialLengthOffset, 0));
-        }
-        Bit2D newBit = new Bit2D(origin, new Vector2(1, 0), thisBitLength, bandWidth);
-        // Update the area of the bit
-        Area newBitArea = newBit.getAreaCS();
-        newBitArea.intersect(unpavedSpace);
-        if (newBitArea.isEmpty()) {
-          // If no space left,
-          // we complete the fill
-          break;
-        }
-        newBit.updateBoundaries(newBitArea);
-        // Check if the new bit have sufficient lift points
-        // in the unpaved space before the fill
-        if (!DetectorTool.checkIrregular(newBit)) {
-          // If yes, we retrieve it
-          bandPavement.add(newBit);
-          // Decrease the unpaved space
-          Double pavedSpaceRect = new Double(unpavedSpaceRect.x, bandOuterRect.y,
-              thisBitLength + bitsWidthSpace, bandWidth);
-          unpavedSpace.subtract(new Area(pavedSpaceRect));
-          // Assuming the next bit will have full length
-          thisBitLength = CraftConfig.lengthFull;
-        } else {
-          // If no, it means we failed
-          if (thisBitLength == CraftConfig.lengthFull) {
-            // We were building a new full-length bit
-            // So we will retry by rebuilding the last bit
-            // with half of its length
-            if (bandPavement.isEmpty()) {
-              // But if we have no previous bit
-              // We change the length offset of first bit
-              essay = false;
-              break;
+    // Save the rest area
+    Area unpavedSpace = (Area) band.clone();
+    // Initial parameters
+    Double bandOuterRect = (Double) band.getBounds2D();
+    double originY =
+        bandOuterRect.y + CraftConfig.bitWidth / 2, thisBitLength = CraftConfig.lengthFull;
+    // Start
+    while (!unpavedSpace.isEmpty()) {
+      if (cancelled.getAsBoolean()) {
+        return null;
+      }
+      // Get the boundary
+      Double unpavedSpaceRect = (Double) unpavedSpace.getBounds2D();
+      // Creating a new bit
+      // Attention to the case of rebuilding a bit
+      // with half of its normal length
+      Vector2 origin = new Vector2(unpavedSpaceRect.x + CraftConfig.lengthFull / 2, originY);
+      if (bandPavement.isEmpty()) {
+        // If this is the first bit
+        // we will push it backward a little bit
+        origin = origin.sub(new Vector2(trialLengthOffset, 0));
+      }
+      Bit2D newBit = new Bit2D(origin, new Vector2(1, 0), thisBitLength, bandWidth);
+      // Update the area of the bit
+      Area newBitArea = newBit.getAreaCS();
+      newBitArea.intersect(unpavedSpace);
+      if (newBitArea.isEmpty()) {
+        // If no space left,
+        // we complete the fill
+        break;
+      }
+      newBit.updateBoundaries(newBitArea);
+      // Check if the new bit have sufficient lift points
+      // in the unpaved space before the fill
+      if (!DetectorTool.checkIrregular(newBit)) {
+        // If yes, we retrieve it
+        bandPavement.add(newBit);
+        // Decrease the unpaved space
+        Double pavedSpaceRect = new Double(unpavedSpaceRect.x, bandOuterRect.y,
+            thisBitLength + bitsWidthSpace, bandWidth);
+        unpavedSpace.subtract(new Area(pavedSpaceRect));
+        // Assuming the next bit will have full length
+        thisBitLength = CraftConfig.lengthFull;
+      } else {
+        // If no, it means we failed
+        if (thisBitLength == CraftConfig.lengthFull) {
+          // We were building a new full-length bit
+          // So we will retry by rebuilding the last bit
+          // with half of its length
+          if (bandPavement.isEmpty()) {
+            // But if we have no previous bit
+            // We change the length offset of first bit
+            return null;
+          } else {
+            Bit2D lastBit = bandPavement.lastElement();
+            if (lastBit.getLength() == CraftConfig.lengthFull / 2) {
+              // If we had rebuilt the last bit
+              // and retried this bit but ended up failure
+              // That means we fail
+              // We should change the length offset
+              return null;
             } else {
-              Bit2D lastBit = bandPavement.lastElement();
-              if (lastBit.getLength() == CraftConfig.lengthFull / 2) {
-                // If we had rebuilt the last bit
-                // and retried this bit but ended up failure
-                // That means we fail
-                // We should change the length offset
-                essay = false;
-                break;
-              } else {
-                // Else, we recover the space taken
-                // by the last bit
-                // Note: we must include the skipped space
-                double lastX = lastBit.getOriginCS().x - CraftConfig.lengthFull / 2;
-                Double lastPavedSpaceRect = new Double(lastX, bandOuterRect.y,
-                    unpavedSpaceRect.x - lastX, bandWidth);
-                Area lastlyPavedSpace = new Area(lastPavedSpaceRect);
-                lastlyPavedSpace.intersect(band);
-                unpavedSpace.add(lastlyPavedSpace);
-                // Assuming the rebuild
-                // with a half normal length
-                thisBitLength = CraftConfig.lengthFull / 2;
-                // We remove the last bit
-                bandPavement.remove(lastBit);
-              }
+              // Else, we recover the space taken
+              // by the last bit
+              // Note: we must include the skipped space
+              double lastX = lastBit.getOriginCS().x - CraftConfig.lengthFull / 2;
+              Double lastPavedSpaceRect = new Double(lastX, bandOuterRect.y,
+                  unpavedSpaceRect.x - lastX, bandWidth);
+              Area lastlyPavedSpace = new Area(lastPavedSpaceRect);
+              lastlyPavedSpace.intersect(band);
+              unpavedSpace.add(lastlyPavedSpace);
+              // Assuming the rebuild
+              // with a half normal length
+              thisBitLength = CraftConfig.lengthFull / 2;
+              // We remove the last bit
+              bandPavement.remove(lastBit);
             }
-          } else {
-            // In case we were trying rebuilding
-            // We will change the offset
-            essay = false;
-            break;
           }
+        } else {
+          // In case we were trying rebuilding
+          // We will change the offset
+          return null;
         }
       }
-      if (essay) {
-        // If we find at least one fill satisfying
-        // Or we had tried all possibilities
-        break;
-      } else {
-        bandPavement.clear();
-      }
-    }
-    if (!bandPavement.isEmpty()) {
-      return bandPavement;
-    } else {
-      return null;
     }
+    return bandPavement;
   }
 
   @SuppressWarnings("unchecked")
@@ -483,6 +535,34 @@ public class EconomicPattern extends PatternTemplate {
     }
   }
 
+  private void setupBandSettings() {
+    bandSettings = new double[trialLengthOffsets.length + 5];
+    bandSettings[0] = bitsWidthSpace;
+    bandSettings[1] = CraftConfig.lengthFull;
+    bandSettings[2] = CraftConfig.bitWidth;
+    bandSettings[3] = CraftConfig.suckerDiameter;
+    bandSettings[4] = CraftConfig.incertitude;
+    System.arraycopy(trialLengthOffsets, 0, bandSettings, 5, trialLengthOffsets.length);
+  }
+
+  /**
+   * Unlike {@link Bit2D#createTransformedBit(AffineTransform)}, origins are not rounded
+   *
+   * @return moved copies of <tt>bits</tt>
+   */
+  private Vector<Bit2D> translate(Vector<Bit2D> bits, double dx, double dy) {
+    AffineTransform translation = AffineTransform.getTranslateInstance(dx, dy);
+    Vector<Bit2D> result = new Vector<>(bits.size());
+    for (Bit2D bit : bits) {
+      Bit2D newBit = new Bit2D(bit.getOriginCS()
+          .add(new Vector2(dx, dy)), bit.getOrientation(), bit.getLength(), bit.getWidth());
+      newBit.updateBoundaries(bit.getAreaCS()
+          .createTransformedArea(translation));
+      result.add(newBit);
+    }
+    return result;
+  }
+
   private Vector<Bit2D> transform(Vector<Bit2D> bits, AffineTransform conservativeTransformation) {
     Vector<Bit2D> result = new Vector<>(bits.size());
     bits.forEach(bit -> result.add(bit.createTransformedBit(conservativeTransformation)));
@@ -613,4 +693,116 @@ public class EconomicPattern extends PatternTemplate {
             + "\nOtherwise values will be filtered.",
         0.0, 180.0, trialDiffAngles, 0.1));
   }
-}
\ No newline at end of file
+
+  /**
+   * Bits of a layer and the rotation they were paved with
+   */
+  private static class LayerFill {
+
+    final double rotation;
+    final Vector<Bit2D> bits;
+
+    LayerFill(double rotation, Vector<Bit2D> bits) {
+      this.rotation = rotation;
+      this.bits = bits;
+    }
+  }
+
+  /**
+   * Shape of a band in its own bounds, snapped to {@link #SNAP}, with the settings of the fill.
+   * Bands equal up to a translation have the same key.
+   */
+  private static class BandKey {
+
+    private static final double SNAP = 1e-7;
+
+    private final long[] values;
+    private final int settingsLength;
+    private final int hash;
+
+    BandKey(Area band, Rectangle2D bounds, double bandWidth, double[] settings) {
+      long[] v = new long[64];
+      int n = 0;
+      v[n++] = java.lang.Double.doubleToLongBits(bandWidth);
+      for (double setting : settings) {
+        v[n++] = java.lang.Double.doubleToLongBits(setting);
+      }
+      settingsLength = n;
+      double[] coords = new double[6];
+      PathIterator pi = band.getPathIterator(null);
+      v[n++] = pi.getWindingRule();
+      for (; !pi.isDone(); pi.next()) {
+        int type = pi.currentSegment(coords);
+        if (n + 7 > v.length) {
+          v = Arrays.copyOf(v, 2 * v.length);
+        }
+        v[n++] = type;
+        for (int i = 0; i < 2 * pointsOf(type); i += 2) {
+          v[n++] = Math.round((coords[i] - bounds.getMinX()) / SNAP);
+          v[n++] = Math.round((coords[i + 1] - bounds.getMinY()) / SNAP);
+        }
+      }
+      values = Arrays.copyOf(v, n);
+      hash = Arrays.hashCode(values);
+    }
+
+    private static int pointsOf(int type) {
+      switch (type) {
+        case PathIterator.SEG_MOVETO:
+        case PathIterator.SEG_LINETO:
+          return 1;
+        case PathIterator.SEG_QUADTO:
+          return 2;
+        case PathIterator.SEG_CUBICTO:
+          return 3;
+        default:
+          return 0;
+      }
+    }
+
+    /**
+     * @return the snapped band, with its bounds starting at <tt>(0, 0)</tt>
+     */
+    Area toArea() {
+      int n = settingsLength;
+      Path2D.Double path = new Path2D.Double((int) values[n++]);
+      double[] c = new double[6];
+      while (n < values.length) {
+        int type = (int) values[n++];
+        for (int i = 0; i < 2 * pointsOf(type); i++) {
+          c[i] = values[n++] * SNAP;
+        }
+        switch (type) {
+          case PathIterator.SEG_MOVETO:
+            path.moveTo(c[0], c[1]);
+            break;
+          case PathIterator.SEG_LINETO:
+            path.lineTo(c[0], c[1]);
+            break;
+          case PathIterator.SEG_QUADTO:
+            path.quadTo(c[0], c[1], c[2], c[3]);
+            break;
+          case PathIterator.SEG_CUBICTO:
+            path.curveTo(c[0], c[1], c[2], c[3], c[4], c[5]);
+            break;
+          default:
+            path.closePath();
+            break;
+        }
+      }
+      return new Area(path);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof BandKey
+          && hash == ((BandKey) o).hash
+          && Arrays.equals(values, ((BandKey) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -88,6 +88,14 @@ public class GeneticPavement extends PatternTemplate {
                 Double.POSITIVE_INFINITY,
                 50.0,
                 5.0));
+        config.add(new DoubleParam(
+                "stagnation",
+                "Generations without improvement",
+                "Stop searching a bit once its best score has not improved for this number of generations. 0 never stops early",
+                0.0,
+                50.0,
+                5.0,
+                1.0));
         config.add(AI_Pavement.paramSafeguardSpace);
     }
 
@@ -101,7 +109,8 @@ public class GeneticPavement extends PatternTemplate {
                     (double) config.get("genNumber").getCurrentValue(),
                     (double) config.get("popSize").getCurrentValue(),
                     (double) config.get("ratio").getCurrentValue(),
-                    (double) config.get("earlyStopping").getCurrentValue());
+                    (double) config.get("earlyStopping").getCurrentValue(),
+                    (double) config.get("stagnation").getCurrentValue());
             updateBitAreasWithSpaceAround();
         } catch (Exception e) {
             e.printStackTrace();
@@ -112,7 +121,7 @@ public class GeneticPavement extends PatternTemplate {
     /**
      * Starts the Genetic pavement and paves the given layer.
      */
-    private void start(Area layerAvailableArea, double genNumber, double popSize, double ratio, double maxBitNumber) throws Exception {
+    private void start(Area layerAvailableArea, double genNumber, double popSize, double ratio, double maxBitNumber, double stagnationLimit) throws Exception {
         Slice slice = layer.getHorizontalSection();
         Vector<Vector<Vector2>> boundsToCheckAssociated = GeneralTools.getBoundsAndRearrange(slice);
 
@@ -130,7 +139,7 @@ public class GeneticPavement extends PatternTemplate {
                 printInfos(boundsToCheckAssociated, bound, bitNumber);
 
                 //Find a new Solution
-                currentEvolution = new Evolution(layerAvailableArea, associatedPoints, bound, (int)genNumber, (int)popSize, (int)ratio);
+                currentEvolution = new Evolution(layerAvailableArea, associatedPoints, bound, (int)genNumber, (int)popSize, (int)ratio, (int)stagnationLimit);
                 currentEvolution.run();
                 bestBit = currentEvolution.bestSolution.getBit();
                 solutions.add(bestBit);
@@ -30,6 +30,7 @@
 
 package meshIneBits.scheduler;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -44,10 +45,14 @@ import meshIneBits.Mesh;
 import meshIneBits.MeshEvents;
 import meshIneBits.SubBit2D;
 import meshIneBits.util.Logger;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
 import meshIneBits.util.Vector2;
 
 public abstract class AScheduler extends Observable implements Serializable, Runnable {
 
+  private static final long serialVersionUID = -2644326143912650036L;
+
   protected Mesh mesh = null;
   protected Vector<Pair<Bit3D, Vector2>> sortedBits = new Vector<>();
   protected Map<Bit3D, Layer> bit_layer_map = new HashMap<>();
@@ -135,6 +140,60 @@ public abstract class AScheduler extends Observable implements Serializable, Run
     return bit_layer_map.get(bit3D);
   }
 
+  /**
+   * Write the result of the scheduling in a project file. Bits and layers are linked to the blocks
+   * of the layers
+   */
+  public void writeProject(ProjectOutput out) throws IOException {
+    out.writeInt(sortedBits.size());
+    for (Pair<Bit3D, Vector2> pair : sortedBits) {
+      writeBit(out, pair.getKey());
+      if (out.writeLink(pair.getValue())) {
+        out.writeVector2(pair.getValue());
+      }
+    }
+    out.writeInt(bit_layer_map.size());
+    for (Map.Entry<Bit3D, Layer> entry : bit_layer_map.entrySet()) {
+      writeBit(out, entry.getKey());
+      if (out.writeLink(entry.getValue())) {
+        Layer.writeProject(out, entry.getValue());
+      }
+    }
+    out.writeInt(firstLayerBits.size());
+    for (Map.Entry<Integer, Bit3D> entry : firstLayerBits.entrySet()) {
+      out.writeInt(entry.getKey());
+      writeBit(out, entry.getValue());
+    }
+  }
+
+  /**
+   * Read the content written by {@link #writeProject(ProjectOutput)} into this new scheduler
+   */
+  public void readProject(ProjectInput in) throws IOException {
+    int nbSortedBits = in.readInt();
+    sortedBits = new Vector<>(nbSortedBits);
+    for (int i = 0; i < nbSortedBits; i++) {
+      Bit3D bit = in.readLink(Bit3D::readProject);
+      sortedBits.add(new Pair<>(bit, in.readLink(ProjectInput::readVector2)));
+    }
+    int nbLayerBits = in.readInt();
+    bit_layer_map = new HashMap<>(nbLayerBits);
+    for (int i = 0; i < nbLayerBits; i++) {
+      bit_layer_map.put(in.readLink(Bit3D::readProject), in.readLink(Layer::readProject));
+    }
+    int nbFirstLayerBits = in.readInt();
+    firstLayerBits = new HashMap<>(nbFirstLayerBits);
+    for (int i = 0; i < nbFirstLayerBits; i++) {
+      firstLayerBits.put(in.readInt(), in.readLink(Bit3D::readProject));
+    }
+  }
+
+  protected static void writeBit(ProjectOutput out, Bit3D bit) throws IOException {
+    if (out.writeLink(bit)) {
+      Bit3D.writeProject(out, bit);
+    }
+  }
+
   public abstract Vector<Pair<Bit3D, Vector2>> filterBits(Vector<Pair<Bit3D, Vector2>> bits);
 
   public abstract Vector<SubBit2D> sortedSubBits(Vector<SubBit2D> bits);
@@ -6,12 +6,17 @@ import meshIneBits.NewBit2D;
 import meshIneBits.SubBit2D;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.util.CustomLogger;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Vector;
 
 public class AdvancedScheduler extends BasicScheduler {
 
+  private static final long serialVersionUID = 4654435968670852277L;
+
   public static final CustomLogger logger = new CustomLogger(AdvancedScheduler.class);
   private final Vector<SubBit2D> subBit2Ds = new Vector<>();
 
@@ -49,6 +54,27 @@ public class AdvancedScheduler extends BasicScheduler {
     return b;
   }
 
+  @Override
+  public void writeProject(ProjectOutput out) throws IOException {
+    super.writeProject(out);
+    out.writeInt(subBit2Ds.size());
+    for (SubBit2D subBit : subBit2Ds) {
+      if (out.writeLink(subBit)) {
+        SubBit2D.writeProject(out, subBit);
+      }
+    }
+  }
+
+  @Override
+  public void readProject(ProjectInput in) throws IOException {
+    super.readProject(in);
+    subBit2Ds.clear();
+    int size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      subBit2Ds.add(in.readLink(SubBit2D::readProject));
+    }
+  }
+
   public int getIndexOfSubBit(SubBit2D subBit2D) {
     return subBit2Ds.indexOf(subBit2D);
   }
@@ -34,14 +34,19 @@ import meshIneBits.util.Pair;
 import meshIneBits.*;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.util.Logger;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
 import meshIneBits.util.Vector2;
 
+import java.io.IOException;
 import java.util.*;
 
 import static meshIneBits.config.CraftConfig.nbBitesBatch;
 
 public class BasicScheduler extends AScheduler {
 
+  private static final long serialVersionUID = -4360129384466195957L;
+
   private  ArrayList<ArrayList<Strip>> strips=new ArrayList<>();
   private int num=0;
   public BasicScheduler() {
@@ -51,6 +56,35 @@ public class BasicScheduler extends AScheduler {
     super(m);
   }
 
+  @Override
+  public void writeProject(ProjectOutput out) throws IOException {
+    super.writeProject(out);
+    out.writeInt(strips.size());
+    for (ArrayList<Strip> layerStrips : strips) {
+      out.writeInt(layerStrips.size());
+      for (Strip strip : layerStrips) {
+        Strip.writeProject(out, strip);
+      }
+    }
+    out.writeInt(num);
+  }
+
+  @Override
+  public void readProject(ProjectInput in) throws IOException {
+    super.readProject(in);
+    int nbLayers = in.readInt();
+    strips = new ArrayList<>(nbLayers);
+    for (int i = 0; i < nbLayers; i++) {
+      int nbStrips = in.readInt();
+      ArrayList<Strip> layerStrips = new ArrayList<>(nbStrips);
+      for (int j = 0; j < nbStrips; j++) {
+        layerStrips.add(Strip.readProject(in));
+      }
+      strips.add(layerStrips);
+    }
+    num = in.readInt();
+  }
+
   @Override
   public int getBitIndex(Bit3D bit) {
     if (sortedBits.isEmpty()) {
@@ -30,7 +30,10 @@
 
 package meshIneBits.slicer;
 
+import java.io.IOException;
 import java.io.Serializable;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
 import meshIneBits.util.Shape2D;
 
 /**
@@ -41,6 +44,8 @@ import meshIneBits.util.Shape2D;
  */
 public class Slice extends Shape2D implements Serializable {
 
+  private static final long serialVersionUID = 3432946744966729828L;
+
   public Slice() {
   }
 
@@ -53,4 +58,16 @@ public class Slice extends Shape2D implements Serializable {
   public void setAltitude(double altitude) {
     this.altitude = altitude;
   }
+
+  @Override
+  public void writeProject(ProjectOutput out) throws IOException {
+    out.writeDouble(altitude);
+    super.writeProject(out);
+  }
+
+  @Override
+  public void readProject(ProjectInput in) throws IOException {
+    altitude = in.readDouble();
+    super.readProject(in);
+  }
 }
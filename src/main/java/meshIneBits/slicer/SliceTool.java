@@ -30,15 +30,20 @@
 
 package meshIneBits.slicer;
 
+import java.util.Arrays;
 import java.util.Observable;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 import meshIneBits.Mesh;
 import meshIneBits.MeshEvents;
 import meshIneBits.Model;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.util.Logger;
+import meshIneBits.util.MultiThreadServiceExecutor;
 import meshIneBits.util.Segment2D;
 import meshIneBits.util.Triangle;
+import meshIneBits.util.TriangleStore;
 import meshIneBits.util.Vector3;
 
 /**
@@ -51,6 +56,9 @@ import meshIneBits.util.Vector3;
  * since it admits only Coordinates in x and y). Each segment is then recorded in the {@link Slice}
  * object. At the end of {@link #sliceModel()} we get a collection of slices composed of segments
  * that form the outline of the mesh.
+ * <br>
+ * When {@link CraftConfig#slicingThreads} allows more than one thread, triangles are first sorted
+ * into one bucket per slice, then every slice is projected and optimized on its own task.
  */
 public class SliceTool extends Observable implements Runnable {
 
@@ -92,35 +100,37 @@ public class SliceTool extends Observable implements Runnable {
       slices.add(s); // holder
     }
 
-    int n = 0;
-    int totalProgress = model.getTriangles()
-        .size() + sliceCount;
-    for (Triangle t : model.getTriangles()) {
-      Logger.setProgress(++n, totalProgress);
+    int nbThreads = CraftConfig.slicingThreads > 0 ? CraftConfig.slicingThreads
+        : Runtime.getRuntime()
+            .availableProcessors();
+    if (nbThreads > 1 && sliceCount > 1) {
+      sliceParallel(firstSliceHeight, sliceDistance, nbThreads);
+    } else {
+      sliceSerially(firstSliceHeight, sliceDistance);
+    }
 
-      // Finding zMin between 3 vertices
-      double zMin = t.point[0].z;
-      if (t.point[1].z < zMin) {
-        zMin = t.point[1].z;
-      }
-      if (t.point[2].z < zMin) {
-        zMin = t.point[2].z;
-      }
+    Logger.updateStatus("Mesh sliced");
+    setChanged();
+    notifyObservers(MeshEvents.SLICED);
+  }
 
-      // Finding zMax between 3 vertices
-      double zMax = t.point[0].z;
-      if (t.point[1].z > zMax) {
-        zMax = t.point[1].z;
-      }
-      if (t.point[2].z > zMax) {
-        zMax = t.point[2].z;
-      }
+  /**
+   * Project every triangle on the slices crossing it, then optimize the slices one after another.
+   */
+  private void sliceSerially(double firstSliceHeight, double sliceDistance) {
+    int sliceCount = slices.size();
+    TriangleStore triangles = model.getTriangleStore();
+    int n = 0;
+    int totalProgress = triangles.size() + sliceCount;
+    for (int k = 0; k < triangles.size(); k++) {
+      Logger.setProgress(++n, totalProgress);
+      Triangle t = triangles.getTriangle(k);
 
       // Project each segment on slices
-      int inf = (int) Math.floor(
-          (zMin - firstSliceHeight) / sliceDistance); // index of lowest floor above zMin
-      int sup = (int) Math.floor(
-          (zMax - firstSliceHeight) / sliceDistance); // index of highest floor under zMax
+      int inf = sliceIndex(triangles.getZMin(k), firstSliceHeight,
+          sliceDistance); // index of lowest floor above zMin
+      int sup = sliceIndex(triangles.getZMax(k), firstSliceHeight,
+          sliceDistance); // index of highest floor under zMax
       for (int i = Math.max(inf, 0); i <= Math.min(sup, sliceCount - 1); i++) {
         Slice s = slices.get(i);
         double sliceZ = s.getAltitude();
@@ -137,10 +147,76 @@ public class SliceTool extends Observable implements Runnable {
       slices.get(i)
           .optimize();
     }
+  }
 
-    Logger.updateStatus("Mesh sliced");
-    setChanged();
-    notifyObservers(MeshEvents.SLICED);
+  /**
+   * Sort the triangles into one bucket per slice, then project and optimize each slice on its own
+   * task. Triangles keep their model order inside a bucket, so each slice receives its segments in
+   * the same order as with {@link #sliceSerially(double, double)}.
+   *
+   * @param nbThreads maximum parallelism on the central scheduler
+   */
+  private void sliceParallel(double firstSliceHeight, double sliceDistance, int nbThreads) {
+    int sliceCount = slices.size();
+    TriangleStore triangles = model.getTriangleStore();
+    int triangleCount = triangles.size();
+    MultiThreadServiceExecutor executor = MultiThreadServiceExecutor.instance;
+
+    // Range of slices crossed by each triangle
+    int[] inf = new int[triangleCount];
+    int[] sup = new int[triangleCount];
+    executor.invokeParallel(() -> IntStream.range(0, triangleCount)
+        .parallel()
+        .forEach(k -> {
+          inf[k] = Math.max(sliceIndex(triangles.getZMin(k), firstSliceHeight, sliceDistance),
+              0);
+          sup[k] = Math.min(sliceIndex(triangles.getZMax(k), firstSliceHeight, sliceDistance),
+              sliceCount - 1);
+        }), nbThreads);
+
+    // Counting sort of triangle indexes into z-buckets
+    int[] bucketStart = new int[sliceCount + 1];
+    for (int k = 0; k < triangleCount; k++) {
+      for (int i = inf[k]; i <= sup[k]; i++) {
+        bucketStart[i + 1]++;
+      }
+    }
+    for (int i = 0; i < sliceCount; i++) {
+      bucketStart[i + 1] += bucketStart[i];
+    }
+    int[] buckets = new int[bucketStart[sliceCount]];
+    int[] cursor = Arrays.copyOf(bucketStart, sliceCount);
+    for (int k = 0; k < triangleCount; k++) {
+      for (int i = inf[k]; i <= sup[k]; i++) {
+        buckets[cursor[i]++] = k;
+      }
+    }
+
+    Logger.updateStatus("Slicing and optimizing " + sliceCount + " slices on " + nbThreads
+        + " threads");
+    AtomicInteger finished = new AtomicInteger();
+    executor.invokeParallel(() -> IntStream.range(0, sliceCount)
+        .parallel()
+        .forEach(i -> {
+          Slice s = slices.get(i);
+          double sliceZ = s.getAltitude();
+          for (int b = bucketStart[i]; b < bucketStart[i + 1]; b++) {
+            Segment2D project2D = triangles.getTriangle(buckets[b])
+                .project2D(sliceZ);
+            if (project2D != null) {
+              s.addModelSegment(project2D);
+            }
+          }
+          s.optimize();
+          Logger.setProgress(finished.incrementAndGet(), sliceCount);
+        }), nbThreads);
+  }
+
+  /**
+   * @return index of the slice right under the given altitude
+   */
+  private static int sliceIndex(double z, double firstSliceHeight, double sliceDistance) {
+    return (int) Math.floor((z - firstSliceHeight) / sliceDistance);
   }
 
   /**
@@ -34,6 +34,8 @@ import java.io.Serializable;
 
 public class AABBrect implements Serializable {
 
+  private static final long serialVersionUID = 2816443679004961665L;
+
   private Vector2 lowerBound, upperBound;
 
   @SuppressWarnings({"rawtypes"})
@@ -97,6 +99,14 @@ public class AABBrect implements Serializable {
     return true;
   }
 
+  Vector2 getLowerBound() {
+    return lowerBound;
+  }
+
+  Vector2 getUpperBound() {
+    return upperBound;
+  }
+
   void updateAABB(Vector2 p1, Vector2 p2, double extend) {
     if (node != null) {
       throw new UnsupportedOperationException("Update on AABBrect while in a AABBTree");
@@ -377,100 +377,10 @@ public class AreaTool {
    * @param area      surface of bit
    * @param minRadius half of {@link CraftConfig#suckerDiameter}
    * @return liftPoint. <tt>null</tt> if area is empty
+   * @see LiftPointCalc
    */
   public static Vector2 getLiftPoint(Area area, double minRadius) {
-
-    // We check if the barycenter would be ok
-    Vector2 barycenter = AreaTool.compute2DPolygonCentroid(area);
-    if (barycenter == null) {
-      return null;
-    }
-    Vector<Vector<Segment2D>> segments = AreaTool.getSegmentsFrom(area);
-    if (area.contains(barycenter.x, barycenter.y)) {
-      // To be sure every other
-      // distances will be smaller
-      double minDist = CraftConfig.lengthFull * 2;
-      for (Vector<Segment2D> polygon : segments) {
-        for (Segment2D segment : polygon) {
-          double dist = segment.distFromPoint(barycenter);
-          if (dist < minDist) {
-            minDist = dist;
-          }
-        }
-      }
-      if (minDist >= minRadius) {
-        return new Vector2(barycenter.x, barycenter.y);
-      }
-    }
-    // In case the barycenter is not in the area
-    // or the circle of sucker is not fit in the area,
-    // we fill the area with points
-    Rectangle2D bounds = area.getBounds2D();
-    double stepX = 1;
-    double stepY = 1;
-    double startX = bounds.getMinX();
-    double startY = bounds.getMinY();
-    double endX = bounds.getMaxX();
-    double endY = bounds.getMaxY();
-    Vector<Vector2> points = new Vector<>();
-    for (double x = startX; x <= endX; x += stepX) {
-      for (double y = startY; y <= endY; y += stepY) {
-        Vector2 point = new Vector2(x, y);
-        if (area.contains(new Point2D.Double(point.x, point.y))) {
-          points.add(point);
-        }
-      }
-    }
-
-    if (points.isEmpty()) {
-      return null;
-    }
-
-    // We sort the points by their distance from the barycenter, the smaller
-    // distances on top
-    Vector<Double> distances = new Vector<>();
-    Vector<Vector2> sortedPoints = new Vector<>();
-    distances.add(
-        Math.sqrt(Vector2.dist2(new Vector2(points.get(0).x, points.get(0).y), barycenter)));
-    sortedPoints.add(points.get(0));
-    for (int j = 1; j < points.size(); j++) {
-      double distance = Math.sqrt(
-          Vector2.dist2(new Vector2(points.get(j).x, points.get(j).y), barycenter));
-      boolean addAtTheEnd = true;
-      for (int i = 0; i < distances.size(); i++) {
-        if (distance < distances.get(i)) {
-          distances.insertElementAt(distance, i);
-          sortedPoints.insertElementAt(points.get(j), i);
-          addAtTheEnd = false;
-          break;
-        }
-      }
-      if (addAtTheEnd) {
-        distances.addElement(distance);
-        sortedPoints.add(points.get(j));
-      }
-    }
-
-    // We review each points and check if it is far enough from the edges to
-    // fit the sucker cup, the first one to be ok will be the liftPoint
-    Vector2 liftPoint = null;
-    for (Vector2 p : sortedPoints) {
-      // To be sure every other distances will be smaller
-      double minDistFromBounds = CraftConfig.lengthFull * 2;
-      for (Vector<Segment2D> polygon : segments) {
-        for (Segment2D segment : polygon) {
-          double dist = segment.distFromPoint(new Vector2(p.x, p.y));
-          if (dist < minDistFromBounds) {
-            minDistFromBounds = dist;
-          }
-        }
-      }
-      if (minDistFromBounds >= minRadius) {
-        liftPoint = p;
-        break;
-      }
-    }
-    return liftPoint;
+    return LiftPointCalc.instance.getLiftPoint(area, minRadius);
   }
 
   /**
@@ -567,10 +477,30 @@ public class AreaTool {
 
   /**
    * @param area target to extract
-   * @return the separated surfaces
+   * @return the separated surfaces. <tt>null</tt> if none
    */
   public static Vector<Area> segregateArea(Area area) {
+    if (area.isPolygonal()) {
+      // Holes are given to their outer boundary directly, without intersecting areas
+      Vector<Area> segregatedAreas = new Vector<>();
+      for (PackedArea component : PackedArea.of(area)
+          .filterRings(AreaTool::isLargeEnough)
+          .getComponents()) {
+        segregatedAreas.add(component.toArea());
+      }
+      return segregatedAreas.isEmpty() ? null : segregatedAreas;
+    }
+    return segregateAreaByRings(area);
+  }
 
+  /**
+   * Same as {@link #segregateArea(Area)}, with an area per boundary. Curves are replaced by
+   * straight lines.
+   *
+   * @param area target to extract
+   * @return the separated surfaces. <tt>null</tt> if none
+   */
+  public static Vector<Area> segregateAreaByRings(Area area) {
     Vector<Vector<Segment2D>> polygons = AreaTool.getSegmentsFrom(area);
     Vector<Area> segregatedAreas = new Vector<>();
 
@@ -585,16 +515,21 @@ public class AreaTool {
       // cutPaths.add(cutPath2D);
       path2D.closePath();
       // Remove area if too tiny
-      if (Rounder.round(path2D.getBounds2D()
-          .getHeight(), CraftConfig.errorAccepted) > 0
-          && Rounder.round(path2D.getBounds2D()
-          .getWidth(), CraftConfig.errorAccepted) > 0) {
+      if (isLargeEnough(path2D.getBounds2D())) {
         segregatedAreas.add(new Area(path2D));
       }
     }
     return AreaTool.getLevel0AreasFrom(segregatedAreas);
   }
 
+  /**
+   * @return <tt>false</tt> if a boundary of these bounds is too tiny to make a surface
+   */
+  private static boolean isLargeEnough(Rectangle2D bounds) {
+    return Rounder.round(bounds.getHeight(), CraftConfig.errorAccepted) > 0
+        && Rounder.round(bounds.getWidth(), CraftConfig.errorAccepted) > 0;
+  }
+
   /**
    * Expand <tt>area</tt> by a certain width
    *
@@ -707,33 +642,13 @@ public class AreaTool {
      * @return {@link Vector list} of {@link Vector2 points}points founded
      */
     public static Vector<Vector2> getTwoMostDistantPointFromArea(Area area) {
-        Vector<Vector2> positionTwoMostDistantPoint = new Vector<>();
-        double longestDistance = 0;
-        for (PathIterator p1 = area.getPathIterator(null); !p1.isDone(); p1.next()) {
-            double[] coord1 = new double[6];
-            int type1 = p1.currentSegment(coord1);
-            Vector2 v1 = new Vector2(coord1[0], coord1[1]);
-            if (type1 == PathIterator.SEG_CLOSE) {
-        continue;
-      }
-
-      for (PathIterator p2 = area.getPathIterator(null); !p2.isDone(); p2.next()) {
-        double[] coord2 = new double[6];
-        int type2 = p2.currentSegment(coord2);
-        if (type2 == PathIterator.SEG_CLOSE) {
-          continue;
-        }
-        Vector2 v2 = new Vector2(coord2[0], coord2[1]);
-        if (Vector2.dist(v1, v2) > longestDistance) {
-          positionTwoMostDistantPoint.removeAllElements();
-          positionTwoMostDistantPoint.add(v1);
-          positionTwoMostDistantPoint.add(v2);
-          longestDistance = Vector2.dist(v1, v2);
+        ArrayList<Vector2> vertices = TwoDistantPointsCalc.getVerticesFrom(area);
+        int[] pair = TwoDistantPointsCalc.getMostDistantPair(vertices);
+        if (pair == null) {
+            return null;
         }
-      }
+        return new Vector<>(Arrays.asList(vertices.get(pair[0]), vertices.get(pair[1])));
     }
-    return positionTwoMostDistantPoint.size() > 0 ? positionTwoMostDistantPoint : null;
-  }
 
     /**
      * this method hasn't been optimized yet
@@ -0,0 +1,248 @@
+package meshIneBits.util;
+
+import java.awt.geom.Area;
+import java.awt.geom.Line2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * Border of an {@link Area}, sorted in horizontal bands, to tell whether a box lies entirely
+ * inside the area, entirely outside or across its border without any boolean operation on areas.
+ * <p>
+ * Curves are flattened, so boxes closer to a curved border than {@link #FLATNESS} may be
+ * misplaced. Outlines of slices only have straight edges.
+ */
+public class BorderIndex {
+
+  public enum Location {INSIDE, OUTSIDE, BORDER}
+
+  /**
+   * Maximum distance between a curve and its flattened edges
+   */
+  static final double FLATNESS = 1e-3;
+  /**
+   * Most bands of an index, whatever the number of edges
+   */
+  private static final int MAX_BANDS = 4096;
+
+  /**
+   * Packed as <tt>x1 y1 x2 y2</tt> for each edge
+   */
+  private final double[] edges;
+  private final int edgeCount;
+  private final boolean evenOdd;
+  private final double minX, minY, maxX, maxY;
+  private final double bandHeight;
+  private final int nbBands;
+  /**
+   * Indices of the edges overlapping each band, in height
+   */
+  private final int[][] bands;
+
+  /**
+   * @param area read once, may change afterwards
+   */
+  public BorderIndex(Area area) {
+    this(edgesOf(area.getPathIterator(null, FLATNESS)),
+        area.getPathIterator(null).getWindingRule() == PathIterator.WIND_EVEN_ODD);
+  }
+
+  /**
+   * @param edges   packed as <tt>x1 y1 x2 y2</tt> for each edge, kept without copy
+   * @param evenOdd winding rule of the edges
+   */
+  BorderIndex(double[] edges, boolean evenOdd) {
+    this.edges = edges;
+    this.evenOdd = evenOdd;
+    int n = edges.length / 4;
+    edgeCount = n;
+
+    double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+    double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < 4 * n; i += 2) {
+      x0 = Math.min(x0, edges[i]);
+      y0 = Math.min(y0, edges[i + 1]);
+      x1 = Math.max(x1, edges[i]);
+      y1 = Math.max(y1, edges[i + 1]);
+    }
+    minX = x0;
+    minY = y0;
+    maxX = x1;
+    maxY = y1;
+
+    nbBands = Math.max(1, Math.min(MAX_BANDS, n / 4));
+    bandHeight = n == 0 || maxY <= minY ? 1 : (maxY - minY) / nbBands;
+    int[] sizes = new int[nbBands];
+    for (int e = 0; e < n; e++) {
+      for (int b = firstBand(e); b <= lastBand(e); b++) {
+        sizes[b]++;
+      }
+    }
+    bands = new int[nbBands][];
+    for (int b = 0; b < nbBands; b++) {
+      bands[b] = new int[sizes[b]];
+      sizes[b] = 0;
+    }
+    for (int e = 0; e < n; e++) {
+      for (int b = firstBand(e); b <= lastBand(e); b++) {
+        bands[b][sizes[b]++] = e;
+      }
+    }
+  }
+
+  /**
+   * @param pi flattened
+   * @return edges packed as <tt>x1 y1 x2 y2</tt>, without empty edge
+   */
+  private static double[] edgesOf(PathIterator pi) {
+    double[] packed = new double[64];
+    int n = 0;
+    double[] coords = new double[6];
+    double startX = 0, startY = 0, lastX = 0, lastY = 0;
+    for (; !pi.isDone(); pi.next()) {
+      int type = pi.currentSegment(coords);
+      if (type == PathIterator.SEG_MOVETO) {
+        startX = lastX = coords[0];
+        startY = lastY = coords[1];
+        continue;
+      }
+      double x = type == PathIterator.SEG_CLOSE ? startX : coords[0];
+      double y = type == PathIterator.SEG_CLOSE ? startY : coords[1];
+      if (x != lastX || y != lastY) {
+        if (4 * n + 4 > packed.length) {
+          packed = Arrays.copyOf(packed, packed.length * 2);
+        }
+        packed[4 * n] = lastX;
+        packed[4 * n + 1] = lastY;
+        packed[4 * n + 2] = x;
+        packed[4 * n + 3] = y;
+        n++;
+      }
+      lastX = x;
+      lastY = y;
+    }
+    return Arrays.copyOf(packed, 4 * n);
+  }
+
+  private int band(double y) {
+    return Math.max(0, Math.min(nbBands - 1, (int) Math.floor((y - minY) / bandHeight)));
+  }
+
+  private int firstBand(int e) {
+    return band(Math.min(edges[4 * e + 1], edges[4 * e + 3]));
+  }
+
+  private int lastBand(int e) {
+    return band(Math.max(edges[4 * e + 1], edges[4 * e + 3]));
+  }
+
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * @return edges packed as <tt>x1 y1 x2 y2</tt>. Must not be modified
+   */
+  double[] getEdges() {
+    return edges;
+  }
+
+  /**
+   * @return indices of the edges whose bounds overlap <tt>box</tt>, borders included
+   */
+  int[] edgesOverlapping(Rectangle2D box) {
+    if (edgeCount == 0
+        || box.getMinX() > maxX || box.getMaxX() < minX
+        || box.getMinY() > maxY || box.getMaxY() < minY) {
+      return new int[0];
+    }
+    int first = band(box.getMinY());
+    int[] result = new int[16];
+    int n = 0;
+    for (int b = first; b <= band(box.getMaxY()); b++) {
+      for (int e : bands[b]) {
+        // An edge over several bands is only reported from the first one looked at
+        if (Math.max(firstBand(e), first) != b
+            || Math.max(edges[4 * e], edges[4 * e + 2]) < box.getMinX()
+            || Math.min(edges[4 * e], edges[4 * e + 2]) > box.getMaxX()
+            || Math.max(edges[4 * e + 1], edges[4 * e + 3]) < box.getMinY()
+            || Math.min(edges[4 * e + 1], edges[4 * e + 3]) > box.getMaxY()) {
+          continue;
+        }
+        if (n == result.length) {
+          result = Arrays.copyOf(result, 2 * n);
+        }
+        result[n++] = e;
+      }
+    }
+    return Arrays.copyOf(result, n);
+  }
+
+  /**
+   * @param box in the coordinate system of the area
+   * @return {@link Location#BORDER} as soon as the border touches <tt>box</tt>
+   */
+  public Location locate(Rectangle2D box) {
+    if (edgeCount == 0
+        || box.getMinX() > maxX || box.getMaxX() < minX
+        || box.getMinY() > maxY || box.getMaxY() < minY) {
+      return Location.OUTSIDE;
+    }
+    for (int b = band(box.getMinY()); b <= band(box.getMaxY()); b++) {
+      for (int e : bands[b]) {
+        if (touches(e, box)) {
+          return Location.BORDER;
+        }
+      }
+    }
+    // The border does not cross the box, its center tells for all of it
+    return contains(box.getCenterX(), box.getCenterY()) ? Location.INSIDE : Location.OUTSIDE;
+  }
+
+  /**
+   * @return <tt>true</tt> if the point is inside the area, by the winding rule of the area
+   */
+  public boolean contains(double x, double y) {
+    if (edgeCount == 0 || y < minY || y > maxY) {
+      return false;
+    }
+    int winding = 0;
+    for (int e : bands[band(y)]) {
+      double ax = edges[4 * e];
+      double ay = edges[4 * e + 1];
+      double bx = edges[4 * e + 2];
+      double by = edges[4 * e + 3];
+      if ((ay <= y) != (by <= y)
+          && ax + (y - ay) * (bx - ax) / (by - ay) > x) {
+        winding += by > ay ? 1 : -1;
+      }
+    }
+    return evenOdd ? (winding & 1) != 0 : winding != 0;
+  }
+
+  /**
+   * Borders of the box included
+   */
+  private boolean touches(int e, Rectangle2D box) {
+    double ax = edges[4 * e];
+    double ay = edges[4 * e + 1];
+    double bx = edges[4 * e + 2];
+    double by = edges[4 * e + 3];
+    double x0 = box.getMinX();
+    double y0 = box.getMinY();
+    double x1 = box.getMaxX();
+    double y1 = box.getMaxY();
+    if (Math.max(ax, bx) < x0 || Math.min(ax, bx) > x1
+        || Math.max(ay, by) < y0 || Math.min(ay, by) > y1) {
+      return false;
+    }
+    if (ax >= x0 && ax <= x1 && ay >= y0 && ay <= y1) {
+      return true;
+    }
+    return Line2D.linesIntersect(ax, ay, bx, by, x0, y0, x1, y0)
+        || Line2D.linesIntersect(ax, ay, bx, by, x1, y0, x1, y1)
+        || Line2D.linesIntersect(ax, ay, bx, by, x1, y1, x0, y1)
+        || Line2D.linesIntersect(ax, ay, bx, by, x0, y1, x0, y0);
+  }
+}
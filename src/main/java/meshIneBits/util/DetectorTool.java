@@ -33,6 +33,7 @@ package meshIneBits.util;
 import java.awt.geom.Area;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Vector;
 import meshIneBits.Bit2D;
 import meshIneBits.Bit3D;
 import meshIneBits.Pavement;
@@ -51,7 +52,7 @@ public class DetectorTool {
    */
   public static List<Vector2> detectIrregularBits(Pavement pavement) {
     List<Vector2> result = new ArrayList<>();
-    for (Vector2 bitKey : pavement.getBitsKeys()) {
+    for (Vector2 bitKey : pavement.getBitsKeysView()) {
       Bit2D bit = pavement.getBit(bitKey);
       if (checkIrregular(bit)) {
         result.add(bitKey);
@@ -82,18 +83,18 @@ public class DetectorTool {
    * Check if an area is irregular
    *
    * @param area closed zone
-   * @return <tt>true</tt> if a sub surface has no lift point
-   * or <tt>area</tt> is <tt>null</tt> or empty
+   * @return <tt>true</tt> if a sub surface has no lift point,
+   * <tt>area</tt> is <tt>null</tt> or empty, or every boundary of it is too tiny to be kept
    */
   public static boolean checkIrregular(Area area) {
     if (area == null || area.isEmpty()) {
       return true;
     }
-    return AreaTool.segregateArea(area)
-        .stream()
-        .anyMatch(subarea ->
-            AreaTool.getLiftPoint(
-                area,
-                CraftConfig.suckerDiameter / 2) == null);
+    Vector<Area> subareas = AreaTool.segregateArea(area);
+    if (subareas == null || subareas.isEmpty()) {
+      return true;
+    }
+    // Each sub surface has always been checked against the whole area, so it is done once
+    return AreaTool.getLiftPoint(area, CraftConfig.suckerDiameter / 2) == null;
   }
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package meshIneBits.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in buckets of powers of two microseconds. Recording is lock free, so it can be
+ * done from any thread completing a request.
+ */
+public class LatencyHistogram {
+
+  /**
+   * Bucket <tt>i</tt> holds durations in [2^(i-1), 2^i[ microseconds. The last one also holds the
+   * longer ones (more than 35 minutes)
+   */
+  private static final int NB_BUCKETS = 32;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(NB_BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+
+  public void record(long duration, TimeUnit unit) {
+    long nanos = unit.toNanos(duration);
+    long micros = Math.max(0, nanos / 1000);
+    int bucket = Math.min(NB_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    buckets.incrementAndGet(bucket);
+    count.increment();
+    totalNanos.add(nanos);
+  }
+
+  /**
+   * @param startNanos value of {@link System#nanoTime()} when the measured operation began
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * @return mean duration in milliseconds, 0 if nothing was recorded
+   */
+  public double getMean() {
+    long n = count.sum();
+    return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+  }
+
+  /**
+   * @param percentile between 0 and 100
+   * @return upper bound in milliseconds of the bucket holding this percentile, 0 if nothing was
+   * recorded
+   */
+  public double getPercentile(double percentile) {
+    long[] snapshot = new long[NB_BUCKETS];
+    long n = 0;
+    for (int i = 0; i < NB_BUCKETS; i++) {
+      snapshot[i] = buckets.get(i);
+      n += snapshot[i];
+    }
+    if (n == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+    long seen = 0;
+    for (int i = 0; i < NB_BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return (1L << i) / 1000.0;
+      }
+    }
+    return (1L << (NB_BUCKETS - 1)) / 1000.0;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("n=%d, mean=%.2f ms, p50<=%.3f ms, p99<=%.3f ms", getCount(), getMean(),
+        getPercentile(50), getPercentile(99));
+  }
+}
@@ -1,107 +1,378 @@
 package meshIneBits.util;
 
 import java.awt.geom.Area;
-import java.awt.geom.Point2D;
+import java.awt.geom.PathIterator;
 import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Vector;
-import meshIneBits.config.CraftConfig;
 
+/**
+ * Finds the point where the sucker cup grips a bit. The lift point is the point of a 1 mm grid,
+ * anchored on the bounds of the area, which is the closest to the barycenter while keeping the
+ * whole cup on material.
+ * <p>
+ * Grid cells are explored best-first, by their distance to the barycenter, in a quadtree. A cell
+ * is dropped as soon as the distance from its center to the border proves that none of its points
+ * can hold the cup. Border segments are indexed in buckets, so each distance query only checks the
+ * segments around. Results are cached by shape, since many sub-bits are identical in their own
+ * coordinate system.
+ */
 public class LiftPointCalc {
 
   public static final LiftPointCalc instance = new LiftPointCalc();
 
+  /**
+   * Distance between two candidate points
+   */
+  private static final double STEP = 1;
+
+  private static final int CACHE_SIZE = 4096;
+
+  /**
+   * Stands for a cached <tt>null</tt> lift point
+   */
+  private static final Vector2 NO_LIFT_POINT = new Vector2(Double.MAX_VALUE, Double.MAX_VALUE);
+
+  private final Map<ShapeKey, Vector2> cache = new LinkedHashMap<ShapeKey, Vector2>(16, 0.75f,
+      true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<ShapeKey, Vector2> eldest) {
+      return size() > CACHE_SIZE;
+    }
+  };
+
+  /**
+   * Returns the best point to take that bit. By best we mean the point the closest to the
+   * barycenter of the bit and presenting enough material around for the sucker cup to work
+   * properly.
+   *
+   * @param area      surface of bit
+   * @param minRadius half of {@link meshIneBits.config.CraftConfig#suckerDiameter}
+   * @return liftPoint. <tt>null</tt> if area is empty or cannot be lifted
+   */
   public Vector2 getLiftPoint(Area area, double minRadius) {
+    ShapeKey key = new ShapeKey(area, minRadius);
+    Vector2 liftPoint;
+    synchronized (cache) {
+      liftPoint = cache.get(key);
+    }
+    if (liftPoint == null) {
+      liftPoint = computeLiftPoint(area, minRadius);
+      if (liftPoint == null) {
+        liftPoint = NO_LIFT_POINT;
+      }
+      synchronized (cache) {
+        cache.put(key, liftPoint);
+      }
+    }
+    return liftPoint == NO_LIFT_POINT ? null : liftPoint;
+  }
 
+  /**
+   * Forget every computed lift point
+   */
+  public void clearCache() {
+    synchronized (cache) {
+      cache.clear();
+    }
+  }
+
+  private Vector2 computeLiftPoint(Area area, double minRadius) {
     // We check if the barycenter would be ok
     Vector2 barycenter = AreaTool.compute2DPolygonCentroid(area);
     if (barycenter == null) {
       return null;
     }
-    Vector<Vector<Segment2D>> segments = AreaTool.getSegmentsFrom(area);
-    if (area.contains(barycenter.x, barycenter.y)) {
-      // To be sure every other
-      // distances will be smaller
-      double minDist = CraftConfig.lengthFull * 2;
-      for (Vector<Segment2D> polygon : segments) {
-        for (Segment2D segment : polygon) {
-          double dist = segment.distFromPoint(barycenter);
-          if (dist < minDist) {
-            minDist = dist;
-          }
-        }
-      }
-      if (minDist >= minRadius) {
-        return new Vector2(barycenter.x, barycenter.y);
-      }
+    SegmentIndex index = new SegmentIndex(AreaTool.getSegmentsFrom(area), minRadius);
+    if (area.contains(barycenter.x, barycenter.y) && index.holds(barycenter, minRadius)) {
+      return new Vector2(barycenter.x, barycenter.y);
     }
+
     // In case the barycenter is not in the area
     // or the circle of sucker is not fit in the area,
-    // we fill the area with points
+    // we search the grid of points
     Rectangle2D bounds = area.getBounds2D();
-    double stepX = 1;
-    double stepY = 1;
-    double startX = bounds.getMinX();
-    double startY = bounds.getMinY();
-    double endX = bounds.getMaxX();
-    double endY = bounds.getMaxY();
-    Vector<Vector2> points = new Vector<>();
-    for (double x = startX; x <= endX; x += stepX) {
-      for (double y = startY; y <= endY; y += stepY) {
-        Vector2 point = new Vector2(x, y);
-        if (area.contains(new Point2D.Double(point.x, point.y))) {
-          points.add(point);
+    double[] xs = gridCoordinates(bounds.getMinX(), bounds.getMaxX());
+    double[] ys = gridCoordinates(bounds.getMinY(), bounds.getMaxY());
+    if (xs.length == 0 || ys.length == 0) {
+      return null;
+    }
+
+    PriorityQueue<Cell> queue = new PriorityQueue<>();
+    queue.add(new Cell(xs, ys, 0, xs.length, 0, ys.length, barycenter));
+    while (!queue.isEmpty()) {
+      Cell cell = queue.poll();
+      if (cell.isPoint()) {
+        Vector2 point = new Vector2(xs[cell.i0], ys[cell.j0]);
+        if (area.contains(point.x, point.y) && index.holds(point, minRadius)) {
+          // Every point left is farther from barycenter
+          return point;
         }
+        continue;
+      }
+      // Any point of the cell is at most half a diagonal away from its center
+      double halfDiagonal = 0.5 * Math.hypot(xs[cell.i1 - 1] - xs[cell.i0],
+          ys[cell.j1 - 1] - ys[cell.j0]);
+      double centerX = 0.5 * (xs[cell.i0] + xs[cell.i1 - 1]);
+      double centerY = 0.5 * (ys[cell.j0] + ys[cell.j1 - 1]);
+      if (index.isCloserThan(centerX, centerY, minRadius - halfDiagonal - 1e-9)) {
+        continue;
       }
+      cell.split(queue, xs, ys, barycenter);
     }
+    return null;
+  }
 
-    if (points.isEmpty()) {
-      return null;
+  /**
+   * @return coordinates from <tt>start</tt> to <tt>end</tt>, one {@link #STEP} apart
+   */
+  private static double[] gridCoordinates(double start, double end) {
+    double[] coordinates = new double[16];
+    int n = 0;
+    // Accumulate as in a plain loop, so points do not depend on the search
+    for (double c = start; c <= end; c += STEP) {
+      if (n == coordinates.length) {
+        coordinates = Arrays.copyOf(coordinates, 2 * n);
+      }
+      coordinates[n++] = c;
     }
+    return Arrays.copyOf(coordinates, n);
+  }
+
+  /**
+   * A block of grid points, ordered by its distance to the barycenter. For equal distances, blocks
+   * come before single points so that points are visited in the order of the grid.
+   */
+  private static class Cell implements Comparable<Cell> {
+
+    final int i0, i1, j0, j1;
+    final double distance;
 
-    // We sort the points by their distance from the barycenter, the smaller
-    // distances on top
-    Vector<Double> distances = new Vector<>();
-    Vector<Vector2> sortedPoints = new Vector<>();
-    distances.add(
-        Math.sqrt(Vector2.dist2(new Vector2(points.get(0).x, points.get(0).y), barycenter)));
-    sortedPoints.add(points.get(0));
-    for (int j = 1; j < points.size(); j++) {
-      double distance = Math.sqrt(
-          Vector2.dist2(new Vector2(points.get(j).x, points.get(j).y), barycenter));
-      boolean addAtTheEnd = true;
-      for (int i = 0; i < distances.size(); i++) {
-        if (distance < distances.get(i)) {
-          distances.insertElementAt(distance, i);
-          sortedPoints.insertElementAt(points.get(j), i);
-          addAtTheEnd = false;
-          break;
+    Cell(double[] xs, double[] ys, int i0, int i1, int j0, int j1, Vector2 barycenter) {
+      this.i0 = i0;
+      this.i1 = i1;
+      this.j0 = j0;
+      this.j1 = j1;
+      if (isPoint()) {
+        distance = Math.sqrt(Vector2.dist2(new Vector2(xs[i0], ys[j0]), barycenter));
+      } else {
+        double dx = Math.max(0, Math.max(xs[i0] - barycenter.x, barycenter.x - xs[i1 - 1]));
+        double dy = Math.max(0, Math.max(ys[j0] - barycenter.y, barycenter.y - ys[j1 - 1]));
+        // Lower bound, kept below the exact distance of any point inside
+        distance = Math.sqrt(dx * dx + dy * dy) - 1e-9;
+      }
+    }
+
+    boolean isPoint() {
+      return i1 - i0 == 1 && j1 - j0 == 1;
+    }
+
+    void split(PriorityQueue<Cell> queue, double[] xs, double[] ys, Vector2 barycenter) {
+      int im = i1 - i0 > 1 ? (i0 + i1) >>> 1 : i1;
+      int jm = j1 - j0 > 1 ? (j0 + j1) >>> 1 : j1;
+      queue.add(new Cell(xs, ys, i0, im, j0, jm, barycenter));
+      if (jm < j1) {
+        queue.add(new Cell(xs, ys, i0, im, jm, j1, barycenter));
+      }
+      if (im < i1) {
+        queue.add(new Cell(xs, ys, im, i1, j0, jm, barycenter));
+        if (jm < j1) {
+          queue.add(new Cell(xs, ys, im, i1, jm, j1, barycenter));
         }
       }
-      if (addAtTheEnd) {
-        distances.addElement(distance);
-        sortedPoints.add(points.get(j));
+    }
+
+    @Override
+    public int compareTo(Cell o) {
+      int c = Double.compare(distance, o.distance);
+      if (c != 0) {
+        return c;
+      }
+      c = Boolean.compare(isPoint(), o.isPoint());
+      if (c != 0) {
+        return c;
       }
+      c = Integer.compare(i0, o.i0);
+      return c != 0 ? c : Integer.compare(j0, o.j0);
     }
+  }
+
+  /**
+   * Border segments, bucketed on a regular grid
+   */
+  private static class SegmentIndex {
 
-    // We review each points and check if it is far enough from the edges to
-    // fit the sucker cup, the first one to be ok will be the liftPoint
-    Vector2 liftPoint = null;
-    for (Vector2 p : sortedPoints) {
-      // To be sure every other distances will be smaller
-      double minDistFromBounds = CraftConfig.lengthFull * 2;
-      for (Vector<Segment2D> polygon : segments) {
-        for (Segment2D segment : polygon) {
-          double dist = segment.distFromPoint(new Vector2(p.x, p.y));
-          if (dist < minDistFromBounds) {
-            minDistFromBounds = dist;
+    private static final int MAX_BUCKETS_PER_SIDE = 64;
+
+    private final double minX, minY, bucketSize;
+    private final int columns, rows;
+    private final List<List<Segment2D>> buckets;
+    /**
+     * Zero length segments, whose distance is measured differently
+     */
+    private final List<Segment2D> points = new ArrayList<>();
+
+    SegmentIndex(Vector<Vector<Segment2D>> polygons, double radius) {
+      double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE;
+      double x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+      for (Vector<Segment2D> polygon : polygons) {
+        for (Segment2D s : polygon) {
+          x0 = Math.min(x0, Math.min(s.start.x, s.end.x));
+          y0 = Math.min(y0, Math.min(s.start.y, s.end.y));
+          x1 = Math.max(x1, Math.max(s.start.x, s.end.x));
+          y1 = Math.max(y1, Math.max(s.start.y, s.end.y));
+        }
+      }
+      if (x0 > x1) {
+        x0 = y0 = x1 = y1 = 0;
+      }
+      minX = x0;
+      minY = y0;
+      bucketSize = Math.max(Math.max(radius, STEP),
+          Math.max(x1 - x0, y1 - y0) / MAX_BUCKETS_PER_SIDE);
+      columns = (int) ((x1 - x0) / bucketSize) + 1;
+      rows = (int) ((y1 - y0) / bucketSize) + 1;
+      buckets = new ArrayList<>(columns * rows);
+      for (int i = 0; i < columns * rows; i++) {
+        buckets.add(new ArrayList<>());
+      }
+      for (Vector<Segment2D> polygon : polygons) {
+        for (Segment2D s : polygon) {
+          if (s.start.x == s.end.x && s.start.y == s.end.y) {
+            points.add(s);
+            continue;
+          }
+          int c0 = column(Math.min(s.start.x, s.end.x));
+          int c1 = column(Math.max(s.start.x, s.end.x));
+          int r0 = row(Math.min(s.start.y, s.end.y));
+          int r1 = row(Math.max(s.start.y, s.end.y));
+          for (int c = c0; c <= c1; c++) {
+            for (int r = r0; r <= r1; r++) {
+              buckets.get(r * columns + c)
+                  .add(s);
+            }
+          }
+        }
+      }
+    }
+
+    private int column(double x) {
+      return Math.max(0, Math.min(columns - 1, (int) Math.floor((x - minX) / bucketSize)));
+    }
+
+    private int row(double y) {
+      return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - minY) / bucketSize)));
+    }
+
+    /**
+     * @return <tt>true</tt> if no segment is closer than <tt>radius</tt> to <tt>p</tt>, measured
+     * as {@link Segment2D#distFromPoint(Vector2)}
+     */
+    boolean holds(Vector2 p, double radius) {
+      for (Segment2D s : points) {
+        if (s.distFromPoint(p) < radius) {
+          return false;
+        }
+      }
+      int c1 = column(p.x + radius);
+      int r1 = row(p.y + radius);
+      for (int c = column(p.x - radius); c <= c1; c++) {
+        for (int r = row(p.y - radius); r <= r1; r++) {
+          for (Segment2D s : buckets.get(r * columns + c)) {
+            if (s.distFromPoint(p) < radius) {
+              return false;
+            }
+          }
+        }
+      }
+      return true;
+    }
+
+    /**
+     * @return <tt>true</tt> if a segment passes closer than <tt>limit</tt> to <tt>(x, y)</tt>
+     */
+    boolean isCloserThan(double x, double y, double limit) {
+      if (limit <= 0) {
+        return false;
+      }
+      // Zero length segments are left out, the lift point test does not measure them as a distance
+      double limit2 = limit * limit;
+      int c1 = column(x + limit);
+      int r1 = row(y + limit);
+      for (int c = column(x - limit); c <= c1; c++) {
+        for (int r = row(y - limit); r <= r1; r++) {
+          for (Segment2D s : buckets.get(r * columns + c)) {
+            if (distance2(s, x, y) < limit2) {
+              return true;
+            }
           }
         }
       }
-      if (minDistFromBounds >= minRadius) {
-        liftPoint = p;
-        break;
+      return false;
+    }
+
+    private static double distance2(Segment2D s, double x, double y) {
+      double vx = s.end.x - s.start.x;
+      double vy = s.end.y - s.start.y;
+      double l2 = vx * vx + vy * vy;
+      double t = l2 == 0 ? 0
+          : Math.max(0, Math.min(1, ((x - s.start.x) * vx + (y - s.start.y) * vy) / l2));
+      double dx = s.start.x + t * vx - x;
+      double dy = s.start.y + t * vy - y;
+      return dx * dx + dy * dy;
+    }
+  }
+
+  /**
+   * Exact outline of an area and the radius asked
+   */
+  private static class ShapeKey {
+
+    private final double[] coordinates;
+    private final int hash;
+
+    ShapeKey(Area area, double radius) {
+      double[] values = new double[64];
+      int n = 0;
+      double[] coords = new double[6];
+      PathIterator pi = area.getPathIterator(null);
+      values[n++] = pi.getWindingRule();
+      for (; !pi.isDone(); pi.next()) {
+        int type = pi.currentSegment(coords);
+        // Every point of a segment, the first ones of a curve are its control points
+        int count = type == PathIterator.SEG_CLOSE ? 0
+            : type == PathIterator.SEG_QUADTO ? 4 : type == PathIterator.SEG_CUBICTO ? 6 : 2;
+        if (n + 1 + count > values.length) {
+          values = Arrays.copyOf(values, 2 * values.length + count);
+        }
+        values[n++] = type;
+        for (int i = 0; i < count; i++) {
+          values[n++] = coords[i];
+        }
+      }
+      if (n + 1 > values.length) {
+        values = Arrays.copyOf(values, n + 1);
       }
+      values[n++] = radius;
+      coordinates = Arrays.copyOf(values, n);
+      hash = Arrays.hashCode(coordinates);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof ShapeKey
+          && hash == ((ShapeKey) o).hash
+          && Arrays.equals(coordinates, ((ShapeKey) o).coordinates);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
     }
-    return liftPoint;
   }
 }
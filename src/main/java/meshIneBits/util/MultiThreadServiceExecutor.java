@@ -2,46 +2,175 @@ package meshIneBits.util;
 
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Executes background tasks and keeps count of them. {@link #instance} is the central compute
+ * scheduler, a work-stealing pool sized from the available cores. {@link #ioInstance} runs
+ * blocking tasks (files, machines, polling loops) on virtual threads, so they never hold a compute
+ * worker.
+ */
 public class MultiThreadServiceExecutor implements ITheardServiceExecutor {
 
   public static final MultiThreadServiceExecutor instance = new MultiThreadServiceExecutor(
-      ThreadPoolType.FIXED, 5);
+      ThreadPoolType.WORK_STEALING, 0);
 
-  public enum ThreadPoolType {SINGLE, FIXED, CACHED}
+  public static final MultiThreadServiceExecutor ioInstance = new MultiThreadServiceExecutor(
+      ThreadPoolType.VIRTUAL, 0);
+
+  public enum ThreadPoolType {SINGLE, FIXED, CACHED, WORK_STEALING, VIRTUAL}
 
   private ExecutorService service;
+  private final AtomicInteger activeTasks = new AtomicInteger();
+  private final AtomicLong completedTasks = new AtomicLong();
 
+  /**
+   * @param type     kind of pool
+   * @param nbThread size of a {@link ThreadPoolType#FIXED} or {@link ThreadPoolType#WORK_STEALING}
+   *                 pool. Non positive means one thread per available core
+   */
   public MultiThreadServiceExecutor(ThreadPoolType type, int nbThread) {
+    if (nbThread <= 0) {
+      nbThread = Runtime.getRuntime()
+          .availableProcessors();
+    }
     switch (type) {
-      case SINGLE:
-        ;
-        service = Executors.newSingleThreadExecutor();
-        break;
       case FIXED:
-        service = Executors.newFixedThreadPool(nbThread);
+        service = new ThreadPoolExecutor(nbThread, nbThread, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>());
         break;
       case CACHED:
         service = Executors.newCachedThreadPool();
         break;
+      case WORK_STEALING:
+        service = new ForkJoinPool(nbThread, ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+            null, true);
+        break;
+      case VIRTUAL:
+        service = Executors.newVirtualThreadPerTaskExecutor();
+        break;
+      case SINGLE:
       default:
-        service = Executors.newSingleThreadExecutor();
+        service = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>());
         break;
     }
   }
 
   public void execute(Runnable runnable) {
-    service.execute(runnable);
+    service.execute(track(runnable));
   }
 
   public <V> Future<V> submit(Callable<V> callable) {
-    Future<V> result = service.submit(callable);
+    Future<V> result = service.submit(track(callable));
     return result;
   }
 
+  public Future<?> submit(Runnable runnable) {
+    return service.submit(track(runnable));
+  }
+
+  /**
+   * Run <tt>action</tt> on a work-stealing pool and wait for it. The parallel streams opened by
+   * <tt>action</tt> are then bounded by that pool instead of the common one.
+   *
+   * @param action      parallel computation
+   * @param parallelism maximum number of threads. Non positive, or not lower than the size of this
+   *                    pool, runs on this pool. Otherwise a dedicated pool of that size is used
+   * @throws RuntimeException the exception thrown by <tt>action</tt>, or a {@link
+   *                          CancellationException} if the waiting thread is interrupted
+   */
+  public void invokeParallel(Runnable action, int parallelism) {
+    ForkJoinPool pool;
+    boolean dedicated = false;
+    if (service instanceof ForkJoinPool
+        && (parallelism <= 0 || parallelism >= ((ForkJoinPool) service).getParallelism())) {
+      pool = (ForkJoinPool) service;
+      Thread current = Thread.currentThread();
+      if (current instanceof ForkJoinWorkerThread
+          && ((ForkJoinWorkerThread) current).getPool() == pool) {
+        // Already inside, streams will fork here
+        action.run();
+        return;
+      }
+    } else {
+      pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime()
+          .availableProcessors());
+      dedicated = true;
+    }
+    try {
+      pool.submit(track(action))
+          .get();
+    } catch (InterruptedException e) {
+      Thread.currentThread()
+          .interrupt();
+      CancellationException cancellation = new CancellationException("Interrupted");
+      cancellation.initCause(e);
+      throw cancellation;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    } finally {
+      if (dedicated) {
+        pool.shutdown();
+      }
+    }
+  }
+
+  /**
+   * @return a new group of tasks on this executor, which can be cancelled together
+   */
+  public TaskGroup newTaskGroup() {
+    return new TaskGroup();
+  }
+
+  /**
+   * @return number of tasks waiting for a thread. Always 0 on virtual threads
+   */
+  public long getQueuedTaskCount() {
+    if (service instanceof ForkJoinPool) {
+      ForkJoinPool pool = (ForkJoinPool) service;
+      return pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount();
+    }
+    if (service instanceof ThreadPoolExecutor) {
+      return ((ThreadPoolExecutor) service).getQueue()
+          .size();
+    }
+    return 0;
+  }
+
+  /**
+   * @return number of tasks currently running
+   */
+  public int getActiveTaskCount() {
+    return activeTasks.get();
+  }
+
+  /**
+   * @return number of tasks which have finished, normally or not
+   */
+  public long getCompletedTaskCount() {
+    return completedTasks.get();
+  }
+
   public void shutdownService() {
     service.shutdown();
   }
@@ -49,4 +178,113 @@ public class MultiThreadServiceExecutor implements ITheardServiceExecutor {
   public List<Runnable> shutdownNowService() {
     return service.shutdownNow();
   }
+
+  @Override
+  public String toString() {
+    return "MultiThreadServiceExecutor{queued=" + getQueuedTaskCount()
+        + ", active=" + getActiveTaskCount()
+        + ", completed=" + getCompletedTaskCount() + "}";
+  }
+
+  private Runnable track(Runnable runnable) {
+    return () -> {
+      activeTasks.incrementAndGet();
+      try {
+        runnable.run();
+      } finally {
+        activeTasks.decrementAndGet();
+        completedTasks.incrementAndGet();
+      }
+    };
+  }
+
+  private <V> Callable<V> track(Callable<V> callable) {
+    return () -> {
+      activeTasks.incrementAndGet();
+      try {
+        return callable.call();
+      } finally {
+        activeTasks.decrementAndGet();
+        completedTasks.incrementAndGet();
+      }
+    };
+  }
+
+  /**
+   * Tasks of one job, such as the paving or the optimization of a mesh. Cancelling the group drops
+   * the tasks not started yet. Running tasks are not interrupted, as the work-stealing scheduler
+   * ignores interrupts: long tasks must check {@link #isCancelled()} between their steps.
+   */
+  public class TaskGroup {
+
+    private final List<Future<?>> futures = new CopyOnWriteArrayList<>();
+    /**
+     * Results handed out by {@link #runAsync(Runnable)}, cancelled with the group
+     */
+    private final List<CompletableFuture<Void>> results = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled = false;
+
+    private TaskGroup() {
+    }
+
+    /**
+     * Submit a task of the group. Ignored once the group is cancelled.
+     */
+    public void execute(Runnable runnable) {
+      if (cancelled) {
+        return;
+      }
+      futures.add(submit(() -> {
+        if (!cancelled) {
+          runnable.run();
+        }
+      }));
+    }
+
+    /**
+     * Submit a task of the group and follow its end. The result is cancelled if the group drops
+     * the task, so that waiting on it never hangs.
+     *
+     * @return completed after the task, exceptionally if it throws. Cancelled if the group is
+     * cancelled before the task has run
+     */
+    public CompletableFuture<Void> runAsync(Runnable runnable) {
+      CompletableFuture<Void> result = new CompletableFuture<>();
+      results.add(result);
+      execute(() -> {
+        if (result.isDone()) {
+          return;
+        }
+        try {
+          runnable.run();
+          result.complete(null);
+        } catch (Throwable t) {
+          result.completeExceptionally(t);
+        }
+      });
+      // Cancelled meanwhile, the task may have been dropped
+      if (cancelled) {
+        result.cancel(false);
+      }
+      return result;
+    }
+
+    public void cancel() {
+      cancelled = true;
+      futures.forEach(future -> future.cancel(false));
+      results.forEach(result -> result.cancel(false));
+    }
+
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    /**
+     * @return <tt>true</tt> if every submitted task has finished or been cancelled
+     */
+    public boolean isDone() {
+      return futures.stream()
+          .allMatch(Future::isDone);
+    }
+  }
 }
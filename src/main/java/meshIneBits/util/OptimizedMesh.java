@@ -33,8 +33,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import meshIneBits.Bit2D;
 import meshIneBits.Bit3D;
 import meshIneBits.Layer;
@@ -46,7 +44,6 @@ public class OptimizedMesh {
   private Map<Integer, List<Bit3D>> mapBitNotFullLength;
   private List<Map<Bit3D, List<Bit3D>>> listToOptimized;
   private List<Layer> layers;
-  private ExecutorService executorService = Executors.newSingleThreadExecutor();
 
   public OptimizedMesh() {
   }
@@ -61,7 +58,7 @@ public class OptimizedMesh {
     if (mesh == null) {
       throw new NullPointerException("mesh is null");
     }
-    executorService.execute(() -> {
+    MultiThreadServiceExecutor.instance.execute(() -> {
       for (Layer layer : layers) {
         if (!layer.isPaved()) {
           continue;
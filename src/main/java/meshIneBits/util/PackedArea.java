@@ -0,0 +1,798 @@
+package meshIneBits.util;
+
+import java.awt.Shape;
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Surface bounded by polygonal rings, each kept as packed <tt>x y</tt> coordinates. Lighter than
+ * {@link Area} for the boolean operations of paving: no curve, one array per ring and no
+ * intermediate object per edge.
+ * <p>
+ * Rings never cross each other. Outer boundaries turn counter clockwise and holes clockwise, so
+ * the surface is always on the left of an edge. Instances are immutable, and may be shared
+ * between threads.
+ * <p>
+ * Boolean operations split the edges of both operands where they meet, keep the pieces on the
+ * right side of the other operand, then link them back into rings. Only the edges within the
+ * bounds of both operands are looked at, so cutting a bit by a whole section only costs the
+ * edges of the section around the bit.
+ */
+public final class PackedArea {
+
+  /**
+   * Points closer than this, in mm, are the same
+   */
+  static final double SNAP = 1e-7;
+  /**
+   * Side of the cells used to find close points. Only points closer than {@link #SNAP} to the
+   * side of their cell need to look into the next cells.
+   */
+  private static final double CELL = 64 * SNAP;
+
+  private static final PackedArea EMPTY = new PackedArea(new double[0][]);
+
+  private enum Operation {INTERSECTION, UNION, DIFFERENCE}
+
+  /**
+   * Packed <tt>x y</tt> of each ring, the last point linked back to the first one
+   */
+  private final double[][] rings;
+  private final double minX, minY, maxX, maxY;
+  private volatile BorderIndex border;
+
+  private PackedArea(double[][] rings) {
+    this.rings = rings;
+    double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+    double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+    for (double[] ring : rings) {
+      for (int i = 0; i < ring.length; i += 2) {
+        x0 = Math.min(x0, ring[i]);
+        y0 = Math.min(y0, ring[i + 1]);
+        x1 = Math.max(x1, ring[i]);
+        y1 = Math.max(y1, ring[i + 1]);
+      }
+    }
+    minX = x0;
+    minY = y0;
+    maxX = x1;
+    maxY = y1;
+  }
+
+  public static PackedArea empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Curves are flattened. The rings of <tt>shape</tt> must not cross each other, which is always
+   * the case for an {@link Area}.
+   */
+  public static PackedArea of(Shape shape) {
+    List<double[]> rings = new ArrayList<>();
+    double[] ring = new double[16];
+    int n = 0;
+    double[] coords = new double[6];
+    for (PathIterator pi = shape.getPathIterator(null, BorderIndex.FLATNESS); !pi.isDone();
+        pi.next()) {
+      int type = pi.currentSegment(coords);
+      if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_CLOSE) {
+        addRing(rings, ring, n);
+        n = 0;
+        if (type == PathIterator.SEG_CLOSE) {
+          continue;
+        }
+      }
+      if (n >= 2 && ring[n - 2] == coords[0] && ring[n - 1] == coords[1]) {
+        continue;
+      }
+      if (n + 2 > ring.length) {
+        ring = Arrays.copyOf(ring, 2 * ring.length);
+      }
+      ring[n++] = coords[0];
+      ring[n++] = coords[1];
+    }
+    addRing(rings, ring, n);
+    return rings.isEmpty() ? EMPTY : new PackedArea(orient(rings));
+  }
+
+  private static void addRing(List<double[]> rings, double[] ring, int n) {
+    // The closing point repeats the first one
+    if (n >= 4 && ring[0] == ring[n - 2] && ring[1] == ring[n - 1]) {
+      n -= 2;
+    }
+    if (n >= 6 && signedArea(ring, n) != 0) {
+      rings.add(Arrays.copyOf(ring, n));
+    }
+  }
+
+  /**
+   * Turn rings at an even depth counter clockwise, the others clockwise
+   */
+  private static double[][] orient(List<double[]> rings) {
+    double[][] result = new double[rings.size()][];
+    for (int i = 0; i < rings.size(); i++) {
+      double[] ring = rings.get(i);
+      int depth = 0;
+      for (int j = 0; j < rings.size(); j++) {
+        if (j != i && ringContains(rings.get(j), ring[0], ring[1])) {
+          depth++;
+        }
+      }
+      boolean counterClockwise = signedArea(ring, ring.length) > 0;
+      result[i] = counterClockwise == (depth % 2 == 0) ? ring : reverse(ring);
+    }
+    return result;
+  }
+
+  private static double[] reverse(double[] ring) {
+    double[] reversed = new double[ring.length];
+    for (int i = 0; i < ring.length; i += 2) {
+      reversed[ring.length - 2 - i] = ring[i];
+      reversed[ring.length - 1 - i] = ring[i + 1];
+    }
+    return reversed;
+  }
+
+  /**
+   * @return twice the area, positive if counter clockwise
+   */
+  private static double signedArea(double[] ring, int n) {
+    double sum = 0;
+    for (int i = 0; i < n; i += 2) {
+      int j = (i + 2) % n;
+      sum += ring[i] * ring[j + 1] - ring[j] * ring[i + 1];
+    }
+    return sum;
+  }
+
+  private static boolean ringContains(double[] ring, double x, double y) {
+    boolean inside = false;
+    for (int i = 0, j = ring.length - 2; i < ring.length; j = i, i += 2) {
+      if ((ring[i + 1] <= y) != (ring[j + 1] <= y)
+          && ring[i] + (y - ring[i + 1]) * (ring[j] - ring[i]) / (ring[j + 1] - ring[i + 1])
+          > x) {
+        inside = !inside;
+      }
+    }
+    return inside;
+  }
+
+  public Path2D.Double toPath2D() {
+    Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO);
+    for (double[] ring : rings) {
+      path.moveTo(ring[0], ring[1]);
+      for (int i = 2; i < ring.length; i += 2) {
+        path.lineTo(ring[i], ring[i + 1]);
+      }
+      path.closePath();
+    }
+    return path;
+  }
+
+  public Area toArea() {
+    return new Area(toPath2D());
+  }
+
+  public boolean isEmpty() {
+    return rings.length == 0;
+  }
+
+  public int getRingCount() {
+    return rings.length;
+  }
+
+  /**
+   * @return packed <tt>x y</tt> of the ring, counter clockwise if it is an outer boundary
+   */
+  public double[] getRing(int index) {
+    return rings[index].clone();
+  }
+
+  /**
+   * @return <tt>null</tt> if empty
+   */
+  public Rectangle2D getBounds2D() {
+    return isEmpty() ? null : new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+  }
+
+  /**
+   * @return area of the surface, holes excluded
+   */
+  public double area() {
+    double sum = 0;
+    for (double[] ring : rings) {
+      sum += signedArea(ring, ring.length);
+    }
+    return sum / 2;
+  }
+
+  /**
+   * @return center of mass of the surface. <tt>null</tt> if it has no area
+   */
+  public Vector2 centroid() {
+    double sum = 0, cx = 0, cy = 0;
+    for (double[] ring : rings) {
+      for (int i = 0; i < ring.length; i += 2) {
+        int j = (i + 2) % ring.length;
+        double cross = ring[i] * ring[j + 1] - ring[j] * ring[i + 1];
+        sum += cross;
+        cx += (ring[i] + ring[j]) * cross;
+        cy += (ring[i + 1] + ring[j + 1]) * cross;
+      }
+    }
+    if (sum == 0) {
+      return null;
+    }
+    return new Vector2(cx / (3 * sum), cy / (3 * sum));
+  }
+
+  public boolean contains(double x, double y) {
+    return getBorder().contains(x, y);
+  }
+
+  /**
+   * @see BorderIndex#locate(Rectangle2D)
+   */
+  public BorderIndex.Location locate(Rectangle2D box) {
+    return getBorder().locate(box);
+  }
+
+  BorderIndex getBorder() {
+    BorderIndex index = border;
+    if (index == null) {
+      int count = 0;
+      for (double[] ring : rings) {
+        count += ring.length / 2;
+      }
+      double[] edges = new double[4 * count];
+      int e = 0;
+      for (double[] ring : rings) {
+        for (int i = 0; i < ring.length; i += 2) {
+          int j = (i + 2) % ring.length;
+          edges[e++] = ring[i];
+          edges[e++] = ring[i + 1];
+          edges[e++] = ring[j];
+          edges[e++] = ring[j + 1];
+        }
+      }
+      // Computed again at worst, by concurrent threads
+      index = new BorderIndex(edges, false);
+      border = index;
+    }
+    return index;
+  }
+
+  /**
+   * @param keep whether a ring is kept, from its bounds
+   * @return surface of the rings kept. A hole whose outer boundary is dropped is dropped as well by
+   * {@link #getComponents()}
+   */
+  public PackedArea filterRings(Predicate<Rectangle2D> keep) {
+    List<double[]> kept = new ArrayList<>(rings.length);
+    for (double[] ring : rings) {
+      double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+      double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < ring.length; i += 2) {
+        x0 = Math.min(x0, ring[i]);
+        y0 = Math.min(y0, ring[i + 1]);
+        x1 = Math.max(x1, ring[i]);
+        y1 = Math.max(y1, ring[i + 1]);
+      }
+      if (keep.test(new Rectangle2D.Double(x0, y0, x1 - x0, y1 - y0))) {
+        kept.add(ring);
+      }
+    }
+    if (kept.size() == rings.length) {
+      return this;
+    }
+    return kept.isEmpty() ? EMPTY : new PackedArea(kept.toArray(new double[0][]));
+  }
+
+  /**
+   * Split into surfaces of a single outer boundary, each with its holes
+   */
+  public List<PackedArea> getComponents() {
+    List<double[]> outers = new ArrayList<>();
+    List<List<double[]>> components = new ArrayList<>();
+    for (double[] ring : rings) {
+      if (signedArea(ring, ring.length) > 0) {
+        outers.add(ring);
+        List<double[]> component = new ArrayList<>();
+        component.add(ring);
+        components.add(component);
+      }
+    }
+    for (double[] ring : rings) {
+      if (signedArea(ring, ring.length) > 0) {
+        continue;
+      }
+      // The smallest outer boundary around the hole
+      int owner = -1;
+      double ownerArea = Double.POSITIVE_INFINITY;
+      for (int i = 0; i < outers.size(); i++) {
+        double area = signedArea(outers.get(i), outers.get(i).length);
+        if (area < ownerArea && ringContains(outers.get(i), ring[0], ring[1])) {
+          owner = i;
+          ownerArea = area;
+        }
+      }
+      if (owner >= 0) {
+        components.get(owner)
+            .add(ring);
+      }
+    }
+    List<PackedArea> result = new ArrayList<>(components.size());
+    for (List<double[]> component : components) {
+      result.add(new PackedArea(component.toArray(new double[0][])));
+    }
+    return result;
+  }
+
+  public PackedArea intersect(PackedArea other) {
+    return combine(other, Operation.INTERSECTION);
+  }
+
+  public PackedArea union(PackedArea other) {
+    return combine(other, Operation.UNION);
+  }
+
+  public PackedArea subtract(PackedArea other) {
+    return combine(other, Operation.DIFFERENCE);
+  }
+
+  private PackedArea combine(PackedArea other, Operation operation) {
+    if (isEmpty() || other.isEmpty()) {
+      switch (operation) {
+        case INTERSECTION:
+          return EMPTY;
+        case UNION:
+          return isEmpty() ? other : this;
+        default:
+          return this;
+      }
+    }
+    Rectangle2D common = new Rectangle2D.Double(
+        Math.max(minX, other.minX) - SNAP, Math.max(minY, other.minY) - SNAP,
+        Math.min(maxX, other.maxX) - Math.max(minX, other.minX) + 2 * SNAP,
+        Math.min(maxY, other.maxY) - Math.max(minY, other.minY) + 2 * SNAP);
+    if (common.getWidth() < 0 || common.getHeight() < 0) {
+      switch (operation) {
+        case INTERSECTION:
+          return EMPTY;
+        case UNION:
+          double[][] both = Arrays.copyOf(rings, rings.length + other.rings.length);
+          System.arraycopy(other.rings, 0, both, rings.length, other.rings.length);
+          return new PackedArea(both);
+        default:
+          return this;
+      }
+    }
+    return new Combination(this, other, common, operation).run();
+  }
+
+  /**
+   * One boolean operation. Edges out of the common bounds are out of the other operand, so they
+   * are kept or dropped as a whole. The others are split where they meet, then each piece is kept
+   * depending on which side of the other operand it lies.
+   */
+  private static class Combination {
+
+    private final PackedArea a, b;
+    private final Operation operation;
+    private final Rectangle2D common;
+
+    /**
+     * Coordinates of the vertices, by index
+     */
+    private double[] vertices = new double[64];
+    private int vertexCount = 0;
+    /**
+     * Vertices by cell of {@link #CELL}, to merge close points
+     */
+    private final Map<Long, int[]> vertexCells = new HashMap<>();
+
+    /**
+     * Kept edges, as pairs of vertex indices
+     */
+    private int[] kept = new int[64];
+    private int keptCount = 0;
+
+    Combination(PackedArea a, PackedArea b, Rectangle2D common, Operation operation) {
+      this.a = a;
+      this.b = b;
+      this.common = common;
+      this.operation = operation;
+    }
+
+    PackedArea run() {
+      double[] edgesA = a.getBorder()
+          .getEdges();
+      double[] edgesB = b.getBorder()
+          .getEdges();
+      int[] activeA = a.getBorder()
+          .edgesOverlapping(common);
+      int[] activeB = b.getBorder()
+          .edgesOverlapping(common);
+      if (operation != Operation.INTERSECTION) {
+        keepWhole(edgesA, activeA);
+      }
+      if (operation == Operation.UNION) {
+        keepWhole(edgesB, activeB);
+      }
+
+      List<List<double[]>> splitsA = splits(activeA.length);
+      List<List<double[]>> splitsB = splits(activeB.length);
+      findCrossings(edgesA, activeA, splitsA, edgesB, activeB, splitsB);
+      int[] piecesA = pieces(edgesA, activeA, splitsA);
+      int[] piecesB = pieces(edgesB, activeB, splitsB);
+
+      // Pieces of B by their ends, to find the pieces both operands share
+      Map<Long, Integer> piecesOfB = new HashMap<>();
+      for (int i = 0; i < piecesB.length; i += 2) {
+        piecesOfB.put(pair(piecesB[i], piecesB[i + 1]), i);
+      }
+      boolean[] sharedB = new boolean[piecesB.length / 2];
+      for (int i = 0; i < piecesA.length; i += 2) {
+        int from = piecesA[i];
+        int to = piecesA[i + 1];
+        Integer same = piecesOfB.get(pair(from, to));
+        Integer opposite = piecesOfB.get(pair(to, from));
+        if (same != null) {
+          // Surfaces on the same side
+          sharedB[same / 2] = true;
+          if (operation != Operation.DIFFERENCE) {
+            keep(from, to);
+          }
+        } else if (opposite != null) {
+          // Surfaces on both sides
+          sharedB[opposite / 2] = true;
+          if (operation == Operation.DIFFERENCE) {
+            keep(from, to);
+          }
+        } else if (isInside(b, from, to) == (operation == Operation.INTERSECTION)) {
+          keep(from, to);
+        }
+      }
+      for (int i = 0; i < piecesB.length; i += 2) {
+        if (sharedB[i / 2]) {
+          continue;
+        }
+        int from = piecesB[i];
+        int to = piecesB[i + 1];
+        boolean inside = isInside(a, from, to);
+        if (operation == Operation.UNION && !inside) {
+          keep(from, to);
+        } else if (operation == Operation.INTERSECTION && inside) {
+          keep(from, to);
+        } else if (operation == Operation.DIFFERENCE && inside) {
+          keep(to, from);
+        }
+      }
+      return link();
+    }
+
+    private static List<List<double[]>> splits(int count) {
+      List<List<double[]>> splits = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        splits.add(null);
+      }
+      return splits;
+    }
+
+    private static long pair(int from, int to) {
+      return ((long) from << 32) | (to & 0xffffffffL);
+    }
+
+    /**
+     * Keep the edges not overlapping the common bounds
+     */
+    private void keepWhole(double[] edges, int[] active) {
+      boolean[] isActive = new boolean[edges.length / 4];
+      for (int e : active) {
+        isActive[e] = true;
+      }
+      for (int e = 0; e < isActive.length; e++) {
+        if (!isActive[e]) {
+          keep(vertex(edges[4 * e], edges[4 * e + 1]), vertex(edges[4 * e + 2], edges[4 * e + 3]));
+        }
+      }
+    }
+
+    /**
+     * Sweep the edges of both operands along x, and note where an edge of one meets an edge of the
+     * other
+     */
+    private void findCrossings(double[] edgesA, int[] activeA, List<List<double[]>> splitsA,
+        double[] edgesB, int[] activeB, List<List<double[]>> splitsB) {
+      int n = activeA.length + activeB.length;
+      // Index in activeA, or in activeB shifted by activeA.length, sorted by smallest x
+      Integer[] order = new Integer[n];
+      for (int i = 0; i < n; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (i, j) -> Double.compare(
+          minX(i, edgesA, activeA, edgesB, activeB), minX(j, edgesA, activeA, edgesB, activeB)));
+      List<Integer> openA = new ArrayList<>();
+      List<Integer> openB = new ArrayList<>();
+      for (int k : order) {
+        double x = minX(k, edgesA, activeA, edgesB, activeB);
+        boolean ofA = k < activeA.length;
+        List<Integer> others = ofA ? openB : openA;
+        // Edges of the other operand ending before this one starts are done
+        others.removeIf(o -> maxX(o, edgesA, activeA, edgesB, activeB) < x - SNAP);
+        for (int o : others) {
+          if (ofA) {
+            cross(edgesA, activeA[k], splitsA, k, edgesB, activeB[o - activeA.length], splitsB,
+                o - activeA.length);
+          } else {
+            cross(edgesA, activeA[o], splitsA, o, edgesB, activeB[k - activeA.length], splitsB,
+                k - activeA.length);
+          }
+        }
+        (ofA ? openA : openB).add(k);
+      }
+    }
+
+    private static double minX(int k, double[] edgesA, int[] activeA, double[] edgesB,
+        int[] activeB) {
+      double[] edges = k < activeA.length ? edgesA : edgesB;
+      int e = k < activeA.length ? activeA[k] : activeB[k - activeA.length];
+      return Math.min(edges[4 * e], edges[4 * e + 2]);
+    }
+
+    private static double maxX(int k, double[] edgesA, int[] activeA, double[] edgesB,
+        int[] activeB) {
+      double[] edges = k < activeA.length ? edgesA : edgesB;
+      int e = k < activeA.length ? activeA[k] : activeB[k - activeA.length];
+      return Math.max(edges[4 * e], edges[4 * e + 2]);
+    }
+
+    /**
+     * Note the points where edge <tt>p</tt> of A and edge <tt>q</tt> of B meet, as a parameter
+     * along each edge and the point itself
+     */
+    private void cross(double[] edgesA, int p, List<List<double[]>> splitsA, int indexA,
+        double[] edgesB, int q, List<List<double[]>> splitsB, int indexB) {
+      double ax = edgesA[4 * p], ay = edgesA[4 * p + 1];
+      double rx = edgesA[4 * p + 2] - ax, ry = edgesA[4 * p + 3] - ay;
+      double bx = edgesB[4 * q], by = edgesB[4 * q + 1];
+      double sx = edgesB[4 * q + 2] - bx, sy = edgesB[4 * q + 3] - by;
+      if (Math.max(ax, ax + rx) < Math.min(bx, bx + sx) - SNAP
+          || Math.max(bx, bx + sx) < Math.min(ax, ax + rx) - SNAP
+          || Math.max(ay, ay + ry) < Math.min(by, by + sy) - SNAP
+          || Math.max(by, by + sy) < Math.min(ay, ay + ry) - SNAP) {
+        return;
+      }
+      double lengthR = Math.sqrt(rx * rx + ry * ry);
+      double lengthS = Math.sqrt(sx * sx + sy * sy);
+      double denominator = rx * sy - ry * sx;
+      double qx = bx - ax, qy = by - ay;
+      if (Math.abs(denominator) > 1e-12 * lengthR * lengthS) {
+        double t = (qx * sy - qy * sx) / denominator;
+        double u = (qx * ry - qy * rx) / denominator;
+        double toleranceT = SNAP / lengthR;
+        double toleranceU = SNAP / lengthS;
+        if (t < -toleranceT || t > 1 + toleranceT || u < -toleranceU || u > 1 + toleranceU) {
+          return;
+        }
+        t = Math.max(0, Math.min(1, t));
+        u = Math.max(0, Math.min(1, u));
+        double x = ax + t * rx;
+        double y = ay + t * ry;
+        addSplit(splitsA, indexA, t, x, y);
+        addSplit(splitsB, indexB, u, x, y);
+      } else if (Math.abs(rx * qy - ry * qx) <= SNAP * lengthR) {
+        // On the same line, each end of one edge may split the other one
+        for (int end = 0; end <= 1; end++) {
+          double x = bx + end * sx;
+          double y = by + end * sy;
+          double t = ((x - ax) * rx + (y - ay) * ry) / (lengthR * lengthR);
+          if (t > 0 && t < 1) {
+            addSplit(splitsA, indexA, t, x, y);
+          }
+          x = ax + end * rx;
+          y = ay + end * ry;
+          double u = ((x - bx) * sx + (y - by) * sy) / (lengthS * lengthS);
+          if (u > 0 && u < 1) {
+            addSplit(splitsB, indexB, u, x, y);
+          }
+        }
+      }
+    }
+
+    private static void addSplit(List<List<double[]>> splits, int index, double t, double x,
+        double y) {
+      if (t <= 0 || t >= 1) {
+        // Already an end
+        return;
+      }
+      List<double[]> list = splits.get(index);
+      if (list == null) {
+        list = new ArrayList<>(2);
+        splits.set(index, list);
+      }
+      list.add(new double[]{t, x, y});
+    }
+
+    /**
+     * @return pieces of the active edges between their splits, as pairs of vertex indices
+     */
+    private int[] pieces(double[] edges, int[] active, List<List<double[]>> splits) {
+      int[] pieces = new int[2 * active.length + 8];
+      int n = 0;
+      for (int k = 0; k < active.length; k++) {
+        int e = active[k];
+        int from = vertex(edges[4 * e], edges[4 * e + 1]);
+        List<double[]> list = splits.get(k);
+        if (list != null) {
+          list.sort((s1, s2) -> Double.compare(s1[0], s2[0]));
+          for (double[] split : list) {
+            int to = vertex(split[1], split[2]);
+            if (to != from) {
+              if (n + 2 > pieces.length) {
+                pieces = Arrays.copyOf(pieces, 2 * pieces.length);
+              }
+              pieces[n++] = from;
+              pieces[n++] = to;
+              from = to;
+            }
+          }
+        }
+        int to = vertex(edges[4 * e + 2], edges[4 * e + 3]);
+        if (to != from) {
+          if (n + 2 > pieces.length) {
+            pieces = Arrays.copyOf(pieces, 2 * pieces.length);
+          }
+          pieces[n++] = from;
+          pieces[n++] = to;
+        }
+      }
+      return Arrays.copyOf(pieces, n);
+    }
+
+    /**
+     * @return <tt>true</tt> if the middle of the piece is inside <tt>area</tt>
+     */
+    private boolean isInside(PackedArea area, int from, int to) {
+      return area.contains((vertices[2 * from] + vertices[2 * to]) / 2,
+          (vertices[2 * from + 1] + vertices[2 * to + 1]) / 2);
+    }
+
+    /**
+     * @return index of the vertex at <tt>x y</tt>, closer than {@link #SNAP}
+     */
+    private int vertex(double x, double y) {
+      long cx = (long) Math.floor(x / CELL);
+      long cy = (long) Math.floor(y / CELL);
+      long fromX = (long) Math.floor((x - SNAP) / CELL);
+      long toX = (long) Math.floor((x + SNAP) / CELL);
+      long fromY = (long) Math.floor((y - SNAP) / CELL);
+      long toY = (long) Math.floor((y + SNAP) / CELL);
+      for (long i = fromX; i <= toX; i++) {
+        for (long j = fromY; j <= toY; j++) {
+          int[] candidates = vertexCells.get(cell(i, j));
+          if (candidates == null) {
+            continue;
+          }
+          for (int v : candidates) {
+            if (Math.abs(vertices[2 * v] - x) <= SNAP
+                && Math.abs(vertices[2 * v + 1] - y) <= SNAP) {
+              return v;
+            }
+          }
+        }
+      }
+      if (2 * vertexCount + 2 > vertices.length) {
+        vertices = Arrays.copyOf(vertices, 2 * vertices.length);
+      }
+      vertices[2 * vertexCount] = x;
+      vertices[2 * vertexCount + 1] = y;
+      vertexCells.merge(cell(cx, cy), new int[]{vertexCount}, (old, added) -> {
+        int[] merged = Arrays.copyOf(old, old.length + 1);
+        merged[old.length] = added[0];
+        return merged;
+      });
+      return vertexCount++;
+    }
+
+    private static long cell(long cx, long cy) {
+      // Cells sharing a key only cost a comparison more
+      return cx * 0x9E3779B97F4A7C15L + cy;
+    }
+
+    private void keep(int from, int to) {
+      if (2 * keptCount + 2 > kept.length) {
+        kept = Arrays.copyOf(kept, 2 * kept.length);
+      }
+      kept[2 * keptCount] = from;
+      kept[2 * keptCount + 1] = to;
+      keptCount++;
+    }
+
+    /**
+     * Follow the kept edges into rings. Where several rings touch, take the leftmost turn, so
+     * each ring goes around a single piece of surface.
+     */
+    private PackedArea link() {
+      Map<Integer, List<Integer>> outgoing = new HashMap<>();
+      for (int e = 0; e < keptCount; e++) {
+        outgoing.computeIfAbsent(kept[2 * e], v -> new ArrayList<>(1))
+            .add(e);
+      }
+      boolean[] used = new boolean[keptCount];
+      List<double[]> rings = new ArrayList<>();
+      for (int first = 0; first < keptCount; first++) {
+        if (used[first]) {
+          continue;
+        }
+        used[first] = true;
+        int start = kept[2 * first];
+        double[] ring = new double[16];
+        int n = 0;
+        int previous = start;
+        int current = kept[2 * first + 1];
+        ring[n++] = vertices[2 * start];
+        ring[n++] = vertices[2 * start + 1];
+        boolean closed = false;
+        while (true) {
+          if (current == start) {
+            closed = true;
+            break;
+          }
+          int next = nextEdge(outgoing.get(current), used, previous, current);
+          if (next < 0) {
+            break;
+          }
+          used[next] = true;
+          if (n + 2 > ring.length) {
+            ring = Arrays.copyOf(ring, 2 * ring.length);
+          }
+          ring[n++] = vertices[2 * current];
+          ring[n++] = vertices[2 * current + 1];
+          previous = current;
+          current = kept[2 * next + 1];
+        }
+        if (closed && n >= 6 && Math.abs(signedArea(ring, n)) > SNAP * SNAP) {
+          rings.add(Arrays.copyOf(ring, n));
+        }
+      }
+      return rings.isEmpty() ? EMPTY : new PackedArea(rings.toArray(new double[0][]));
+    }
+
+    private int nextEdge(List<Integer> candidates, boolean[] used, int previous, int current) {
+      if (candidates == null) {
+        return -1;
+      }
+      double dx = vertices[2 * current] - vertices[2 * previous];
+      double dy = vertices[2 * current + 1] - vertices[2 * previous + 1];
+      int best = -1;
+      double bestTurn = Double.NEGATIVE_INFINITY;
+      for (int e : candidates) {
+        if (used[e]) {
+          continue;
+        }
+        int to = kept[2 * e + 1];
+        double ox = vertices[2 * to] - vertices[2 * current];
+        double oy = vertices[2 * to + 1] - vertices[2 * current + 1];
+        double turn = Math.atan2(dx * oy - dy * ox, dx * ox + dy * oy);
+        if (to == previous) {
+          // Going back is the last resort
+          turn = -Math.PI;
+        }
+        if (turn > bestTurn) {
+          best = e;
+          bestTurn = turn;
+        }
+      }
+      return best;
+    }
+  }
+}
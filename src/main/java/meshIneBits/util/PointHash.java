@@ -0,0 +1,158 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package meshIneBits.util;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Spatial hash of points. Points are bucketed by their coordinates quantized to a tolerance, in a
+ * primitive <tt>long</tt>-keyed open addressing table. Each added point gets the index of its
+ * insertion, starting from 0.
+ * <br>
+ * Two points closer than the tolerance on each axis always lie in the same or in adjacent cells,
+ * so a lookup only visits the 3x3 cells around the queried point.
+ */
+public class PointHash {
+
+  private static final int EMPTY = -1;
+
+  private final double cellSize;
+
+  private long[] slotKeys;
+  private int[] slotHeads;
+  private int slotCount;
+
+  /**
+   * Next point in the same cell, for each point
+   */
+  private int[] nextInCell;
+  private int size;
+
+  /**
+   * @param expectedSize number of points which will be added
+   * @param tolerance    maximum distance on each axis between two points considered equal
+   */
+  public PointHash(int expectedSize, double tolerance) {
+    cellSize = tolerance;
+    int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+    slotKeys = new long[capacity];
+    slotHeads = new int[capacity];
+    Arrays.fill(slotHeads, EMPTY);
+    nextInCell = new int[Math.max(expectedSize, 4)];
+  }
+
+  /**
+   * @return index of the added point
+   */
+  public int add(Vector2 p) {
+    if (size == nextInCell.length) {
+      nextInCell = Arrays.copyOf(nextInCell, size * 2);
+    }
+    long key = key(quantize(p.x), quantize(p.y));
+    int slot = findSlot(key);
+    if (slotHeads[slot] == EMPTY) {
+      slotKeys[slot] = key;
+      slotCount++;
+    }
+    nextInCell[size] = slotHeads[slot];
+    slotHeads[slot] = size;
+    if (slotCount * 2 > slotKeys.length) {
+      rehash();
+    }
+    return size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param p      queried point
+   * @param accept filter on indexes of points near <tt>p</tt>. Exact distance checks belong here
+   * @return lowest accepted index among points in the cells around <tt>p</tt>, or <tt>-1</tt>
+   */
+  public int findFirst(Vector2 p, IntPredicate accept) {
+    long qx = quantize(p.x);
+    long qy = quantize(p.y);
+    int best = EMPTY;
+    for (long dx = -1; dx <= 1; dx++) {
+      for (long dy = -1; dy <= 1; dy++) {
+        long key = key(qx + dx, qy + dy);
+        int slot = findSlot(key);
+        for (int i = slotHeads[slot]; i != EMPTY; i = nextInCell[i]) {
+          // Cells are chained newest first
+          if ((best == EMPTY || i < best) && accept.test(i)) {
+            best = i;
+          }
+        }
+      }
+    }
+    return best;
+  }
+
+  private long quantize(double coordinate) {
+    return (long) Math.floor(coordinate / cellSize);
+  }
+
+  /**
+   * Different cells may share a key. This only adds candidates, which the caller filters anyway
+   */
+  private static long key(long qx, long qy) {
+    return qx * 0x9E3779B97F4A7C15L + qy;
+  }
+
+  private int findSlot(long key) {
+    int mask = slotKeys.length - 1;
+    long h = key * 0xBF58476D1CE4E5B9L;
+    int slot = (int) (h ^ (h >>> 32)) & mask;
+    while (slotHeads[slot] != EMPTY && slotKeys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void rehash() {
+    long[] oldKeys = slotKeys;
+    int[] oldHeads = slotHeads;
+    slotKeys = new long[oldKeys.length * 2];
+    slotHeads = new int[oldKeys.length * 2];
+    Arrays.fill(slotHeads, EMPTY);
+    for (int s = 0; s < oldKeys.length; s++) {
+      if (oldHeads[s] != EMPTY) {
+        int slot = findSlot(oldKeys[s]);
+        slotKeys[slot] = oldKeys[s];
+        slotHeads[slot] = oldHeads[s];
+      }
+    }
+  }
+}
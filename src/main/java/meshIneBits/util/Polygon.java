@@ -43,6 +43,8 @@ import meshIneBits.config.CraftConfig;
  */
 public class Polygon implements Iterable<Segment2D>, Serializable {
 
+  private static final long serialVersionUID = -3338033962691928603L;
+
   private Segment2D first = null;
 
   private Segment2D last = null;
@@ -70,6 +72,10 @@ public class Polygon implements Iterable<Segment2D>, Serializable {
     }
   }
 
+  Segment2D getFirst() {
+    return first;
+  }
+
   /**
    * Sort and connect segments. Remove isolated ones.
    *
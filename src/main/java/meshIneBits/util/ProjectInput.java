@@ -0,0 +1,256 @@
+package meshIneBits.util;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * Reads one block written by a {@link ProjectOutput}.
+ */
+public class ProjectInput extends DataInputStream {
+
+  /**
+   * Reads an object which does not refer back to itself
+   */
+  public interface Reader<T> {
+
+    T read(ProjectInput in) throws IOException;
+  }
+
+  /**
+   * Reads the content of an object already created, so the objects it refers to may refer back to
+   * it
+   */
+  public interface Filler<T> {
+
+    void fill(ProjectInput in, T o) throws IOException;
+  }
+
+  private final List<Object> references = new ArrayList<>();
+  private final List<Object> serializedObjects;
+  private final List<List<Object>> links;
+
+  /**
+   * @param serializedObjects objects of the whole file written with java serialization
+   * @param links             references of the blocks this one may refer to, in block order
+   */
+  public ProjectInput(InputStream in, List<Object> serializedObjects, List<List<Object>> links) {
+    super(in);
+    this.serializedObjects = serializedObjects;
+    this.links = links == null ? Collections.emptyList() : links;
+  }
+
+  /**
+   * @return objects read by reference, in the order of their index
+   */
+  public List<Object> getReferences() {
+    return references;
+  }
+
+  /**
+   * Read a reference and, the first time, the object itself.
+   *
+   * @see ProjectOutput#writeReference(Object)
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T readReference(Reader<T> reader) throws IOException {
+    int id = readReferenceId();
+    if (id == ProjectOutput.NULL_REFERENCE) {
+      return null;
+    }
+    if (id < references.size()) {
+      return (T) references.get(id);
+    }
+    // Save the place of the object before the ones it contains
+    references.add(null);
+    T o = reader.read(this);
+    references.set(id, o);
+    return o;
+  }
+
+  /**
+   * Read a reference and, the first time, the object itself. The object is known before its
+   * content is read.
+   *
+   * @param create reads what is needed to create the object, which is filled afterwards. Must not
+   *               read references
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T readReference(Reader<T> create, Filler<T> filler) throws IOException {
+    int id = readReferenceId();
+    if (id == ProjectOutput.NULL_REFERENCE) {
+      return null;
+    }
+    if (id < references.size()) {
+      return (T) references.get(id);
+    }
+    T o = create.read(this);
+    references.add(o);
+    filler.fill(this, o);
+    return o;
+  }
+
+  private int readReferenceId() throws IOException {
+    int id = readInt();
+    if (id < ProjectOutput.NULL_REFERENCE || id > references.size()) {
+      throw new IOException("Corrupted reference " + id + " after " + references.size()
+          + " objects");
+    }
+    return id;
+  }
+
+  /**
+   * @param reader reads the object by reference, if it is not part of another block
+   * @see ProjectOutput#writeLink(Object)
+   */
+  public <T> T readLink(Reader<T> reader) throws IOException {
+    long link = readLong();
+    if (link == ProjectOutput.LOCAL_LINK) {
+      return reader.read(this);
+    }
+    return linked(link);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T linked(long link) throws IOException {
+    int block = (int) (link >>> 32);
+    int id = (int) link;
+    if (block >= links.size() || id < 0 || id >= links.get(block)
+        .size()) {
+      throw new IOException("Corrupted link to object " + id + " of block " + block);
+    }
+    return (T) links.get(block)
+        .get(id);
+  }
+
+  /**
+   * @see ProjectOutput#writeSerialized(Object)
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T readSerialized() throws IOException {
+    int id = readInt();
+    if (id == ProjectOutput.NULL_REFERENCE) {
+      return null;
+    }
+    if (id < 0 || id >= serializedObjects.size()) {
+      throw new IOException("Corrupted serialized object " + id);
+    }
+    return (T) serializedObjects.get(id);
+  }
+
+  public String readNullableString() throws IOException {
+    return readBoolean() ? readUTF() : null;
+  }
+
+  public Vector2 readVector2() throws IOException {
+    return readReference(in -> new Vector2(in.readDouble(), in.readDouble()));
+  }
+
+  /**
+   * Read the points written by {@link ProjectOutput#writeVector2s(Collection)} into
+   * <tt>target</tt>
+   *
+   * @return <tt>target</tt>, <tt>null</tt> if <tt>null</tt> was written
+   */
+  public <C extends Collection<Vector2>> C readVector2s(C target) throws IOException {
+    int size = readInt();
+    if (size == ProjectOutput.NULL_REFERENCE) {
+      return null;
+    }
+    for (int i = 0; i < size; i++) {
+      target.add(readVector2());
+    }
+    return target;
+  }
+
+  public AffineTransform readTransform() throws IOException {
+    return readReference(in -> {
+      double[] matrix = new double[6];
+      for (int i = 0; i < matrix.length; i++) {
+        matrix[i] = in.readDouble();
+      }
+      return new AffineTransform(matrix);
+    });
+  }
+
+  /**
+   * @return outline written by {@link ProjectOutput#writeShape(java.awt.Shape)}
+   */
+  public Path2D.Double readShape() throws IOException {
+    int nbTypes = readInt();
+    if (nbTypes == ProjectOutput.NULL_REFERENCE) {
+      return null;
+    }
+    int winding = readByte();
+    byte[] types = new byte[nbTypes];
+    readFully(types);
+    Path2D.Double path = new Path2D.Double(winding, nbTypes);
+    for (byte type : types) {
+      switch (type) {
+        case PathIterator.SEG_MOVETO:
+          path.moveTo(readDouble(), readDouble());
+          break;
+        case PathIterator.SEG_LINETO:
+          path.lineTo(readDouble(), readDouble());
+          break;
+        case PathIterator.SEG_QUADTO:
+          path.quadTo(readDouble(), readDouble(), readDouble(), readDouble());
+          break;
+        case PathIterator.SEG_CUBICTO:
+          path.curveTo(readDouble(), readDouble(), readDouble(), readDouble(), readDouble(),
+              readDouble());
+          break;
+        case PathIterator.SEG_CLOSE:
+          path.closePath();
+          break;
+        default:
+          throw new IOException("Unknown segment type: " + type);
+      }
+    }
+    return path;
+  }
+
+  /**
+   * @see ProjectOutput#writePath(Path2D)
+   */
+  public Path2D readPath() throws IOException {
+    return readReference(ProjectInput::readShape);
+  }
+
+  /**
+   * @see ProjectOutput#writePaths(Vector)
+   */
+  public Vector<Path2D> readPaths() throws IOException {
+    return readReference(in -> {
+      int size = in.readInt();
+      Vector<Path2D> paths = new Vector<>(size);
+      for (int i = 0; i < size; i++) {
+        paths.add(in.readPath());
+      }
+      return paths;
+    });
+  }
+
+  /**
+   * @return outlines written by {@link ProjectOutput#writeShapes(List)}
+   */
+  public List<Path2D.Double> readShapes() throws IOException {
+    int size = readInt();
+    if (size == ProjectOutput.NULL_REFERENCE) {
+      return null;
+    }
+    List<Path2D.Double> shapes = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      shapes.add(readShape());
+    }
+    return shapes;
+  }
+}
@@ -0,0 +1,232 @@
+package meshIneBits.util;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * Writes one block of a project file. Geometry is written as packed primitives. Objects which may
+ * be shared, such as bits or points, are written once per block and referred to by their index
+ * afterwards, so the identities of the saved objects are kept.
+ *
+ * @see ProjectInput
+ */
+public class ProjectOutput extends DataOutputStream {
+
+  static final int NULL_REFERENCE = -1;
+  /**
+   * Link to an object which is not part of another block, written by reference in place
+   */
+  static final long LOCAL_LINK = -2;
+
+  private final Map<Object, Integer> references = new IdentityHashMap<>();
+  private final Map<Object, Integer> serializedObjects;
+  private final Map<Object, Long> links;
+
+  /**
+   * @param serializedObjects objects of the whole file written with java serialization, with their
+   *                          index. Shared by the blocks written in parallel
+   * @param links             objects of other blocks, such as the bits of the layers, this block
+   *                          may refer to. See {@link #linkOf(int, int)}
+   */
+  public ProjectOutput(OutputStream out, Map<Object, Integer> serializedObjects,
+      Map<Object, Long> links) {
+    super(out);
+    this.serializedObjects = serializedObjects;
+    this.links = links;
+  }
+
+  /**
+   * @return objects written by reference, with their index in this block
+   */
+  public Map<Object, Integer> getReferences() {
+    return references;
+  }
+
+  /**
+   * @param block     index of the block
+   * @param reference index of the object in its block
+   * @return value to put in the links of the following blocks
+   */
+  public static long linkOf(int block, int reference) {
+    return ((long) block << 32) | reference;
+  }
+
+  /**
+   * Write a reference to <tt>o</tt>. The first time, a new index is written and the content of
+   * <tt>o</tt> must be written right after.
+   *
+   * @return <tt>true</tt> if the content of <tt>o</tt> has to follow
+   */
+  public boolean writeReference(Object o) throws IOException {
+    if (o == null) {
+      writeInt(NULL_REFERENCE);
+      return false;
+    }
+    Integer id = references.get(o);
+    if (id != null) {
+      writeInt(id);
+      return false;
+    }
+    id = references.size();
+    references.put(o, id);
+    writeInt(id);
+    return true;
+  }
+
+  /**
+   * Refer to an object written in another block, such as a bit of a layer.
+   *
+   * @return <tt>true</tt> if <tt>o</tt> is not part of another block and has to be written by
+   * reference in this one
+   */
+  public boolean writeLink(Object o) throws IOException {
+    Long link = o == null ? null : links.get(o);
+    if (link != null) {
+      writeLong(link);
+      return false;
+    }
+    writeLong(LOCAL_LINK);
+    return true;
+  }
+
+  /**
+   * Write a small object, such as a pattern template, with java serialization. Objects written
+   * several times in the file are stored once.
+   */
+  public void writeSerialized(Object o) throws IOException {
+    if (o == null) {
+      writeInt(NULL_REFERENCE);
+      return;
+    }
+    synchronized (serializedObjects) {
+      writeInt(serializedObjects.computeIfAbsent(o, k -> serializedObjects.size()));
+    }
+  }
+
+  public void writeNullableString(String s) throws IOException {
+    writeBoolean(s != null);
+    if (s != null) {
+      writeUTF(s);
+    }
+  }
+
+  public void writeVector2(Vector2 v) throws IOException {
+    if (writeReference(v)) {
+      writeDouble(v.x);
+      writeDouble(v.y);
+    }
+  }
+
+  public void writeVector2s(Collection<Vector2> vectors) throws IOException {
+    writeInt(vectors == null ? NULL_REFERENCE : vectors.size());
+    if (vectors != null) {
+      for (Vector2 v : vectors) {
+        writeVector2(v);
+      }
+    }
+  }
+
+  public void writeTransform(AffineTransform transform) throws IOException {
+    if (writeReference(transform)) {
+      double[] matrix = new double[6];
+      transform.getMatrix(matrix);
+      for (double d : matrix) {
+        writeDouble(d);
+      }
+    }
+  }
+
+  /**
+   * Write the outline of a shape: winding rule, segment types, then all coordinates. An {@link
+   * java.awt.geom.Area} is read back from its outline
+   */
+  public void writeShape(Shape shape) throws IOException {
+    if (shape == null) {
+      writeInt(NULL_REFERENCE);
+      return;
+    }
+    byte[] types = new byte[16];
+    double[] coords = new double[64];
+    int nbTypes = 0;
+    int nbCoords = 0;
+    double[] segment = new double[6];
+    PathIterator pi = shape.getPathIterator(null);
+    int winding = pi.getWindingRule();
+    for (; !pi.isDone(); pi.next()) {
+      int type = pi.currentSegment(segment);
+      int count = coordinatesOf(type);
+      if (nbTypes == types.length) {
+        types = Arrays.copyOf(types, nbTypes * 2);
+      }
+      if (nbCoords + count > coords.length) {
+        coords = Arrays.copyOf(coords, Math.max(coords.length * 2, nbCoords + count));
+      }
+      types[nbTypes++] = (byte) type;
+      System.arraycopy(segment, 0, coords, nbCoords, count);
+      nbCoords += count;
+    }
+    writeInt(nbTypes);
+    writeByte(winding);
+    write(types, 0, nbTypes);
+    for (int i = 0; i < nbCoords; i++) {
+      writeDouble(coords[i]);
+    }
+  }
+
+  /**
+   * Write a path which may be shared, such as a cut path
+   */
+  public void writePath(Path2D path) throws IOException {
+    if (writeReference(path)) {
+      writeShape(path);
+    }
+  }
+
+  /**
+   * Write a list of paths which may be shared, such as the cut paths of a bit
+   */
+  public void writePaths(Vector<Path2D> paths) throws IOException {
+    if (writeReference(paths)) {
+      writeInt(paths.size());
+      for (Path2D path : paths) {
+        writePath(path);
+      }
+    }
+  }
+
+  public void writeShapes(List<? extends Shape> shapes) throws IOException {
+    writeInt(shapes == null ? NULL_REFERENCE : shapes.size());
+    if (shapes != null) {
+      for (Shape shape : shapes) {
+        writeShape(shape);
+      }
+    }
+  }
+
+  static int coordinatesOf(int segmentType) throws IOException {
+    switch (segmentType) {
+      case PathIterator.SEG_MOVETO:
+      case PathIterator.SEG_LINETO:
+        return 2;
+      case PathIterator.SEG_QUADTO:
+        return 4;
+      case PathIterator.SEG_CUBICTO:
+        return 6;
+      case PathIterator.SEG_CLOSE:
+        return 0;
+      default:
+        throw new IOException("Unknown segment type: " + segmentType);
+    }
+  }
+}
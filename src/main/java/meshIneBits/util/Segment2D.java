@@ -32,6 +32,7 @@ package meshIneBits.util;
 
 import meshIneBits.borderPaver.util.SectionTransformer;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Vector;
 
@@ -40,6 +41,8 @@ import java.util.Vector;
  */
 public class Segment2D extends AABBrect implements Serializable {
 
+  private static final long serialVersionUID = -6808873085369220392L;
+
   public Vector2 start;
 
   public Vector2 end;
@@ -94,6 +97,41 @@ public class Segment2D extends AABBrect implements Serializable {
     update(start, end);
   }
 
+  /**
+   * Restore a segment saved in a project file, with its normal and bounds as they were
+   */
+  private Segment2D(Vector2 start, Vector2 end, Vector2 normal, Vector2 lowerBound,
+      Vector2 upperBound) {
+    super(lowerBound, upperBound);
+    this.start = start;
+    this.end = end;
+    this.normal = normal;
+  }
+
+  /**
+   * Write the points of this segment. Links to other segments are written by {@link Shape2D}
+   */
+  void writeProject(ProjectOutput out) throws IOException {
+    out.writeVector2(start);
+    out.writeVector2(end);
+    out.writeVector2(normal);
+    out.writeVector2(getLowerBound());
+    out.writeVector2(getUpperBound());
+  }
+
+  static Segment2D readProject(ProjectInput in) throws IOException {
+    return new Segment2D(in.readVector2(), in.readVector2(), in.readVector2(), in.readVector2(),
+        in.readVector2());
+  }
+
+  /**
+   * Restore the links of a segment read from a project file
+   */
+  void setLinks(Segment2D prev, Segment2D next) {
+    this.prev = prev;
+    this.next = next;
+  }
+
   /**
    * Checks if two segments intersects
    *
@@ -30,9 +30,18 @@
 
 package meshIneBits.util;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 import meshIneBits.config.CraftConfig;
 
@@ -47,24 +56,97 @@ import meshIneBits.config.CraftConfig;
  */
 public class Shape2D implements Iterable<Polygon>, Serializable {
 
+  private static final long serialVersionUID = 3047920316617626012L;
+
   private Vector<Segment2D> segmentList = new Vector<>();
   Vector<Polygon> polygons = new Vector<>();
-  private AABBTree<Segment2D> segmentTree = new AABBTree<>(); // The Tree2D allows a fast query of all objects in an area.
+  /**
+   * Chains of segments which could not be closed during {@link #optimize()}
+   */
+  private transient Vector<Polygon> openChains = new Vector<>();
 
   protected Shape2D() {
 
   }
 
-  private void addModelPolygon(Polygon poly) {
+  /**
+   * Write the segments, their links and the polygons in a project file. Chains left open are not
+   * saved.
+   */
+  public void writeProject(ProjectOutput out) throws IOException {
+    // Polygons may go through segments which are not in the list any more
+    List<Segment2D> segments = new ArrayList<>(segmentList);
+    Map<Segment2D, Integer> indexes = new IdentityHashMap<>();
+    Deque<Segment2D> toVisit = new ArrayDeque<>(segmentList);
+    for (Polygon polygon : polygons) {
+      if (polygon.getFirst() != null) {
+        toVisit.add(polygon.getFirst());
+      }
+    }
+    for (Segment2D s : segmentList) {
+      indexes.putIfAbsent(s, indexes.size());
+    }
+    while (!toVisit.isEmpty()) {
+      Segment2D s = toVisit.poll();
+      for (Segment2D linked : new Segment2D[]{s.getPrev(), s.getNext()}) {
+        if (linked != null && !indexes.containsKey(linked)) {
+          indexes.put(linked, segments.size());
+          segments.add(linked);
+          toVisit.add(linked);
+        }
+      }
+    }
+    out.writeInt(segmentList.size());
+    out.writeInt(segments.size());
+    for (Segment2D s : segments) {
+      s.writeProject(out);
+    }
+    for (Segment2D s : segments) {
+      out.writeInt(s.getPrev() == null ? -1 : indexes.get(s.getPrev()));
+      out.writeInt(s.getNext() == null ? -1 : indexes.get(s.getNext()));
+    }
+    out.writeInt(polygons.size());
+    for (Polygon polygon : polygons) {
+      out.writeInt(polygon.getFirst() == null ? -1 : indexes.get(polygon.getFirst()));
+    }
+  }
+
+  /**
+   * Read the content written by {@link #writeProject(ProjectOutput)} into this empty shape
+   */
+  public void readProject(ProjectInput in) throws IOException {
+    int listed = in.readInt();
+    Segment2D[] segments = new Segment2D[in.readInt()];
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = Segment2D.readProject(in);
+    }
+    for (Segment2D s : segments) {
+      int prev = in.readInt();
+      int next = in.readInt();
+      s.setLinks(prev < 0 ? null : segments[prev], next < 0 ? null : segments[next]);
+    }
+    segmentList = new Vector<>(listed);
+    for (int i = 0; i < listed; i++) {
+      segmentList.add(segments[i]);
+    }
+    int nbPolygons = in.readInt();
+    polygons = new Vector<>(nbPolygons);
+    for (int i = 0; i < nbPolygons; i++) {
+      int first = in.readInt();
+      polygons.add(new Polygon(first < 0 ? null : segments[first]));
+    }
+  }
+
+  /**
+   * @param removedSegments collects the segments merged into their next one
+   */
+  private void addModelPolygon(Polygon poly, Set<Segment2D> removedSegments) {
     for (Segment2D s : poly) {
       if (s.getNormal()
           .dot(s.getNext()
               .getNormal()) > CraftConfig.joinMinCosAngle) {
-        removeModelSegment(s);
-        Segment2D next = s.getNext();
-        segmentTree.remove(next);
+        removedSegments.add(s);
         poly.remove(s);
-        segmentTree.insert(next);
       }
     }
     this.addPolygon(poly);
@@ -74,7 +156,6 @@ public class Shape2D implements Iterable<Polygon>, Serializable {
     if (segment.start.asGoodAsEqual(segment.end)) {
       return;
     }
-    segmentTree.insert(segment);
     segmentList.add(segment);
   }
 
@@ -96,81 +177,90 @@ public class Shape2D implements Iterable<Polygon>, Serializable {
   }
 
   /**
-   * Link up the segments with start/ends, so polygons are created.
+   * @return chains of segments left open by the last {@link #optimize()}
+   */
+  public List<Polygon> getOpenChains() {
+    if (openChains == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(openChains);
+  }
+
+  /**
+   * Link up the segments with start/ends, so polygons are created. Endpoints are matched through a
+   * {@link PointHash}, so this runs in linear time. Segments which do not form a closed loop are
+   * kept apart in {@link #getOpenChains()}.
    *
-   * @return if this process encounters an error
+   * @return <tt>true</tt> if some segments could not be linked up in closed loops
    */
   public boolean optimize() {
+    Segment2D[] segments = segmentList.toArray(new Segment2D[0]);
+    double tolerance = Math.pow(10, -CraftConfig.errorAccepted);
+    PointHash starts = new PointHash(segments.length, tolerance);
+    PointHash ends = new PointHash(segments.length, tolerance);
+    for (Segment2D s : segments) {
+      starts.add(s.start);
+      ends.add(s.end);
+    }
 
-    for (Segment2D s1 : segmentList) {
+    for (int i = 0; i < segments.length; i++) {
+      Segment2D s1 = segments[i];
       if (s1.getPrev() == null) {
-        Segment2D best = null;
-        double bestDist2 = 0.01;
-        for (Segment2D s2 : segmentTree.query(new AABBrect(s1.start, s1.start))) {
-          if ((s1 != s2) && (s2.getNext() == null) && s1.start.asGoodAsEqual(s2.end) && (
+        int best = ends.findFirst(s1.start, j -> {
+          Segment2D s2 = segments[j];
+          return (s1 != s2) && (s2.getNext() == null) && s1.start.asGoodAsEqual(s2.end) && (
               s1.start.sub(s2.end)
-                  .vSize2() < bestDist2)) {
-            best = s2;
-            bestDist2 = s1.start.sub(s2.end)
-                .vSize2();
-            break;
-          }
-        }
-        if (best != null) {
-          s1.start = best.end;
-          best.setNext(s1);
+                  .vSize2() < 0.01);
+        });
+        if (best >= 0) {
+          s1.start = segments[best].end;
+          segments[best].setNext(s1);
         }
       }
       if (s1.getNext() == null) {
-        Segment2D best = null;
-        double bestDist2 = 0.01;
-        for (Segment2D s2 : segmentTree.query(new AABBrect(s1.end, s1.end))) {
-          if ((s1 != s2) && (s2.getPrev() == null) && s1.end.asGoodAsEqual(s2.start) && (
+        int best = starts.findFirst(s1.end, j -> {
+          Segment2D s2 = segments[j];
+          return (s1 != s2) && (s2.getPrev() == null) && s1.end.asGoodAsEqual(s2.start) && (
               s1.end.sub(s2.start)
-                  .vSize2() < bestDist2)) {
-            best = s2;
-            bestDist2 = s1.end.sub(s2.start)
-                .vSize2();
-            break;
-          }
-        }
-        if (best != null) {
-          s1.end = best.start;
-          s1.setNext(best);
+                  .vSize2() < 0.01);
+        });
+        if (best >= 0) {
+          s1.end = segments[best].start;
+          s1.setNext(segments[best]);
         }
       }
     }
 
-    for (Segment2D s : segmentList) {
+    // Segment2D does not override equals, so this is an identity set
+    Set<Segment2D> known = new HashSet<>(segmentList);
+    for (Segment2D s : segments) {
       if ((s.getPrev() != null) && (s.getPrev()
           .getNext() != s)) {
-        throw new RuntimeException();
+        throw new IllegalStateException("Broken link before " + s);
       }
       if ((s.getNext() != null) && (s.getNext()
           .getPrev() != s)) {
-        throw new RuntimeException();
+        throw new IllegalStateException("Broken link after " + s);
       }
-      if ((s.getNext() != null) && !segmentList.contains(s.getNext())) {
-        throw new RuntimeException();
+      if ((s.getNext() != null) && !known.contains(s.getNext())) {
+        throw new IllegalStateException("Linked to a foreign segment " + s);
       }
-      if ((s.getPrev() != null) && !segmentList.contains(s.getPrev())) {
-        throw new RuntimeException();
+      if ((s.getPrev() != null) && !known.contains(s.getPrev())) {
+        throw new IllegalStateException("Linked from a foreign segment " + s);
       }
     }
 
-    boolean manifoldErrorReported = false;
-    HashSet<Segment2D> tmpSet = new HashSet<>(segmentList);
-    while (tmpSet.size() > 0) {
-      Segment2D start = tmpSet.iterator()
-          .next();
+    // Walk the loops in the order of segments
+    openChains = new Vector<>();
+    Set<Segment2D> visited = new HashSet<>(segments.length * 2);
+    Set<Segment2D> removedSegments = new HashSet<>();
+    for (Segment2D start : segments) {
+      if (visited.contains(start)) {
+        continue;
+      }
       boolean manifold = false;
-      for (Segment2D s = start; s != null; s = s.getNext()) {
-        if (!tmpSet.contains(s)) {
-          Logger.warning(
-              "Problem : tried to create a segment link from links that where already used...");
-          break;
-        }
-        if (s.getNext() == start) {
+      for (Segment2D s = start.getNext(); s != null; s = s.getNext()) {
+        if (s == start) {
           manifold = true;
           break;
         }
@@ -178,26 +268,30 @@ public class Shape2D implements Iterable<Polygon>, Serializable {
       if (manifold) {
         Polygon poly = new Polygon(start);
         for (Segment2D s : poly) {
-          tmpSet.remove(s);
+          visited.add(s);
         }
-        addModelPolygon(poly);
+        addModelPolygon(poly, removedSegments);
       } else {
-        Logger.warning("Object not manifold");
-
-        for (Segment2D s : segmentList) {
-          System.out.println(s);
-
+        // Go back to the head of the chain to keep it whole
+        Segment2D head = start;
+        while (head.getPrev() != null) {
+          head = head.getPrev();
         }
-        throw new RuntimeException();
-
+        Polygon chain = new Polygon(head);
+        for (Segment2D s : chain) {
+          visited.add(s);
+        }
+        openChains.add(chain);
       }
     }
+    if (!removedSegments.isEmpty()) {
+      segmentList.removeIf(removedSegments::contains);
+    }
 
+    if (!openChains.isEmpty()) {
+      Logger.warning("Object not manifold: " + openChains.size() + " open chains of segments");
+      return true;
+    }
     return false;
   }
-
-  private void removeModelSegment(Segment2D segment) {
-    segmentList.remove(segment);
-    segmentTree.remove(segment);
-  }
 }
@@ -0,0 +1,71 @@
+package meshIneBits.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * Runs numbered trials concurrently on {@link MultiThreadServiceExecutor#instance} and keeps the
+ * first conclusive one, in the order of the trials. Trials are started in order, one per available
+ * core at most. Trials after a conclusive one are cancelled, those before it still run to their
+ * end, so the answer is the one of a plain loop breaking at the first conclusive trial.
+ */
+public class TrialSearch {
+
+  public interface Trial<T> {
+
+    /**
+     * @param index     of the trial
+     * @param cancelled turns <tt>true</tt> once the result of this trial is no longer wanted. Long
+     *                  trials should check it between their steps
+     * @return <tt>null</tt> if the trial is not conclusive
+     */
+    T run(int index, BooleanSupplier cancelled);
+  }
+
+  private TrialSearch() {
+  }
+
+  /**
+   * @param count number of trials
+   * @return result of the first conclusive trial, <tt>null</tt> if there is none
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> T first(int count, Trial<T> trial) {
+    int workers = Math.min(count, Runtime.getRuntime()
+        .availableProcessors());
+    if (workers <= 1) {
+      // Plain loop
+      for (int i = 0; i < count; i++) {
+        T result = trial.run(i, () -> false);
+        if (result != null) {
+          return result;
+        }
+      }
+      return null;
+    }
+    Object[] results = new Object[count];
+    AtomicInteger next = new AtomicInteger();
+    // Lowest conclusive index so far
+    AtomicInteger conclusive = new AtomicInteger(count);
+    MultiThreadServiceExecutor.instance.invokeParallel(() -> IntStream.range(0, workers)
+        .parallel()
+        .forEach(worker -> {
+          for (int i = next.getAndIncrement(); i < count && i < conclusive.get();
+              i = next.getAndIncrement()) {
+            int index = i;
+            T result = trial.run(index, () -> index > conclusive.get());
+            if (result != null) {
+              results[index] = result;
+              conclusive.accumulateAndGet(index, Math::min);
+            }
+          }
+        }), 0);
+    for (Object result : results) {
+      if (result != null) {
+        return (T) result;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,312 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package meshIneBits.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import remixlab.dandelion.geom.Rotation;
+import remixlab.dandelion.geom.Vec;
+
+/**
+ * Structure-of-arrays storage of the triangles of a {@link meshIneBits.Model}. Vertex <tt>3 * t +
+ * k</tt> is the <tt>k</tt>-th point of triangle <tt>t</tt>, its coordinates are kept in three flat
+ * arrays. Bounds are cached and only recomputed after a transform which cannot update them.
+ * <br>
+ * Transforms are written as plain indexed loops over the arrays, so that the JIT can vectorize
+ * them.
+ */
+public class TriangleStore {
+
+  private double[] x;
+  private double[] y;
+  private double[] z;
+  private int size;
+
+  private Vector3 min;
+  private Vector3 max;
+
+  public TriangleStore() {
+    this(16);
+  }
+
+  /**
+   * @param capacity expected number of triangles
+   */
+  public TriangleStore(int capacity) {
+    int vertices = Math.max(capacity, 1) * 3;
+    x = new double[vertices];
+    y = new double[vertices];
+    z = new double[vertices];
+  }
+
+  /**
+   * @param vertices packed as <tt>x0 y0 z0 x1 y1 z1 x2 y2 z2</tt> for each triangle
+   * @return a store holding all triangles
+   */
+  public static TriangleStore fromPacked(float[] vertices) {
+    int vertexCount = vertices.length / 3;
+    TriangleStore store = new TriangleStore(vertexCount / 3);
+    for (int v = 0, i = 0; v < vertexCount; v++, i += 3) {
+      store.x[v] = vertices[i];
+      store.y[v] = vertices[i + 1];
+      store.z[v] = vertices[i + 2];
+    }
+    store.size = vertexCount / 3;
+    return store;
+  }
+
+  /**
+   * @param vertices packed as <tt>x0 y0 z0 x1 y1 z1 x2 y2 z2</tt> for each triangle
+   * @return a store holding all triangles
+   */
+  public static TriangleStore fromPacked(double[] vertices) {
+    int vertexCount = vertices.length / 3;
+    TriangleStore store = new TriangleStore(vertexCount / 3);
+    for (int v = 0, i = 0; v < vertexCount; v++, i += 3) {
+      store.x[v] = vertices[i];
+      store.y[v] = vertices[i + 1];
+      store.z[v] = vertices[i + 2];
+    }
+    store.size = vertexCount / 3;
+    return store;
+  }
+
+  /**
+   * @return vertices packed as <tt>x0 y0 z0 x1 y1 z1 x2 y2 z2</tt> for each triangle
+   * @see #fromPacked(double[])
+   */
+  public double[] toPacked() {
+    double[] vertices = new double[size * 9];
+    for (int v = 0, i = 0; v < size * 3; v++, i += 3) {
+      vertices[i] = x[v];
+      vertices[i + 1] = y[v];
+      vertices[i + 2] = z[v];
+    }
+    return vertices;
+  }
+
+  /**
+   * @return number of triangles
+   */
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Append a copy of the triangle.
+   */
+  public void add(Triangle t) {
+    add(t.point[0], t.point[1], t.point[2]);
+  }
+
+  public void add(Vector3 p0, Vector3 p1, Vector3 p2) {
+    ensureCapacity(size + 1);
+    int v = size * 3;
+    set(v, p0);
+    set(v + 1, p1);
+    set(v + 2, p2);
+    size++;
+    invalidateBounds();
+  }
+
+  private void set(int v, Vector3 p) {
+    x[v] = p.x;
+    y[v] = p.y;
+    z[v] = p.z;
+  }
+
+  private void ensureCapacity(int triangles) {
+    if (triangles * 3 > x.length) {
+      int newLength = Math.max(triangles * 3, x.length * 2);
+      x = Arrays.copyOf(x, newLength);
+      y = Arrays.copyOf(y, newLength);
+      z = Arrays.copyOf(z, newLength);
+    }
+  }
+
+  /**
+   * @param t index of triangle
+   * @return a new {@link Triangle} holding a copy of the points. Modifying it does not alter the
+   * store
+   */
+  public Triangle getTriangle(int t) {
+    Triangle triangle = new Triangle();
+    for (int k = 0, v = t * 3; k < 3; k++, v++) {
+      triangle.point[k] = new Vector3(x[v], y[v], z[v]);
+    }
+    return triangle;
+  }
+
+  /**
+   * @return read-only list materializing a {@link Triangle} on each access
+   */
+  public List<Triangle> asTriangles() {
+    return new TriangleView();
+  }
+
+  /**
+   * @return lowest z of the triangle
+   */
+  public double getZMin(int t) {
+    int v = t * 3;
+    return Math.min(z[v], Math.min(z[v + 1], z[v + 2]));
+  }
+
+  /**
+   * @return highest z of the triangle
+   */
+  public double getZMax(int t) {
+    int v = t * 3;
+    return Math.max(z[v], Math.max(z[v + 1], z[v + 2]));
+  }
+
+  /**
+   * @return minimum of X, Y and Z. Cached until the next transform
+   */
+  public Vector3 getMin() {
+    if (min == null) {
+      computeBounds();
+    }
+    return new Vector3(min.x, min.y, min.z);
+  }
+
+  /**
+   * @return maximum of X, Y and Z. Cached until the next transform
+   */
+  public Vector3 getMax() {
+    if (max == null) {
+      computeBounds();
+    }
+    return new Vector3(max.x, max.y, max.z);
+  }
+
+  private void computeBounds() {
+    int n = size * 3;
+    double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+    double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+    for (int v = 0; v < n; v++) {
+      minX = Math.min(minX, x[v]);
+      maxX = Math.max(maxX, x[v]);
+    }
+    for (int v = 0; v < n; v++) {
+      minY = Math.min(minY, y[v]);
+      maxY = Math.max(maxY, y[v]);
+    }
+    for (int v = 0; v < n; v++) {
+      minZ = Math.min(minZ, z[v]);
+      maxZ = Math.max(maxZ, z[v]);
+    }
+    min = new Vector3(minX, minY, minZ);
+    max = new Vector3(maxX, maxY, maxZ);
+  }
+
+  private void invalidateBounds() {
+    min = null;
+    max = null;
+  }
+
+  /**
+   * Translate all vertices. Cached bounds follow the translation.
+   */
+  public void translate(Vector3 translate) {
+    int n = size * 3;
+    double dx = translate.x, dy = translate.y, dz = translate.z;
+    for (int v = 0; v < n; v++) {
+      x[v] += dx;
+    }
+    for (int v = 0; v < n; v++) {
+      y[v] += dy;
+    }
+    for (int v = 0; v < n; v++) {
+      z[v] += dz;
+    }
+    if (min != null) {
+      min.addToSelf(translate);
+      max.addToSelf(translate);
+    }
+  }
+
+  /**
+   * Scale all vertices relatively to the origin.
+   */
+  public void scale(float scaling) {
+    int n = size * 3;
+    for (int v = 0; v < n; v++) {
+      x[v] += x[v] * scaling - x[v];
+    }
+    for (int v = 0; v < n; v++) {
+      y[v] += y[v] * scaling - y[v];
+    }
+    for (int v = 0; v < n; v++) {
+      z[v] += z[v] * scaling - z[v];
+    }
+    invalidateBounds();
+  }
+
+  /**
+   * Rotate all vertices. Computation is done in single precision, as {@link Rotation} does.
+   */
+  public void rotate(Rotation r) {
+    int n = size * 3;
+    for (int v = 0; v < n; v++) {
+      Vec rotated = r.rotate(new Vec((float) x[v], (float) y[v], (float) z[v]));
+      x[v] = rotated.x();
+      y[v] = rotated.y();
+      z[v] = rotated.z();
+    }
+    invalidateBounds();
+  }
+
+  /**
+   * Read-only list of {@link Triangle} backed by the store
+   */
+  private class TriangleView extends AbstractList<Triangle> implements RandomAccess {
+
+    @Override
+    public Triangle get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      return getTriangle(index);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
@@ -7,7 +7,6 @@ import java.awt.geom.Area;
 import java.awt.geom.Path2D;
 import java.awt.geom.PathIterator;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class TwoDistantPointsCalc {
 
@@ -102,7 +101,7 @@ public class TwoDistantPointsCalc {
    * @return un vecteur(collection) contenant les 2 points les plus distants
    */
     public  Vector<Vector2> defineTwoMostDistantPointsInArea(Area area,Vector2 liftpoint,double prec) {
-    ArrayList<Circle> circles= new ArrayList<>();
+    ArrayList<Vector2> centers = new ArrayList<>();
 
     Double startX=area.getBounds2D().getMinX();
     Double endX=area.getBounds2D().getMaxX();
@@ -112,45 +111,37 @@ public class TwoDistantPointsCalc {
     double enoughSpace=prec+CraftConfig.suckerDiameter/2+small_margin+CraftConfig.suckerDiameter+small_margin+prec+CraftConfig.suckerDiameter/2;
     /**this if increase the precision when the area is small */
     if(area.getBounds2D().getWidth()*area.getBounds2D().getHeight()<enoughSpace*enoughSpace)prec=1;
+    double radius = CraftConfig.suckerDiameter / 4;
+    Vector2 liftpointCenter = liftpoint == null ? null
+        : new Vector2(liftpoint.x - CraftConfig.suckerDiameter,
+            liftpoint.y - CraftConfig.suckerDiameter);
+    double minimumDistance = CraftConfig.suckerDiameter / 2 + CraftConfig.suckerDiameter / 4;
     //création de la tapi des cercles
     for(double i=startX;i<endX;i+=prec){
       for(double j=startY;j<endY;j=j+prec){
-        circles.add(new Circle(new Vector2(i,j), CraftConfig.suckerDiameter/4));
-      }
-    }
-    double margin=0;
-/**on prend les cercles qui sont à l'intérieure de la surface de subbit*/
-    circles= (ArrayList<Circle>) circles.stream().filter(ci -> (area.contains(ci.getCenter().x+ci.getRadius()+margin,ci.getCenter().y)
-            && area.contains(ci.getCenter().x,ci.getCenter().y+ci.getRadius()+margin)
-            && area.contains(ci.getCenter().x,ci.getCenter().y-ci.getRadius()-margin)
-            && area.contains(ci.getCenter().x-ci.getRadius()-margin,ci.getCenter().y))).collect(Collectors.toList());
-
-     /**on prend les cercles qui sont à l'extérieur de la lift point, si non le système visuel risque de confondre le data
-        matrix et le point d'orientation*/
-      if(liftpoint!=null){
-      Vector2 liftpointCenter=new Vector2(liftpoint.x-CraftConfig.suckerDiameter,liftpoint.y-CraftConfig.suckerDiameter);
-      double minimumDistance=CraftConfig.suckerDiameter/2+CraftConfig.suckerDiameter/4;
-      circles= (ArrayList<Circle>) circles.stream().filter(ci -> (Vector2.dist(liftpointCenter,ci.getCenter())>=minimumDistance  )).collect(Collectors.toList());
-    }
-
-/**calcul des distances entre les cercles pour identifier les 2 cercles les plus distants*/
-    Vector<Circle> positionTwoMostDistantCercles=new Vector<>();
-    double longestDistance = 0;
-    for (Circle cercle:circles){
-      for (Circle cercle2:circles){
-
-        if (Circle.CircleDistant(cercle, cercle2) > longestDistance) {
-          positionTwoMostDistantCercles.removeAllElements();
-          positionTwoMostDistantCercles.add(cercle);
-          positionTwoMostDistantCercles.add(cercle2);
-          longestDistance = Circle.CircleDistant(cercle, cercle2);
+        // Centre d'un Circle, décalé de son rayon
+        Vector2 center = new Vector2(i - radius, j - radius);
+        /*on prend les cercles qui sont à l'intérieure de la surface de subbit*/
+        if (!(area.contains(center.x + radius, center.y)
+            && area.contains(center.x, center.y + radius)
+            && area.contains(center.x, center.y - radius)
+            && area.contains(center.x - radius, center.y))) {
+          continue;
+        }
+        /*on prend les cercles qui sont à l'extérieur de la lift point, si non le système visuel
+        risque de confondre le data matrix et le point d'orientation*/
+        if (liftpointCenter != null && Vector2.dist(liftpointCenter, center) < minimumDistance) {
+          continue;
         }
+        centers.add(center);
       }
     }
- Vector<Vector2> MostTwoDistantPointsInArea=new Vector<>();
-    if (!positionTwoMostDistantCercles.isEmpty()){
-    MostTwoDistantPointsInArea.add(positionTwoMostDistantCercles.firstElement().getCenter());
-    MostTwoDistantPointsInArea.add(positionTwoMostDistantCercles.lastElement().getCenter());
+/**calcul des 2 cercles les plus distants, par enveloppe convexe*/
+    Vector<Vector2> MostTwoDistantPointsInArea=new Vector<>();
+    int[] pair = getMostDistantPair(centers);
+    if (pair != null) {
+      MostTwoDistantPointsInArea.add(centers.get(pair[0]));
+      MostTwoDistantPointsInArea.add(centers.get(pair[1]));
     }
     return  MostTwoDistantPointsInArea;
   }
@@ -257,34 +248,165 @@ while (condition>0){
 
 
   public Vector<Vector2> getTwoMostDistantPointFromArea(Area area) {
-
     Vector<Vector2> positionTwoMostDistantPoint = new Vector<>();
-    double longestDistance = 0;
-    for (PathIterator p1 = area.getPathIterator(null); !p1.isDone(); p1.next()) {
-      double[] coord1 = new double[6];
+    ArrayList<Vector2> vertices = getVerticesFrom(area);
+    int[] pair = getMostDistantPair(vertices);
+    if (pair != null) {
+      positionTwoMostDistantPoint.add(vertices.get(pair[0]));
+      positionTwoMostDistantPoint.add(vertices.get(pair[1]));
+    }
+    return positionTwoMostDistantPoint;
+  }
 
-      int type1 = p1.currentSegment(coord1);
-      if (type1 == PathIterator.SEG_CLOSE) {
-        continue;
+  /**
+   * Find the diameter of a set of points: build the convex hull, then turn a pair of calipers
+   * around it. Only hull vertices can be the farthest apart. Among equally distant pairs, the first
+   * one in the order of <tt>points</tt> is returned, as an exhaustive comparison would.
+   * <p>
+   * Holds no state, so it can run in parallel for every sub-bit.
+   *
+   * @param points candidates
+   * @return indexes of the two most distant points in <tt>points</tt>. <tt>null</tt> if all
+   * points are at the same place
+   */
+  public static int[] getMostDistantPair(List<Vector2> points) {
+    int n = points.size();
+    if (n < 2) {
+      return null;
+    }
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> {
+      Vector2 p = points.get(a);
+      Vector2 q = points.get(b);
+      int c = Double.compare(p.x, q.x);
+      return c != 0 ? c : Double.compare(p.y, q.y);
+    });
+
+    // Andrew's monotone chain, counter-clockwise, without collinear points
+    int[] hull = new int[2 * n];
+    int k = 0;
+    for (int pass = 0; pass < 2; pass++) {
+      int lowerSize = k;
+      for (int m = 0; m < n; m++) {
+        int i = order[pass == 0 ? m : n - 1 - m];
+        while (k >= lowerSize + 2
+            && cross(points.get(hull[k - 2]), points.get(hull[k - 1]), points.get(i)) <= 0) {
+          k--;
+        }
+        hull[k++] = i;
       }
-      Vector2 v1 = new Vector2(coord1[0], coord1[1]);
+      // Last point is the first of the other chain
+      k--;
+    }
+    if (k < 1) {
+      return null;
+    }
 
-      for (PathIterator p2 = area.getPathIterator(null); !p2.isDone(); p2.next()) {
-        double[] coord2 = new double[6];
-        int type2 = p2.currentSegment(coord2);
-        if (type2 == PathIterator.SEG_CLOSE) {
-          continue;
+    // Rotating calipers, keeping every antipodal pair
+    List<int[]> antipodalPairs = new ArrayList<>();
+    if (k <= 2) {
+      antipodalPairs.add(new int[]{hull[0], hull[k - 1]});
+    } else {
+      int j = 1;
+      for (int i = 0; i < k; i++) {
+        Vector2 a = points.get(hull[i]);
+        Vector2 b = points.get(hull[(i + 1) % k]);
+        while (cross(a, b, points.get(hull[(j + 1) % k])) > cross(a, b, points.get(hull[j]))) {
+          j = (j + 1) % k;
         }
-        Vector2 v2 = new Vector2(coord2[0], coord2[1]);
-        if (Vector2.dist(v1, v2) > longestDistance) {
-          positionTwoMostDistantPoint.removeAllElements();
-          positionTwoMostDistantPoint.add(v1);
-          positionTwoMostDistantPoint.add(v2);
-          longestDistance = Vector2.dist(v1, v2);
+        // Both ends of the opposite edge, in case it is parallel
+        for (int c : new int[]{hull[j], hull[(j + 1) % k]}) {
+          antipodalPairs.add(new int[]{hull[i], c});
+          antipodalPairs.add(new int[]{hull[(i + 1) % k], c});
         }
       }
     }
-    return positionTwoMostDistantPoint;
+    double longestDistance = 0;
+    for (int[] pair : antipodalPairs) {
+      longestDistance = Math.max(longestDistance,
+          Vector2.dist(points.get(pair[0]), points.get(pair[1])));
+    }
+    if (longestDistance == 0) {
+      return null;
+    }
+
+    // Among the longest pairs, including points within rounding of a hull vertex, pick the first
+    // one in the order of the list, as comparing all pairs one by one would
+    double tolerance = 1e-9 * Math.max(1, longestDistance);
+    int[] best = null;
+    double bestDistance = 0;
+    for (int[] pair : antipodalPairs) {
+      if (Vector2.dist(points.get(pair[0]), points.get(pair[1])) < longestDistance - tolerance) {
+        continue;
+      }
+      List<Integer> group0 = nearbyPoints(points, order, pair[0]);
+      List<Integer> group1 = nearbyPoints(points, order, pair[1]);
+      for (int u : group0) {
+        for (int v : group1) {
+          double distance = Vector2.dist(points.get(u), points.get(v));
+          for (int[] candidate : new int[][]{{u, v}, {v, u}}) {
+            if (best == null || distance > bestDistance
+                || (distance == bestDistance && (candidate[0] < best[0]
+                || (candidate[0] == best[0] && candidate[1] < best[1])))) {
+              best = candidate;
+              bestDistance = distance;
+            }
+          }
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * @param order indexes of points sorted by x
+   * @return indexes of the points at the same place as <tt>points[index]</tt>, up to rounding
+   */
+  private static List<Integer> nearbyPoints(List<Vector2> points, Integer[] order, int index) {
+    double eps = 1e-9;
+    Vector2 p = points.get(index);
+    // First position in order whose x is not below p.x - eps
+    int lo = 0;
+    int hi = order.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (points.get(order[mid]).x < p.x - eps) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    List<Integer> nearby = new ArrayList<>();
+    for (int m = lo; m < order.length && points.get(order[m]).x <= p.x + eps; m++) {
+      if (Math.abs(points.get(order[m]).y - p.y) <= eps) {
+        nearby.add(order[m]);
+      }
+    }
+    return nearby;
+  }
+
+  /**
+   * @return end points of every segment of the outline, in the order of its path
+   */
+  static ArrayList<Vector2> getVerticesFrom(Area area) {
+    ArrayList<Vector2> vertices = new ArrayList<>();
+    double[] coords = new double[6];
+    for (PathIterator pi = area.getPathIterator(null); !pi.isDone(); pi.next()) {
+      if (pi.currentSegment(coords) != PathIterator.SEG_CLOSE) {
+        vertices.add(new Vector2(coords[0], coords[1]));
+      }
+    }
+    return vertices;
+  }
+
+  /**
+   * @return twice the signed area of <tt>(o, a, b)</tt>, positive if counter-clockwise
+   */
+  private static double cross(Vector2 o, Vector2 a, Vector2 b) {
+    return (a.x - o.x) * (b.y - o.y) - (a.y - o.y) * (b.x - o.x);
   }
 
 
@@ -295,11 +417,10 @@ while (condition>0){
    * @return les 2 points les plus extremes vers la gauche et vers la droite
    */
 
-  public synchronized Vector<Vector2> getXminXmaxFromArea(Area area, SubBit2D bit) {
-
-    HashMap<Double,Vector2> AllPoints = new HashMap<Double,Vector2>();
+  public Vector<Vector2> getXminXmaxFromArea(Area area, SubBit2D bit) {
     Vector<Vector2> TwoPoints = new Vector<>();
-
+    Vector2 xMin = null;
+    Vector2 xMax = null;
     for (PathIterator p1 = area.getPathIterator(null); !p1.isDone(); p1.next()) {
       double[] coord1 = new double[6];
 
@@ -309,18 +430,18 @@ while (condition>0){
       }
       Vector2 v1 = new Vector2(coord1[0], coord1[1]);
       v1=v1.getTransformed(bit.getParentBit().getTransfoMatrixToCS());
-      AllPoints.put(v1.x,v1);
+      // On equal x, the last point is kept
+      if (xMin == null || Double.compare(v1.x, xMin.x) <= 0) {
+        xMin = v1;
+      }
+      if (xMax == null || Double.compare(v1.x, xMax.x) >= 0) {
+        xMax = v1;
+      }
     }
-    Set<Double> s=  AllPoints.keySet();
-    Vector<Double> list=new Vector<>();
-    Iterator<Double> its= s.iterator();
-    while (its.hasNext()){
-      Double d= its.next();
-      list.add(d);
+    if (xMin != null) {
+      TwoPoints.add(xMin);
+      TwoPoints.add(xMax);
     }
-    Collections.sort(list);
-    TwoPoints.add(AllPoints.get(list.firstElement()));
-    TwoPoints.add(AllPoints.get(list.lastElement()));
     return TwoPoints;
   }
 
@@ -0,0 +1,287 @@
+package meshIneBits.util.supportExportFile;
+
+import meshIneBits.Bit3D;
+import meshIneBits.NewBit2D;
+import meshIneBits.SubBit2D;
+import meshIneBits.util.CutPathCalc;
+import meshIneBits.util.Logger;
+import meshIneBits.util.MultiThreadServiceExecutor;
+
+import java.awt.geom.Area;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prepares the bits of a mesh for export on all cores, ahead of the writer. Bits are handed to the
+ * writer in the given order, whatever the order in which they are prepared. At most
+ * <tt>capacity</tt> bits are prepared in advance, so the memory used does not depend on the size
+ * of the mesh. Each bit is prepared once, even when the writer asks for it out of order.
+ * <p>
+ * Only the writer thread calls the pipeline.
+ */
+public class BitExportPipeline implements AutoCloseable {
+
+  /**
+   * Bit ready to be written, with what has to be known of it before its preparation.
+   */
+  public static class PreparedBit {
+
+    private final Bit3D bit;
+    private final boolean cut;
+    private final List<Double> minAndMaxXDistantPoint;
+
+    private PreparedBit(Bit3D bit, boolean cut, List<Double> minAndMaxXDistantPoint) {
+      this.bit = bit;
+      this.cut = cut;
+      this.minAndMaxXDistantPoint = minAndMaxXDistantPoint;
+    }
+
+    public Bit3D getBit() {
+      return bit;
+    }
+
+    /**
+     * @return <tt>true</tt> if the base of the bit has cut paths
+     */
+    public boolean isCut() {
+      return cut;
+    }
+
+    /**
+     * @return result of {@link Bit3D#getMinAndMaxXDistantPoint()} on the rebuilt bit, before it is
+     * turned for the cut
+     */
+    public List<Double> getMinAndMaxXDistantPoint() {
+      return minAndMaxXDistantPoint;
+    }
+  }
+
+  private final List<Bit3D> bits;
+  private final ArrayBlockingQueue<Future<PreparedBit>> window;
+  /**
+   * Preparation of the bits submitted or prepared out of order, and not taken yet
+   */
+  private final Map<Bit3D, Future<PreparedBit>> preparations = new IdentityHashMap<>();
+  private final MultiThreadServiceExecutor executor;
+  private int submitted = 0;
+  private int taken = 0;
+
+  private final LongAdder rebuildNanos = new LongAdder();
+  private final LongAdder prepareNanos = new LongAdder();
+  private long waitNanos = 0;
+  private final long startNanos = System.nanoTime();
+
+  /**
+   * @param bits     in writing order
+   * @param capacity maximum number of bits prepared and not taken yet
+   */
+  public BitExportPipeline(List<Bit3D> bits, int capacity) {
+    this(bits, capacity, MultiThreadServiceExecutor.instance);
+  }
+
+  BitExportPipeline(List<Bit3D> bits, int capacity, MultiThreadServiceExecutor executor) {
+    this.bits = Collections.unmodifiableList(new ArrayList<>(bits));
+    this.window = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    this.executor = executor;
+    fillWindow();
+  }
+
+  /**
+   * Rebuild a bit from its valid sub bits and prepare it, on the calling thread. Preparing a bit
+   * again gives the same result.
+   */
+  public static PreparedBit prepare(Bit3D bit) {
+    return prepare(bit, null, null);
+  }
+
+  private static PreparedBit prepare(Bit3D bit, LongAdder rebuildNanos, LongAdder prepareNanos) {
+    // The cut paths of the bit itself are rebuilt below, those of its base are not
+    boolean cut = bit.getBaseBit()
+        .getCutPathsCB()
+        .size() != 0;
+    long start = System.nanoTime();
+    rebuildBit3d(bit);
+    // Points of a bit already prepared may have been turned
+    bit.computeTwoPointNearTwoPointMostDistantOnBit();
+    List<Double> minAndMaxX = bit.getMinAndMaxXDistantPoint();
+    long rebuilt = System.nanoTime();
+    bit.prepareBitToExport();
+    if (rebuildNanos != null) {
+      rebuildNanos.add(rebuilt - start);
+      prepareNanos.add(System.nanoTime() - rebuilt);
+    }
+    return new PreparedBit(bit, cut, minAndMaxX);
+  }
+
+  /**
+   * removes irregular sbbits for the case when a bit is divided to multiple subbits some are
+   * regulars and some are irregulars
+   */
+  private static void rebuildBit3d(Bit3D bit) {
+    NewBit2D newbit = (NewBit2D) bit.getBaseBit();
+    Vector<Area> areas = new Vector<>();
+    for (SubBit2D sub : newbit.getValidSubBits()) {
+      areas.add(sub.getAreaCB());
+    }
+    bit.getBaseBit()
+        .setAreas(areas);
+    bit.setRawCutPaths(CutPathCalc.instance.calcCutPathFrom(bit.getBaseBit()));
+  }
+
+  private void fillWindow() {
+    while (submitted < bits.size() && window.remainingCapacity() > 0) {
+      Bit3D bit = bits.get(submitted++);
+      Future<PreparedBit> preparation = preparations.get(bit);
+      if (preparation == null) {
+        preparation = executor.submit(() -> prepare(bit, rebuildNanos, prepareNanos));
+        preparations.put(bit, preparation);
+      }
+      window.add(preparation);
+    }
+  }
+
+  public boolean hasNext() {
+    return taken < bits.size();
+  }
+
+  /**
+   * @return the bit which {@link #take()} returns next, <tt>null</tt> if none is left
+   */
+  public Bit3D peekBit() {
+    return hasNext() ? bits.get(taken) : null;
+  }
+
+  /**
+   * Wait for the next bit in writing order.
+   *
+   * @throws CancellationException if the waiting thread is interrupted
+   * @throws RuntimeException      the exception thrown while preparing the bit
+   */
+  public PreparedBit take() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("All the bits have been taken");
+    }
+    long start = System.nanoTime();
+    try {
+      PreparedBit prepared = await(window.remove());
+      preparations.remove(prepared.getBit());
+      taken++;
+      return prepared;
+    } finally {
+      waitNanos += System.nanoTime() - start;
+      fillWindow();
+      Logger.setProgress(taken, bits.size());
+    }
+  }
+
+  /**
+   * Get a bit out of writing order. Waits for its preparation if already submitted, prepares it on
+   * the calling thread otherwise. {@link #take()} then hands the same preparation.
+   *
+   * @throws CancellationException if the waiting thread is interrupted
+   * @throws RuntimeException      the exception thrown while preparing the bit
+   */
+  public PreparedBit prepareNow(Bit3D bit) {
+    Future<PreparedBit> preparation = preparations.get(bit);
+    if (preparation == null) {
+      FutureTask<PreparedBit> task = new FutureTask<>(
+          () -> prepare(bit, rebuildNanos, prepareNanos));
+      preparations.put(bit, task);
+      task.run();
+      preparation = task;
+    }
+    long start = System.nanoTime();
+    try {
+      return await(preparation);
+    } finally {
+      waitNanos += System.nanoTime() - start;
+    }
+  }
+
+  private PreparedBit await(Future<PreparedBit> preparation) {
+    try {
+      return preparation.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread()
+          .interrupt();
+      close();
+      CancellationException cancellation = new CancellationException("Interrupted");
+      cancellation.initCause(e);
+      throw cancellation;
+    } catch (ExecutionException e) {
+      close();
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  public int size() {
+    return bits.size();
+  }
+
+  /**
+   * @return number of bits handed to the writer
+   */
+  public int getTaken() {
+    return taken;
+  }
+
+  /**
+   * @return milliseconds spent rebuilding areas and cut paths, summed over all threads
+   */
+  public double getRebuildTime() {
+    return rebuildNanos.sum() / 1e6;
+  }
+
+  /**
+   * @return milliseconds spent in {@link Bit3D#prepareBitToExport()}, summed over all threads
+   */
+  public double getPrepareTime() {
+    return prepareNanos.sum() / 1e6;
+  }
+
+  /**
+   * @return milliseconds the writer waited for a bit to be prepared
+   */
+  public double getWaitTime() {
+    return waitNanos / 1e6;
+  }
+
+  /**
+   * Drop the bits not taken yet.
+   */
+  @Override
+  public void close() {
+    submitted = bits.size();
+    Future<PreparedBit> future;
+    while ((future = window.poll()) != null) {
+      future.cancel(true);
+    }
+    preparations.clear();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d/%d bits exported in %.0f ms (rebuild %.0f ms, prepare %.0f ms on all threads, "
+            + "writer waited %.0f ms)", taken, bits.size(),
+        (System.nanoTime() - startNanos) / 1e6, getRebuildTime(), getPrepareTime(),
+        getWaitTime());
+  }
+}
@@ -32,34 +32,46 @@ package meshIneBits.util.supportExportFile;
 import meshIneBits.util.exceptions.ValueException;
 import meshIneBits.Bit3D;
 import meshIneBits.Mesh;
-import meshIneBits.NewBit2D;
-import meshIneBits.SubBit2D;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.config.MeshTagXML;
 import meshIneBits.scheduler.AScheduler;
 import meshIneBits.util.*;
-import org.w3c.dom.Element;
+import meshIneBits.util.supportExportFile.BitExportPipeline.PreparedBit;
 
-import java.awt.geom.Area;
+import javax.xml.stream.XMLStreamException;
 import java.awt.geom.Path2D;
 import java.awt.geom.PathIterator;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 /**
  * This class provide list of function to support writing {@link Mesh} to XML file. Use {@link
- * MeshXMLTool#writeMeshToXML} write Mesh's  XML file
+ * MeshXMLTool#writeMeshToXML} write Mesh's  XML file. Batches, layers, bits and sub bits are
+ * written to the file as soon as they are produced. Bits are prepared on all cores by a {@link
+ * BitExportPipeline}, ahead of the writer.
  *
  * @author QuangBao DO
  */
 public class MeshXMLTool extends XMLDocument<Mesh> implements InterfaceXmlTool {
 
   private static MeshXMLTool XML_TOOL;
+  /**
+   * Number of bits prepared in advance
+   */
+  private static final int PIPELINE_CAPACITY = 4 * Runtime.getRuntime()
+      .availableProcessors();
   private Mesh mMesh;
   private Bit3D currentBit;
+  /**
+   * Position of each bit in the sorted bits of {@link #mMesh}
+   */
+  private Map<Bit3D, Integer> bitIndexes;
+  private BitExportPipeline pipeline;
 
   //Parameter
   public int remainingBits = CraftConfig.nbBits;
@@ -75,6 +87,7 @@ public class MeshXMLTool extends XMLDocument<Mesh> implements InterfaceXmlTool {
 
   public void initialize(Mesh mesh) {
     this.mMesh = mesh;
+    this.bitIndexes = null;
     //changeFilePathToXML();
 
   }
@@ -83,17 +96,21 @@ public class MeshXMLTool extends XMLDocument<Mesh> implements InterfaceXmlTool {
   @Override
   public void writeMeshToXML(Mesh mesh) {
     initialize(mesh);
-    writeObjectToXML(mesh);
+    pipeline = new BitExportPipeline(getSortedBits(), PIPELINE_CAPACITY);
+    try {
+      writeObjectToXML(mesh);
+      Logger.message(pipeline.toString());
+    } finally {
+      pipeline.close();
+      pipeline = null;
+    }
   }
 
   @Override
-  protected Element buildElementResult(Mesh mesh, int batchNumber) {
-    Element meshElement = null;
+  protected void writeElementResult(Mesh mesh, int batchNumber) throws XMLStreamException {
     Logger.message("Generating XML file");
 
-    AScheduler scheduler = mMesh.getScheduler();
-    List<Bit3D> listAllBit3D = AScheduler.getSetBit3DsSortedFrom(scheduler.getSortedBits());
-    int nbSubBit = getCountSubBitElement(listAllBit3D);
+    List<Bit3D> listAllBit3D = getSortedBits();
     //Get the bit of the batch and put them on the ArrayList below.
     ArrayList<Bit3D> listBitByBatch = new ArrayList<Bit3D>();
     for (int j = 0; j < CraftConfig.nbBitesBatch; j++) {
@@ -102,77 +119,75 @@ public class MeshXMLTool extends XMLDocument<Mesh> implements InterfaceXmlTool {
       }
     }
 
-    meshElement = createElement(MeshTagXML.MESH_START);
-    Element config = buildConfigElement(mesh, batchNumber);
-    meshElement.appendChild(config);
-    meshElement.appendChild(buildBatchElement(listBitByBatch));
+    startElement(MeshTagXML.MESH_START);
+    writeConfigElement(mesh, batchNumber);
+    writeBatchElement(listBitByBatch);
+    endElement();
+  }
 
-    return meshElement;
+  /**
+   * @return bits of the mesh in scheduled order, computed once per export
+   */
+  private List<Bit3D> getSortedBits() {
+    List<Bit3D> listAllBit3D = AScheduler.getSetBit3DsSortedFrom(mMesh.getScheduler()
+        .getSortedBits());
+    if (bitIndexes == null) {
+      bitIndexes = new IdentityHashMap<>();
+      for (int i = 0; i < listAllBit3D.size(); i++) {
+        bitIndexes.putIfAbsent(listAllBit3D.get(i), i);
+      }
+    }
+    return listAllBit3D;
   }
 
   /**
    * Write the config of mesh file
    *
    * @param mesh object to write to xml file
-   * @return return element XML that contain values config of {@link Mesh}
    */
-  public Element buildConfigElement(Mesh mesh, int batch) {
+  public void writeConfigElement(Mesh mesh, int batch) throws XMLStreamException {
     //Config element
-    Element config = createElement(MeshTagXML.MESH_CONFIG);
+    startElement(MeshTagXML.MESH_CONFIG);
     //file's name element
-    Element name = createElement(MeshTagXML.MESH_NAME,
-        getNameFromFileLocation() + " Batch " + batch);
-    config.appendChild(name);
+    writeElement(MeshTagXML.MESH_NAME, getNameFromFileLocation() + " Batch " + batch);
     //date element
-    Element date = createElement(MeshTagXML.DATE, new Date().toString());
-    config.appendChild(date);
+    writeElement(MeshTagXML.DATE, new Date().toString());
 
     //bit's dimension element
-    Element dimension = createElement(MeshTagXML.BIT_DIMENSION);
+    startElement(MeshTagXML.BIT_DIMENSION);
     //height element
-    Element height = createElement(MeshTagXML.BIT_HEIGHT,
-        Double.toString(CraftConfig.bitThickness));
-    dimension.appendChild(height);
+    writeElement(MeshTagXML.BIT_HEIGHT, Double.toString(CraftConfig.bitThickness));
     //width element
-    Element width = createElement(MeshTagXML.BIT_WIDTH, Double.toString(CraftConfig.bitWidth));
-    dimension.appendChild(width);
+    writeElement(MeshTagXML.BIT_WIDTH, Double.toString(CraftConfig.bitWidth));
     //length element
-    Element length = createElement(MeshTagXML.BIT_LENGTH, Double.toString(CraftConfig.lengthFull));
-    dimension.appendChild(length);
-    config.appendChild(dimension);
+    writeElement(MeshTagXML.BIT_LENGTH, Double.toString(CraftConfig.lengthFull));
+    endElement();
 
     //part skirt element
-    Element partSkirt = createElement(MeshTagXML.PART_SKIRT);
-    Element heightSkirt = createElement(MeshTagXML.PART_SKIRT_HEIGHT, Double.toString(
+    startElement(MeshTagXML.PART_SKIRT);
+    writeElement(MeshTagXML.PART_SKIRT_HEIGHT, Double.toString(
         ((mesh.getLayers()
             .size() + CraftConfig.layersOffset) * CraftConfig.bitThickness)
             - CraftConfig.layersOffset));
-    partSkirt.appendChild(heightSkirt);
-    Element radius = createElement(MeshTagXML.PART_SKIRT_RADIUS,
-        Double.toString(mesh.getSkirtRadius()));
-    partSkirt.appendChild(radius);
-    config.appendChild(partSkirt);
-    return config;
+    writeElement(MeshTagXML.PART_SKIRT_RADIUS, Double.toString(mesh.getSkirtRadius()));
+    endElement();
+    endElement();
   }
 
-  //create the Batch XML
-  public Element buildBatchElement(ArrayList<Bit3D> listBitByBatch) {
+  //write the Batch XML
+  public void writeBatchElement(ArrayList<Bit3D> listBitByBatch) throws XMLStreamException {
     if (mMesh == null) {
       throw new NullPointerException("Mesh object hasn't be declared yet");
     }
 
-    Element batchElement = createElement(MeshTagXML.BATCH);
+    startElement(MeshTagXML.BATCH);
 
     //batch Number
-    Element batchNumber = createElement(MeshTagXML.BATCH_NUMBER,
-        Integer.toString(mMesh.getScheduler()
-            .getBitBatch(listBitByBatch.get(0))));
-    batchElement.appendChild(batchNumber);
+    writeElement(MeshTagXML.BATCH_NUMBER, Integer.toString(mMesh.getScheduler()
+        .getBitBatch(listBitByBatch.get(0))));
 
     //Count Bits
-    Element numberOfBits = createElement(MeshTagXML.NUMBER_OF_BITS,
-        Integer.toString(listBitByBatch.size()));
-    batchElement.appendChild(numberOfBits);
+    writeElement(MeshTagXML.NUMBER_OF_BITS, Integer.toString(listBitByBatch.size()));
 
     //contain all bit of same layer.
     ArrayList<Bit3D> listBitByLayer = new ArrayList<Bit3D>();
@@ -180,14 +195,14 @@ public class MeshXMLTool extends XMLDocument<Mesh> implements InterfaceXmlTool {
     double bitAltitude = listBitByBatch.get(0)
         .getLowerAltitude();
 
-    //try to put all bit of the same layer in an ArrayList to then apply buildLayerElement.
+    //try to put all bit of the same layer in an ArrayList to then apply writeLayerElement.
     for (Bit3D bit : listBitByBatch) {
       if (bit.getLowerAltitude() == bitAltitude) {
         listBitByLayer.add(bit);
       }
       //means that we got all by of same layer
       else {
-        batchElement.appendChild(buildLayerElement(listBitByLayer));
+        writeLayerElement(listBitByLayer);
         //init to 0 the array and value
         listBitByLayer = new ArrayList<Bit3D>();
         bitAltitude = bit.getLowerAltitude();
@@ -195,25 +210,25 @@ public class MeshXMLTool extends XMLDocument<Mesh> implements InterfaceXmlTool {
         listBitByLayer.add(bit);
       }
     }
-    batchElement.appendChild(buildLayerElement(listBitByLayer));
-    return batchElement;
+    writeLayerElement(listBitByLayer);
+    endElement();
   }
 
-  //create the Layer XML
-  public Element buildLayerElement(ArrayList<Bit3D> listBitLayer) {
-    Element layerElement = createElement(MeshTagXML.LAYER);
-    AScheduler scheduler = mMesh.getScheduler();
+  //write the Layer XML
+  public void writeLayerElement(ArrayList<Bit3D> listBitLayer) throws XMLStreamException {
+    startElement(MeshTagXML.LAYER);
     //height of layer
-    Element height = createElement(MeshTagXML.LAYER_HEIGHT,
-        Double.toString(listBitLayer.get(0)
-            .getLowerAltitude()));
-    layerElement.appendChild(height);
+    writeElement(MeshTagXML.LAYER_HEIGHT, Double.toString(listBitLayer.get(0)
+        .getLowerAltitude()));
 
-    List<Bit3D> listAllBit3D = AScheduler.getSetBit3DsSortedFrom(scheduler.getSortedBits());
+    if (bitIndexes == null) {
+      getSortedBits();
+    }
     Vector3 modelTranslation = mMesh.getModel()
         .getPos();
 
     for (Bit3D bit3D : listBitLayer) {
+      PreparedBit prepared = nextPreparedBit(bit3D);
       // translating the bits - they are generated at the origin of the world coordinate system;
       for (int j = 0; j < bit3D.getLiftPointsCB()
           .size(); j++) {
@@ -227,21 +242,31 @@ public class MeshXMLTool extends XMLDocument<Mesh> implements InterfaceXmlTool {
               .set(j, new Vector2(oldX + modelTranslation.x, oldY + modelTranslation.y));
         }
       }
-      Element moveWorkingSpaceElement = buildMoveWorkingSpace(bit3D, listAllBit3D.indexOf(bit3D));
-      layerElement.appendChild(moveWorkingSpaceElement);
-      Element bitElement = buildBitElement(bit3D);
-      layerElement.appendChild(bitElement);
+      writeMoveWorkingSpace(bit3D, prepared.getMinAndMaxXDistantPoint(),
+          bitIndexes.getOrDefault(bit3D, -1));
+      writeBitElement(prepared);
       remainingBits -= 1;
     }
-    return layerElement;
+    endElement();
   }
 
-  //create the move-working-space XML
-  private Element buildMoveWorkingSpace(Bit3D bit, int id) {
+  /**
+   * @return <tt>bit3D</tt> prepared by the pipeline, out of its order if it does not hand it next
+   */
+  private PreparedBit nextPreparedBit(Bit3D bit3D) {
+    if (pipeline == null) {
+      return BitExportPipeline.prepare(bit3D);
+    }
+    return pipeline.peekBit() == bit3D ? pipeline.take() : pipeline.prepareNow(bit3D);
+  }
+
+  //write the move-working-space XML
+  private void writeMoveWorkingSpace(Bit3D bit, List<Double> minAndMaxXDistantPoint, int id)
+      throws XMLStreamException {
 
-    Element moveWorkingSpace = createElement(MeshTagXML.MOVE_WORKING_SPACE);
+    startElement(MeshTagXML.MOVE_WORKING_SPACE);
     if (remainingBits == 0) {
-      moveWorkingSpace.appendChild(createElement(MeshTagXML.RETURN));
+      writeElement(MeshTagXML.RETURN);
       remainingBits = CraftConfig.nbBits;
     }
     for (int i = 0; i < bit.getLiftPointsCS()
@@ -254,86 +279,66 @@ public class MeshXMLTool extends XMLDocument<Mesh> implements InterfaceXmlTool {
         if (bitOrientation.x != 1) {
           safetySpace = Math.abs(CraftConfig.lengthFull * bitOrientation.x / 2);
         }
-        double xMinInMachineRef = bit.getMinAndMaxXDistantPoint()
-            .get(0) + CraftConfig.printerX / 2
+        double xMinInMachineRef = minAndMaxXDistantPoint.get(0) + CraftConfig.printerX / 2
             + CraftConfig.xPrintingSpace;
-        double xMaxInMachineRef = bit.getMinAndMaxXDistantPoint()
-            .get(1) + CraftConfig.printerX / 2
+        double xMaxInMachineRef = minAndMaxXDistantPoint.get(1) + CraftConfig.printerX / 2
             + CraftConfig.xPrintingSpace;
 
         if (id == 0) {
-          ;
           workingPlacePosition = xMinInMachineRef - safetySpace;
-          Element goTo = createElement(MeshTagXML.GO_TO);
-          Element x = createElement(MeshTagXML.COORDINATE_X, Double.toString(workingPlacePosition));
-          goTo.appendChild(x);
-          moveWorkingSpace.appendChild(goTo);
+          writeGoTo();
         } else {
           if (xMinInMachineRef - safetySpace <= workingPlacePosition
               || xMaxInMachineRef + safetySpace >= (workingPlacePosition
               + CraftConfig.workingWidth)) {
             workingPlacePosition = xMinInMachineRef - safetySpace;
-            Element goTo = createElement(MeshTagXML.GO_TO);
-            Element x = createElement(MeshTagXML.COORDINATE_X,
-                Double.toString(workingPlacePosition));
-            goTo.appendChild(x);
-            moveWorkingSpace.appendChild(goTo);
+            writeGoTo();
           }
         }
       }
     }
-    return moveWorkingSpace;
+    endElement();
   }
 
-  //create the bit XML
-  public Element buildBitElement(Bit3D bit3D) {
+  private void writeGoTo() throws XMLStreamException {
+    startElement(MeshTagXML.GO_TO);
+    writeElement(MeshTagXML.COORDINATE_X, Double.toString(workingPlacePosition));
+    endElement();
+  }
+
+  //write the bit XML
+  public void writeBitElement(Bit3D bit3D) throws XMLStreamException {
+    writeBitElement(BitExportPipeline.prepare(bit3D));
+  }
+
+  private void writeBitElement(PreparedBit prepared) throws XMLStreamException {
     if (mMesh == null) {
       throw new NullPointerException("Mesh object hasn't be declared yet");
     }
-    Element elementBit = createElement(MeshTagXML.BIT);
+    Bit3D bit3D = prepared.getBit();
+    currentBit = bit3D;
+    startElement(MeshTagXML.BIT);
     //bit's ID element
-    Element bitId = createElement(MeshTagXML.BIT_ID,
-        Integer.toString(mMesh.getScheduler()
-            .getBitIndex(bit3D)));
-    elementBit.appendChild(bitId);
+    writeElement(MeshTagXML.BIT_ID, Integer.toString(mMesh.getScheduler()
+        .getBitIndex(bit3D)));
     //Cut bit element
-    Element cut = bit3D.getCutPathsCB()
-        .size() == 0 ? createElement(MeshTagXML.NO_CUT_BIT)
-        : createElement(MeshTagXML.CUT_BIT);
-    rebuildBit3d(bit3D);
-    prepareBitToExport(bit3D);
+    startElement(prepared.isCut() ? MeshTagXML.CUT_BIT : MeshTagXML.NO_CUT_BIT);
     for (Path2D cutPath : bit3D.getCutPathsCB()) {
-      Element cutPathElement = writeCutPathElement(cutPath);
-      cut.appendChild(cutPathElement);
+      writeCutPathElement(cutPath);
     }
-    elementBit.appendChild(cut);
+    endElement();
 
     //sub bit of bit
-    writeSubBitElementToBit(elementBit, bit3D);
-    return elementBit;
-  }
-
- /**removes irregular sbbits for the case when a bit is divided to multiple subbits some are regulars and some are irregulars */
-  private void rebuildBit3d(Bit3D bit){
-
-    NewBit2D newbit=(NewBit2D)bit.getBaseBit();
-    Vector<SubBit2D> subs=newbit.getValidSubBits();
-    Vector<Area> areas=new Vector<>();
-    for (SubBit2D sub:subs){
-
-   areas.add(sub.getAreaCB());
-    }
-    bit.getBaseBit().setAreas(areas);
-    bit.setRawCutPaths(CutPathCalc.instance.calcCutPathFrom(bit.getBaseBit()));
+    writeSubBitElementToBit(bit3D);
+    endElement();
   }
 
   /**
-   * write list <subbit> into element <bit>
+   * write list <subbit> into the current element <bit>
    *
-   * @param elementBit element bit that will add elements subbits
-   * @param bit3D      object Bit3D {@link Bit3D}
+   * @param bit3D object Bit3D {@link Bit3D}
    */
-  private void writeSubBitElementToBit(Element elementBit, Bit3D bit3D) {
+  private void writeSubBitElementToBit(Bit3D bit3D) throws XMLStreamException {
     if (mMesh == null) {
       throw new NullPointerException("Mesh object hasn't be declared yet");
     }
@@ -342,47 +347,36 @@ public class MeshXMLTool extends XMLDocument<Mesh> implements InterfaceXmlTool {
     for (int i = 0; i < bit3D.getLiftPointsCB()
         .size(); i++) {
       //Subit element i
-      Element subBit = createElement(MeshTagXML.SUB_BIT);
+      startElement(MeshTagXML.SUB_BIT);
 
       //subBit's id
-      Element id = createElement(MeshTagXML.SUB_BIT_ID, Integer.toString(subBitId));
-      subBit.appendChild(id);
+      writeElement(MeshTagXML.SUB_BIT_ID, Integer.toString(subBitId));
       subBitId += 1;
       //subBit's plate
-      Element plate = createElement(MeshTagXML.PLATE,
-          Integer.toString(mMesh.getScheduler()
-              .getBitPlate(bit3D)));
-      subBit.appendChild(plate);
+      writeElement(MeshTagXML.PLATE, Integer.toString(mMesh.getScheduler()
+          .getBitPlate(bit3D)));
 
       //subBit's slot
       if (slotPosition > CraftConfig.nbBitesByPlat) {
         slotPosition = 1;
       }
-      Element slot = createElement(MeshTagXML.SLOT, Integer.toString(slotPosition));
-      subBit.appendChild(slot);
+      writeElement(MeshTagXML.SLOT, Integer.toString(slotPosition));
       slotPosition += 1;
 
       //subBit's lift point
-      Element liftPoint = createElement(MeshTagXML.POSITION_BIT_COORDINATE);
+      startElement(MeshTagXML.POSITION_BIT_COORDINATE);
       //LiftPoint's position in Bit coordinate system
-      Element xInBit = createElement(MeshTagXML.COORDINATE_X,
-          Double.toString(bit3D.getLiftPointsCS()
-              .get(i).x));
-      Element yInBit = createElement(MeshTagXML.COORDINATE_Y,
-          Double.toString(bit3D.getLiftPointsCS()
-              .get(i).y));
-      liftPoint.appendChild(xInBit);
-      liftPoint.appendChild(yInBit);
-      subBit.appendChild(liftPoint);
+      writeElement(MeshTagXML.COORDINATE_X, Double.toString(bit3D.getLiftPointsCS()
+          .get(i).x));
+      writeElement(MeshTagXML.COORDINATE_Y, Double.toString(bit3D.getLiftPointsCS()
+          .get(i).y));
+      endElement();
 
       //Rotation of SubBit
-      Element rotationLiftPoint = createElement(MeshTagXML.ROTATION_SUB_BIT,
-          Double.toString(bit3D.getOrientation()
-              .getEquivalentAngle()));
-      subBit.appendChild(rotationLiftPoint);
+      writeElement(MeshTagXML.ROTATION_SUB_BIT, Double.toString(bit3D.getOrientation()
+          .getEquivalentAngle()));
 
       //LiftPoint's position in Mesh coordinate system
-      Element positionSubBit = createElement(MeshTagXML.POSITION_MESH_COORDINATE);
       double xInPrinterRef = bit3D.getLiftPointsCS()
           .get(i).x;
       double yInPrinterRef = bit3D.getLiftPointsCS()
@@ -391,94 +385,78 @@ public class MeshXMLTool extends XMLDocument<Mesh> implements InterfaceXmlTool {
           - workingPlacePosition;
       double yInMachineRef = yInPrinterRef + CraftConfig.printerY / 2 + CraftConfig.yEmptySpace;
 
-      Element xInMesh = createElement(MeshTagXML.COORDINATE_X, Double.toString(xInSubXRef));
-      Element yInMesh = createElement(MeshTagXML.COORDINATE_Y, Double.toString(yInMachineRef));
-      positionSubBit.appendChild(xInMesh);
-      positionSubBit.appendChild(yInMesh);
-      subBit.appendChild(positionSubBit);
+      startElement(MeshTagXML.POSITION_MESH_COORDINATE);
+      writeElement(MeshTagXML.COORDINATE_X, Double.toString(xInSubXRef));
+      writeElement(MeshTagXML.COORDINATE_Y, Double.toString(yInMachineRef));
+      endElement();
 //Two distant point of SubBit
       if (listTwoPoints.get(i)
           .size() >= 2) {
         for (int j = 0; j < 2; j++) {
           Vector2 point = listTwoPoints.get(i)
               .get(j);
-          Element pointElement = createElement(MeshTagXML.POINT);
-          Element pointIdElement = createElement(MeshTagXML.POINT_ID, Integer.toString(j));
-          pointElement.appendChild(pointIdElement);
-          Element pointXELement = createElement(MeshTagXML.COORDINATE_X, Double.toString(point.x));
-          Element pointYELement = createElement(MeshTagXML.COORDINATE_Y, Double.toString(point.y));
-          pointElement.appendChild(pointXELement);
-          pointElement.appendChild(pointYELement);
-          subBit.appendChild(pointElement);
+          startElement(MeshTagXML.POINT);
+          writeElement(MeshTagXML.POINT_ID, Integer.toString(j));
+          writeElement(MeshTagXML.COORDINATE_X, Double.toString(point.x));
+          writeElement(MeshTagXML.COORDINATE_Y, Double.toString(point.y));
+          endElement();
         }
 
       }
       if (bit3D.getListAngles()
           .get(i) != null) {
-        Element rotation2 = createElement(MeshTagXML.ROTATION_SUB_BIT_SECOND,
-            Double.toString(bit3D.getListAngles()
-                .get(i)));
-        subBit.appendChild(rotation2);
+        writeElement(MeshTagXML.ROTATION_SUB_BIT_SECOND, Double.toString(bit3D.getListAngles()
+            .get(i)));
       }
-      elementBit.appendChild(subBit);
+      endElement();
     }
 
   }
 
-  private int getCountSubBitElement(List<Bit3D> allBits) {
-    int count = 0;
-    for (Bit3D bit : allBits) {
-      count += bit.getLiftPointsCB()
-          .size();
-    }
-    return count;
-  }
-
-  public Element writeCutPathElement(Path2D cutPath) {
-    Element cutPathsElement = createElement(MeshTagXML.CUT_PATHS);
-    int countMoveTo = 0;
-    Element currentFallType = null;
+  /**
+   * Write a cut path. The fall type of a piece is known once the next piece starts, so the
+   * segments of the path are read first.
+   */
+  public void writeCutPathElement(Path2D cutPath) throws XMLStreamException {
+    List<double[]> points = new ArrayList<>();
+    List<Integer> types = new ArrayList<>();
+    int nbMoveTo = 0;
     for (PathIterator pi = cutPath.getPathIterator(null); !pi.isDone(); pi.next()) {
       double[] coords = new double[2];
       int type = pi.currentSegment(coords);
-      Element parentTag;
-      Element x = createElement(MeshTagXML.COORDINATE_X, Double.toString(coords[0]));
-      Element y = createElement(MeshTagXML.COORDINATE_Y, Double.toString(coords[1]));
-      switch (type) {
-        case PathIterator.SEG_MOVETO:
-          if (countMoveTo > 0) {
-            appendTextNode(currentFallType, MeshTagXML.CHUTE_TYPE);
-          }
-          currentFallType = createElement(MeshTagXML.FALL_TYPE);
-          cutPathsElement.appendChild(currentFallType);
-          countMoveTo++;
-          parentTag = createElement(MeshTagXML.MOVE_TO_POSITION);
-          break;
-        case PathIterator.SEG_LINETO:
-          parentTag = createElement(MeshTagXML.CUT_TO_POSITION);
-          break;
-        default:
-          throw new ValueException("Type of point isn't defined: " + type);
+      if (type != PathIterator.SEG_MOVETO && type != PathIterator.SEG_LINETO) {
+        throw new ValueException("Type of point isn't defined: " + type);
+      }
+      if (type == PathIterator.SEG_MOVETO) {
+        nbMoveTo++;
+      }
+      points.add(coords);
+      types.add(type);
+    }
+    boolean drop = currentBit.checkIfLastCutPath(cutPath) && currentBit.isHoldedInCUt();
 
+    startElement(MeshTagXML.CUT_PATHS);
+    int countMoveTo = 0;
+    for (int k = 0; k < points.size(); k++) {
+      double[] coords = points.get(k);
+      if (types.get(k) == PathIterator.SEG_MOVETO) {
+        countMoveTo++;
+        // A piece followed by another one, or the last one when the sub bit is dropped, falls
+        writeElement(MeshTagXML.FALL_TYPE,
+            countMoveTo < nbMoveTo || drop ? MeshTagXML.CHUTE_TYPE : MeshTagXML.SUB_BIT);
+        startElement(MeshTagXML.MOVE_TO_POSITION);
+      } else {
+        startElement(MeshTagXML.CUT_TO_POSITION);
       }
-      parentTag.appendChild(x);
-      parentTag.appendChild(y);
-      cutPathsElement.appendChild(parentTag);
+      writeElement(MeshTagXML.COORDINATE_X, Double.toString(coords[0]));
+      writeElement(MeshTagXML.COORDINATE_Y, Double.toString(coords[1]));
+      endElement();
     }
-    if (currentBit.checkIfLastCutPath(cutPath) && currentBit.isHoldedInCUt()) {
-      appendTextNode(currentFallType, MeshTagXML.CHUTE_TYPE);
-      cutPathsElement.appendChild(createElement(MeshTagXML.FALL_TYPE, MeshTagXML.SUB_BIT));
-      cutPathsElement.appendChild(createElement(MeshTagXML.DROP));
-    } else {
-      appendTextNode(currentFallType, MeshTagXML.SUB_BIT);
+    if (drop) {
+      writeElement(MeshTagXML.FALL_TYPE, MeshTagXML.SUB_BIT);
+      writeElement(MeshTagXML.DROP);
     }
-    return cutPathsElement;
+    endElement();
   }
 
-  private void prepareBitToExport(Bit3D bit3D) {
-    bit3D.prepareBitToExport();
-    currentBit = bit3D;
-  }
-
-
 }
@@ -34,65 +34,128 @@ import meshIneBits.Mesh;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.scheduler.AScheduler;
 import meshIneBits.util.Logger;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * Writes an object into XML files. Elements are streamed to the file as they are produced, so the
+ * memory used does not depend on the size of the document. The output is the same as the one of
+ * a DOM serialized by the default {@link javax.xml.transform.Transformer}: same declaration, no
+ * indentation and empty elements written as <tt>&lt;tag/&gt;</tt>.
+ */
 public abstract class XMLDocument<T> {
 
-  private Document document;
+  private static final String DECLARATION =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>";
+
   private Path filePath;
+  private boolean compressed = CraftConfig.xmlCompression == 1;
+  private XMLStreamWriter writer;
+  /**
+   * Start tag not written yet, in case the element stays empty
+   */
+  private String pendingTag;
 
   public XMLDocument(Path filePath) {
-    try {
-      this.document = DocumentBuilderFactory.newInstance()
-          .newDocumentBuilder()
-          .newDocument();
-      this.filePath = filePath;
-    } catch (ParserConfigurationException e) {
-      e.printStackTrace();
-    }
+    this.filePath = filePath;
   }
 
-  public Element createElement(String tag, String value) {
-    Element element = document.createElement(tag);
-    element.appendChild(document.createTextNode(value));
-    return element;
+  /**
+   * @param compressed <tt>true</tt> to write gzip files, suffixed by <tt>.gz</tt>
+   */
+  public void setCompressed(boolean compressed) {
+    this.compressed = compressed;
   }
 
-  public void appendChild(Element element) {
-    document.appendChild(element);
+  public boolean isCompressed() {
+    return compressed;
   }
 
-  public Element createElement(String tag) {
-    return document.createElement(tag);
+  /**
+   * Open an element. Its start tag is written with its first content.
+   */
+  public void startElement(String tag) throws XMLStreamException {
+    flushPendingTag();
+    pendingTag = tag;
   }
 
-  public void appendTextNode(Element e, String s) {
-    e.appendChild(document.createTextNode(s));
+  /**
+   * Close the last opened element
+   */
+  public void endElement() throws XMLStreamException {
+    if (pendingTag != null) {
+      writer.writeEmptyElement(pendingTag);
+      pendingTag = null;
+    } else {
+      writer.writeEndElement();
+    }
   }
 
-  public void writeDocumentToXML(Path filePath) {
-    TransformerFactory transformerFactory = TransformerFactory.newInstance();
-    try {
-      Transformer transformer = transformerFactory.newTransformer();
-      DOMSource domSource = new DOMSource(document);
-      StreamResult streamResult = new StreamResult(new File(filePath.toString()));
+  /**
+   * Write a whole element containing only text
+   */
+  public void writeElement(String tag, String value) throws XMLStreamException {
+    startElement(tag);
+    writeText(value);
+    endElement();
+  }
 
-      transformer.transform(domSource, streamResult);
-    } catch (TransformerException e) {
-      e.printStackTrace();
+  /**
+   * Write an empty element
+   */
+  public void writeElement(String tag) throws XMLStreamException {
+    startElement(tag);
+    endElement();
+  }
+
+  public void writeText(String s) throws XMLStreamException {
+    flushPendingTag();
+    writer.writeCharacters(s);
+  }
+
+  private void flushPendingTag() throws XMLStreamException {
+    if (pendingTag != null) {
+      writer.writeStartElement(pendingTag);
+      pendingTag = null;
+    }
+  }
+
+  /**
+   * Write one document, produced by <tt>content</tt>
+   */
+  public void writeDocumentToXML(Path filePath, DocumentContent content)
+      throws IOException, XMLStreamException {
+    Path target = compressed ? Paths.get(filePath + ".gz") : filePath;
+    try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(target));
+        OutputStream out = compressed ? new GZIPOutputStream(file) : file;
+        Writer text = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+      text.write(DECLARATION);
+      writer = XMLOutputFactory.newInstance()
+          .createXMLStreamWriter(text);
+      pendingTag = null;
+      try {
+        content.write();
+        writer.writeEndDocument();
+        writer.flush();
+      } finally {
+        writer.close();
+        writer = null;
+      }
     }
   }
 
@@ -132,14 +195,15 @@ public abstract class XMLDocument<T> {
         int nbBatch = (listAllBit3D.size() / CraftConfig.nbBitesBatch) + 1;
         // Generate the xml for each Batch.
         for (int i = 0; i < nbBatch; i++) {
-          this.document = DocumentBuilderFactory.newInstance()
-              .newDocumentBuilder()
-              .newDocument();
-          Element meshElement = buildElementResult(obj, i);
-          appendChild(meshElement);
+          if (i * CraftConfig.nbBitesBatch >= listAllBit3D.size()) {
+            // No bit left for this batch
+            break;
+          }
+          int batch = i;
           filePath = Paths.get(getFilePath() + File.separator);
           writeDocumentToXML(
-              Paths.get(getFilePath() + File.separator + "Batch " + i + "." + "xml"));
+              Paths.get(getFilePath() + File.separator + "Batch " + i + "." + "xml"),
+              () -> writeElementResult(obj, batch));
 
           Logger.message("The XML file has been generated and saved in " + getFilePath());
         }
@@ -152,5 +216,16 @@ public abstract class XMLDocument<T> {
     }
   }
 
-  abstract Element buildElementResult(T obj, int nbBatch);
+  /**
+   * Write the root element of a batch
+   */
+  abstract void writeElementResult(T obj, int nbBatch) throws XMLStreamException;
+
+  /**
+   * Content of one document
+   */
+  public interface DocumentContent {
+
+    void write() throws XMLStreamException;
+  }
 }
@@ -0,0 +1,363 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package meshIneBits.util.supportImportFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import meshIneBits.util.Logger;
+
+/**
+ * Reader of ASCII <a href="https://en.wikipedia.org/wiki/STL_(file_format)#ASCII_STL">STL
+ * files</a>. The file is read in a single pass over mapped bytes: no line is turned into a {@link
+ * String} and numbers are parsed in place. Large files are split at <tt>facet</tt> lines and the
+ * pieces are tokenized in parallel, then concatenated in file order.
+ * <br>
+ * As before, only <tt>vertex</tt> lines are taken into account, every three of them forming a
+ * triangle.
+ */
+public class AsciiSTLReader {
+
+  public static final int DOUBLES_PER_TRIANGLE = 9;
+
+  /**
+   * Under this size, the file is parsed in one piece
+   */
+  private static final long MIN_CHUNK_SIZE = 8L << 20;
+
+  /**
+   * Upper bound of a mapped piece
+   */
+  private static final long MAX_CHUNK_SIZE = 1L << 30;
+
+  /**
+   * Size of the window scanned to find a <tt>facet</tt> line
+   */
+  private static final int BOUNDARY_WINDOW = 1 << 16;
+
+  private static final byte[] VERTEX = "vertex".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] FACET = "facet".getBytes(StandardCharsets.US_ASCII);
+
+  /**
+   * Powers of ten exactly representable as double
+   */
+  private static final double[] POW10 = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /**
+   * @param channel opened on an ASCII STL
+   * @return packed vertices, {@link #DOUBLES_PER_TRIANGLE} per triangle
+   * @throws IOException           when the file cannot be mapped
+   * @throws NumberFormatException when a coordinate is malformed
+   */
+  public static double[] read(FileChannel channel) throws IOException {
+    long size = channel.size();
+    long[] bounds = splitAtFacets(channel, size);
+    int chunkCount = bounds.length - 1;
+    double[][] parts = new double[chunkCount][];
+    int[] partSizes = new int[chunkCount];
+    AtomicLong parsed = new AtomicLong();
+    try {
+      IntStream.range(0, chunkCount)
+          .parallel()
+          .forEach(c -> {
+            ByteBuffer chunk;
+            try {
+              chunk = channel.map(FileChannel.MapMode.READ_ONLY, bounds[c],
+                  bounds[c + 1] - bounds[c]);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+            Chunk result = parseChunk(chunk);
+            parts[c] = result.values;
+            partSizes[c] = result.size;
+            long done = parsed.addAndGet(bounds[c + 1] - bounds[c]);
+            Logger.setProgress((int) (done * 100 / Math.max(size, 1)), 100);
+          });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+
+    int total = 0;
+    for (int c = 0; c < chunkCount; c++) {
+      total += partSizes[c];
+    }
+    // Drop an incomplete last triangle, as the line-based reader did
+    total -= total % DOUBLES_PER_TRIANGLE;
+    double[] vertices = new double[total];
+    int offset = 0;
+    for (int c = 0; c < chunkCount && offset < total; c++) {
+      int length = Math.min(partSizes[c], total - offset);
+      System.arraycopy(parts[c], 0, vertices, offset, length);
+      offset += length;
+    }
+    return vertices;
+  }
+
+  /**
+   * @return offsets of the pieces, starting with 0 and ending with <tt>size</tt>. Every inner
+   * offset is the start of a line whose first token is <tt>facet</tt>
+   */
+  private static long[] splitAtFacets(FileChannel channel, long size) throws IOException {
+    int wanted = (int) Math.min(Runtime.getRuntime()
+        .availableProcessors() * 4L, size / MIN_CHUNK_SIZE);
+    long chunkSize = Math.min(MAX_CHUNK_SIZE,
+        Math.max(MIN_CHUNK_SIZE, size / Math.max(wanted, 1)));
+    List<Long> bounds = new ArrayList<>();
+    bounds.add(0L);
+    long tentative = chunkSize;
+    while (tentative < size) {
+      long boundary = nextFacetLine(channel, tentative, size);
+      if (boundary < 0) {
+        break;
+      }
+      if (boundary - bounds.get(bounds.size() - 1) > MAX_CHUNK_SIZE) {
+        throw new IOException("No facet found in " + MAX_CHUNK_SIZE + " bytes");
+      }
+      bounds.add(boundary);
+      tentative = boundary + chunkSize;
+    }
+    if (size - bounds.get(bounds.size() - 1) > MAX_CHUNK_SIZE) {
+      throw new IOException("No facet found in " + MAX_CHUNK_SIZE + " bytes");
+    }
+    bounds.add(size);
+    return bounds.stream()
+        .mapToLong(Long::longValue)
+        .toArray();
+  }
+
+  /**
+   * @return start of the first line after <tt>from</tt> whose first token is <tt>facet</tt>, or
+   * <tt>-1</tt> if there is none
+   */
+  private static long nextFacetLine(FileChannel channel, long from, long size) throws IOException {
+    long windowStart = from;
+    while (windowStart < size) {
+      int windowSize = (int) Math.min(BOUNDARY_WINDOW, size - windowStart);
+      ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+      int lastLineStart = -1;
+      for (int i = 0; i < windowSize; i++) {
+        if (window.get(i) != '\n') {
+          continue;
+        }
+        int lineStart = i + 1;
+        lastLineStart = lineStart;
+        int t = skipBlanks(window, lineStart, windowSize);
+        if (t + FACET.length < windowSize
+            && matches(window, t, windowSize, FACET)) {
+          return windowStart + lineStart;
+        }
+      }
+      if (windowStart + windowSize >= size) {
+        return -1;
+      }
+      // Rescan the last, possibly cut, line in the next window
+      windowStart += lastLineStart > 1 ? lastLineStart - 1 : windowSize;
+    }
+    return -1;
+  }
+
+  /**
+   * Values parsed from a piece of file
+   */
+  private static class Chunk {
+
+    private double[] values = new double[1 << 12];
+    private int size;
+
+    private void add(double value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+  }
+
+  private static Chunk parseChunk(ByteBuffer buffer) {
+    Chunk chunk = new Chunk();
+    int limit = buffer.limit();
+    int i = 0;
+    while (i < limit) {
+      int t = skipBlanks(buffer, i, limit);
+      if (matches(buffer, t, limit, VERTEX)) {
+        int p = t + VERTEX.length;
+        for (int k = 0; k < 3; k++) {
+          int start = skipBlanks(buffer, p, limit);
+          p = tokenEnd(buffer, start, limit);
+          chunk.add(parseDouble(buffer, start, p));
+        }
+      }
+      // Go to next line
+      i = t;
+      while (i < limit && buffer.get(i) != '\n') {
+        i++;
+      }
+      i++;
+    }
+    return chunk;
+  }
+
+  /**
+   * @return index of the first character which is neither a space nor a tab, on the same line
+   */
+  private static int skipBlanks(ByteBuffer buffer, int i, int limit) {
+    while (i < limit) {
+      byte b = buffer.get(i);
+      if (b != ' ' && b != '\t' && b != '\r') {
+        break;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  private static int tokenEnd(ByteBuffer buffer, int i, int limit) {
+    while (i < limit) {
+      byte b = buffer.get(i);
+      if (b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+        break;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * @return <tt>true</tt> if the token starting at <tt>i</tt> is exactly <tt>keyword</tt>
+   */
+  private static boolean matches(ByteBuffer buffer, int i, int limit, byte[] keyword) {
+    if (i + keyword.length > limit) {
+      return false;
+    }
+    for (int k = 0; k < keyword.length; k++) {
+      if (buffer.get(i + k) != keyword[k]) {
+        return false;
+      }
+    }
+    return tokenEnd(buffer, i + keyword.length, limit) == i + keyword.length;
+  }
+
+  /**
+   * Parse a decimal number. Numbers with at most 15 significant digits and a small exponent are
+   * computed exactly with a single multiplication or division, which gives the same result as
+   * {@link Double#parseDouble(String)}. Others are delegated to it.
+   *
+   * @param start first byte of the token
+   * @param end   byte after the token
+   */
+  static double parseDouble(ByteBuffer buffer, int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+      negative = buffer.get(i) == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int significantDigits = 0;
+    int exponent = 0;
+    boolean digits = false;
+    boolean dot = false;
+    for (; i < end; i++) {
+      byte b = buffer.get(i);
+      if (b >= '0' && b <= '9') {
+        digits = true;
+        if (mantissa != 0 || b != '0') {
+          significantDigits++;
+          if (significantDigits > 15) {
+            return slowParse(buffer, start, end);
+          }
+          mantissa = mantissa * 10 + (b - '0');
+        }
+        if (dot) {
+          exponent--;
+        }
+      } else if (b == '.' && !dot) {
+        dot = true;
+      } else {
+        break;
+      }
+    }
+    if (!digits) {
+      return slowParse(buffer, start, end);
+    }
+    if (i < end) {
+      if (buffer.get(i) != 'e' && buffer.get(i) != 'E') {
+        return slowParse(buffer, start, end);
+      }
+      i++;
+      boolean negativeExponent = false;
+      if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+        negativeExponent = buffer.get(i) == '-';
+        i++;
+      }
+      if (i == end) {
+        return slowParse(buffer, start, end);
+      }
+      int e = 0;
+      for (; i < end; i++) {
+        byte b = buffer.get(i);
+        if (b < '0' || b > '9' || e > 1000) {
+          return slowParse(buffer, start, end);
+        }
+        e = e * 10 + (b - '0');
+      }
+      exponent += negativeExponent ? -e : e;
+    }
+    double value;
+    if (mantissa == 0) {
+      value = 0;
+    } else if (exponent >= 0 && exponent < POW10.length) {
+      value = mantissa * POW10[exponent];
+    } else if (exponent < 0 && -exponent < POW10.length) {
+      value = mantissa / POW10[-exponent];
+    } else {
+      return slowParse(buffer, start, end);
+    }
+    return negative ? -value : value;
+  }
+
+  private static double slowParse(ByteBuffer buffer, int start, int end) {
+    byte[] token = new byte[end - start];
+    for (int k = 0; k < token.length; k++) {
+      token[k] = buffer.get(start + k);
+    }
+    return Double.parseDouble(new String(token, StandardCharsets.US_ASCII));
+  }
+}
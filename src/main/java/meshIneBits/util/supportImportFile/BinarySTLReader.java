@@ -0,0 +1,170 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package meshIneBits.util.supportImportFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import meshIneBits.util.Logger;
+import meshIneBits.util.MultiThreadServiceExecutor;
+
+/**
+ * Reader of binary <a href="https://en.wikipedia.org/wiki/STL_(file_format)#Binary_STL">STL
+ * files</a>. The file is mapped in memory and the little-endian floats are decoded straight into a
+ * packed vertex array: 9 floats per triangle, <tt>x0 y0 z0 x1 y1 z1 x2 y2 z2</tt>. Normals and
+ * attribute bytes are skipped. Chunks of facets are decoded in parallel on {@link
+ * MultiThreadServiceExecutor#instance}.
+ */
+public class BinarySTLReader {
+
+  public static final int HEADER_SIZE = 80;
+  public static final int FACET_SIZE = 50;
+  public static final int FLOATS_PER_TRIANGLE = 9;
+
+  /**
+   * Number of facets decoded by one task
+   */
+  private static final int FACETS_PER_CHUNK = 1 << 16;
+
+  /**
+   * Largest region mapped at once, aligned on facets
+   */
+  private static final long MAX_REGION_SIZE = (Integer.MAX_VALUE / FACET_SIZE) * (long) FACET_SIZE;
+
+  /**
+   * @param filename path of a binary STL
+   * @return packed vertices, {@link #FLOATS_PER_TRIANGLE} per triangle
+   * @throws IOException when the file is truncated or cannot be mapped
+   */
+  public static float[] read(String filename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      return read(channel);
+    }
+  }
+
+  /**
+   * @param channel opened on a binary STL
+   * @return packed vertices, {@link #FLOATS_PER_TRIANGLE} per triangle
+   * @throws IOException when the file is truncated or cannot be mapped
+   */
+  public static float[] read(FileChannel channel) throws IOException {
+    int triangleCount = readTriangleCount(channel);
+    long expectedSize = HEADER_SIZE + 4 + (long) triangleCount * FACET_SIZE;
+    if (triangleCount < 0 || channel.size() < expectedSize) {
+      throw new IOException(
+          "STL declares " + triangleCount + " triangles but only holds " + channel.size()
+              + " bytes");
+    }
+    if ((long) triangleCount * FLOATS_PER_TRIANGLE > Integer.MAX_VALUE - 8) {
+      throw new IOException("STL has too many triangles: " + triangleCount);
+    }
+
+    float[] vertices = new float[triangleCount * FLOATS_PER_TRIANGLE];
+    AtomicInteger decoded = new AtomicInteger();
+    long regionStart = HEADER_SIZE + 4;
+    int firstFacet = 0;
+    while (firstFacet < triangleCount) {
+      long regionSize = Math.min(MAX_REGION_SIZE,
+          (long) (triangleCount - firstFacet) * FACET_SIZE);
+      MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart,
+          regionSize);
+      decodeRegion(region, (int) (regionSize / FACET_SIZE), firstFacet, vertices, decoded,
+          triangleCount);
+      firstFacet += (int) (regionSize / FACET_SIZE);
+      regionStart += regionSize;
+    }
+    return vertices;
+  }
+
+  /**
+   * A file is considered binary when its length is exactly the one announced by the triangle count
+   * in its header. ASCII files may start with anything, including <tt>solid</tt> in a binary
+   * header, so their first bytes are not a reliable hint.
+   *
+   * @param channel opened on a STL file
+   * @return <tt>true</tt> if the file length matches the declared triangle count
+   */
+  public static boolean isBinary(FileChannel channel) throws IOException {
+    if (channel.size() < HEADER_SIZE + 4) {
+      return false;
+    }
+    long triangleCount = Integer.toUnsignedLong(readTriangleCount(channel));
+    return channel.size() == HEADER_SIZE + 4 + triangleCount * FACET_SIZE;
+  }
+
+  /**
+   * @return number of triangles declared after the 80-byte header
+   */
+  public static int readTriangleCount(FileChannel channel) throws IOException {
+    if (channel.size() < HEADER_SIZE + 4) {
+      throw new IOException("File too short to be a binary STL");
+    }
+    MappedByteBuffer countBuffer = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, 4);
+    return countBuffer.order(ByteOrder.LITTLE_ENDIAN)
+        .getInt(0);
+  }
+
+  /**
+   * Decode all facets of a mapped region, one chunk per task of the central scheduler.
+   *
+   * @param region     mapped facets
+   * @param facetCount number of facets in region
+   * @param firstFacet index of the first facet of region in the whole file
+   * @throws java.util.concurrent.CancellationException if the reading thread is interrupted
+   */
+  private static void decodeRegion(MappedByteBuffer region, int facetCount, int firstFacet,
+      float[] vertices, AtomicInteger decoded, int triangleCount) {
+    int chunkCount = (facetCount + FACETS_PER_CHUNK - 1) / FACETS_PER_CHUNK;
+    MultiThreadServiceExecutor.instance.invokeParallel(() -> IntStream.range(0, chunkCount)
+        .parallel()
+        .forEach(c -> {
+          // Absolute reads on a private view, so tasks do not share any position
+          ByteBuffer view = region.duplicate()
+              .order(ByteOrder.LITTLE_ENDIAN);
+          int from = c * FACETS_PER_CHUNK;
+          int to = Math.min(from + FACETS_PER_CHUNK, facetCount);
+          int out = (firstFacet + from) * FLOATS_PER_TRIANGLE;
+          for (int f = from; f < to; f++) {
+            int offset = f * FACET_SIZE + 12; // skip normal
+            for (int k = 0; k < FLOATS_PER_TRIANGLE; k++) {
+              vertices[out++] = view.getFloat(offset + 4 * k);
+            }
+          }
+          Logger.setProgress(decoded.addAndGet(to - from), triangleCount);
+        }), 0);
+  }
+}
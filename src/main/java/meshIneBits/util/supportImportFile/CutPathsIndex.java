@@ -0,0 +1,369 @@
+package meshIneBits.util.supportImportFile;
+
+import meshIneBits.config.CraftConfig;
+import meshIneBits.config.MeshTagXML;
+import meshIneBits.util.CustomLogger;
+import meshIneBits.util.Pair;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.awt.geom.Path2D;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Cut paths of a batch file, read on demand. The file is scanned only as far as the requested
+ * element to find where each <tt>&lt;cut-paths&gt;</tt> and <tt>&lt;no-cutting&gt;</tt> element
+ * starts, then this element alone is parsed with StAX, once. The first bits of a batch are then
+ * available without reading the whole file.
+ * <p>
+ * The scan looks for the tags as they are written by
+ * {@link meshIneBits.util.supportExportFile.MeshXMLTool}: comments or CDATA containing these tags
+ * are not supported.
+ * <p>
+ * Each element is the list of pairs of fall type and path described in
+ * {@link DomParser#parseXml(int)}.
+ */
+public class CutPathsIndex extends AbstractList<ArrayList<Pair<FallType, Path2D.Double>>>
+        implements RandomAccess {
+
+    private static final CustomLogger logger = new CustomLogger(CutPathsIndex.class);
+    private static final byte[] CUT_PATHS_START = ("<" + MeshTagXML.CUT_PATHS).getBytes(
+            StandardCharsets.US_ASCII);
+    private static final byte[] CUT_PATHS_END = ("</" + MeshTagXML.CUT_PATHS + ">").getBytes(
+            StandardCharsets.US_ASCII);
+    private static final byte[] NO_CUT_START = ("<" + MeshTagXML.NO_CUT_BIT).getBytes(
+            StandardCharsets.US_ASCII);
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final XMLInputFactory factory = XMLInputFactory.newInstance();
+
+    private final Path file;
+    /**
+     * Whole content of a compressed file, <tt>null</tt> if the file is read directly
+     */
+    private final byte[] inflated;
+    private final long length;
+
+    /**
+     * Start of each indexed element, or -1 for a <tt>&lt;no-cutting&gt;</tt>
+     */
+    private final List<Long> starts = new ArrayList<>();
+    /**
+     * End of each indexed element, exclusive
+     */
+    private final List<Long> ends = new ArrayList<>();
+    private final List<ArrayList<Pair<FallType, Path2D.Double>>> parsed = new ArrayList<>();
+
+    private final byte[] buffer = new byte[CHUNK_SIZE];
+    /**
+     * Position in the file of <tt>buffer[0]</tt>
+     */
+    private long bufferStart = 0;
+    private int bufferLength = 0;
+    /**
+     * Position in the file of the next byte to scan
+     */
+    private long scanned = 0;
+
+    /**
+     * @param file batch file written by {@link meshIneBits.util.supportExportFile.MeshXMLTool},
+     *             compressed if its name ends with <tt>.gz</tt>
+     */
+    public CutPathsIndex(Path file) throws IOException {
+        this.file = file;
+        if (file.getFileName()
+                .toString()
+                .endsWith(".gz")) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+                inflated = in.readAllBytes();
+            }
+            length = inflated.length;
+        } else {
+            inflated = null;
+            length = Files.size(file);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Scan the whole file to count the elements
+     */
+    @Override
+    public synchronized int size() {
+        indexUpTo(Integer.MAX_VALUE);
+        return starts.size();
+    }
+
+    /**
+     * Parse the element on first access
+     *
+     * @throws IndexOutOfBoundsException if the file holds less than <tt>index + 1</tt> elements
+     * @throws UncheckedIOException      if the file can not be read or is not well formed
+     */
+    @Override
+    public synchronized ArrayList<Pair<FallType, Path2D.Double>> get(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        indexUpTo(index);
+        if (index >= starts.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + starts.size());
+        }
+        ArrayList<Pair<FallType, Path2D.Double>> paths = parsed.get(index);
+        if (paths == null) {
+            paths = parse(starts.get(index), ends.get(index));
+            parsed.set(index, paths);
+        }
+        return paths;
+    }
+
+    /**
+     * @return number of elements found so far, without reading further
+     */
+    public synchronized int getIndexedCount() {
+        return starts.size();
+    }
+
+    /**
+     * Scan the file until element <tt>index</tt> is found or the file ends
+     */
+    private void indexUpTo(int index) {
+        try {
+            while (starts.size() <= index && fill(scanned, CUT_PATHS_END.length + 1)) {
+                if (byteAt(scanned) != '<') {
+                    scanned++;
+                } else if (matches(scanned, CUT_PATHS_START)) {
+                    long start = scanned;
+                    long end = findElementEnd(start + CUT_PATHS_START.length);
+                    addEntry(start, end);
+                    scanned = end;
+                } else if (matches(scanned, NO_CUT_START)) {
+                    addEntry(-1, -1);
+                    scanned += NO_CUT_START.length;
+                } else {
+                    scanned++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void addEntry(long start, long end) {
+        starts.add(start);
+        ends.add(end);
+        parsed.add(null);
+    }
+
+    /**
+     * @param from position right after <tt>&lt;cut-paths</tt>
+     * @return position after the end of the element
+     */
+    private long findElementEnd(long from) throws IOException {
+        long position = from;
+        // Empty element
+        while (fill(position, 1)) {
+            byte b = byteAt(position);
+            if (b == '>') {
+                break;
+            }
+            if (b == '/' && fill(position, 2) && byteAt(position + 1) == '>') {
+                return position + 2;
+            }
+            position++;
+        }
+        while (fill(position, CUT_PATHS_END.length)) {
+            if (byteAt(position) == '<' && matches(position, CUT_PATHS_END)) {
+                return position + CUT_PATHS_END.length;
+            }
+            position++;
+        }
+        throw new IOException("Element " + MeshTagXML.CUT_PATHS + " not closed in " + file);
+    }
+
+    /**
+     * @return <tt>true</tt> if the tag starts at <tt>position</tt>, followed by a delimiter
+     */
+    private boolean matches(long position, byte[] tag) throws IOException {
+        if (!fill(position, tag.length)) {
+            return false;
+        }
+        for (int i = 0; i < tag.length; i++) {
+            if (byteAt(position + i) != tag[i]) {
+                return false;
+            }
+        }
+        if (tag[tag.length - 1] == '>' || !fill(position, tag.length + 1)) {
+            return true;
+        }
+        byte next = byteAt(position + tag.length);
+        return next == '>' || next == '/' || Character.isWhitespace(next);
+    }
+
+    private byte byteAt(long position) {
+        return buffer[(int) (position - bufferStart)];
+    }
+
+    /**
+     * Make <tt>count</tt> bytes from <tt>position</tt> available in the buffer
+     *
+     * @return <tt>false</tt> if the file ends before
+     */
+    private boolean fill(long position, int count) throws IOException {
+        if (position + count > length) {
+            return false;
+        }
+        if (position >= bufferStart && position + count <= bufferStart + bufferLength) {
+            return true;
+        }
+        bufferStart = position;
+        bufferLength = (int) Math.min(CHUNK_SIZE, length - position);
+        read(position, buffer, bufferLength);
+        return true;
+    }
+
+    private void read(long position, byte[] dst, int count) throws IOException {
+        if (inflated != null) {
+            System.arraycopy(inflated, (int) position, dst, 0, count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer target = ByteBuffer.wrap(dst, 0, count);
+            while (target.hasRemaining()) {
+                if (channel.read(target, position + target.position()) < 0) {
+                    throw new IOException("Unexpected end of " + file);
+                }
+            }
+        }
+    }
+
+    private ArrayList<Pair<FallType, Path2D.Double>> parse(long start, long end) {
+        ArrayList<Pair<FallType, Path2D.Double>> paths_by_FallType = new ArrayList<>();
+        if (start < 0) {
+            paths_by_FallType.add(new Pair<>(FallType.Nocutting, new Path2D.Double()));
+            return paths_by_FallType;
+        }
+        try {
+            byte[] element = new byte[(int) (end - start)];
+            read(start, element, element.length);
+            return toPaths(readChildren(element));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (XMLStreamException e) {
+            throw new UncheckedIOException(new IOException("Malformed element in " + file, e));
+        }
+    }
+
+    /**
+     * @return tag and texts of the children of the element, and of their first two children
+     */
+    private static List<String[]> readChildren(byte[] element) throws XMLStreamException {
+        List<String[]> children = new ArrayList<>();
+        XMLStreamReader reader = factory.createXMLStreamReader(new ByteArrayInputStream(element),
+                "UTF-8");
+        try {
+            int depth = 0;
+            String[] child = null;
+            int coordinate = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if (depth == 2) {
+                        child = new String[]{reader.getLocalName(), "", "", ""};
+                        children.add(child);
+                        coordinate = 0;
+                    } else if (depth == 3) {
+                        coordinate++;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                } else if (event == XMLStreamConstants.CHARACTERS && child != null) {
+                    if (depth == 2) {
+                        child[1] += reader.getText();
+                    } else if (depth == 3 && coordinate <= 2) {
+                        child[1 + coordinate] += reader.getText();
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return children;
+    }
+
+    /**
+     * Same reading as the one of the DOM, see {@link DomParser#parseXml(int)}
+     */
+    private ArrayList<Pair<FallType, Path2D.Double>> toPaths(List<String[]> childes) {
+        ArrayList<Pair<FallType, Path2D.Double>> paths_by_FallType = new ArrayList<>();
+        // just for initializing puroposes
+        FallType type = FallType.Default;
+        Path2D.Double pathcut_by_FallType = new Path2D.Double();
+        boolean normal = true;
+        for (int ch = 0; ch < childes.size(); ch++) {
+            String[] child = childes.get(ch);
+            if (child[0].equals(MeshTagXML.FALL_TYPE)) {
+                //if path is not empty
+                if (!pathcut_by_FallType.getPathIterator(null)
+                        .isDone()) {
+                    pathcut_by_FallType.closePath();
+                    paths_by_FallType.add(new Pair<>(type, pathcut_by_FallType));
+                }
+                pathcut_by_FallType = new Path2D.Double();
+                if (child[1].equals(MeshTagXML.CHUTE_TYPE)) {
+                    type = FallType.Chute;
+                } else {
+                    type = FallType.Subbit;
+                }
+                //case of Drop
+                if (ch == childes.size() - 2) {
+                    pathcut_by_FallType = new Path2D.Double();
+                    type = FallType.Sub_Drop;
+                }
+            } else if (child[0].equals(MeshTagXML.MOVE_TO_POSITION)
+                    || child[0].equals(MeshTagXML.CUT_TO_POSITION)) {
+                //to make sure the cutting will be done we adjust a bit the positions
+                double x = DomParser.adjustValue(Double.parseDouble(child[2]));
+                double y = DomParser.adjustValue(Double.parseDouble(child[3]));
+                if (x >= CraftConfig.lengthFull / 2 - CraftConfig.sectionHoldingToCut) {
+                    normal = false;
+                }
+                if (child[0].equals(MeshTagXML.MOVE_TO_POSITION)) {
+                    pathcut_by_FallType.moveTo(x, y);
+                } else {
+                    pathcut_by_FallType.lineTo(x, y);
+                }
+            }
+        }
+        if (!pathcut_by_FallType.getPathIterator(null)
+                .isDone()) {
+            pathcut_by_FallType.closePath();
+        }
+        //ADDING THE LAST PATH WHEN CHILDES REACH THE OVER
+        paths_by_FallType.add(new Pair<>(type, pathcut_by_FallType));
+        if (!normal) {
+            logger.logDEBUGMessage("Values in " + file + " doesn't seem good, x in cut-path Node "
+                    + "can't be over 70 because it's the holding area");
+        }
+        return paths_by_FallType;
+    }
+}
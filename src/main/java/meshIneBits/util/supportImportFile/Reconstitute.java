@@ -8,10 +8,11 @@ import java.awt.geom.Area;
 import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
 
 public class Reconstitute  {
-    private ArrayList<ArrayList<Pair<FallType, Path2D.Double>>>cutpaths;
+    private List<ArrayList<Pair<FallType, Path2D.Double>>>cutpaths;
     private ArrayList<Area>fallenAreas=new ArrayList<>();
     private static int currentDecoupBatchNum=0;
     private static int currentDeposeBatchNum=0;
@@ -32,7 +33,7 @@ public class Reconstitute  {
         currentDeposeBatchNum = currentDeposeBatchNumI;
     }
 
-    public  Area recreateArea(ArrayList<ArrayList<Pair<FallType, Path2D.Double>>> cutpaths, int id, boolean isDecoup){
+    public  Area recreateArea(List<ArrayList<Pair<FallType, Path2D.Double>>> cutpaths, int id, boolean isDecoup){
         this.cutpaths=cutpaths;
         setNode_cutpath(id, isDecoup);
         build_subpaths();
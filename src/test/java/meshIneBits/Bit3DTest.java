@@ -0,0 +1,110 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package meshIneBits;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import meshIneBits.config.CraftConfig;
+import meshIneBits.slicer.Slice;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
+import meshIneBits.util.Segment2D;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.Test;
+
+class Bit3DTest {
+
+  /**
+   * Bit whose right end is cut off, so that it is turned to be cut
+   */
+  private static Bit3D reversedBit() {
+    Bit2D bit = new Bit2D(new Vector2(0, 0), new Vector2(1, 0));
+    bit.updateBoundaries(new Area(new Rectangle2D.Double(-CraftConfig.lengthFull / 2,
+        -CraftConfig.bitWidth / 2, CraftConfig.lengthFull - CraftConfig.sectionHoldingToCut / 2,
+        CraftConfig.bitWidth)));
+    assertTrue(bit.getInverseInCut());
+    Slice slice = new Slice();
+    double half = CraftConfig.lengthFull;
+    Vector2[] corners = {new Vector2(-half, -half), new Vector2(half, -half),
+        new Vector2(half, half), new Vector2(-half, half)};
+    for (int i = 0; i < corners.length; i++) {
+      slice.addModelSegment(new Segment2D(corners[i], corners[(i + 1) % corners.length]));
+    }
+    slice.optimize();
+    return new Bit3D(bit, new Layer(0, slice));
+  }
+
+  private static List<String> liftPoints(Bit3D bit) {
+    List<String> points = new ArrayList<>();
+    bit.getLiftPointsCB()
+        .forEach(p -> points.add(p.toString()));
+    bit.getLiftPointsCS()
+        .forEach(p -> points.add(p.toString()));
+    return points;
+  }
+
+  private static Bit3D reopen(Bit3D bit) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ProjectOutput out = new ProjectOutput(bytes, new IdentityHashMap<>(),
+        Collections.emptyMap())) {
+      Bit3D.writeProject(out, bit);
+    }
+    return Bit3D.readProject(new ProjectInput(new ByteArrayInputStream(bytes.toByteArray()),
+        Collections.emptyList(), null));
+  }
+
+  @Test
+  void liftPointsAreTurnedOnceAcrossSavedProjects() throws IOException {
+    Bit3D bit = reversedBit();
+    List<String> computed = liftPoints(bit);
+    assertTrue(!computed.isEmpty());
+    bit.prepareBitToExport();
+    List<String> exported = liftPoints(bit);
+    assertTrue(!exported.equals(computed));
+
+    bit.prepareBitToExport();
+    assertEquals(exported, liftPoints(bit));
+    Bit3D reopened = reopen(bit);
+    assertEquals(exported, liftPoints(reopened));
+    reopened.prepareBitToExport();
+    assertEquals(exported, liftPoints(reopened));
+  }
+}
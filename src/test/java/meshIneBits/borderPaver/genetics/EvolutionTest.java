@@ -0,0 +1,149 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package meshIneBits.borderPaver.genetics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Area;
+import java.util.Vector;
+import meshIneBits.borderPaver.util.GeneralTools;
+import meshIneBits.borderPaver.util.Section;
+import meshIneBits.borderPaver.util.SectionTransformer;
+import meshIneBits.config.CraftConfig;
+import meshIneBits.slicer.Slice;
+import meshIneBits.util.AreaTool;
+import meshIneBits.util.Segment2D;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.Test;
+
+class EvolutionTest {
+
+  private static final int RATIO = 50;
+  private static final int POP_SIZE = 10;
+
+  private final Area area;
+  private final Vector<Vector2> bound;
+  private final Section section;
+
+  /**
+   * Places the first bit on the border of a round layer, made of segments shorter than a bit
+   */
+  EvolutionTest() throws Exception {
+    double radius = 2.5 * CraftConfig.lengthFull;
+    Slice slice = new Slice();
+    for (int i = 0; i < 64; i++) {
+      double a1 = i * Math.PI / 32;
+      double a2 = a1 + Math.PI / 32;
+      slice.addModelSegment(new Segment2D(
+          new Vector2(radius * Math.cos(a1), radius * Math.sin(a1)),
+          new Vector2(radius * Math.cos(a2), radius * Math.sin(a2))));
+    }
+    slice.optimize();
+    area = AreaTool.getAreaFrom(slice);
+    bound = GeneralTools.getBoundsAndRearrange(slice).get(0);
+    section = SectionTransformer.getSectionFromBound(bound, bound.get(0));
+  }
+
+  private Evolution evolution(int nbOfGenerations, int stagnationLimit) {
+    return new Evolution(area, section, bound, nbOfGenerations, POP_SIZE, RATIO, stagnationLimit);
+  }
+
+  private Solution solution(double degrees) {
+    Vector2 angle = new Vector2(Math.cos(Math.toRadians(degrees)), Math.sin(Math.toRadians(degrees)));
+    Solution solution = new Solution(CraftConfig.bitWidth / 2, angle, section.getStartPoint(), bound,
+        RATIO, new FitnessCache(area));
+    solution.evaluate();
+    return solution;
+  }
+
+  @Test
+  void keptBestIsACopyNotChangedByLaterMutations() {
+    Evolution evolution = evolution(1, 0);
+    Solution solution = solution(120);
+    assertFalse(solution.isBad());
+    double position = solution.getBitPos();
+    Vector2 angle = solution.getBitAngle();
+    double score = solution.getScore();
+    assertTrue(score > 0);
+
+    assertTrue(evolution.keepBest(solution));
+    Solution best = evolution.bestSolution;
+    assertNotSame(solution, best);
+    for (int i = 0; i < 10; i++) {
+      solution.mutate();
+    }
+    assertTrue(solution.getBitPos() != position || solution.getBitAngle() != angle);
+    assertSame(best, evolution.bestSolution);
+    assertEquals(position, best.getBitPos());
+    assertSame(angle, best.getBitAngle());
+    assertEquals(score, best.getScore());
+  }
+
+  @Test
+  void worseSolutionIsNotKept() {
+    Evolution evolution = evolution(1, 0);
+    Solution better = solution(120);
+    Solution worse = solution(60);
+    assertTrue(worse.getScore() < better.getScore());
+
+    assertTrue(evolution.keepBest(better));
+    Solution best = evolution.bestSolution;
+    assertFalse(evolution.keepBest(worse));
+    assertFalse(evolution.keepBest(null));
+    assertSame(best, evolution.bestSolution);
+  }
+
+  @Test
+  void stopsAfterStagnationLimitGenerationsWithoutImprovement() {
+    int generations = 200;
+    int stagnationLimit = 3;
+    Evolution evolution = evolution(generations, stagnationLimit);
+    evolution.run();
+    assertNotNull(evolution.bestSolution);
+    assertTrue(evolution.getGenerationNumber() < generations);
+    assertEquals(evolution.getLastImprovingGeneration() + stagnationLimit,
+        evolution.getGenerationNumber());
+  }
+
+  @Test
+  void runsAllGenerationsWithoutStagnationLimit() {
+    int generations = 5;
+    Evolution evolution = evolution(generations, 0);
+    evolution.run();
+    assertNotNull(evolution.bestSolution);
+    assertEquals(generations, evolution.getGenerationNumber());
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package meshIneBits.borderPaver.genetics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Area;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import meshIneBits.borderPaver.genetics.FitnessCache.Fitness;
+import meshIneBits.borderPaver.genetics.FitnessCache.Key;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.Test;
+
+class FitnessCacheTest {
+
+  private static Vector2 angle(double degrees) {
+    return new Vector2(Math.cos(Math.toRadians(degrees)), Math.sin(Math.toRadians(degrees)));
+  }
+
+  @Test
+  void keysInTheSameQuantumAreEqual() {
+    Key key = new Key(1.2341, angle(30.0001));
+    Key same = new Key(1.2344, angle(29.9998));
+    assertEquals(key, same);
+    assertEquals(key.hashCode(), same.hashCode());
+    // The angle is told apart by its direction, not by the length of the vector
+    assertEquals(key, new Key(1.2341, angle(30).mul(5)));
+  }
+
+  @Test
+  void keysInNeighbourQuantaDiffer() {
+    Key key = new Key(1.234, angle(30));
+    assertFalse(key.equals(new Key(1.234 + FitnessCache.POSITION_STEP, angle(30))));
+    assertFalse(key.equals(new Key(1.234, angle(30 + FitnessCache.ANGLE_STEP))));
+    assertFalse(key.equals(null));
+  }
+
+  @Test
+  void keyIsTheCenterOfItsQuantum() {
+    Key key = new Key(1.2341, angle(30.0004));
+    assertEquals(1.234, key.getPosition(), 1e-9);
+    Vector2 center = key.getAngle();
+    assertEquals(Math.cos(Math.toRadians(30)), center.x, 1e-9);
+    assertEquals(Math.sin(Math.toRadians(30)), center.y, 1e-9);
+    assertEquals(key, new Key(key.getPosition(), center));
+  }
+
+  @Test
+  void concurrentEvaluationsReturnOneFitnessPerKey() throws Exception {
+    FitnessCache cache = new FitnessCache(new Area());
+    Key key = new Key(1, angle(0));
+    int threads = 8;
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicInteger evaluations = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Fitness>> fitnesses = new ArrayList<>();
+      List<Future<Boolean>> badness = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        boolean bad = i % 2 == 0;
+        fitnesses.add(executor.submit(() -> {
+          start.await();
+          return cache.getFitness(key, () -> {
+            evaluations.incrementAndGet();
+            sleep();
+            return new Fitness(Math.random(), false);
+          });
+        }));
+        badness.add(executor.submit(() -> {
+          start.await();
+          return cache.isBad(key, () -> {
+            sleep();
+            return bad;
+          });
+        }));
+      }
+      start.countDown();
+      Fitness first = fitnesses.get(0).get(10, TimeUnit.SECONDS);
+      boolean firstBad = badness.get(0).get(10, TimeUnit.SECONDS);
+      for (int i = 1; i < threads; i++) {
+        assertSame(first, fitnesses.get(i).get(10, TimeUnit.SECONDS));
+        assertEquals(firstBad, badness.get(i).get(10, TimeUnit.SECONDS));
+      }
+      assertTrue(evaluations.get() > 1, "the evaluations should have raced");
+      assertSame(first, cache.getFitness(key, () -> new Fitness(-1, true)));
+      assertEquals(firstBad, cache.isBad(key, () -> !firstBad));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(50);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package patternTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.awt.geom.Area;
+import meshIneBits.Bit2D;
+import meshIneBits.Layer;
+import meshIneBits.Pavement;
+import meshIneBits.config.CraftConfig;
+import meshIneBits.patterntemplates.GeneticPavement;
+import meshIneBits.slicer.Slice;
+import meshIneBits.util.AreaTool;
+import meshIneBits.util.PackedArea;
+import meshIneBits.util.Segment2D;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.Test;
+
+class GeneticPavementTest {
+
+  /**
+   * Round layer made of facets shorter than a bit, as a sliced model
+   */
+  private static Layer roundLayer() {
+    Slice slice = new Slice();
+    double radius = 1.5 * CraftConfig.lengthFull;
+    int facets = 64;
+    Vector2[] corners = new Vector2[facets];
+    for (int i = 0; i < facets; i++) {
+      double angle = 2 * Math.PI * i / facets;
+      corners[i] = new Vector2(radius * Math.cos(angle), radius * Math.sin(angle));
+    }
+    for (int i = 0; i < facets; i++) {
+      slice.addModelSegment(new Segment2D(corners[i], corners[(i + 1) % facets]));
+    }
+    slice.optimize();
+    return new Layer(0, slice);
+  }
+
+  @Test
+  void bitsFollowTheBoundInsideTheLayer() {
+    Layer layer = roundLayer();
+    GeneticPavement pattern = new GeneticPavement();
+    pattern.getPatternConfig()
+        .get("genNumber")
+        .setCurrentValue(3.0);
+    pattern.getPatternConfig()
+        .get("popSize")
+        .setCurrentValue(100.0);
+
+    Pavement pavement = pattern.pave(layer);
+
+    assertFalse(pavement.getBitsView()
+        .isEmpty());
+    Area section = AreaTool.getAreaFrom(layer.getHorizontalSection());
+    Area paved = new Area();
+    for (Bit2D bit : pavement.getBitsView()) {
+      Area outside = bit.getAreaCS();
+      outside.subtract(section);
+      assertEquals(0.0, PackedArea.of(outside)
+          .area(), 1e-6, "bit " + bit + " is out of the layer");
+      Area overlap = bit.getAreaCS();
+      overlap.intersect(paved);
+      assertEquals(0.0, PackedArea.of(overlap)
+          .area(), 1e-6, "bit " + bit + " overlaps another one");
+      paved.add(bit.getAreaCS());
+    }
+  }
+}
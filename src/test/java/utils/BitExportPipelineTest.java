@@ -0,0 +1,221 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import meshIneBits.Bit2D;
+import meshIneBits.Bit3D;
+import meshIneBits.Layer;
+import meshIneBits.NewBit2D;
+import meshIneBits.Pavement;
+import meshIneBits.config.CraftConfig;
+import meshIneBits.slicer.Slice;
+import meshIneBits.util.Segment2D;
+import meshIneBits.util.Vector2;
+import meshIneBits.util.supportExportFile.BitExportPipeline;
+import meshIneBits.util.supportExportFile.BitExportPipeline.PreparedBit;
+import org.junit.jupiter.api.Test;
+
+class BitExportPipelineTest {
+
+  /**
+   * Exported bits of a layer whose outline is an octagon, so that the bits of the border are cut
+   */
+  private static List<Bit3D> layerBits() {
+    double radius = 2.5 * CraftConfig.lengthFull;
+    Slice slice = new Slice();
+    for (int i = 0; i < 8; i++) {
+      double a1 = Math.PI / 8 + i * Math.PI / 4;
+      double a2 = a1 + Math.PI / 4;
+      slice.addModelSegment(new Segment2D(
+          new Vector2(radius * Math.cos(a1), radius * Math.sin(a1)),
+          new Vector2(radius * Math.cos(a2), radius * Math.sin(a2))));
+    }
+    slice.optimize();
+    List<Bit2D> bits = new ArrayList<>();
+    for (double x = -radius; x < radius; x += CraftConfig.lengthFull) {
+      for (double y = -radius; y < radius; y += CraftConfig.bitWidth) {
+        bits.add(new NewBit2D(new Vector2(x + CraftConfig.lengthFull / 2,
+            y + CraftConfig.bitWidth / 2), new Vector2(1, 0), CraftConfig.lengthFull,
+            CraftConfig.bitWidth));
+      }
+    }
+    Layer layer = new Layer(0, slice);
+    layer.setFlatPavement(new Pavement(bits));
+    layer.rebuild();
+    List<Bit3D> bits3D = new ArrayList<>();
+    for (Vector2 key : layer.getBits3dKeys()) {
+      // Only bits with lift points are scheduled for export
+      if (!layer.getBit3D(key)
+          .getLiftPointsCB()
+          .isEmpty()) {
+        bits3D.add(layer.getBit3D(key));
+      }
+    }
+    // Same order for every layer built
+    bits3D.sort(Comparator.comparingDouble((Bit3D bit) -> bit.getOrigin().x)
+        .thenComparingDouble(bit -> bit.getOrigin().y));
+    return bits3D;
+  }
+
+  /**
+   * What the export writes of a prepared bit
+   */
+  private static List<Object> exported(PreparedBit prepared) {
+    Bit3D bit = prepared.getBit();
+    List<Object> values = new ArrayList<>();
+    values.add(prepared.isCut());
+    values.add(prepared.getMinAndMaxXDistantPoint());
+    values.add(bit.getLiftPointsCS()
+        .toString());
+    values.add(bit.getLiftPointsCB()
+        .toString());
+    values.add(bit.getListTwoDistantPoints()
+        .toString());
+    values.add(bit.getListAngles()
+        .toString());
+    for (Path2D path : bit.getCutPathsCB()) {
+      double[] coords = new double[6];
+      for (PathIterator it = path.getPathIterator(null); !it.isDone(); it.next()) {
+        int type = it.currentSegment(coords);
+        values.add(type + Arrays.toString(coords));
+      }
+    }
+    return values;
+  }
+
+  @Test
+  void testBitsAreTakenInGivenOrder() {
+    List<Bit3D> bits = layerBits();
+    try (BitExportPipeline pipeline = new BitExportPipeline(bits, 4)) {
+      for (Bit3D bit : bits) {
+        assertSame(bit, pipeline.peekBit());
+        assertSame(bit, pipeline.take()
+            .getBit());
+      }
+      assertFalse(pipeline.hasNext());
+    }
+  }
+
+  /**
+   * Wait until the first <tt>count</tt> bits are prepared, then a little more
+   *
+   * @return number of bits prepared
+   */
+  private static long waitPrepared(List<Bit3D> bits, int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10_000;
+    // Angles are only computed by the preparation
+    while (bits.get(count - 1)
+        .getListAngles()
+        .isEmpty() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Thread.sleep(200);
+    return bits.stream()
+        .filter(bit -> !bit.getListAngles()
+            .isEmpty())
+        .count();
+  }
+
+  @Test
+  void testAtMostCapacityBitsArePreparedAhead() throws InterruptedException {
+    List<Bit3D> bits = layerBits();
+    int capacity = 3;
+    assertTrue(bits.size() > capacity + 2);
+    try (BitExportPipeline pipeline = new BitExportPipeline(bits, capacity)) {
+      assertEquals(capacity, waitPrepared(bits, capacity));
+      for (int i = 0; i < bits.size(); i++) {
+        assertEquals(i < capacity, !bits.get(i)
+            .getListAngles()
+            .isEmpty(), "Bit " + i);
+      }
+      pipeline.take();
+      pipeline.take();
+      assertEquals(capacity + 2, waitPrepared(bits, capacity + 2));
+    }
+  }
+
+  @Test
+  void testPipelineExportsAsSequentialPreparation() {
+    List<Bit3D> sequentialBits = layerBits();
+    List<List<Object>> expected = new ArrayList<>();
+    for (Bit3D bit : sequentialBits) {
+      expected.add(exported(BitExportPipeline.prepare(bit)));
+    }
+    assertTrue(expected.stream()
+        .anyMatch(values -> (boolean) values.get(0)), "No cut bit in the layer");
+
+    List<Bit3D> bits = layerBits();
+    try (BitExportPipeline pipeline = new BitExportPipeline(bits, 4)) {
+      for (List<Object> values : expected) {
+        assertEquals(values, exported(pipeline.take()));
+      }
+    }
+  }
+
+  @Test
+  void testBitAskedOutOfOrderIsPreparedOnce() {
+    List<Bit3D> bits = layerBits();
+    List<List<Object>> once = new ArrayList<>();
+    for (Bit3D bit : layerBits()) {
+      once.add(exported(BitExportPipeline.prepare(bit)));
+    }
+    try (BitExportPipeline pipeline = new BitExportPipeline(bits, 2)) {
+      int last = bits.size() - 1;
+      PreparedBit early = pipeline.prepareNow(bits.get(last));
+      assertEquals(once.get(last), exported(early));
+      for (int i = 0; i < last; i++) {
+        assertEquals(once.get(i), exported(pipeline.take()));
+      }
+      assertSame(early, pipeline.take());
+      assertEquals(once.get(last), exported(early));
+    }
+  }
+
+  @Test
+  void testPreparingAgainGivesSameExport() {
+    for (Bit3D bit : layerBits()) {
+      List<Object> once = exported(BitExportPipeline.prepare(bit));
+      assertEquals(once, exported(BitExportPipeline.prepare(bit)));
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+import meshIneBits.util.BorderIndex;
+import meshIneBits.util.BorderIndex.Location;
+import org.junit.jupiter.api.Test;
+
+class BorderIndexTest {
+
+  /**
+   * Square with a square hole
+   */
+  private static Area frame() {
+    Area area = new Area(new Rectangle2D.Double(0, 0, 100, 100));
+    area.subtract(new Area(new Rectangle2D.Double(30, 30, 40, 40)));
+    return area;
+  }
+
+  @Test
+  void boxesArePlacedAgainstTheBorder() {
+    BorderIndex border = new BorderIndex(frame());
+
+    assertEquals(Location.INSIDE, border.locate(new Rectangle2D.Double(5, 5, 20, 10)));
+    assertEquals(Location.OUTSIDE, border.locate(new Rectangle2D.Double(40, 40, 10, 10)));
+    assertEquals(Location.OUTSIDE, border.locate(new Rectangle2D.Double(120, 5, 10, 10)));
+    assertEquals(Location.BORDER, border.locate(new Rectangle2D.Double(25, 40, 10, 10)));
+    assertEquals(Location.BORDER, border.locate(new Rectangle2D.Double(-5, -5, 200, 200)));
+    // Touching is enough
+    assertEquals(Location.BORDER, border.locate(new Rectangle2D.Double(100, 10, 10, 10)));
+  }
+
+  @Test
+  void pointsAgreeWithArea() {
+    Area area = frame();
+    area.add(new Area(new Ellipse2D.Double(80, -20, 60, 40)));
+    BorderIndex border = new BorderIndex(area);
+    Random random = new Random(7);
+    for (int i = 0; i < 2000; i++) {
+      double x = random.nextDouble() * 180 - 20;
+      double y = random.nextDouble() * 160 - 30;
+      Rectangle2D box = new Rectangle2D.Double(x, y, random.nextDouble() * 20,
+          random.nextDouble() * 20);
+      Location location = border.locate(box);
+      if (location == Location.INSIDE) {
+        assertTrue(area.contains(box));
+      } else if (location == Location.OUTSIDE) {
+        assertFalse(area.intersects(box));
+      }
+    }
+  }
+
+  @Test
+  void emptyAreaContainsNothing() {
+    BorderIndex border = new BorderIndex(new Area());
+
+    assertEquals(0, border.getEdgeCount());
+    assertEquals(Location.OUTSIDE, border.locate(new Rectangle2D.Double(0, 0, 1, 1)));
+    assertFalse(border.contains(0, 0));
+  }
+}
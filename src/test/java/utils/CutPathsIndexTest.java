@@ -0,0 +1,89 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.geom.Path2D;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import meshIneBits.util.Pair;
+import meshIneBits.util.supportImportFile.CutPathsIndex;
+import meshIneBits.util.supportImportFile.FallType;
+import org.junit.jupiter.api.Test;
+
+class CutPathsIndexTest {
+
+  private static final String BATCH = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>"
+      + "<mesh><batch><layer>"
+      + "<bit><id-bit>0</id-bit><no-cutting/></bit>"
+      + "<bit><id-bit>1</id-bit><cutting><cut-paths>"
+      + "<fall-type>chute</fall-type><move-to><x>-10.0</x><y>-6.0</y></move-to>"
+      + "<cut-to><x>-10.0</x><y>6.0</y></cut-to>"
+      + "<fall-type>sub-bit</fall-type><move-to><x>-20.0</x><y>-6.0</y></move-to>"
+      + "<cut-to><x>-20.0</x><y>6.0</y></cut-to>"
+      + "<fall-type>sub-bit</fall-type><drop/>"
+      + "</cut-paths></cutting></bit>"
+      + "</layer></batch></mesh>";
+
+  @Test
+  void testElementsAreParsedOnDemand() throws Exception {
+    Path file = Files.createTempFile("Batch", ".xml");
+    try {
+      Files.write(file, BATCH.getBytes(StandardCharsets.UTF_8));
+      CutPathsIndex index = new CutPathsIndex(file);
+      assertEquals(FallType.Nocutting, index.get(0)
+          .get(0)
+          .getKey());
+      assertEquals(1, index.getIndexedCount());
+
+      assertEquals(2, index.size());
+      ArrayList<Pair<FallType, Path2D.Double>> paths = index.get(1);
+      assertEquals(3, paths.size());
+      assertEquals(FallType.Chute, paths.get(0)
+          .getKey());
+      assertEquals(FallType.Subbit, paths.get(1)
+          .getKey());
+      assertEquals(FallType.Sub_Drop, paths.get(2)
+          .getKey());
+      // Coordinates are moved away from the edges of the bit
+      assertEquals(-6.04, paths.get(1)
+          .getValue()
+          .getBounds2D()
+          .getMinY(), 1e-9);
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
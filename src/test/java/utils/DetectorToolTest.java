@@ -0,0 +1,59 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import meshIneBits.util.AreaTool;
+import meshIneBits.util.DetectorTool;
+import org.junit.jupiter.api.Test;
+
+class DetectorToolTest {
+
+  @Test
+  void testSliverAreaIsIrregular() {
+    // Too thin to keep any of its boundaries, though not empty
+    Area sliver = new Area(new Rectangle2D.Double(0, 0, 100, 1e-7));
+    assertFalse(sliver.isEmpty());
+    assertTrue(AreaTool.segregateArea(sliver) == null
+        || AreaTool.segregateArea(sliver).isEmpty());
+    assertTrue(DetectorTool.checkIrregular(sliver));
+  }
+
+  @Test
+  void testLargeSquareIsRegular() {
+    assertFalse(DetectorTool.checkIrregular(new Area(new Rectangle2D.Double(0, 0, 100, 100))));
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import meshIneBits.gui.view3d.builder.ExtrudedGeometry;
+import org.junit.jupiter.api.Test;
+
+class ExtrudedGeometryTest {
+
+  /**
+   * U shaped outline of area 5 * 100 * 100. No vertex sees all the others, so a fan does not cover
+   * it.
+   */
+  private static Area uShape() {
+    Path2D.Double path = new Path2D.Double();
+    path.moveTo(0, 0);
+    path.lineTo(300, 0);
+    path.lineTo(300, 200);
+    path.lineTo(200, 200);
+    path.lineTo(200, 100);
+    path.lineTo(100, 100);
+    path.lineTo(100, 200);
+    path.lineTo(0, 200);
+    path.closePath();
+    return new Area(path);
+  }
+
+  /**
+   * Check the lower face of <tt>geometry</tt> covers <tt>area</tt> with counter clockwise
+   * triangles lying inside it
+   */
+  private static void assertFaceCovers(ExtrudedGeometry geometry, Area area, double expectedArea) {
+    int n = geometry.getVertexCount() / 6;
+    assertEquals(2 * (n - 2) + 2 * n, geometry.getTriangleCount());
+    float[] vertices = geometry.getVertices();
+    int[] indices = geometry.getIndices();
+    double total = 0;
+    // Indices of the lower face come first
+    for (int t = 0; t < n - 2; t++) {
+      double[] x = new double[3];
+      double[] y = new double[3];
+      for (int k = 0; k < 3; k++) {
+        int v = indices[3 * t + k];
+        assertTrue(v < n, "Vertex " + v + " is not on the lower face");
+        x[k] = vertices[3 * v];
+        y[k] = vertices[3 * v + 1];
+      }
+      double triangleArea = ((x[1] - x[0]) * (y[2] - y[0]) - (y[1] - y[0]) * (x[2] - x[0])) / 2;
+      assertTrue(triangleArea > 0, "Triangle " + t + " is flat or clockwise");
+      assertTrue(area.contains((x[0] + x[1] + x[2]) / 3, (y[0] + y[1] + y[2]) / 3),
+          "Triangle " + t + " is outside the outline");
+      total += triangleArea;
+    }
+    assertEquals(expectedArea, total, 1e-3);
+  }
+
+  @Test
+  void concaveOutlineIsEarClipped() {
+    ExtrudedGeometry geometry = ExtrudedGeometry.extrude(uShape(), 8);
+
+    assertEquals(8 * 6, geometry.getVertexCount());
+    assertFaceCovers(geometry, uShape(), 50000);
+  }
+
+  @Test
+  void clockwiseOutlineIsEarClipped() {
+    AffineTransform mirror = AffineTransform.getScaleInstance(-1, 1);
+    Area mirrored = uShape();
+    mirrored.transform(mirror);
+
+    assertFaceCovers(ExtrudedGeometry.extrude(uShape(), 8, mirror, 0), mirrored, 50000);
+  }
+
+  @Test
+  void outlineEdgesFollowAppendedTriangles() {
+    ExtrudedGeometry bit = ExtrudedGeometry.extrude(uShape(), 8);
+    int n = bit.getVertexCount() / 6;
+    // Lower and upper outlines, and one vertical edge per vertex
+    assertEquals(3 * n, bit.getEdgeCount());
+
+    ExtrudedGeometry layer = new ExtrudedGeometry();
+    layer.append(bit);
+    layer.append(bit, AffineTransform.getTranslateInstance(500, 0), 8);
+    int[] edges = layer.getEdges();
+    int[] bitEdges = bit.getEdges();
+    assertEquals(2 * bitEdges.length, edges.length);
+    for (int i = 0; i < bitEdges.length; i++) {
+      assertEquals(bitEdges[i], edges[i]);
+      assertEquals(bitEdges[i] + bit.getVertexCount(), edges[bitEdges.length + i]);
+    }
+  }
+
+  @Test
+  void nothingIsExtrudedWithoutOutline() {
+    ExtrudedGeometry geometry = ExtrudedGeometry.extrude(new Area(), 8);
+
+    assertTrue(geometry.isEmpty());
+    assertEquals(0, geometry.getEdgeCount());
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.atomic.AtomicInteger;
+import meshIneBits.gui.view3d.builder.ExtrusionCache;
+import org.junit.jupiter.api.Test;
+
+class ExtrusionCacheTest {
+
+  private static Area rectangle(double width, double height) {
+    return new Area(new Rectangle2D.Double(-width / 2, -height / 2, width, height));
+  }
+
+  @Test
+  void identicalAreasShareTheirExtrusion() {
+    ExtrusionCache<String> cache = new ExtrusionCache<>(16);
+    AtomicInteger computations = new AtomicInteger();
+    Area moved = rectangle(160, 40);
+    moved.transform(AffineTransform.getTranslateInstance(12.5, -3));
+    moved.transform(AffineTransform.getTranslateInstance(-12.5, 3));
+
+    String first = cache.get(rectangle(160, 40), 8, a -> "bit " + computations.incrementAndGet());
+    String second = cache.get(moved, 8, a -> "bit " + computations.incrementAndGet());
+
+    assertSame(first, second);
+    assertEquals(1, computations.get());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(0.5, cache.getHitRatio());
+  }
+
+  @Test
+  void depthAndOutlineAreBothPartOfTheKey() {
+    ExtrusionCache<String> cache = new ExtrusionCache<>(16);
+
+    cache.get(rectangle(160, 40), 8, a -> "a");
+    cache.get(rectangle(160, 40), 4, a -> "b");
+    cache.get(rectangle(80, 40), 8, a -> "c");
+
+    assertEquals(3, cache.getMissCount());
+    assertEquals(3, cache.size());
+  }
+
+  @Test
+  void leastRecentlyUsedIsEvicted() {
+    ExtrusionCache<String> cache = new ExtrusionCache<>(2);
+    cache.get(rectangle(10, 10), 8, a -> "a");
+    cache.get(rectangle(20, 10), 8, a -> "b");
+    // Touch the first one, so the second one is the oldest
+    cache.get(rectangle(10, 10), 8, a -> "not computed");
+    cache.get(rectangle(30, 10), 8, a -> "c");
+
+    assertEquals(1, cache.getEvictionCount());
+    assertEquals(2, cache.size());
+    assertEquals("a", cache.get(rectangle(10, 10), 8, a -> "recomputed"));
+    assertEquals("recomputed", cache.get(rectangle(20, 10), 8, a -> "recomputed"));
+  }
+
+  @Test
+  void nothingIsKeptForAnEmptyExtrusion() {
+    ExtrusionCache<String> cache = new ExtrusionCache<>(2);
+
+    assertNull(cache.get(new Area(), 8, a -> null));
+    assertEquals(0, cache.size());
+
+    cache.clear();
+    assertEquals(0, cache.getMissCount());
+  }
+}
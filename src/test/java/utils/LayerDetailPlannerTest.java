@@ -0,0 +1,172 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import meshIneBits.gui.view3d.util.LayerDetailPlanner;
+import meshIneBits.gui.view3d.util.LayerDetailPlanner.Detail;
+import meshIneBits.gui.view3d.util.LayerDetailPlanner.LayerBounds;
+import org.junit.jupiter.api.Test;
+
+class LayerDetailPlannerTest {
+
+  private static final double BUDGET = 30;
+  private static final double THICKNESS = 8;
+
+  /**
+   * Stack of layers of 100 x 100 mm around the z axis
+   */
+  private static List<LayerBounds> layers(int count) {
+    List<LayerBounds> bounds = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      bounds.add(new LayerBounds(-50, -50, i * THICKNESS, 50, 50, (i + 1) * THICKNESS));
+    }
+    return bounds;
+  }
+
+  private static int count(Detail[] details, Detail detail) {
+    int n = 0;
+    for (Detail d : details) {
+      if (d == detail) {
+        n++;
+      }
+    }
+    return n;
+  }
+
+  @Test
+  void everyLayerIsDetailedWithinBudget() {
+    LayerDetailPlanner planner = new LayerDetailPlanner(layers(100), BUDGET);
+
+    Detail[] details = planner.plan(0, 0, 5000, 10);
+
+    assertEquals(100, count(details, Detail.FULL));
+    assertTrue(Double.isInfinite(planner.getDetailDistance()));
+  }
+
+  @Test
+  void slowFramesKeepOnlyTheNearestLayersDetailed() {
+    LayerDetailPlanner planner = new LayerDetailPlanner(layers(100), BUDGET);
+    Detail[] details = null;
+    for (int frame = 0; frame < 200; frame++) {
+      details = planner.plan(0, 0, 1000, 100);
+    }
+
+    // Eye is above, top layer is the nearest
+    assertEquals(Detail.FULL, details[99]);
+    assertEquals(Detail.PROXY, details[0]);
+    assertEquals(0, count(details, Detail.HIDDEN));
+    int full = count(details, Detail.FULL);
+    assertTrue(full >= 1 && full < 100, full + " layers in detail");
+  }
+
+  @Test
+  void detailComesBackOnceFramesAreFast() {
+    LayerDetailPlanner planner = new LayerDetailPlanner(layers(100), BUDGET);
+    for (int frame = 0; frame < 20; frame++) {
+      planner.plan(0, 0, 1000, 100);
+    }
+    int slow = count(planner.plan(0, 0, 1000, 0), Detail.FULL);
+    // Frames between slack and budget do not change anything
+    assertEquals(slow, count(planner.plan(0, 0, 1000, BUDGET * 0.8), Detail.FULL));
+
+    Detail[] details = null;
+    for (int frame = 0; frame < 200; frame++) {
+      details = planner.plan(0, 0, 1000, 5);
+    }
+    assertEquals(100, count(details, Detail.FULL));
+  }
+
+  @Test
+  void detailDistanceRecoversFromTheEyeInsideALayer() {
+    LayerDetailPlanner planner = new LayerDetailPlanner(layers(10), BUDGET);
+    Detail[] details = null;
+    for (int frame = 0; frame < 50; frame++) {
+      details = planner.plan(0, 0, 4, 100);
+    }
+    assertEquals(Detail.FULL, details[0]);
+    assertEquals(1, count(details, Detail.FULL));
+
+    for (int frame = 0; frame < 200; frame++) {
+      planner.plan(0, 0, 4, 5);
+    }
+    assertTrue(Double.isInfinite(planner.getDetailDistance()));
+  }
+
+  @Test
+  void layersOutOfTheWindowAreNeverDetailed() {
+    LayerDetailPlanner planner = new LayerDetailPlanner(layers(10), BUDGET);
+    planner.setLayerWindow(3, 5);
+
+    Detail[] details = planner.plan(0, 0, 1000, 10);
+    assertArrayEquals(new Detail[]{Detail.PROXY, Detail.PROXY, Detail.PROXY, Detail.FULL,
+        Detail.FULL, Detail.FULL, Detail.PROXY, Detail.PROXY, Detail.PROXY,
+        Detail.PROXY}, details);
+
+    planner.setHideOutsideWindow(true);
+    details = planner.plan(0, 0, 1000, 10);
+    assertEquals(3, count(details, Detail.FULL));
+    assertEquals(7, count(details, Detail.HIDDEN));
+  }
+
+  @Test
+  void windowIsClampedToTheLayers() {
+    LayerDetailPlanner planner = new LayerDetailPlanner(layers(10), BUDGET);
+
+    planner.setLayerWindow(12, -3);
+    assertEquals(0, planner.getWindowFirst());
+    assertEquals(9, planner.getWindowLast());
+    assertFalse(planner.isWindowed());
+
+    planner.setLayerWindow(8, 15);
+    assertTrue(planner.isWindowed());
+    assertEquals(2, count(planner.plan(0, 0, 0, 0), Detail.FULL));
+
+    planner.clearLayerWindow();
+    assertFalse(planner.isWindowed());
+  }
+
+  @Test
+  void boundsDistanceIsZeroInside() {
+    LayerBounds bounds = new LayerBounds(0, 0, 0, 10, 10, 8);
+
+    assertEquals(0.0, bounds.distanceFrom(5, 5, 4));
+    assertEquals(5.0, bounds.distanceFrom(15, 5, 4), 1e-9);
+    assertEquals(5.0, bounds.distanceFrom(13, 14, 8), 1e-9);
+  }
+}
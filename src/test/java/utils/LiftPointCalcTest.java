@@ -0,0 +1,153 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Vector;
+import meshIneBits.util.AreaTool;
+import meshIneBits.util.LiftPointCalc;
+import meshIneBits.util.Segment2D;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LiftPointCalcTest {
+
+  private static final double RADIUS = 5;
+
+  @BeforeEach
+  void clearCache() {
+    LiftPointCalc.instance.clearCache();
+  }
+
+  /**
+   * Scan every grid point by distance to the expected barycenter, as the lift point is defined
+   */
+  private static Vector2 scanGrid(Area area, Vector2 barycenter, double radius) {
+    Rectangle2D bounds = area.getBounds2D();
+    Vector<Vector<Segment2D>> segments = AreaTool.getSegmentsFrom(area);
+    Vector2 best = null;
+    double bestDistance = Double.MAX_VALUE;
+    for (double x = bounds.getMinX(); x <= bounds.getMaxX(); x += 1) {
+      for (double y = bounds.getMinY(); y <= bounds.getMaxY(); y += 1) {
+        Vector2 p = new Vector2(x, y);
+        double distance = Math.sqrt(Vector2.dist2(p, barycenter));
+        if (distance >= bestDistance || !area.contains(x, y)) {
+          continue;
+        }
+        boolean holds = segments.stream()
+            .flatMap(Vector::stream)
+            .allMatch(s -> s.distFromPoint(p) >= radius);
+        if (holds) {
+          best = p;
+          bestDistance = distance;
+        }
+      }
+    }
+    return best;
+  }
+
+  @Test
+  void testBarycenterIsKeptWhenCupFits() {
+    Area bit = new Area(new Rectangle2D.Double(-80, -12, 160, 24));
+    Vector2 liftPoint = LiftPointCalc.instance.getLiftPoint(bit, RADIUS);
+    assertNotNull(liftPoint);
+    assertEquals(0, liftPoint.x, 1e-9);
+    assertEquals(0, liftPoint.y, 1e-9);
+  }
+
+  @Test
+  void testHoleAroundBarycenterGivesClosestGridPoint() {
+    Area bit = new Area(new Rectangle2D.Double(-80, -12, 160, 24));
+    bit.subtract(new Area(new Ellipse2D.Double(-10, -10, 20, 20)));
+    Vector2 liftPoint = LiftPointCalc.instance.getLiftPoint(bit, RADIUS);
+    Vector2 expected = scanGrid(bit, new Vector2(0, 0), RADIUS);
+    assertNotNull(expected);
+    assertEquals(expected.x, liftPoint.x, 1e-9);
+    assertEquals(expected.y, liftPoint.y, 1e-9);
+  }
+
+  @Test
+  void testNarrowAreaCannotBeLifted() {
+    Area strip = new Area(new Rectangle2D.Double(0, 0, 50, 2 * RADIUS - 1));
+    assertNull(LiftPointCalc.instance.getLiftPoint(strip, RADIUS));
+  }
+
+  @Test
+  void testIdenticalShapesShareResult() {
+    Area bit = new Area(new Rectangle2D.Double(-80, -12, 160, 24));
+    bit.subtract(new Area(new Rectangle2D.Double(-20, -12, 40, 15)));
+    Vector2 first = LiftPointCalc.instance.getLiftPoint(bit, RADIUS);
+    Vector2 second = LiftPointCalc.instance.getLiftPoint(new Area(bit), RADIUS);
+    assertNotNull(first);
+    assertSame(first, second);
+  }
+
+  /**
+   * A bit whose right side is a quadratic curve from <tt>(bottomX, 0)</tt> to <tt>(60, 20)</tt>
+   */
+  private static Area curvedBit(double bottomX, double controlX) {
+    Path2D.Double path = new Path2D.Double();
+    path.moveTo(-60, 0);
+    path.lineTo(bottomX, 0);
+    path.quadTo(controlX, 10, 60, 20);
+    path.lineTo(-60, 20);
+    path.closePath();
+    return new Area(path);
+  }
+
+  @Test
+  void testCurvesDifferingOnlyByControlPointsAreNotMixedUp() {
+    Vector2 first = LiftPointCalc.instance.getLiftPoint(curvedBit(60, 80), RADIUS);
+    Vector2 second = LiftPointCalc.instance.getLiftPoint(curvedBit(60, 40), RADIUS);
+    assertNotNull(first);
+    assertTrue(first != second);
+  }
+
+  @Test
+  void testCurvesDifferingOnlyByEndPointsAreNotMixedUp() {
+    // Both outlines have the same first point in each segment
+    Vector2 first = LiftPointCalc.instance.getLiftPoint(curvedBit(60, 80), RADIUS);
+    Vector2 second = LiftPointCalc.instance.getLiftPoint(curvedBit(0, 80), RADIUS);
+    assertNotNull(first);
+    assertTrue(first != second);
+  }
+}
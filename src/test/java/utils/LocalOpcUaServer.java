@@ -0,0 +1,295 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import java.io.File;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import meshIneBits.opcuaHelper.MeshIneBitNodeId;
+import org.eclipse.milo.opcua.sdk.core.AccessLevel;
+import org.eclipse.milo.opcua.sdk.server.OpcUaServer;
+import org.eclipse.milo.opcua.sdk.server.api.DataItem;
+import org.eclipse.milo.opcua.sdk.server.api.ManagedNamespaceWithLifecycle;
+import org.eclipse.milo.opcua.sdk.server.api.MonitoredItem;
+import org.eclipse.milo.opcua.sdk.server.api.config.OpcUaServerConfig;
+import org.eclipse.milo.opcua.sdk.server.api.services.AttributeServices.ReadContext;
+import org.eclipse.milo.opcua.sdk.server.api.services.AttributeServices.WriteContext;
+import org.eclipse.milo.opcua.sdk.server.identity.AnonymousIdentityValidator;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaVariableNode;
+import org.eclipse.milo.opcua.sdk.server.util.SubscriptionModel;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.security.DefaultCertificateManager;
+import org.eclipse.milo.opcua.stack.core.security.DefaultTrustListManager;
+import org.eclipse.milo.opcua.stack.core.security.SecurityPolicy;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MessageSecurityMode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.eclipse.milo.opcua.stack.core.types.structured.WriteValue;
+import org.eclipse.milo.opcua.stack.server.EndpointConfiguration;
+import org.eclipse.milo.opcua.stack.server.security.DefaultServerCertificateValidator;
+
+/**
+ * OPC UA server on the loopback interface standing for a machine in tests. It serves the given
+ * variables, without security, counts the read requests it receives and logs the write requests.
+ */
+public class LocalOpcUaServer implements AutoCloseable {
+
+  private final OpcUaServer server;
+  private final MachineNamespace namespace;
+  private final String endpointUrl;
+  private final AtomicInteger readRequests = new AtomicInteger();
+  private final Map<NodeId, Long> writeDelays = new ConcurrentHashMap<>();
+  private final List<String> writeEvents = new CopyOnWriteArrayList<>();
+
+  /**
+   * @param values initial value of each served variable. Its type gives the data type of the node.
+   *               All nodes must be in the same namespace
+   */
+  public LocalOpcUaServer(Map<NodeId, Object> values) throws Exception {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    File pki = Files.createTempDirectory("opcua-test")
+        .toFile();
+    DefaultTrustListManager trustListManager = new DefaultTrustListManager(pki);
+    EndpointConfiguration endpoint = EndpointConfiguration.newBuilder()
+        .setBindAddress("127.0.0.1")
+        .setHostname("127.0.0.1")
+        .setBindPort(port)
+        .setPath("/test")
+        .setSecurityPolicy(SecurityPolicy.None)
+        .setSecurityMode(MessageSecurityMode.None)
+        .addTokenPolicies(OpcUaServerConfig.USER_TOKEN_POLICY_ANONYMOUS)
+        .build();
+    OpcUaServerConfig config = OpcUaServerConfig.builder()
+        .setApplicationUri("urn:meshinebits:test:server")
+        .setApplicationName(LocalizedText.english("MeshIneBits test server"))
+        .setProductUri("urn:meshinebits:test")
+        .setEndpoints(Collections.singleton(endpoint))
+        .setCertificateManager(new DefaultCertificateManager())
+        .setTrustListManager(trustListManager)
+        .setCertificateValidator(new DefaultServerCertificateValidator(trustListManager))
+        .setIdentityValidator(AnonymousIdentityValidator.INSTANCE)
+        .build();
+    server = new OpcUaServer(config);
+
+    // The machine namespace must get the index used by the node ids
+    int index = values.keySet()
+        .stream()
+        .findAny()
+        .map(id -> id.getNamespaceIndex()
+            .intValue())
+        .orElse(2);
+    while (server.getNamespaceTable()
+        .toArray().length < index) {
+      server.getNamespaceTable()
+          .addUri("urn:meshinebits:test:unused" + server.getNamespaceTable()
+              .toArray().length);
+    }
+    namespace = new MachineNamespace(server, values);
+    namespace.startup();
+    server.startup()
+        .get();
+    endpointUrl = "opc.tcp://127.0.0.1:" + port + "/test";
+  }
+
+  /**
+   * Nodes read by the depositing window, with the type of value the machine gives
+   */
+  public static Map<NodeId, Object> depositingTelemetry() {
+    Map<NodeId, Object> values = new LinkedHashMap<>();
+    values.put(MeshIneBitNodeId.message_error, "");
+    values.put(MeshIneBitNodeId.lock_continue_button, false);
+    values.put(MeshIneBitNodeId.x_current_position, 10.0);
+    values.put(MeshIneBitNodeId.z_current_position, 20.0);
+    values.put(MeshIneBitNodeId.y_current_position, 30.0);
+    values.put(MeshIneBitNodeId.subx_current_position, 40.0);
+    values.put(MeshIneBitNodeId.subz_current_position, 50.0);
+    values.put(MeshIneBitNodeId.theta_current_position, 60.0);
+    values.put(MeshIneBitNodeId.current_bit_id, 7L);
+    values.put(MeshIneBitNodeId.current_bit_id_in_batch, 2L);
+    values.put(MeshIneBitNodeId.current_bit_x, 1.0);
+    values.put(MeshIneBitNodeId.current_bit_z, 2.0);
+    values.put(MeshIneBitNodeId.current_bit_y, 3.0);
+    values.put(MeshIneBitNodeId.current_bit_subx, 4.0);
+    values.put(MeshIneBitNodeId.current_bit_rotation, 90.0);
+    values.put(MeshIneBitNodeId.current_bit_refline_vu, 5.0);
+    values.put(MeshIneBitNodeId.current_bit_refline_rot, 6.0);
+    values.put(MeshIneBitNodeId.current_bit_theta, 45.0);
+    return values;
+  }
+
+  public String getEndpointUrl() {
+    return endpointUrl;
+  }
+
+  /**
+   * @return number of read requests received so far, whatever the number of nodes in each
+   */
+  public int getReadRequests() {
+    return readRequests.get();
+  }
+
+  /**
+   * Answer the write requests holding <tt>id</tt> only after some time, without blocking the other
+   * requests
+   *
+   * @param delay milliseconds
+   */
+  public void delayWrites(NodeId id, long delay) {
+    writeDelays.put(id, delay);
+  }
+
+  /**
+   * @return <tt>start</tt> when a write request is received and <tt>end</tt> when it is
+   * answered, each followed by the identifiers of the written nodes, in the order met by the server
+   */
+  public List<String> getWriteEvents() {
+    return writeEvents;
+  }
+
+  public void setValue(NodeId id, Object value) {
+    namespace.nodes.get(id)
+        .setValue(new DataValue(new Variant(value)));
+  }
+
+  /**
+   * Stop the server and wait for it. A failure to stop is thrown as a {@link
+   * java.util.concurrent.CompletionException}
+   */
+  @Override
+  public void close() {
+    namespace.shutdown();
+    server.shutdown()
+        .join();
+  }
+
+  private class MachineNamespace extends ManagedNamespaceWithLifecycle {
+
+    private final SubscriptionModel subscriptionModel;
+    private final Map<NodeId, UaVariableNode> nodes = new ConcurrentHashMap<>();
+
+    MachineNamespace(OpcUaServer server, Map<NodeId, Object> values) {
+      super(server, "urn:meshinebits:test:machine");
+      subscriptionModel = new SubscriptionModel(server, this);
+      getLifecycleManager().addLifecycle(subscriptionModel);
+      getLifecycleManager().addStartupTask(() -> values.forEach(this::addVariable));
+    }
+
+    private void addVariable(NodeId id, Object value) {
+      NodeId type;
+      if (value instanceof Boolean) {
+        type = Identifiers.Boolean;
+      } else if (value instanceof String) {
+        type = Identifiers.String;
+      } else if (value instanceof Long) {
+        type = Identifiers.Int64;
+      } else {
+        type = Identifiers.Double;
+      }
+      String name = id.getIdentifier()
+          .toString();
+      UaVariableNode node = new UaVariableNode.UaVariableNodeBuilder(getNodeContext())
+          .setNodeId(id)
+          .setBrowseName(newQualifiedName(name))
+          .setDisplayName(LocalizedText.english(name))
+          .setDataType(type)
+          .setTypeDefinition(Identifiers.BaseDataVariableType)
+          .setAccessLevel(AccessLevel.READ_WRITE)
+          .setUserAccessLevel(AccessLevel.READ_WRITE)
+          .build();
+      node.setValue(new DataValue(new Variant(value)));
+      getNodeManager().addNode(node);
+      nodes.put(id, node);
+    }
+
+    @Override
+    public void read(ReadContext context, Double maxAge, TimestampsToReturn timestamps,
+        List<ReadValueId> readValueIds) {
+      readRequests.incrementAndGet();
+      super.read(context, maxAge, timestamps, readValueIds);
+    }
+
+    @Override
+    public void write(WriteContext context, List<WriteValue> writeValues) {
+      StringBuilder ids = new StringBuilder();
+      long delay = 0;
+      for (WriteValue writeValue : writeValues) {
+        ids.append(' ')
+            .append(writeValue.getNodeId()
+                .getIdentifier());
+        delay = Math.max(delay, writeDelays.getOrDefault(writeValue.getNodeId(), 0L));
+      }
+      writeEvents.add("start" + ids);
+      CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+          .execute(() -> {
+            // Logged before answering, so before the client can send anything else
+            writeEvents.add("end" + ids);
+            super.write(context, writeValues);
+          });
+    }
+
+    @Override
+    public void onDataItemsCreated(List<DataItem> dataItems) {
+      subscriptionModel.onDataItemsCreated(dataItems);
+    }
+
+    @Override
+    public void onDataItemsModified(List<DataItem> dataItems) {
+      subscriptionModel.onDataItemsModified(dataItems);
+    }
+
+    @Override
+    public void onDataItemsDeleted(List<DataItem> dataItems) {
+      subscriptionModel.onDataItemsDeleted(dataItems);
+    }
+
+    @Override
+    public void onMonitoringModeChanged(List<MonitoredItem> monitoredItems) {
+      subscriptionModel.onMonitoringModeChanged(monitoredItems);
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import meshIneBits.opcuaHelper.BitSLicRHelperConfig;
+import meshIneBits.opcuaHelper.BitSLickrMachineAdapter;
+import meshIneBits.opcuaHelper.MeshIneBitNodeId;
+import meshIneBits.opcuaHelper.NodeSnapshot;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class MachineRequestTest {
+
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private static final String bitId = MeshIneBitNodeId.current_bit_id.getIdentifier()
+      .toString();
+  private static final String position = MeshIneBitNodeId.x_current_position.getIdentifier()
+      .toString();
+  private static final String slow = MeshIneBitNodeId.z_current_position.getIdentifier()
+      .toString();
+  private static final String fast = MeshIneBitNodeId.y_current_position.getIdentifier()
+      .toString();
+
+  private static LocalOpcUaServer server;
+  private static BitSLickrMachineAdapter machine;
+
+  /**
+   * Depositing machine served at another address
+   */
+  private static class LocalMachine extends BitSLickrMachineAdapter {
+
+    @Override
+    public String getEndpointUrl() {
+      return server.getEndpointUrl();
+    }
+
+    @Override
+    public String getMachineId() {
+      return BitSLicRHelperConfig.depose_machine_url;
+    }
+  }
+
+  @BeforeAll
+  static void startServer() throws Exception {
+    server = new LocalOpcUaServer(LocalOpcUaServer.depositingTelemetry());
+    machine = new LocalMachine();
+  }
+
+  @AfterAll
+  static void stopServer() throws Exception {
+    machine.close();
+    server.close();
+  }
+
+  @Test
+  void testReadsSeeWritesOfSameRequest() throws Exception {
+    NodeSnapshot snapshot = machine.request()
+        .write(position, 123.0)
+        .read(position)
+        .send()
+        .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    assertEquals(123.0, snapshot.getDouble(position));
+  }
+
+  @Test
+  void testRejectedWriteSkipsReads() throws Exception {
+    machine.request()
+        .read(position)
+        .send()
+        .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    int before = server.getReadRequests();
+    // The start button is declared for the machine but not served
+    CompletableFuture<NodeSnapshot> rejected = machine.request()
+        .write(MeshIneBitNodeId.start_depose.getIdentifier()
+            .toString(), true)
+        .read(position)
+        .send();
+    assertThrows(ExecutionException.class,
+        () -> rejected.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(before, server.getReadRequests());
+  }
+
+  @Test
+  void testRequestsToOneMachineRunInOrder() throws Exception {
+    List<CompletableFuture<NodeSnapshot>> requests = new ArrayList<>();
+    for (long i = 100; i < 130; i++) {
+      requests.add(machine.request()
+          .write(bitId, i)
+          .read(bitId)
+          .send());
+    }
+    for (int i = 0; i < requests.size(); i++) {
+      // Each request reads its own write, before the next request writes
+      assertEquals(100L + i, requests.get(i)
+          .get(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+          .getLong(bitId));
+    }
+  }
+
+  @Test
+  void testTimedOutRequestStillHoldsTheNextOne() throws Exception {
+    server.delayWrites(MeshIneBitNodeId.z_current_position, 1000);
+    try {
+      int firstEvent = server.getWriteEvents()
+          .size();
+      CompletableFuture<NodeSnapshot> timedOut = machine.request()
+          .write(slow, 1.0)
+          .timeout(200)
+          .send();
+      CompletableFuture<NodeSnapshot> next = machine.request()
+          .write(fast, 2.0)
+          .read(fast)
+          .send();
+      ExecutionException e = assertThrows(ExecutionException.class,
+          () -> timedOut.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      assertTrue(e.getCause() instanceof TimeoutException);
+      assertEquals(2.0, next.get(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+          .getDouble(fast));
+
+      // The writes of the next request are sent once those of the timed out one are done
+      List<String> events = server.getWriteEvents()
+          .subList(firstEvent, firstEvent + 4);
+      assertEquals(List.of("start " + slow, "end " + slow, "start " + fast, "end " + fast),
+          events);
+    } finally {
+      server.delayWrites(MeshIneBitNodeId.z_current_position, 0);
+    }
+  }
+
+  @Test
+  void testTimeoutStartsWithTheTurnOfTheRequest() throws Exception {
+    server.delayWrites(MeshIneBitNodeId.z_current_position, 600);
+    try {
+      CompletableFuture<NodeSnapshot> first = machine.request()
+          .write(slow, 3.0)
+          .send();
+      // Would time out if it counted the wait for the first request
+      CompletableFuture<NodeSnapshot> second = machine.request()
+          .write(fast, 4.0)
+          .read(fast)
+          .timeout(400)
+          .send();
+      first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      assertEquals(4.0, second.get(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+          .getDouble(fast));
+    } finally {
+      server.delayWrites(MeshIneBitNodeId.z_current_position, 0);
+    }
+  }
+}
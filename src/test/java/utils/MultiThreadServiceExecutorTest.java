@@ -0,0 +1,206 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import meshIneBits.util.MultiThreadServiceExecutor;
+import meshIneBits.util.MultiThreadServiceExecutor.ThreadPoolType;
+import org.junit.jupiter.api.Test;
+
+class MultiThreadServiceExecutorTest {
+
+  @Test
+  void testMetricsCountTasks() throws Exception {
+    MultiThreadServiceExecutor executor = new MultiThreadServiceExecutor(
+        ThreadPoolType.FIXED, 1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    executor.execute(() -> {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread()
+            .interrupt();
+      }
+    });
+    Future<Integer> waiting = executor.submit(() -> 42);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    assertEquals(1, executor.getActiveTaskCount());
+    assertEquals(1, executor.getQueuedTaskCount());
+    release.countDown();
+    assertEquals(42, (int) waiting.get(5, TimeUnit.SECONDS));
+    executor.shutdownService();
+    assertEquals(2, executor.getCompletedTaskCount());
+    assertEquals(0, executor.getActiveTaskCount());
+  }
+
+  @Test
+  void testCancelledGroupSkipsWaitingTasks() throws Exception {
+    MultiThreadServiceExecutor executor = new MultiThreadServiceExecutor(
+        ThreadPoolType.WORK_STEALING, 1);
+    MultiThreadServiceExecutor.TaskGroup group = executor.newTaskGroup();
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicInteger ran = new AtomicInteger();
+    group.execute(() -> {
+      started.countDown();
+      while (!group.isCancelled()) {
+        Thread.onSpinWait();
+      }
+    });
+    for (int i = 0; i < 10; i++) {
+      group.execute(ran::incrementAndGet);
+    }
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    group.cancel();
+    group.execute(ran::incrementAndGet);
+    executor.shutdownService();
+    assertTrue(group.isDone());
+    assertEquals(0, ran.get());
+  }
+
+  @Test
+  void testCancelledGroupCancelsWaitingResults() throws Exception {
+    MultiThreadServiceExecutor executor = new MultiThreadServiceExecutor(
+        ThreadPoolType.WORK_STEALING, 1);
+    MultiThreadServiceExecutor.TaskGroup group = executor.newTaskGroup();
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicInteger ran = new AtomicInteger();
+    CompletableFuture<Void> running = group.runAsync(() -> {
+      started.countDown();
+      while (!group.isCancelled()) {
+        Thread.onSpinWait();
+      }
+    });
+    CompletableFuture<?>[] results = new CompletableFuture<?>[10];
+    for (int i = 0; i < results.length; i++) {
+      results[i] = group.runAsync(ran::incrementAndGet);
+    }
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    group.cancel();
+    CompletableFuture<Void> afterCancel = group.runAsync(ran::incrementAndGet);
+
+    // Waiting on all of them ends instead of hanging on the dropped tasks
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> CompletableFuture.allOf(results)
+            .get(5, TimeUnit.SECONDS));
+    assertTrue(e.getCause() instanceof CancellationException);
+    assertTrue(afterCancel.isCancelled());
+    assertThrows(CancellationException.class, () -> running.get(5, TimeUnit.SECONDS));
+    executor.shutdownService();
+    assertEquals(0, ran.get());
+  }
+
+  @Test
+  void testGroupResultsFollowTheirTask() throws Exception {
+    MultiThreadServiceExecutor executor = new MultiThreadServiceExecutor(
+        ThreadPoolType.WORK_STEALING, 2);
+    MultiThreadServiceExecutor.TaskGroup group = executor.newTaskGroup();
+    AtomicInteger ran = new AtomicInteger();
+    group.runAsync(ran::incrementAndGet)
+        .get(5, TimeUnit.SECONDS);
+    assertEquals(1, ran.get());
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> group.runAsync(() -> {
+          throw new IllegalStateException("failed");
+        })
+            .get(5, TimeUnit.SECONDS));
+    assertTrue(e.getCause() instanceof IllegalStateException);
+    executor.shutdownService();
+  }
+
+  @Test
+  void testInvokeParallelRethrowsAndBoundsThreads() {
+    MultiThreadServiceExecutor executor = new MultiThreadServiceExecutor(
+        ThreadPoolType.WORK_STEALING, 4);
+    int[] squares = new int[1000];
+    executor.invokeParallel(() -> IntStream.range(0, squares.length)
+        .parallel()
+        .forEach(i -> squares[i] = i * i), 2);
+    assertEquals(999 * 999, squares[999]);
+    assertThrows(IllegalStateException.class, () -> executor.invokeParallel(() -> {
+      throw new IllegalStateException();
+    }, 0));
+    executor.shutdownService();
+  }
+
+  @Test
+  void testConcurrentTasksNeverExceedParallelism() throws Exception {
+    int parallelism = 3;
+    MultiThreadServiceExecutor executor = new MultiThreadServiceExecutor(
+        ThreadPoolType.WORK_STEALING, parallelism);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    Runnable task = () -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(2);
+      while (System.nanoTime() < end) {
+        Thread.onSpinWait();
+      }
+      running.decrementAndGet();
+    };
+    MultiThreadServiceExecutor.TaskGroup group = executor.newTaskGroup();
+    for (int i = 0; i < 30; i++) {
+      group.execute(task);
+    }
+    executor.invokeParallel(() -> IntStream.range(0, 30)
+        .parallel()
+        .forEach(i -> task.run()), 0);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!group.isDone() && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    executor.shutdownService();
+    assertTrue(group.isDone());
+    assertTrue(maxRunning.get() <= parallelism, "max running " + maxRunning.get());
+
+    MultiThreadServiceExecutor large = new MultiThreadServiceExecutor(
+        ThreadPoolType.WORK_STEALING, 4);
+    maxRunning.set(0);
+    large.invokeParallel(() -> IntStream.range(0, 30)
+        .parallel()
+        .forEach(i -> task.run()), 2);
+    large.shutdownService();
+    assertTrue(maxRunning.get() <= 2, "max running " + maxRunning.get());
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import meshIneBits.opcuaHelper.BitSLicRHelperConfig;
+import meshIneBits.opcuaHelper.MeshIneBitNodeId;
+import meshIneBits.opcuaHelper.NodeSnapshot;
+import meshIneBits.opcuaHelper.OpcUaSession;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class OpcUaSessionTest {
+
+  private static LocalOpcUaServer server;
+
+  @BeforeAll
+  static void startServer() throws Exception {
+    server = new LocalOpcUaServer(LocalOpcUaServer.depositingTelemetry());
+  }
+
+  @AfterAll
+  static void stopServer() throws Exception {
+    server.close();
+  }
+
+  private static OpcUaSession openSession(OpcUaClient client) {
+    // The nodes are declared for the depositing machine, whatever the address of the server
+    return OpcUaSession.of(client, BitSLicRHelperConfig.depose_machine_url);
+  }
+
+  @Test
+  void testSessionIsReusedUntilDisconnected() throws Exception {
+    OpcUaClient client = OpcUaClient.create(server.getEndpointUrl());
+    OpcUaSession session = openSession(client);
+    assertSame(session, openSession(client));
+    assertSame(session, OpcUaSession.of(client));
+
+    String id = MeshIneBitNodeId.current_bit_id.getIdentifier()
+        .toString();
+    assertEquals(7L, session.readValues(List.of(id))
+        .getLong(id));
+
+    session.disconnect()
+        .get();
+    OpcUaSession reopened = openSession(client);
+    assertNotSame(session, reopened);
+    assertEquals(7L, reopened.readValues(List.of(id))
+        .getLong(id));
+    OpcUaSession.close(client)
+        .get();
+  }
+
+  @Test
+  void testTelemetryIsReadInOneRequest() throws Exception {
+    Map<NodeId, Object> expected = LocalOpcUaServer.depositingTelemetry();
+    List<String> ids = new ArrayList<>();
+    for (NodeId nodeId : expected.keySet()) {
+      ids.add(nodeId.getIdentifier()
+          .toString());
+    }
+    OpcUaClient client = OpcUaClient.create(server.getEndpointUrl());
+    OpcUaSession session = openSession(client);
+    session.connect();
+
+    int before = server.getReadRequests();
+    NodeSnapshot snapshot = session.readValues(ids);
+    assertEquals(1, server.getReadRequests() - before);
+
+    for (Map.Entry<NodeId, Object> entry : expected.entrySet()) {
+      Object value = entry.getValue();
+      String id = entry.getKey()
+          .getIdentifier()
+          .toString();
+      assertEquals(value, snapshot.getValue(id, value.getClass()), id);
+    }
+    session.disconnect()
+        .get();
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import meshIneBits.opcuaHelper.BitSLicRHelperConfig;
+import meshIneBits.opcuaHelper.MeshIneBitNodeId;
+import meshIneBits.opcuaHelper.NodeSnapshot;
+import meshIneBits.opcuaHelper.OpcUaSession;
+import meshIneBits.opcuaHelper.OpcUaSubscriptionService;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Subscription to the depositing telemetry, as done by the depositing window, against a local
+ * server.
+ */
+class OpcUaSubscriptionServiceTest {
+
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private static String idOf(NodeId nodeId) {
+    return nodeId.getIdentifier()
+        .toString();
+  }
+
+  @Test
+  void testTelemetryChangesArePushed() throws Exception {
+    Map<NodeId, Object> expected = LocalOpcUaServer.depositingTelemetry();
+    List<String> ids = new ArrayList<>();
+    for (NodeId nodeId : expected.keySet()) {
+      ids.add(idOf(nodeId));
+    }
+    try (LocalOpcUaServer server = new LocalOpcUaServer(expected)) {
+      OpcUaClient client = OpcUaClient.create(server.getEndpointUrl());
+      OpcUaSession session = OpcUaSession.of(client, BitSLicRHelperConfig.depose_machine_url);
+      BlockingQueue<NodeSnapshot> snapshots = new LinkedBlockingQueue<>();
+      // The deadband is refused on the string and boolean nodes, which are watched without it
+      OpcUaSubscriptionService.Registration registration = session.getSubscriptions()
+          .subscribe(ids, 20, BitSLicRHelperConfig.position_deadband, snapshots::add);
+
+      NodeSnapshot first = snapshots.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      assertNotNull(first, "No initial snapshot");
+      for (Map.Entry<NodeId, Object> entry : expected.entrySet()) {
+        Object value = entry.getValue();
+        String id = idOf(entry.getKey());
+        assertEquals(value, first.getValue(id, value.getClass()), id);
+      }
+
+      String position = idOf(MeshIneBitNodeId.x_current_position);
+      String bitId = idOf(MeshIneBitNodeId.current_bit_id);
+      server.setValue(MeshIneBitNodeId.x_current_position, 110.0);
+      server.setValue(MeshIneBitNodeId.current_bit_id, 8L);
+      NodeSnapshot changed = snapshots.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      while (changed != null && changed.getLong(bitId) != 8L) {
+        changed = snapshots.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      }
+      assertNotNull(changed, "Change not pushed");
+      assertEquals(110.0, changed.getDouble(position));
+      assertEquals(8L, registration.getSnapshot()
+          .getLong(bitId));
+
+      registration.cancel();
+      assertTrue(registration.isCancelled());
+      snapshots.clear();
+      server.setValue(MeshIneBitNodeId.current_bit_id, 9L);
+      assertNull(snapshots.poll(500, TimeUnit.MILLISECONDS), "Change pushed after cancel");
+      session.disconnect()
+          .get();
+    }
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+
+package utils;
+
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Vector;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import meshIneBits.Bit2D;
+import meshIneBits.Mesh;
+import meshIneBits.NewBit2D;
+import meshIneBits.config.CraftConfig;
+import meshIneBits.slicer.Slice;
+import meshIneBits.util.AreaTool;
+import meshIneBits.util.CalculateAreaSurface;
+import meshIneBits.util.PackedArea;
+import meshIneBits.util.Vector2;
+
+/**
+ * Times the surface operations of paving with {@link PackedArea} and with {@link Area}, on the
+ * slices of the bundled models. Bits are laid at random angles over each slice, with a fixed
+ * seed, so that two runs time the same work.
+ * <p>
+ * Not a unit test, run its main method. Arguments are the number of rounds, then the models of the
+ * <tt>stlModel</tt> folder to slice.
+ */
+public class PackedAreaBenchmark {
+
+  private static final long SEED = 42;
+  private static final int WARM_UP_ROUNDS = 2;
+
+  /**
+   * Section of each slice of the model
+   */
+  private final List<Area> sections = new ArrayList<>();
+  private final List<PackedArea> packedSections = new ArrayList<>();
+  /**
+   * Bits crossing the border of each section
+   */
+  private final List<List<Bit2D>> bits = new ArrayList<>();
+  /**
+   * Surface of the bits crossing a border, once cut
+   */
+  private final List<Area> cutAreas = new ArrayList<>();
+  /**
+   * Bits crossing a border, once cut
+   */
+  private final List<Bit2D> cutBits = new ArrayList<>();
+
+  public static void main(String[] args) throws Exception {
+    int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    String[] models = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length)
+        : new String[]{"Blob.stl", "HoledBox.stl"};
+    for (String model : models) {
+      PackedAreaBenchmark benchmark = new PackedAreaBenchmark(model);
+      System.out.println(model + ": " + benchmark.sections.size() + " slices, "
+          + benchmark.cutAreas.size() + " border bits");
+      benchmark.run(rounds).forEach((name, millis) ->
+          System.out.printf("  %-24s %10.3f ms per round%n", name, millis));
+    }
+    System.exit(0);
+  }
+
+  private PackedAreaBenchmark(String model) throws Exception {
+    Mesh mesh = new Mesh();
+    mesh.importModel(PackedAreaBenchmark.class.getResource("/stlModel/" + model)
+        .getPath());
+    mesh.slice();
+    long deadline = System.currentTimeMillis() + 60_000;
+    while (!mesh.isSliced()) {
+      if (System.currentTimeMillis() > deadline) {
+        throw new IllegalStateException("Slicing " + model + " takes too long");
+      }
+      Thread.sleep(100);
+    }
+    Random random = new Random(SEED);
+    for (Slice slice : mesh.getSlices()) {
+      Area section = AreaTool.getAreaFrom(slice);
+      if (section.isEmpty()) {
+        continue;
+      }
+      PackedArea packedSection = PackedArea.of(section);
+      List<Bit2D> borderBits = new ArrayList<>();
+      Rectangle2D bounds = section.getBounds2D();
+      for (double x = bounds.getMinX(); x < bounds.getMaxX(); x += CraftConfig.lengthFull / 2) {
+        for (double y = bounds.getMinY(); y < bounds.getMaxY(); y += CraftConfig.bitWidth) {
+          double angle = random.nextDouble() * 2 * Math.PI;
+          Bit2D bit = new NewBit2D(new Vector2(x, y), new Vector2(Math.cos(angle), Math.sin(angle)),
+              CraftConfig.lengthFull, CraftConfig.bitWidth);
+          // Only the bits crossing the border are cut by paving
+          Area cut = bit.getAreaCS();
+          cut.intersect(section);
+          if (!cut.isEmpty() && !cut.equals(bit.getAreaCS())) {
+            borderBits.add(bit);
+            cutAreas.add(cut);
+            Bit2D cutBit = bit.clone();
+            cutBit.updateBoundaries(cut);
+            cutBits.add(cutBit);
+          }
+        }
+      }
+      sections.add(section);
+      packedSections.add(packedSection);
+      bits.add(borderBits);
+    }
+  }
+
+  /**
+   * @return milliseconds per round of each operation, after warming up
+   * @throws IllegalStateException if both kinds of surface do not give the same area
+   */
+  private Map<String, Double> run(int rounds) {
+    Map<String, ToDoubleFunction<PackedAreaBenchmark>> operations = new LinkedHashMap<>();
+    operations.put("cut, Area", PackedAreaBenchmark::cutWithArea);
+    operations.put("cut, PackedArea", PackedAreaBenchmark::cutWithPackedArea);
+    operations.put("segregate, Area", b -> b.segregate(AreaTool::segregateAreaByRings));
+    operations.put("segregate, PackedArea", b -> b.segregate(AreaTool::segregateArea));
+    operations.put("bit area, Area", PackedAreaBenchmark::bitAreasWithArea);
+    operations.put("bit area, PackedArea", PackedAreaBenchmark::bitAreasWithPackedArea);
+
+    Map<String, Double> results = new LinkedHashMap<>();
+    Map<String, Double> millis = new LinkedHashMap<>();
+    for (int round = -WARM_UP_ROUNDS; round < rounds; round++) {
+      for (Map.Entry<String, ToDoubleFunction<PackedAreaBenchmark>> operation :
+          operations.entrySet()) {
+        long start = System.nanoTime();
+        double result = operation.getValue()
+            .applyAsDouble(this);
+        long elapsed = System.nanoTime() - start;
+        results.put(operation.getKey(), result);
+        if (round >= 0) {
+          millis.merge(operation.getKey(), elapsed / 1e6 / rounds, Double::sum);
+        }
+      }
+    }
+    String[] names = results.keySet()
+        .toArray(new String[0]);
+    for (int i = 0; i < names.length; i += 2) {
+      double expected = results.get(names[i]);
+      double actual = results.get(names[i + 1]);
+      if (Math.abs(expected - actual) > 1e-6 * Math.max(1, Math.abs(expected))) {
+        throw new IllegalStateException(
+            names[i + 1] + " gives " + actual + " instead of " + expected);
+      }
+    }
+    return millis;
+  }
+
+  /**
+   * @return total area of the cut bits
+   */
+  private double cutWithArea() {
+    double total = 0;
+    for (int i = 0; i < sections.size(); i++) {
+      for (Bit2D bit : bits.get(i)) {
+        Area cut = bit.getAreaCS();
+        cut.intersect(sections.get(i));
+        total += CalculateAreaSurface.approxArea(cut, 0);
+      }
+    }
+    return total;
+  }
+
+  private double cutWithPackedArea() {
+    double total = 0;
+    for (int i = 0; i < sections.size(); i++) {
+      for (Bit2D bit : bits.get(i)) {
+        total += bit.getPackedAreaCS()
+            .intersect(packedSections.get(i))
+            .area();
+      }
+    }
+    return total;
+  }
+
+  /**
+   * @return total area of the surfaces
+   */
+  private double segregate(Function<Area, Vector<Area>> segregation) {
+    double total = 0;
+    for (Area cut : cutAreas) {
+      Vector<Area> surfaces = segregation.apply(cut);
+      if (surfaces != null) {
+        for (Area surface : surfaces) {
+          total += CalculateAreaSurface.approxArea(surface, 0);
+        }
+      }
+    }
+    return total;
+  }
+
+  /**
+   * @return total area of the cut bits, as the genetic border paver scores them
+   */
+  private double bitAreasWithArea() {
+    double total = 0;
+    for (Bit2D bit : cutBits) {
+      total += CalculateAreaSurface.approxArea(bit.getAreaCS(), 0);
+    }
+    return total;
+  }
+
+  private double bitAreasWithPackedArea() {
+    double total = 0;
+    for (Bit2D bit : cutBits) {
+      for (Area surface : bit.getAreasCB()) {
+        total += PackedArea.of(surface)
+            .area();
+      }
+    }
+    return total;
+  }
+}
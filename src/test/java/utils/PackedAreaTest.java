@@ -0,0 +1,187 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+import java.util.Vector;
+import meshIneBits.util.AreaTool;
+import meshIneBits.util.PackedArea;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.Test;
+
+class PackedAreaTest {
+
+  private static final double EPSILON = 1e-6;
+
+  /**
+   * Square with a square hole
+   */
+  private static Area frame() {
+    Area area = new Area(new Rectangle2D.Double(0, 0, 100, 100));
+    area.subtract(new Area(new Rectangle2D.Double(30, 30, 40, 40)));
+    return area;
+  }
+
+  private static Area rotatedRectangle(double x, double y, double angle) {
+    Area area = new Area(new Rectangle2D.Double(-40, -12, 80, 24));
+    AffineTransform transform = AffineTransform.getTranslateInstance(x, y);
+    transform.rotate(angle);
+    area.transform(transform);
+    return area;
+  }
+
+  private static double area(Shape shape) {
+    return PackedArea.of(shape)
+        .area();
+  }
+
+  /**
+   * Compare the three operations with {@link Area}, by their area and by random points
+   */
+  private static void assertSameAsArea(Area first, Area second, Random random) {
+    PackedArea a = PackedArea.of(first);
+    PackedArea b = PackedArea.of(second);
+    Area intersection = new Area(first);
+    intersection.intersect(second);
+    Area union = new Area(first);
+    union.add(second);
+    Area difference = new Area(first);
+    difference.subtract(second);
+    PackedArea[] results = {a.intersect(b), a.union(b), a.subtract(b)};
+    Area[] expected = {intersection, union, difference};
+
+    Rectangle2D bounds = union.getBounds2D();
+    for (int k = 0; k < results.length; k++) {
+      assertEquals(area(expected[k]), results[k].area(), 1e-4 * Math.max(1, area(union)),
+          "operation " + k);
+      Area xor = results[k].toArea();
+      xor.exclusiveOr(expected[k]);
+      assertEquals(0.0, area(xor), 1e-4 * Math.max(1, area(union)), "operation " + k);
+      for (int i = 0; i < 200; i++) {
+        double x = bounds.getMinX() + random.nextDouble() * bounds.getWidth();
+        double y = bounds.getMinY() + random.nextDouble() * bounds.getHeight();
+        // Away from the borders
+        Rectangle2D around = new Rectangle2D.Double(x - 0.01, y - 0.01, 0.02, 0.02);
+        if (expected[k].contains(around) || !expected[k].intersects(around)) {
+          assertEquals(expected[k].contains(x, y), results[k].contains(x, y),
+              "operation " + k + " at " + x + " " + y);
+        }
+      }
+    }
+  }
+
+  @Test
+  void holesAreKept() {
+    PackedArea frame = PackedArea.of(frame());
+
+    assertEquals(2, frame.getRingCount());
+    assertEquals(100 * 100 - 40 * 40, frame.area(), EPSILON);
+    assertTrue(frame.contains(10, 10));
+    assertTrue(!frame.contains(50, 50));
+    Vector2 centroid = frame.centroid();
+    assertEquals(50.0, centroid.x, EPSILON);
+    assertEquals(50.0, centroid.y, EPSILON);
+    assertEquals(1, frame.getComponents()
+        .size());
+    assertEquals(frame.area(), area(frame.toPath2D()), EPSILON);
+  }
+
+  @Test
+  void bitsAcrossTheBorderAreCutAsByArea() {
+    Random random = new Random(3);
+    Area section = frame();
+    section.add(new Area(new Ellipse2D.Double(60, -30, 90, 70)));
+    for (int i = 0; i < 60; i++) {
+      assertSameAsArea(rotatedRectangle(random.nextDouble() * 160 - 20,
+          random.nextDouble() * 140 - 30, random.nextDouble() * Math.PI), section, random);
+    }
+  }
+
+  @Test
+  void sharedEdgesAndCornersAreHandled() {
+    Random random = new Random(5);
+    Area left = new Area(new Rectangle2D.Double(0, 0, 10, 10));
+    // Same edge, in part
+    assertSameAsArea(left, new Area(new Rectangle2D.Double(10, 5, 10, 10)), random);
+    // Same corner only
+    assertSameAsArea(left, new Area(new Rectangle2D.Double(10, 10, 10, 10)), random);
+    // Same outline
+    assertSameAsArea(left, new Area(new Rectangle2D.Double(0, 0, 10, 10)), random);
+    // Inside, along a side
+    assertSameAsArea(frame(), new Area(new Rectangle2D.Double(0, 0, 30, 100)), random);
+    // Filling the hole
+    assertSameAsArea(frame(), new Area(new Rectangle2D.Double(30, 30, 40, 40)), random);
+  }
+
+  @Test
+  void componentsAreSeparated() {
+    PackedArea frame = PackedArea.of(frame());
+    PackedArea cut = frame.subtract(PackedArea.of(new Rectangle2D.Double(40, -10, 20, 120)));
+
+    assertEquals(2, cut.getComponents()
+        .size());
+    assertEquals(100 * 100 - 40 * 40 - (20 * 100 - 20 * 40.0), cut.area(), EPSILON);
+    assertTrue(PackedArea.of(new Rectangle2D.Double(0, 0, 1, 1))
+        .intersect(PackedArea.of(new Rectangle2D.Double(5, 5, 1, 1)))
+        .isEmpty());
+  }
+
+  @Test
+  void segregationMatchesTheOneByRings() {
+    Area area = frame();
+    // Island in the hole, a separate square and a sliver too thin to be kept
+    area.add(new Area(new Rectangle2D.Double(40, 40, 20, 20)));
+    area.add(new Area(new Rectangle2D.Double(150, 0, 30, 30)));
+    area.add(new Area(new Rectangle2D.Double(200, 0, 1e-9, 30)));
+
+    Vector<Area> surfaces = AreaTool.segregateArea(area);
+    Vector<Area> byRings = AreaTool.segregateAreaByRings(area);
+    assertEquals(3, surfaces.size());
+    assertEquals(byRings.size(), surfaces.size());
+    for (Area surface : byRings) {
+      assertTrue(surfaces.stream()
+          .anyMatch(s -> {
+            Area xor = new Area(s);
+            xor.exclusiveOr(surface);
+            return area(xor) < EPSILON;
+          }), "No surface matches " + surface.getBounds2D());
+    }
+  }
+}
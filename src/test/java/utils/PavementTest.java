@@ -0,0 +1,169 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import meshIneBits.Bit2D;
+import meshIneBits.NewBit2D;
+import meshIneBits.Pavement;
+import meshIneBits.config.CraftConfig;
+import meshIneBits.util.PackedArea;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.Test;
+
+class PavementTest {
+
+  private static Bit2D bitAt(double x, double y) {
+    return new NewBit2D(new Vector2(x, y), new Vector2(1, 0), CraftConfig.lengthFull,
+        CraftConfig.bitWidth);
+  }
+
+  /**
+   * Rows of bits side by side, without overlap
+   */
+  private static List<Bit2D> grid(int columns, int rows) {
+    List<Bit2D> bits = new ArrayList<>();
+    for (int i = 0; i < columns; i++) {
+      for (int j = 0; j < rows; j++) {
+        bits.add(bitAt(i * CraftConfig.lengthFull, j * CraftConfig.bitWidth));
+      }
+    }
+    return bits;
+  }
+
+  @Test
+  void bitAtTheSamePlaceIsReplaced() {
+    Pavement pavement = new Pavement(grid(3, 3));
+    Bit2D replacing = bitAt(CraftConfig.lengthFull + 1e-7, CraftConfig.bitWidth);
+
+    Vector2 key = pavement.addBit(replacing);
+
+    assertEquals(9, pavement.size());
+    assertSame(replacing, pavement.getBit(key));
+    assertSame(key, pavement.getKeyNear(new Vector2(CraftConfig.lengthFull,
+        CraftConfig.bitWidth - 1e-7)));
+    assertNull(pavement.getKeyNear(new Vector2(CraftConfig.lengthFull + 1, CraftConfig.bitWidth)));
+  }
+
+  @Test
+  void keyOfBitFollowsRemovals() {
+    List<Bit2D> bits = grid(4, 2);
+    Pavement pavement = new Pavement(bits);
+    Bit2D bit = bits.get(5);
+
+    Vector2 key = pavement.getKey(bit);
+    assertSame(bit, pavement.getBit(key));
+
+    pavement.removeBit(key);
+    assertNull(pavement.getKey(bit));
+    assertNull(pavement.getKeyNear(bit.getOriginCS()));
+    assertEquals(7, pavement.getBitsView()
+        .size());
+  }
+
+  @Test
+  void regionQueryFindsBitsAcrossCells() {
+    Pavement pavement = new Pavement(grid(10, 10));
+    // Around the origin of the bit at (2 * length, 5 * width)
+    Rectangle2D region = new Rectangle2D.Double(2 * CraftConfig.lengthFull - 1,
+        5 * CraftConfig.bitWidth - 1, 2, 2);
+
+    List<Vector2> keys = pavement.getBitsKeysIn(region);
+
+    assertEquals(1, keys.size());
+    assertTrue(keys.get(0)
+        .asGoodAsEqual(new Vector2(2 * CraftConfig.lengthFull, 5 * CraftConfig.bitWidth)));
+    for (Vector2 key : pavement.getBitsKeysView()) {
+      boolean intersects = pavement.getBit(key)
+          .getAreaCS()
+          .getBounds2D()
+          .intersects(region);
+      assertEquals(intersects, keys.contains(key));
+    }
+  }
+
+  @Test
+  void bitIsFoundUnderAPoint() {
+    Pavement pavement = new Pavement(grid(5, 5));
+    Vector2 expected = pavement.getKeyNear(new Vector2(3 * CraftConfig.lengthFull,
+        CraftConfig.bitWidth));
+
+    assertSame(expected, pavement.getBitKeyAt(new Point2D.Double(
+        3 * CraftConfig.lengthFull + CraftConfig.lengthFull / 3, CraftConfig.bitWidth)));
+    assertNull(pavement.getBitKeyAt(new Point2D.Double(-CraftConfig.lengthFull, 0)));
+  }
+
+  @Test
+  void bitsAreCutAsByTheirWholeIntersection() {
+    List<Bit2D> bits = grid(6, 20);
+    List<Bit2D> expectedBits = grid(6, 20);
+    // Polygonal, as sections of slices
+    Area section = PackedArea.of(new Ellipse2D.Double(0, 0, 4 * CraftConfig.lengthFull,
+            16 * CraftConfig.bitWidth))
+        .toArea();
+    Pavement pavement = new Pavement(bits);
+
+    pavement.computeBits(section);
+
+    for (int i = 0; i < bits.size(); i++) {
+      Bit2D expected = expectedBits.get(i);
+      Area expectedArea = expected.getAreaCS();
+      expectedArea.intersect(section);
+      Vector2 key = pavement.getKey(bits.get(i));
+      if (expectedArea.isEmpty()) {
+        assertNull(key, "bit " + i);
+        continue;
+      }
+      expected.updateBoundaries(expectedArea);
+      expected.calcCutPath();
+      Area difference = pavement.getBit(key)
+          .getAreaCS();
+      difference.exclusiveOr(expected.getAreaCS());
+      assertEquals(0.0, PackedArea.of(difference)
+          .area(), 1e-6, "bit " + i);
+      assertEquals(expected.getCutPathsCS()
+          .size(), bits.get(i)
+          .getCutPathsCS()
+          .size(), "bit " + i);
+    }
+  }
+}
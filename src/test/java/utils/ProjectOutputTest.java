@@ -0,0 +1,128 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Vector;
+import meshIneBits.util.ProjectInput;
+import meshIneBits.util.ProjectOutput;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.Test;
+
+class ProjectOutputTest {
+
+  @Test
+  void sharedObjectsAreReadOnce() throws IOException {
+    Vector2 point = new Vector2(1.5, -2.25);
+    Path2D path = new Path2D.Double(new Rectangle2D.Double(0, 0, 10, 5));
+    Vector<Path2D> paths = new Vector<>(Collections.singletonList(path));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ProjectOutput out = new ProjectOutput(bytes, new IdentityHashMap<>(),
+        Collections.emptyMap())) {
+      out.writeVector2(point);
+      out.writeVector2(point);
+      out.writeVector2(null);
+      out.writePaths(paths);
+      out.writePath(path);
+      out.writeTransform(AffineTransform.getRotateInstance(0.5));
+    }
+
+    ProjectInput in = new ProjectInput(new ByteArrayInputStream(bytes.toByteArray()),
+        Collections.emptyList(), null);
+    Vector2 first = in.readVector2();
+    assertEquals(1.5, first.x);
+    assertEquals(-2.25, first.y);
+    assertSame(first, in.readVector2());
+    assertNull(in.readVector2());
+    Vector<Path2D> readPaths = in.readPaths();
+    assertEquals(1, readPaths.size());
+    assertSame(readPaths.get(0), in.readPath());
+    assertEquals(new Rectangle2D.Double(0, 0, 10, 5), readPaths.get(0)
+        .getBounds2D());
+    assertEquals(AffineTransform.getRotateInstance(0.5), in.readTransform());
+  }
+
+  @Test
+  void areaIsReadFromItsOutline() throws IOException {
+    Area area = new Area(new Rectangle2D.Double(-20, -10, 40, 20));
+    area.subtract(new Area(new Ellipse2D.Double(-5, -5, 10, 10)));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ProjectOutput out = new ProjectOutput(bytes, new IdentityHashMap<>(),
+        Collections.emptyMap())) {
+      out.writeShape(area);
+    }
+
+    ProjectInput in = new ProjectInput(new ByteArrayInputStream(bytes.toByteArray()),
+        Collections.emptyList(), null);
+    assertTrue(area.equals(new Area(in.readShape())));
+  }
+
+  @Test
+  void linksPointToObjectsOfOtherBlocks() throws IOException {
+    Vector2 inLayer = new Vector2(3, 4);
+    Vector2 local = new Vector2(5, 6);
+    Map<Object, Long> links = new IdentityHashMap<>();
+    links.put(inLayer, ProjectOutput.linkOf(1, 0));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ProjectOutput out = new ProjectOutput(bytes, new IdentityHashMap<>(), links)) {
+      for (Vector2 v : new Vector2[]{inLayer, local, local}) {
+        if (out.writeLink(v)) {
+          out.writeVector2(v);
+        }
+      }
+    }
+
+    ProjectInput in = new ProjectInput(new ByteArrayInputStream(bytes.toByteArray()),
+        Collections.emptyList(),
+        Arrays.asList(Collections.emptyList(), Collections.singletonList(inLayer)));
+    assertSame(inLayer, in.readLink(ProjectInput::readVector2));
+    Vector2 read = in.readLink(ProjectInput::readVector2);
+    assertEquals(5.0, read.x);
+    assertSame(read, in.readLink(ProjectInput::readVector2));
+  }
+}
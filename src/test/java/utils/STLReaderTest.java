@@ -0,0 +1,126 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import meshIneBits.util.MultiThreadServiceExecutor;
+import meshIneBits.util.supportImportFile.AsciiSTLReader;
+import meshIneBits.util.supportImportFile.BinarySTLReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class STLReaderTest {
+
+  private String pathOf(String modelFilename) {
+    return this.getClass()
+        .getResource("/stlModel/" + modelFilename)
+        .getPath();
+  }
+
+  /**
+   * Reference values, parsed line by line with {@link Double#parseDouble(String)}
+   */
+  private static List<Double> readVerticesLineByLine(String path) throws IOException {
+    List<Double> values = new ArrayList<>();
+    try (BufferedReader br = new BufferedReader(new FileReader(path))) {
+      String line;
+      while ((line = br.readLine()) != null) {
+        line = line.trim();
+        if (line.startsWith("vertex")) {
+          String[] parts = line.split(" +");
+          for (int k = 1; k <= 3; k++) {
+            values.add(Double.parseDouble(parts[k]));
+          }
+        }
+      }
+    }
+    return values;
+  }
+
+  @Test
+  void testAsciiReaderMatchesLineByLineParsing() throws IOException {
+    String path = pathOf("Blob.stl");
+    List<Double> expected = readVerticesLineByLine(path);
+    try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+      assertFalse(BinarySTLReader.isBinary(channel));
+      double[] vertices = AsciiSTLReader.read(channel);
+      assertEquals(expected.size(), vertices.length);
+      for (int i = 0; i < vertices.length; i++) {
+        assertEquals((double) expected.get(i), vertices[i], "Coordinate " + i);
+      }
+    }
+  }
+
+  @ParameterizedTest(name = "{index}. model={0}")
+  @ValueSource(strings = {"gear.stl", "HoledBox.stl", "Thors_Hammer_Magnet.stl"})
+  void testBinaryDetection(String modelFilename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(pathOf(modelFilename)),
+        StandardOpenOption.READ)) {
+      // gear.stl starts with "solid" although it is binary
+      assertTrue(BinarySTLReader.isBinary(channel));
+      float[] vertices = BinarySTLReader.read(channel);
+      assertEquals(BinarySTLReader.readTriangleCount(channel) * 9, vertices.length);
+    }
+  }
+
+  @Test
+  void testBinaryReaderDecodesOnTheCentralScheduler() throws IOException {
+    String path = pathOf("Thors_Hammer_Magnet.stl");
+    ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(Paths.get(path)))
+        .order(ByteOrder.LITTLE_ENDIAN);
+    long completedBefore = MultiThreadServiceExecutor.instance.getCompletedTaskCount();
+    float[] vertices = BinarySTLReader.read(path);
+    assertTrue(MultiThreadServiceExecutor.instance.getCompletedTaskCount() > completedBefore);
+
+    assertEquals(file.getInt(BinarySTLReader.HEADER_SIZE) * 9, vertices.length);
+    for (int i = 0; i < vertices.length; i++) {
+      int facet = i / 9;
+      int offset = BinarySTLReader.HEADER_SIZE + 4 + facet * BinarySTLReader.FACET_SIZE + 12
+          + 4 * (i % 9);
+      assertEquals(file.getFloat(offset), vertices[i], "Coordinate " + i);
+    }
+  }
+}
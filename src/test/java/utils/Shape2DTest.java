@@ -0,0 +1,98 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import meshIneBits.slicer.Slice;
+import meshIneBits.util.Polygon;
+import meshIneBits.util.Segment2D;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.Test;
+
+class Shape2DTest {
+
+  private static void addSegment(Slice slice, double x1, double y1, double x2, double y2) {
+    slice.addModelSegment(new Segment2D(new Vector2(x1, y1), new Vector2(x2, y2)));
+  }
+
+  private static int countPolygons(Slice slice) {
+    int count = 0;
+    for (Polygon ignored : slice) {
+      count++;
+    }
+    return count;
+  }
+
+  @Test
+  void testOptimizeLinksShuffledSquares() {
+    Slice slice = new Slice();
+    // Two squares, segments in disorder, with tiny gaps at joints
+    addSegment(slice, 10, 0, 10, 10);
+    addSegment(slice, 20, 20, 30, 20);
+    addSegment(slice, 0, 10, 0, 0);
+    addSegment(slice, 30, 30, 20, 30);
+    addSegment(slice, 0, 0.000001, 10, 0);
+    addSegment(slice, 30, 20, 30, 30);
+    addSegment(slice, 10, 10, 0, 10);
+    addSegment(slice, 20, 30, 20, 20);
+
+    assertFalse(slice.optimize());
+    assertEquals(2, countPolygons(slice));
+    assertTrue(slice.getOpenChains()
+        .isEmpty());
+  }
+
+  @Test
+  void testOptimizeReportsOpenChains() {
+    Slice slice = new Slice();
+    addSegment(slice, 0, 0, 10, 0);
+    addSegment(slice, 10, 0, 10, 10);
+    addSegment(slice, 10, 10, 0, 10);
+    // Closed triangle elsewhere
+    addSegment(slice, 50, 50, 60, 50);
+    addSegment(slice, 60, 50, 55, 60);
+    addSegment(slice, 55, 60, 50, 50);
+
+    assertTrue(slice.optimize());
+    assertEquals(1, countPolygons(slice));
+    assertEquals(1, slice.getOpenChains()
+        .size());
+    int chainLength = 0;
+    for (Segment2D ignored : slice.getOpenChains()
+        .get(0)) {
+      chainLength++;
+    }
+    assertEquals(3, chainLength);
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import meshIneBits.util.TrialSearch;
+import org.junit.jupiter.api.Test;
+
+class TrialSearchTest {
+
+  @Test
+  void testFirstConclusiveTrialInOrderWins() {
+    for (int round = 0; round < 20; round++) {
+      Integer result = TrialSearch.first(16, (i, cancelled) -> {
+        if (i == 5) {
+          // Later conclusive trials end first
+          try {
+            Thread.sleep(20);
+          } catch (InterruptedException e) {
+            Thread.currentThread()
+                .interrupt();
+          }
+        }
+        return i >= 5 && i % 2 == 1 ? i : null;
+      });
+      assertEquals(5, (int) result);
+    }
+  }
+
+  @Test
+  void testNoConclusiveTrial() {
+    AtomicInteger ran = new AtomicInteger();
+    assertNull(TrialSearch.first(8, (i, cancelled) -> {
+      ran.incrementAndGet();
+      return null;
+    }));
+    assertEquals(8, ran.get());
+    assertNull(TrialSearch.first(0, (i, cancelled) -> i));
+  }
+
+  @Test
+  void testTrialsAfterConclusiveOneAreCancelled() {
+    AtomicInteger ran = new AtomicInteger();
+    String result = TrialSearch.first(1000, (i, cancelled) -> {
+      ran.incrementAndGet();
+      if (i == 0) {
+        return "first";
+      }
+      // Never conclusive, gives up once cancelled
+      while (!cancelled.getAsBoolean()) {
+        Thread.onSpinWait();
+      }
+      return "late";
+    });
+    assertEquals("first", result);
+    assertTrue(ran.get() <= Runtime.getRuntime()
+        .availableProcessors());
+  }
+}
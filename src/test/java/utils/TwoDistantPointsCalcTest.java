@@ -0,0 +1,88 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2022 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020-2021 CLAIRIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import meshIneBits.util.TwoDistantPointsCalc;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.Test;
+
+class TwoDistantPointsCalcTest {
+
+  /**
+   * First pair, in order, with the greatest distance
+   */
+  private static int[] compareAllPairs(List<Vector2> points) {
+    int[] pair = null;
+    double longestDistance = 0;
+    for (int i = 0; i < points.size(); i++) {
+      for (int j = 0; j < points.size(); j++) {
+        double distance = Vector2.dist(points.get(i), points.get(j));
+        if (distance > longestDistance) {
+          pair = new int[]{i, j};
+          longestDistance = distance;
+        }
+      }
+    }
+    return pair;
+  }
+
+  @Test
+  void testSameAsComparingAllPairs() {
+    Random random = new Random(1);
+    for (int k = 0; k < 500; k++) {
+      List<Vector2> points = new ArrayList<>();
+      int n = 1 + random.nextInt(40);
+      for (int i = 0; i < n; i++) {
+        // Half of the sets on a small grid, full of duplicates and equal diagonals
+        points.add(k % 2 == 0
+            ? new Vector2(random.nextInt(5), random.nextInt(5))
+            : new Vector2(random.nextGaussian() * 50, random.nextGaussian() * 10));
+      }
+      assertArrayEquals(compareAllPairs(points), TwoDistantPointsCalc.getMostDistantPair(points),
+          points.toString());
+    }
+  }
+
+  @Test
+  void testNoPairForSinglePlace() {
+    assertNull(TwoDistantPointsCalc.getMostDistantPair(
+        Arrays.asList(new Vector2(1, 2), new Vector2(1, 2))));
+    assertNull(TwoDistantPointsCalc.getMostDistantPair(new ArrayList<>()));
+  }
+}